@@ -1,11 +1,11 @@
 package net.transgressoft.musicott.services;
 
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.music.audio.AudioItemTestFactory;
 import net.transgressoft.commons.fx.music.player.FXAudioItemPlayer;
 import net.transgressoft.commons.music.player.AudioItemPlayer;
 import net.transgressoft.musicott.events.AudioItemChangedEvent;
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
 
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -32,6 +32,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -47,12 +48,15 @@ import static org.mockito.Mockito.when;
 class PlayerServiceAutoAdvanceIT {
 
     ApplicationEventPublisher applicationEventPublisher;
+    ObservableAudioLibrary audioLibrary;
     PlayerService playerService;
+    int nextTrackId = 1;
 
     @Start
     void start(Stage stage) {
         applicationEventPublisher = mock(ApplicationEventPublisher.class);
-        playerService = new PlayerService(applicationEventPublisher);
+        audioLibrary = mock(ObservableAudioLibrary.class);
+        playerService = new PlayerService(applicationEventPublisher, audioLibrary);
     }
 
     @Test
@@ -64,7 +68,7 @@ class PlayerServiceAutoAdvanceIT {
         ReflectionTestUtils.setField(playerService, "currentTrack", Optional.of(currentItem));
         playerService.addToQueue(List.of(nextItem));
 
-        ObservableList<TrackQueueRow> queue = playerService.getPlayQueueList();
+        ObservableList<Integer> queue = playerService.getPlayQueueList();
         assertThat(queue).hasSize(1);
 
         // Intercept FXAudioItemPlayer construction so the test stays headless on all platforms.
@@ -169,9 +173,82 @@ class PlayerServiceAutoAdvanceIT {
                 .isFalse();
     }
 
+    @Test
+    @DisplayName("next swaps in the player primed for the next-up track instead of opening a new one")
+    void nextSwapsInThePlayerPrimedForTheNextUpTrack() throws Exception {
+        ObservableAudioItem first = newPlayableAudioItem("First");
+        ObservableAudioItem second = newPlayableAudioItem("Second");
+
+        playerService.addToQueue(List.of(first, second));
+
+        try (MockedConstruction<FXAudioItemPlayer> players = Mockito.mockConstruction(FXAudioItemPlayer.class,
+                (mockPlayer, context) -> {
+                    Mockito.doNothing().when(mockPlayer).play(Mockito.any());
+                    Mockito.when(mockPlayer.getStatusProperty())
+                            .thenReturn(new SimpleObjectProperty<>(AudioItemPlayer.Status.READY));
+                })) {
+            playerService.next();
+            WaitForAsyncUtils.waitForFxEvents();
+
+            // One player for the first track, one primed for the second
+            assertThat(players.constructed()).hasSize(2);
+            assertThat(playerService.isLastTrackSwitchPrebuffered()).isFalse();
+            FXAudioItemPlayer primedPlayer = players.constructed().get(1);
+            verify(primedPlayer).play(second);
+            verify(primedPlayer).pause();
+
+            playerService.next();
+            WaitForAsyncUtils.waitForFxEvents();
+
+            assertThat(players.constructed()).hasSize(2);
+            verify(primedPlayer).resume();
+        }
+
+        assertThat(playerService.currentTrack()).contains(second);
+        assertThat(playerService.isLastTrackSwitchPrebuffered()).isTrue();
+        assertThat(playerService.getLastTrackSwitchLatency()).isPositive();
+    }
+
+    @Test
+    @DisplayName("primes a track queued while another one plays")
+    void primesATrackQueuedWhileAnotherOnePlays() throws Exception {
+        ObservableAudioItem first = newPlayableAudioItem("First");
+        ObservableAudioItem second = newPlayableAudioItem("Second");
+
+        playerService.addToQueue(List.of(first));
+
+        try (MockedConstruction<FXAudioItemPlayer> players = Mockito.mockConstruction(FXAudioItemPlayer.class,
+                (mockPlayer, context) -> {
+                    Mockito.doNothing().when(mockPlayer).play(Mockito.any());
+                    Mockito.when(mockPlayer.getStatusProperty())
+                            .thenReturn(new SimpleObjectProperty<>(AudioItemPlayer.Status.READY));
+                })) {
+            playerService.next();
+            WaitForAsyncUtils.waitForFxEvents();
+            assertThat(players.constructed()).hasSize(1);
+
+            playerService.addToQueue(List.of(second));
+
+            assertThat(players.constructed()).hasSize(2);
+            FXAudioItemPlayer primedPlayer = players.constructed().get(1);
+            verify(primedPlayer).play(second);
+
+            playerService.next();
+            WaitForAsyncUtils.waitForFxEvents();
+
+            verify(primedPlayer).resume();
+        }
+
+        assertThat(playerService.isLastTrackSwitchPrebuffered()).isTrue();
+    }
+
     @SuppressWarnings("unchecked")
     ObservableAudioItem newPlayableAudioItem(String title) throws Exception {
         ObservableAudioItem item = mock(ObservableAudioItem.class);
+        // PlayerService queues hold ids and resolve them through the library.
+        int id = nextTrackId++;
+        when(item.getId()).thenReturn(id);
+        doReturn(Optional.of(item)).when(audioLibrary).findById(id);
         Path tempFile = Files.createTempFile("musicott-advance-it-", ".mp3");
         tempFile.toFile().deleteOnExit();
         when(item.getPath()).thenReturn(tempFile);
@@ -1,14 +1,17 @@
 package net.transgressoft.musicott.services;
 
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.music.audio.AudioItemTestFactory;
 import net.transgressoft.commons.fx.music.player.FXAudioItemPlayer;
 import net.transgressoft.commons.music.player.AudioItemPlayer;
 import net.transgressoft.commons.music.player.UnsupportedAudioPlaybackException;
 import net.transgressoft.musicott.events.AudioItemChangedEvent;
 import net.transgressoft.musicott.events.ErrorEvent;
+import net.transgressoft.musicott.events.HistoryUpdatedEvent;
+import net.transgressoft.musicott.events.QueueChange;
+import net.transgressoft.musicott.events.QueueUpdatedEvent;
 import net.transgressoft.musicott.events.StatusMessageUpdateEvent;
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
 
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -18,8 +21,10 @@ import javafx.stage.Stage;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 import org.mockito.Mockito;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.testfx.framework.junit5.ApplicationExtension;
@@ -28,11 +33,13 @@ import org.testfx.framework.junit5.Start;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -49,13 +56,16 @@ import static org.mockito.Mockito.when;
 class PlayerServiceStorageIT {
 
     ApplicationEventPublisher applicationEventPublisher;
+    ObservableAudioLibrary audioLibrary;
     PlayerService playerService;
+    int nextTrackId = 1;
 
     @Start
     void start(Stage stage) {
-        // No scene needed — only the JavaFX toolkit must be running so TrackQueueRow (extends GridPane) can be constructed.
+        // No scene needed — only the JavaFX toolkit must be running for the Platform.runLater calls of the player.
         applicationEventPublisher = mock(ApplicationEventPublisher.class);
-        playerService = new PlayerService(applicationEventPublisher);
+        audioLibrary = mock(ObservableAudioLibrary.class);
+        playerService = new PlayerService(applicationEventPublisher, audioLibrary);
     }
 
     @Test
@@ -70,10 +80,10 @@ class PlayerServiceStorageIT {
         // bottom of the popover) and C — the last selected — is at index 0 (farthest-out, top).
         playerService.addToQueue(List.of(itemA, itemB, itemC));
 
-        ObservableList<TrackQueueRow> queue = playerService.getPlayQueueList();
+        ObservableList<Integer> queue = playerService.getPlayQueueList();
         assertThat(queue).hasSize(3);
-        assertThat(queue.get(0).getTrack()).isSameAs(itemC);
-        assertThat(queue.get(queue.size() - 1).getTrack()).isSameAs(itemA);
+        assertThat(queue.get(0)).isEqualTo(itemC.getId());
+        assertThat(queue.get(queue.size() - 1)).isEqualTo(itemA.getId());
         // Note: we do NOT call playerService.next() because next() invokes play(...) which
         // attempts to start the JavaFX media subsystem (jfxmedia) — unreliable headless.
         // The size-1 == next-up storage contract IS the assertion that proves the inversion.
@@ -87,9 +97,9 @@ class PlayerServiceStorageIT {
         ObservableAudioItem itemCurrent = newPlayableAudioItem("Current");
 
         // Seed historyQueueList directly via the public accessor.
-        ObservableList<TrackQueueRow> history = playerService.getHistoryQueueList();
-        history.add(new TrackQueueRow(itemH1));
-        history.add(new TrackQueueRow(itemH2));
+        ObservableList<Integer> history = playerService.getHistoryQueueList();
+        history.add(itemH1.getId());
+        history.add(itemH2.getId());
 
         // Seed currentTrack via reflection (private field).
         ReflectionTestUtils.setField(playerService, "currentTrack", Optional.of(itemCurrent));
@@ -110,14 +120,14 @@ class PlayerServiceStorageIT {
             playerService.previous();
         }
 
-        ObservableList<TrackQueueRow> queue = playerService.getPlayQueueList();
+        ObservableList<Integer> queue = playerService.getPlayQueueList();
         // The currentTrack was appended to playQueueList at the end (size-1).
         assertThat(queue).hasSize(1);
-        assertThat(queue.get(queue.size() - 1).getTrack()).isSameAs(itemCurrent);
+        assertThat(queue.get(queue.size() - 1)).isEqualTo(itemCurrent.getId());
 
         // historyQueueList popped from size-1 (end): [H1, H2] → [H1].
         assertThat(history).hasSize(1);
-        assertThat(history.get(0).getTrack()).isSameAs(itemH1);
+        assertThat(history.get(0)).isEqualTo(itemH1.getId());
     }
 
     @Test
@@ -134,11 +144,11 @@ class PlayerServiceStorageIT {
         // (top, plays last). Display follows storage 1:1.
         playerService.addToQueue(List.of(itemA, itemB, itemC));
 
-        ObservableList<TrackQueueRow> queue = playerService.getPlayQueueList();
+        ObservableList<Integer> queue = playerService.getPlayQueueList();
         assertThat(queue).hasSize(3);
-        assertThat(queue.get(0).getTrack()).isSameAs(itemC);
-        assertThat(queue.get(1).getTrack()).isSameAs(itemB);
-        assertThat(queue.get(2).getTrack()).isSameAs(itemA);
+        assertThat(queue.get(0)).isEqualTo(itemC.getId());
+        assertThat(queue.get(1)).isEqualTo(itemB.getId());
+        assertThat(queue.get(2)).isEqualTo(itemA.getId());
 
         // Second batch [D, E] queues behind everything already queued — D and E play AFTER C.
         // Inverted storage means new rows prepend; the first new item (D) ends up just behind
@@ -147,11 +157,11 @@ class PlayerServiceStorageIT {
         playerService.addToQueue(List.of(itemD, itemE));
 
         assertThat(queue).hasSize(5);
-        assertThat(queue.get(0).getTrack()).isSameAs(itemE);
-        assertThat(queue.get(1).getTrack()).isSameAs(itemD);
-        assertThat(queue.get(2).getTrack()).isSameAs(itemC);
-        assertThat(queue.get(3).getTrack()).isSameAs(itemB);
-        assertThat(queue.get(4).getTrack()).isSameAs(itemA);
+        assertThat(queue.get(0)).isEqualTo(itemE.getId());
+        assertThat(queue.get(1)).isEqualTo(itemD.getId());
+        assertThat(queue.get(2)).isEqualTo(itemC.getId());
+        assertThat(queue.get(3)).isEqualTo(itemB.getId());
+        assertThat(queue.get(4)).isEqualTo(itemA.getId());
     }
 
     @Test
@@ -166,8 +176,7 @@ class PlayerServiceStorageIT {
         ReflectionTestUtils.setField(playerService, "currentTrack", Optional.of(itemPrev));
 
         playerService.addToQueue(List.of(itemA));
-        ObservableList<TrackQueueRow> queue = playerService.getPlayQueueList();
-        TrackQueueRow rowA = queue.get(0);
+        ObservableList<Integer> queue = playerService.getPlayQueueList();
 
         // playFromQueue calls setPlayer which `new`s FXAudioItemPlayer — see the rationale on the
         // previous test for why we intercept the constructor on every OS.
@@ -177,14 +186,14 @@ class PlayerServiceStorageIT {
                     Mockito.when(mock.getStatusProperty())
                             .thenReturn(new SimpleObjectProperty<>(AudioItemPlayer.Status.UNKNOWN));
                 })) {
-            playerService.playFromQueue(rowA);
+            playerService.playFromQueue(0);
         }
 
         // History should contain the LEFT track only — itemA is now currentTrack and goes to
         // history later via next() when playback finishes.
-        ObservableList<TrackQueueRow> history = playerService.getHistoryQueueList();
+        ObservableList<Integer> history = playerService.getHistoryQueueList();
         assertThat(history).hasSize(1);
-        assertThat(history.get(0).getTrack()).isSameAs(itemPrev);
+        assertThat(history.get(0)).isEqualTo(itemPrev.getId());
 
         // Queue had rowA removed.
         assertThat(queue).isEmpty();
@@ -205,21 +214,148 @@ class PlayerServiceStorageIT {
         // next() ends with stop() in this branch (no setPlayer/jfxmedia call).
         playerService.next();
 
-        ObservableList<TrackQueueRow> history = playerService.getHistoryQueueList();
+        ObservableList<Integer> history = playerService.getHistoryQueueList();
         assertThat(history).hasSize(1);
-        assertThat(history.get(0).getTrack()).isSameAs(item);
+        assertThat(history.get(0)).isEqualTo(item.getId());
+    }
+
+    @Test
+    @DisplayName("next drops queued ids whose tracks were deleted from the library")
+    void nextDropsQueuedIdsWhoseTracksWereDeletedFromTheLibrary() throws Exception {
+        ObservableAudioItem itemA = newPlayableAudioItem("A");
+        ObservableAudioItem itemDeleted = newPlayableAudioItem("Deleted");
+
+        // Storage [A, Deleted]: the deleted track is next-up but no longer resolves.
+        playerService.addToQueue(List.of(itemDeleted, itemA));
+        doReturn(Optional.empty()).when(audioLibrary).findById(itemDeleted.getId());
+
+        try (MockedConstruction<FXAudioItemPlayer> ignored = Mockito.mockConstruction(FXAudioItemPlayer.class,
+                (mock, context) -> {
+                    Mockito.doNothing().when(mock).play(Mockito.any());
+                    Mockito.when(mock.getStatusProperty())
+                            .thenReturn(new SimpleObjectProperty<>(AudioItemPlayer.Status.UNKNOWN));
+                })) {
+            playerService.next();
+        }
+
+        assertThat(playerService.currentTrack()).contains(itemA);
+        assertThat(playerService.getPlayQueueList()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("addToQueue publishes an ADDED delta for the inserted range with a snapshot on demand")
+    void addToQueuePublishesAnAddedDeltaForTheInsertedRange() throws Exception {
+        ObservableAudioItem itemA = newPlayableAudioItem("A");
+        ObservableAudioItem itemB = newPlayableAudioItem("B");
+        ObservableAudioItem itemC = newPlayableAudioItem("C");
+
+        playerService.addToQueue(List.of(itemA));
+        Mockito.clearInvocations(applicationEventPublisher);
+        playerService.addToQueue(List.of(itemB, itemC));
+
+        List<QueueUpdatedEvent> events = publishedEvents(QueueUpdatedEvent.class);
+        assertThat(events).hasSize(1);
+        QueueChange change = events.get(0).change;
+        assertThat(change.type()).isEqualTo(QueueChange.Type.ADDED);
+        assertThat(change.fromIndex()).isZero();
+        assertThat(change.toIndex()).isEqualTo(2);
+        assertThat(change.trackIds()).containsExactly(itemC.getId(), itemB.getId());
+        assertThat(events.get(0).snapshot()).containsExactly(itemC.getId(), itemB.getId(), itemA.getId());
+    }
+
+    @Test
+    @DisplayName("moveInPlayQueue moves one entry and publishes a MOVED delta")
+    void moveInPlayQueueMovesOneEntryAndPublishesAMovedDelta() throws Exception {
+        ObservableAudioItem itemA = newPlayableAudioItem("A");
+        ObservableAudioItem itemB = newPlayableAudioItem("B");
+        ObservableAudioItem itemC = newPlayableAudioItem("C");
+
+        // Storage [C, B, A]; dragging A (next-up) onto C (farthest-out) moves it to index 0.
+        playerService.addToQueue(List.of(itemA, itemB, itemC));
+        Mockito.clearInvocations(applicationEventPublisher);
+        playerService.moveInPlayQueue(2, 0);
+
+        assertThat(playerService.getPlayQueueList()).containsExactly(itemA.getId(), itemC.getId(), itemB.getId());
+        assertThat(publishedEvents(QueueUpdatedEvent.class))
+                .extracting(event -> event.change)
+                .containsExactly(QueueChange.moved(2, 0, itemA.getId()));
+    }
+
+    @Test
+    @DisplayName("next publishes a single-entry removal delta for the queue and an addition delta for the history")
+    void nextPublishesSingleEntryDeltas() throws Exception {
+        ObservableAudioItem itemCurrent = newPlayableAudioItem("Current");
+        ObservableAudioItem itemA = newPlayableAudioItem("A");
+        ObservableAudioItem itemB = newPlayableAudioItem("B");
+
+        ReflectionTestUtils.setField(playerService, "currentTrack", Optional.of(itemCurrent));
+        playerService.addToQueue(List.of(itemA, itemB));
+        Mockito.clearInvocations(applicationEventPublisher);
+
+        try (MockedConstruction<FXAudioItemPlayer> ignored = Mockito.mockConstruction(FXAudioItemPlayer.class,
+                (mock, context) -> {
+                    Mockito.doNothing().when(mock).play(Mockito.any());
+                    Mockito.when(mock.getStatusProperty())
+                            .thenReturn(new SimpleObjectProperty<>(AudioItemPlayer.Status.UNKNOWN));
+                })) {
+            playerService.next();
+        }
+
+        // Storage was [B, A]; A is popped from index 1.
+        assertThat(publishedEvents(QueueUpdatedEvent.class))
+                .extracting(event -> event.change)
+                .containsExactly(QueueChange.removed(1, List.of(itemA.getId())));
+        assertThat(publishedEvents(HistoryUpdatedEvent.class))
+                .extracting(event -> event.change)
+                .containsExactly(QueueChange.added(0, List.of(itemCurrent.getId())));
+    }
+
+    @Test
+    @DisplayName("queue and history events expose the live lists, copied by snapshot() while they are delivered")
+    void queueAndHistoryEventsExposeTheLiveListsCopiedBySnapshotWhileDelivered() throws Exception {
+        ObservableAudioItem itemA = newPlayableAudioItem("A");
+        ObservableAudioItem itemB = newPlayableAudioItem("B");
+        playerService.getHistoryQueueList().addAll(List.of(itemA.getId(), itemB.getId()));
+        playerService.addToQueue(List.of(itemA, itemB));
+
+        List<List<Integer>> queueSnapshots = new ArrayList<>();
+        List<List<Integer>> historySnapshots = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            if (invocation.getArgument(0) instanceof QueueUpdatedEvent event) {
+                queueSnapshots.add(event.snapshot());
+            } else if (invocation.getArgument(0) instanceof HistoryUpdatedEvent event) {
+                historySnapshots.add(event.snapshot());
+            }
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ApplicationEvent.class));
+        Mockito.clearInvocations(applicationEventPublisher);
+
+        playerService.removeFromPlayQueue(0);
+        playerService.removeFromHistoryQueue(0);
+        playerService.clearQueue();
+        playerService.clearHistoryQueue();
+
+        // Taken during delivery, each snapshot is the list right after its change, and stays so
+        assertThat(queueSnapshots).containsExactly(List.of(itemA.getId()), List.of());
+        assertThat(historySnapshots).containsExactly(List.of(itemB.getId()), List.of());
+
+        // Read after later changes, the events show the lists as they are now, not as published
+        List<QueueUpdatedEvent> queueEvents = publishedEvents(QueueUpdatedEvent.class);
+        List<HistoryUpdatedEvent> historyEvents = publishedEvents(HistoryUpdatedEvent.class);
+        assertThat(queueEvents.get(0).size()).isZero();
+        assertThat(historyEvents.get(0).size()).isZero();
     }
 
     @Test
     @DisplayName("enforceHistoryCap evicts oldest entries from index 0")
     void enforceHistoryCapEvictsOldestEntriesFromIndexZero() throws Exception {
-        ObservableList<TrackQueueRow> history = playerService.getHistoryQueueList();
+        ObservableList<Integer> history = playerService.getHistoryQueueList();
 
         // Seed 152 rows; each track is identifiable by its title index.
         ObservableAudioItem[] items = new ObservableAudioItem[152];
         for (int i = 0; i < 152; i++) {
             items[i] = newPlayableAudioItem("track-" + i);
-            history.add(new TrackQueueRow(items[i]));
+            history.add(items[i].getId());
         }
         assertThat(history).hasSize(152);
 
@@ -227,8 +363,8 @@ class PlayerServiceStorageIT {
 
         // overflow = 152 - 150 = 2; evict from index 0..1 (oldest).
         assertThat(history).hasSize(150);
-        assertThat(history.get(0).getTrack()).isSameAs(items[2]);
-        assertThat(history.get(history.size() - 1).getTrack()).isSameAs(items[151]);
+        assertThat(history.get(0)).isEqualTo(items[2].getId());
+        assertThat(history.get(history.size() - 1)).isEqualTo(items[151].getId());
     }
 
     @Test
@@ -322,12 +458,22 @@ class PlayerServiceStorageIT {
 
         assertThat((boolean) ReflectionTestUtils.getField(playerService, "playingRandom")).isFalse();
         assertThat(playerService.getPlayQueueList()).hasSize(1);
-        assertThat(playerService.getPlayQueueList().get(0).getTrack()).isSameAs(itemExplicit);
+        assertThat(playerService.getPlayQueueList().get(0)).isEqualTo(itemExplicit.getId());
+    }
+
+    <T> List<T> publishedEvents(Class<T> type) {
+        ArgumentCaptor<ApplicationEvent> captor = ArgumentCaptor.forClass(ApplicationEvent.class);
+        verify(applicationEventPublisher, Mockito.atLeast(0)).publishEvent(captor.capture());
+        return captor.getAllValues().stream().filter(type::isInstance).map(type::cast).toList();
     }
 
     @SuppressWarnings("unchecked")
     ObservableAudioItem newPlayableAudioItem(String title) throws Exception {
         ObservableAudioItem item = mock(ObservableAudioItem.class);
+        // PlayerService queues hold ids and resolve them through the library.
+        int id = nextTrackId++;
+        when(item.getId()).thenReturn(id);
+        doReturn(Optional.of(item)).when(audioLibrary).findById(id);
         // Playable extension required by AudioItemPlayer.Companion.isPlayable
         Path tempFile = Files.createTempFile("musicott-storage-it-", ".mp3");
         tempFile.toFile().deleteOnExit();
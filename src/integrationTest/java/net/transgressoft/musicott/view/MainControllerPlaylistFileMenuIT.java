@@ -4,9 +4,8 @@ import net.transgressoft.commons.fx.music.FXMusicLibrary;
 import net.transgressoft.commons.fx.music.audio.*;
 import net.transgressoft.commons.fx.music.playlist.*;
 import net.transgressoft.commons.music.m3u.M3uImportService;
-import net.transgressoft.commons.music.waveform.AudioWaveform;
-import net.transgressoft.commons.music.waveform.AudioWaveformRepository;
 import net.transgressoft.musicott.service.MediaImportService;
+import net.transgressoft.musicott.service.WaveformPeakService;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.test.ApplicationTestBase;
 import net.transgressoft.musicott.test.JavaFxSpringTest;
@@ -204,9 +203,8 @@ class MainControllerPlaylistFileMenuITConfiguration {
     }
 
     @Bean
-    @SuppressWarnings("unchecked")
-    public AudioWaveformRepository<AudioWaveform, ObservableAudioItem> audioWaveformRepository() {
-        return mock(AudioWaveformRepository.class);
+    public WaveformPeakService waveformPeakService() {
+        return mock(WaveformPeakService.class);
     }
 
     @Bean
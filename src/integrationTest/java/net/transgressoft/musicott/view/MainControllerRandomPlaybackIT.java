@@ -8,10 +8,9 @@ import net.transgressoft.commons.music.m3u.M3uImportService;
 import net.transgressoft.commons.music.audio.Artist;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylistHierarchy;
-import net.transgressoft.commons.music.waveform.AudioWaveform;
-import net.transgressoft.commons.music.waveform.AudioWaveformRepository;
 import net.transgressoft.musicott.events.PlayRandomFromContextEvent;
 import net.transgressoft.musicott.service.MediaImportService;
+import net.transgressoft.musicott.service.WaveformPeakService;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.test.ApplicationTestBase;
 import net.transgressoft.musicott.test.JavaFxSpringTest;
@@ -329,9 +328,8 @@ class MainControllerRandomPlaybackITConfiguration {
     }
 
     @Bean
-    @SuppressWarnings("unchecked")
-    public AudioWaveformRepository<AudioWaveform, ObservableAudioItem> audioWaveformRepository() {
-        return mock(AudioWaveformRepository.class);
+    public WaveformPeakService waveformPeakService() {
+        return mock(WaveformPeakService.class);
     }
 
     @Bean
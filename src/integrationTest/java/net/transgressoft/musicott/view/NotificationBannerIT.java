@@ -6,12 +6,11 @@ import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylistHierarchy;
 import net.transgressoft.commons.music.m3u.M3uImportService;
-import net.transgressoft.commons.music.waveform.AudioWaveform;
-import net.transgressoft.commons.music.waveform.AudioWaveformRepository;
 import net.transgressoft.musicott.events.OpenLogViewerEvent;
 import net.transgressoft.musicott.events.StatusMessageUpdateEvent;
 import net.transgressoft.musicott.logging.RingBufferHolder;
 import net.transgressoft.musicott.service.MediaImportService;
+import net.transgressoft.musicott.service.WaveformPeakService;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.test.ApplicationTestBase;
 import net.transgressoft.musicott.test.JavaFxSpringTest;
@@ -366,9 +365,8 @@ class NotificationBannerITConfiguration {
     }
 
     @Bean
-    @SuppressWarnings("unchecked")
-    public AudioWaveformRepository<AudioWaveform, ObservableAudioItem> audioWaveformRepository() {
-        return mock(AudioWaveformRepository.class);
+    public WaveformPeakService waveformPeakService() {
+        return mock(WaveformPeakService.class);
     }
 
     @Bean
@@ -16,6 +16,8 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ToggleButton;
 import javafx.stage.Stage;
 import org.junit.jupiter.api.DisplayName;
@@ -27,9 +29,13 @@ import org.testfx.framework.junit5.ApplicationExtension;
 import org.testfx.framework.junit5.Start;
 import org.testfx.util.WaitForAsyncUtils;
 
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testfx.api.FxAssert.verifyThat;
 import static org.testfx.matcher.base.NodeMatchers.isVisible;
@@ -48,23 +54,24 @@ class PlayQueueControllerIT {
 
     PlayQueueController controller;
 
-    ObservableList<TrackQueueRow> historyQueue;
+    ObservableList<Integer> historyQueue;
 
     @Start
     void start(Stage stage) throws Exception {
         playerService = mock(PlayerService.class);
         audioLibrary = mock(ObservableAudioLibrary.class);
-        ObservableList<TrackQueueRow> playQueue = FXCollections.observableArrayList();
+        ObservableList<Integer> playQueue = FXCollections.observableArrayList();
         historyQueue = FXCollections.observableArrayList();
         when(playerService.getPlayQueueList()).thenReturn(playQueue);
         when(playerService.getHistoryQueueList()).thenReturn(historyQueue);
+        when(playerService.resolveTrack(anyInt())).thenAnswer(inv -> Optional.of(mockAudioItem("Track " + inv.getArgument(0))));
         // Mirror the real PlayerService.removeFromPlayQueue / removeFromHistoryQueue side effect
-        // (the listener now delegates row removal through PlayerService so QueueUpdatedEvent /
-        // HistoryUpdatedEvent fires consistently — see PlayQueueController.queueChangeListener).
-        doAnswer(inv -> { playQueue.remove((TrackQueueRow) inv.getArgument(0)); return null; })
-                .when(playerService).removeFromPlayQueue(org.mockito.ArgumentMatchers.any());
-        doAnswer(inv -> { historyQueue.remove((TrackQueueRow) inv.getArgument(0)); return null; })
-                .when(playerService).removeFromHistoryQueue(org.mockito.ArgumentMatchers.any());
+        // (the cells delegate removal through PlayerService so QueueUpdatedEvent /
+        // HistoryUpdatedEvent fires consistently — see PlayQueueController.removeEntry).
+        doAnswer(inv -> { playQueue.remove((int) inv.getArgument(0)); return null; })
+                .when(playerService).removeFromPlayQueue(anyInt());
+        doAnswer(inv -> { historyQueue.remove((int) inv.getArgument(0)); return null; })
+                .when(playerService).removeFromHistoryQueue(anyInt());
 
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/PlayQueueController.fxml"));
         loader.setControllerFactory(type -> new PlayQueueController(playerService, audioLibrary));
@@ -94,7 +101,7 @@ class PlayQueueControllerIT {
         Button deleteAllButton = lookupDeleteButton();
         assertThat(deleteAllButton.isVisible()).isFalse();
 
-        Platform.runLater(() -> historyQueue.add(mockTrackQueueRow("History Track")));
+        Platform.runLater(() -> historyQueue.add(1));
         waitForFxEvents();
         assertThat(deleteAllButton.isVisible()).isFalse();
 
@@ -120,55 +127,56 @@ class PlayQueueControllerIT {
     }
 
     @Test
-    @DisplayName("PlayQueueController registers a delete handler on rows added to historyQueueList")
-    void registersDeleteHandlerOnRowsAddedToHistoryQueueList() {
-        // Option B: verify via reflection that the delete-button action handler is set after the
-        // listener fires (change.next() must be called for getAddedSubList() to be populated).
-        // Option A (robot.lookup("#deleteButton-white")) is skipped because the button starts
-        // invisible (visible only on mouse hover) and headless Monocle does not synthesize hover,
-        // making scene lookup unreliable in CI.
-        ObservableAudioItem item = mock(ObservableAudioItem.class);
-        when(item.getTitleProperty()).thenReturn(new SimpleStringProperty("Test Track"));
-        var artist = mock(net.transgressoft.commons.music.audio.Artist.class);
-        when(artist.getName()).thenReturn("Test Artist");
-        when(item.getArtistProperty()).thenReturn(new SimpleObjectProperty<>(artist));
-        var album = AudioItemTestFactory.createAlbum("Test Album");
-        when(item.getAlbumProperty()).thenReturn(new SimpleObjectProperty<>(album));
-        when(item.getCoverImageProperty()).thenReturn(new SimpleObjectProperty<>(java.util.Optional.empty()));
-
-        // TrackQueueRow extends GridPane and must be created on the FX thread.
-        TrackQueueRow[] rowHolder = new TrackQueueRow[1];
-        Platform.runLater(() -> {
-            rowHolder[0] = new TrackQueueRow(item);
-            historyQueue.add(rowHolder[0]);
-        });
+    @DisplayName("PlayQueueController routes the delete button of a history cell through PlayerService")
+    void routesTheDeleteButtonOfAHistoryCellThroughPlayerService(FxRobot fxRobot) {
+        // The delete button starts invisible (visible only on mouse hover) and headless Monocle
+        // does not synthesize hover, so the action is fired directly on the rendered cell's row.
+        Platform.runLater(() -> historyQueue.add(7));
+        waitForFxEvents();
+        fxRobot.clickOn("#historyQueueButton");
         waitForFxEvents();
 
-        TrackQueueRow row = rowHolder[0];
-        assertThat(historyQueue).containsExactly(row);
+        TrackQueueRow row = fxRobot.lookup("#queuesListView").queryAs(ListView.class)
+                .lookupAll(".list-cell").stream()
+                .map(cell -> ((ListCell<?>) cell).getGraphic())
+                .filter(TrackQueueRow.class::isInstance)
+                .map(TrackQueueRow.class::cast)
+                .findFirst()
+                .orElseThrow();
+        assertThat(row.getTrack().getTitleProperty().get()).isEqualTo("Track 7");
 
-        // The historyQueueList listener (now wrapped in while (change.next())) must have called
-        // TrackQueueRow.setOnDeleteButtonClickedHandler, which sets a non-null action on the button.
         Button deleteButton = (Button) ReflectionTestUtils.getField(row, "deleteTrackQueueRowButton");
         assertThat(deleteButton).isNotNull();
         assertThat(deleteButton.getOnAction())
-                .as("delete handler registered by historyQueueList listener")
+                .as("delete handler registered by the recycled queue cell")
                 .isNotNull();
 
-        // Fire the action directly to prove the handler removes the row from the list.
         Platform.runLater(() -> deleteButton.getOnAction().handle(null));
         waitForFxEvents();
 
+        verify(playerService).removeFromHistoryQueue(0);
         assertThat(historyQueue).isEmpty();
     }
 
+    @Test
+    @DisplayName("PlayQueueController only builds cells for the visible rows of a large queue")
+    void onlyBuildsCellsForTheVisibleRowsOfALargeQueue(FxRobot fxRobot) {
+        var ids = java.util.stream.IntStream.rangeClosed(1, 50_000).boxed().toList();
+        Platform.runLater(() -> playerService.getPlayQueueList().setAll(ids));
+        waitForFxEvents();
+
+        ListView<?> listView = fxRobot.lookup("#queuesListView").queryAs(ListView.class);
+        assertThat(listView.getItems()).hasSize(50_000);
+        assertThat(listView.lookupAll(".list-cell")).hasSizeLessThan(20);
+    }
+
     private Button lookupDeleteButton() {
         Parent pane = (Parent) ReflectionTestUtils.getField(controller, "playQueuePane");
         assertThat(pane).isNotNull();
         return (Button) pane.lookup("#deleteAllButton");
     }
 
-    private TrackQueueRow mockTrackQueueRow(String title) {
+    private ObservableAudioItem mockAudioItem(String title) {
         ObservableAudioItem item = mock(ObservableAudioItem.class);
         when(item.getTitleProperty()).thenReturn(new SimpleStringProperty(title));
         var artist = mock(net.transgressoft.commons.music.audio.Artist.class);
@@ -176,7 +184,7 @@ class PlayQueueControllerIT {
         when(item.getArtistProperty()).thenReturn(new SimpleObjectProperty<>(artist));
         var album = AudioItemTestFactory.createAlbum("Test Album");
         when(item.getAlbumProperty()).thenReturn(new SimpleObjectProperty<>(album));
-        when(item.getCoverImageProperty()).thenReturn(new SimpleObjectProperty<>(java.util.Optional.empty()));
-        return new TrackQueueRow(item);
+        when(item.getCoverImageProperty()).thenReturn(new SimpleObjectProperty<>(Optional.empty()));
+        return item;
     }
 }
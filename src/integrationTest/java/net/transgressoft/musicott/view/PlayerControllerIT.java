@@ -3,16 +3,15 @@ package net.transgressoft.musicott.view;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.music.audio.AudioItemTestFactory;
-import net.transgressoft.commons.fx.music.waveform.PlayableWaveformPane;
 import net.transgressoft.commons.fx.music.waveform.SeekEvent;
-import net.transgressoft.commons.music.waveform.AudioWaveform;
-import net.transgressoft.commons.music.waveform.AudioWaveformRepository;
 import net.transgressoft.musicott.events.PlayItemEvent;
 import net.transgressoft.musicott.events.PlayRandomFromContextEvent;
+import net.transgressoft.musicott.service.WaveformPeakService;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.test.ApplicationTestBase;
 import net.transgressoft.musicott.test.JavaFxSpringTest;
 import net.transgressoft.musicott.test.JavaFxSpringTestConfiguration;
+import net.transgressoft.musicott.view.custom.TiledWaveformPane;
 
 import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -74,7 +73,6 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyShort;
 import static org.mockito.Mockito.when;
 import static org.springframework.context.annotation.ComponentScan.Filter;
 import static org.testfx.util.WaitForAsyncUtils.waitForFxEvents;
@@ -115,8 +113,8 @@ class PlayerControllerIT extends ApplicationTestBase<GridPane> {
         assertThat(fxRobot.lookup("#playerStackPane").tryQuery()).isPresent();
         StackPane playerStackPane = fxRobot.lookup("#playerStackPane").queryAs(StackPane.class);
         boolean hasWaveformPane = playerStackPane.getChildren().stream()
-                .anyMatch(node -> node instanceof PlayableWaveformPane);
-        assertThat(hasWaveformPane).as("playerStackPane should contain a PlayableWaveformPane").isTrue();
+                .anyMatch(node -> node instanceof TiledWaveformPane);
+        assertThat(hasWaveformPane).as("playerStackPane should contain a TiledWaveformPane").isTrue();
     }
 
     @Test
@@ -125,8 +123,8 @@ class PlayerControllerIT extends ApplicationTestBase<GridPane> {
         waitForFxEvents();
 
         StackPane playerStackPane = fxRobot.lookup("#playerStackPane").queryAs(StackPane.class);
-        PlayableWaveformPane waveformPane = (PlayableWaveformPane) playerStackPane.getChildren().stream()
-                .filter(node -> node instanceof PlayableWaveformPane)
+        TiledWaveformPane waveformPane = (TiledWaveformPane) playerStackPane.getChildren().stream()
+                .filter(node -> node instanceof TiledWaveformPane)
                 .findFirst()
                 .orElseThrow();
         assertThat(waveformPane.getProgressProperty().get()).isEqualTo(0.0);
@@ -138,8 +136,8 @@ class PlayerControllerIT extends ApplicationTestBase<GridPane> {
         waitForFxEvents();
 
         StackPane playerStackPane = fxRobot.lookup("#playerStackPane").queryAs(StackPane.class);
-        PlayableWaveformPane waveformPane = (PlayableWaveformPane) playerStackPane.getChildren().stream()
-                .filter(node -> node instanceof PlayableWaveformPane)
+        TiledWaveformPane waveformPane = (TiledWaveformPane) playerStackPane.getChildren().stream()
+                .filter(node -> node instanceof TiledWaveformPane)
                 .findFirst()
                 .orElseThrow();
 
@@ -447,17 +445,14 @@ class PlayerControllerIT extends ApplicationTestBase<GridPane> {
 
     @Test
     @DisplayName("track change does not accumulate subscriptions — only a single progressSubscription is registered")
-    @SuppressWarnings("unchecked")
     void trackChangeDoesNotAccumulateSubscriptions() throws Exception {
         var controller = playerControllerAndView.getController();
         var trackMock = createPlayableAudioItem("/testfiles/testeable.mp3");
 
-        // Stub waveform repository to avoid NPE in updatePlayerComponents
-        // (loadWaveform requires non-null; use a never-completing future so the callback never fires)
-        var waveformRepo = (AudioWaveformRepository<AudioWaveform, ObservableAudioItem>)
-                ReflectionTestUtils.getField(controller, "waveformRepository");
-        when(waveformRepo.getOrCreateWaveformAsync(any(), anyShort(), anyShort()))
-                .thenReturn(new CompletableFuture<>());
+        // Stub the peak service to avoid NPE in updatePlayerComponents
+        // (use a never-completing future so the callback never fires)
+        var waveformPeakService = (WaveformPeakService) ReflectionTestUtils.getField(controller, "waveformPeakService");
+        when(waveformPeakService.peaksAsync(any())).thenReturn(new CompletableFuture<>());
 
         // Provide a non-null currentTime property so the consolidated subscription is actually
         // created on each track change (the controller skips subscribing when it is null).
@@ -516,9 +511,8 @@ class PlayerControllerITConfiguration {
     }
 
     @Bean
-    @SuppressWarnings("unchecked")
-    public AudioWaveformRepository<AudioWaveform, ObservableAudioItem> audioWaveformRepository() {
-        return mock(AudioWaveformRepository.class);
+    public WaveformPeakService waveformPeakService() {
+        return mock(WaveformPeakService.class);
     }
 
     @Bean
@@ -0,0 +1,70 @@
+package net.transgressoft.musicott.view.custom;
+
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.stage.Stage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.framework.junit5.Start;
+import org.testfx.util.WaitForAsyncUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ApplicationExtension.class)
+@DisplayName("TiledWaveformPane")
+class TiledWaveformPaneIT {
+
+    StackPane root;
+    TiledWaveformPane waveformPane;
+
+    @Start
+    void start(Stage stage) {
+        waveformPane = new TiledWaveformPane();
+        root = new StackPane(waveformPane);
+        stage.setScene(new Scene(root, 600, 60));
+        stage.show();
+    }
+
+    @Test
+    @DisplayName("progress updates only move the played overlay and never rasterize tiles")
+    void progressUpdatesNeverRasterizeTiles() throws Exception {
+        WaitForAsyncUtils.asyncFx(() -> waveformPane.loadPeaks(WaveformPeakPyramid.of(sine(4096)))).get();
+        WaitForAsyncUtils.waitForFxEvents();
+        int tilesAfterLoad = waveformPane.tilesRendered();
+
+        for (int tick = 1; tick <= 100; tick++) {
+            double progress = tick / 100.0;
+            WaitForAsyncUtils.asyncFx(() -> waveformPane.getProgressProperty().set(progress)).get();
+        }
+        WaitForAsyncUtils.waitForFxEvents();
+
+        // 600 px wide: three tiles in the waveform color and three in the played color
+        assertThat(tilesAfterLoad).isEqualTo(6);
+        assertThat(waveformPane.tilesRendered()).isEqualTo(tilesAfterLoad);
+    }
+
+    @Test
+    @DisplayName("returning to a previous size reuses its cached tiles")
+    void returningToAPreviousSizeReusesCachedTiles() throws Exception {
+        WaitForAsyncUtils.asyncFx(() -> waveformPane.loadPeaks(WaveformPeakPyramid.of(sine(4096)))).get();
+        WaitForAsyncUtils.waitForFxEvents();
+
+        WaitForAsyncUtils.asyncFx(() -> root.getScene().getWindow().setWidth(300)).get();
+        WaitForAsyncUtils.waitForFxEvents();
+        int tilesAfterShrink = waveformPane.tilesRendered();
+
+        WaitForAsyncUtils.asyncFx(() -> root.getScene().getWindow().setWidth(600)).get();
+        WaitForAsyncUtils.waitForFxEvents();
+
+        assertThat(waveformPane.tilesRendered()).isEqualTo(tilesAfterShrink);
+    }
+
+    float[] sine(int length) {
+        var amplitudes = new float[length];
+        for (int i = 0; i < length; i++)
+            amplitudes[i] = (float) Math.abs(Math.sin(i / 50.0));
+        return amplitudes;
+    }
+}
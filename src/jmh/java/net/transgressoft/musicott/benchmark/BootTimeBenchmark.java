@@ -1,6 +1,7 @@
 package net.transgressoft.musicott.benchmark;
 
 import net.transgressoft.commons.fx.music.FXMusicLibrary;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.commons.persistence.fx.music.audio.FXAudioItemSqlTableDef;
 import net.transgressoft.commons.persistence.fx.music.audio.ObservableAudioItemMapSerializerKt;
 import net.transgressoft.commons.music.audio.AudioFileType;
@@ -9,17 +10,23 @@ import net.transgressoft.commons.music.itunes.ItunesImportService;
 import net.transgressoft.commons.music.itunes.ItunesLibrary;
 import net.transgressoft.commons.music.itunes.ItunesLibraryParser;
 import net.transgressoft.commons.music.itunes.ItunesPlaylist;
+import net.transgressoft.lirp.persistence.Repository;
 import net.transgressoft.lirp.persistence.json.JsonFileRepository;
 import net.transgressoft.lirp.persistence.sql.SqliteRepository;
+import net.transgressoft.musicott.PrimaryStageInitializer;
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository;
+import net.transgressoft.musicott.test.library.SyntheticLibrary;
 import javafx.application.Platform;
 import kotlin.Unit;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -27,8 +34,9 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
- * JMH benchmark measuring the time to load a pre-seeded audio library into memory at
- * three dataset scales (small ~85 tracks, medium ~1,200 tracks, large ~17,732 tracks)
+ * JMH benchmarks for startup: {@link #launchToFirstFrame} times a full application launch,
+ * and {@link #bootWithExistingData} the time to load a pre-seeded audio library into memory at
+ * the {@link SyntheticLibrary} tiers (small 100, medium 1,200, large 18,000, huge 100,000 tracks)
  * across the two persistence backends: JSON file and SQLite.
  *
  * <p>Covers scenario (c) boot time with pre-existing data, and provides the direct
@@ -45,7 +53,7 @@ import java.util.concurrent.TimeUnit;
  * {@link SqliteRepository#fileBacked} with {@code loadOnInit = true} loads rows from the
  * database file, avoiding the full-file JSON decode and reflective ref-reconciliation.
  *
- * <p><b>Seeding approach:</b> {@link #setup()} imports the matching iTunes XML into a
+ * <p><b>Seeding approach:</b> {@link LibraryState#setup()} imports the matching iTunes XML into a
  * temporary {@link FXMusicLibrary} backed by a real repository of the selected backend and
  * waits for all pending writes to flush before closing. The resulting on-disk artifact
  * (a {@code .json} file or a {@code .db} database) is copied to a stable seed path; each
@@ -55,207 +63,352 @@ import java.util.concurrent.TimeUnit;
  * <p><b>No Spring context:</b> Repositories are wired directly without
  * {@code @SpringBootTest} (Pitfall 1). The seeding step does require a JavaFX toolkit
  * (it imports into an {@link FXMusicLibrary}), initialized once per fork in
- * {@link #initFxToolkit()}.
+ * {@link LibraryState#initFxToolkit()}.
  *
- * <p><b>Known limitation — seeding does not scale past the small tier.</b> Seeding via
- * {@link ItunesImportService} into an {@link FXMusicLibrary} floods {@code Platform.runLater}
- * with per-item observable-property updates faster than the single FX thread drains them;
- * at the medium ({@code ~1,173}) and large ({@code ~17,732}) tiers this exhausts the heap
- * (OutOfMemoryError during {@code @Setup}), independent of heap size or Monocle-vs-Gtk
- * toolkit. Only the small tier seeds reliably today. Profiling the audio repository at scale
- * is therefore done through {@link MediaImportBenchmark} (which uses the non-FX
- * {@code CoreMusicLibrary} and does not hit this path). Making the boot comparison run at
- * medium/large requires a seeding strategy that does not marshal every insert through the FX
- * thread — e.g. a bulk/event-suppressed import, or pre-generating the seed {@code .json}/
- * {@code .db} artifacts out of band.
+ * <p><b>Seeding at scale.</b> Seeding via {@link ItunesImportService} into an
+ * {@link FXMusicLibrary} used to flood {@code Platform.runLater} with per-item
+ * observable-property updates faster than the single FX thread drained them, which exhausted
+ * the heap at the medium and large tiers. Seeding now runs as a bulk import of a
+ * {@link ProgressiveAudioRepository}, which persists the tracks in batches and hands the
+ * library a single change at the end, as the application's large imports do, so every tier
+ * seeds the same way.
  *
- * <p>Dataset XML paths follow D-08:
- * <ul>
- *   <li>small  &rarr; {@code ~/software/itunes-library-uat.xml}</li>
- *   <li>medium &rarr; {@code ~/software/musicott-benchmark-medium.xml}</li>
- *   <li>large  &rarr; {@code ~/software/musicott-benchmark-large.xml}</li>
- * </ul>
+ * <p>Datasets are {@link SyntheticLibrary} tiers, generated once per trial (iTunes XML and
+ * audio files) into a temporary directory and imported from there by the seeding step.
+ *
+ * <p><b>Launch to first frame</b> starts the application in a child JVM, against an empty
+ * {@code user.home}, and stops the clock when it logs
+ * {@link PrimaryStageInitializer#FIRST_FRAME_MARKER} on the main window's first frame, so
+ * process creation, JVM start, Spring context refresh and scene construction are all timed.
+ * The {@code default} mode launches the plain application; {@code accelerated} adds the
+ * Spring AOT context and the JDK AOT cache. Both reuse the JVM flags and classpath recorded
+ * by {@code gradle trainStartupCache} (see {@code gradle/startup.gradle}), which must have
+ * run first: the cache is only accepted for the classpath it was trained with. Like the
+ * toolkit setup above, this needs a display.
  *
  * <p>Run via {@code gradle jmh}. Results are written to
  * {@code build/reports/jmh/results.json}.
  */
-@State(Scope.Benchmark)
 @BenchmarkMode(Mode.SingleShotTime)
 @OutputTimeUnit(TimeUnit.MILLISECONDS)
-@Fork(1)
+// -Xmx8g: the huge tier holds 100k observable tracks in the seeding library and again in the
+// repository loaded by the measured call
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
 @Warmup(iterations = 0)
 @Measurement(iterations = 3)
 public class BootTimeBenchmark {
 
-    /**
-     * Dataset tier selector. Restricted to {@code small} because the FX-library seeding
-     * step OOMs at the medium/large tiers (see the class-level "Known limitation" note);
-     * widen this once a scale-safe seeding strategy is in place.
-     */
-    @Param({"small"})
-    public String dataset;
-
-    /**
-     * Persistence backend under test: the legacy {@code json} file repository or the
-     * current {@code sqlite} repository.
-     */
-    @Param({"json", "sqlite"})
-    public String backend;
-
-    private Path seedPath;
-    private Path iterationPath;
-    private Path tempDir;
-    private AutoCloseable loadedRepo;
-
-    private static volatile boolean fxToolkitStarted = false;
-
-    /**
-     * Initializes the JavaFX toolkit once per fork. Seeding imports into an
-     * {@link FXMusicLibrary}, whose observable property updates require a running toolkit;
-     * without this the import fails with {@code Toolkit not initialized}. Benchmarks are
-     * local-only (run on a developer machine with a display), so a plain
-     * {@link Platform#startup} suffices — no Stage is shown.
-     */
-    @Setup(Level.Trial)
-    public void initFxToolkit() {
-        if (!fxToolkitStarted) {
-            try {
-                Platform.startup(() -> {});
-            } catch (IllegalStateException alreadyRunning) {
-                // Toolkit already initialized in this JVM — nothing to do.
-            }
-            Platform.setImplicitExit(false);
-            fxToolkitStarted = true;
-        }
-    }
-
-    /**
-     * Generates the seed artifact for the current dataset tier and backend, then restores
-     * a clean copy at {@code iterationPath} for the measured method to load. The seeding
-     * and copy happen outside the measured method so only repository construction and load
-     * are timed.
-     *
-     * @throws Exception if seeding or file copy operations fail
-     */
-    @Setup(Level.Iteration)
-    public void setup() throws Exception {
-        String home = System.getProperty("user.home");
-        Path xmlPath = switch (dataset) {
-            case "small"  -> Paths.get(home, "software", "itunes-library-uat.xml");
-            case "medium" -> Paths.get(home, "software", "musicott-benchmark-medium.xml");
-            case "large"  -> Paths.get(home, "software", "musicott-benchmark-large.xml");
-            default -> throw new IllegalArgumentException("Unknown dataset tier: " + dataset);
-        };
-
-        tempDir = Files.createTempDirectory("musicott-bench-boot-" + dataset + "-" + backend + "-");
-
-        if ("json".equals(backend)) {
-            seedPath = tempDir.resolve("seed-audioItems.json");
-            iterationPath = tempDir.resolve("audioItems.json");
-            seedJson(xmlPath);
-        } else {
-            seedPath = tempDir.resolve("seed-audioItems.db");
-            iterationPath = tempDir.resolve("audioItems.db");
-            seedSqlite(xmlPath);
-        }
-
-        Files.copy(seedPath, iterationPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-    }
-
     /**
      * Constructs a repository of the selected backend pointed at the pre-seeded artifact
      * with {@code loadOnInit = true} and consumes it via {@link Blackhole} to prevent
      * dead-code elimination. Only construction-to-load-complete is timed.
      *
+     * @param state the seeded library of the current dataset tier and backend
      * @param bh JMH blackhole that prevents the result from being optimised away
      */
     @Benchmark
-    public void bootWithExistingData(Blackhole bh) {
-        if ("json".equals(backend)) {
+    public void bootWithExistingData(LibraryState state, Blackhole bh) {
+        if ("json".equals(state.backend)) {
             var repo = new JsonFileRepository<>(
-                    iterationPath.toFile(),
+                    state.iterationPath.toFile(),
                     ObservableAudioItemMapSerializerKt.ObservableAudioItemMapSerializer()
             );
-            loadedRepo = repo;
+            state.loadedRepo = repo;
             bh.consume(repo);
         } else {
-            var repo = SqliteRepository.fileBacked(iterationPath, FXAudioItemSqlTableDef.INSTANCE);
-            loadedRepo = repo;
+            var repo = SqliteRepository.fileBacked(state.iterationPath, FXAudioItemSqlTableDef.INSTANCE);
+            state.loadedRepo = repo;
             bh.consume(repo);
         }
     }
 
     /**
-     * Closes the loaded repository (releasing the SQLite connection pool when present) and
-     * deletes the temp directory for this iteration.
+     * Launches the application in a child JVM and waits for its first-frame line. The child
+     * is destroyed as soon as the line is read; only launch-to-first-frame is timed.
      *
-     * @throws Exception if cleanup fails
+     * @param state the launch command for the selected startup mode
+     * @return the launch-to-first-frame time reported by the child itself
+     * @throws Exception if the child cannot be started or exits before its first frame
      */
-    @TearDown(Level.Iteration)
-    public void tearDown() throws Exception {
-        if (loadedRepo != null) {
-            loadedRepo.close();
-            loadedRepo = null;
+    @Benchmark
+    public long launchToFirstFrame(LaunchState state) throws Exception {
+        Process process = new ProcessBuilder(state.command)
+                .redirectErrorStream(true)
+                .start();
+        try (BufferedReader output = process.inputReader()) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                int marker = line.indexOf(PrimaryStageInitializer.FIRST_FRAME_MARKER);
+                if (marker >= 0) {
+                    int start = marker + PrimaryStageInitializer.FIRST_FRAME_MARKER.length();
+                    int end = start;
+                    while (end < line.length() && Character.isDigit(line.charAt(end))) {
+                        end++;
+                    }
+                    return Long.parseLong(line.substring(start, end));
+                }
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
         }
-        deleteDirectory(tempDir);
+        throw new IllegalStateException("Application exited with " + process.exitValue() + " before its first frame");
     }
 
-    private void seedJson(Path xmlPath) throws Exception {
-        Path seedAudioItemsJson = tempDir.resolve("seed-source-audioItems.json");
-        Files.createFile(seedAudioItemsJson);
-
-        FXMusicLibrary seedLibrary = FXMusicLibrary.builder()
-                .audioRepository(new JsonFileRepository<>(
-                        seedAudioItemsJson.toFile(),
-                        ObservableAudioItemMapSerializerKt.ObservableAudioItemMapSerializer()
-                ))
-                .build();
-
-        try {
-            importInto(seedLibrary, xmlPath);
-            // Allow the debounce window to flush all pending writes before closing.
-            Thread.sleep(600);
-        } finally {
-            seedLibrary.close();
+    /**
+     * Pre-seeded audio library restored before each {@link #bootWithExistingData} iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class LibraryState {
+
+        /**
+         * Dataset tier selector, one of the {@link SyntheticLibrary.Tier} names.
+         */
+        @Param({"small", "medium", "large", "huge"})
+        public String dataset;
+
+        /**
+         * Persistence backend under test: the legacy {@code json} file repository or the
+         * current {@code sqlite} repository.
+         */
+        @Param({"json", "sqlite"})
+        public String backend;
+
+        private Path datasetDir;
+        private Path xmlPath;
+        private Path seedPath;
+        private Path iterationPath;
+        private Path tempDir;
+        private AutoCloseable loadedRepo;
+
+        private static volatile boolean fxToolkitStarted = false;
+
+        // Generous enough for the huge tier on a slow disk
+        private static final long SEED_TIMEOUT_MINUTES = 30;
+
+        /**
+         * Initializes the JavaFX toolkit once per fork. Seeding imports into an
+         * {@link FXMusicLibrary}, whose observable property updates require a running toolkit;
+         * without this the import fails with {@code Toolkit not initialized}. Benchmarks are
+         * local-only (run on a developer machine with a display), so a plain
+         * {@link Platform#startup} suffices — no Stage is shown.
+         */
+        @Setup(Level.Trial)
+        public void initFxToolkit() {
+            if (!fxToolkitStarted) {
+                try {
+                    Platform.startup(() -> {});
+                } catch (IllegalStateException alreadyRunning) {
+                    // Toolkit already initialized in this JVM — nothing to do.
+                }
+                Platform.setImplicitExit(false);
+                fxToolkitStarted = true;
+            }
         }
 
-        Files.copy(seedAudioItemsJson, seedPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-    }
+        /**
+         * Generates the synthetic library of the current tier, which every iteration seeds from.
+         *
+         * @throws IOException if the temporary directory cannot be created
+         */
+        @Setup(Level.Trial)
+        public void generateDataset() throws IOException {
+            datasetDir = Files.createTempDirectory("musicott-bench-boot-dataset-" + dataset + "-");
+            xmlPath = SyntheticLibrary.tier(dataset).generate(datasetDir).getItunesXml();
+        }
 
-    private void seedSqlite(Path xmlPath) throws Exception {
-        Path seedSourceDb = tempDir.resolve("seed-source-audioItems.db");
+        /**
+         * Generates the seed artifact for the current dataset tier and backend, then restores
+         * a clean copy at {@code iterationPath} for the measured method to load. The seeding
+         * and copy happen outside the measured method so only repository construction and load
+         * are timed.
+         *
+         * @throws Exception if seeding or file copy operations fail
+         */
+        @Setup(Level.Iteration)
+        public void setup() throws Exception {
+            tempDir = Files.createTempDirectory("musicott-bench-boot-" + dataset + "-" + backend + "-");
 
-        FXMusicLibrary seedLibrary = FXMusicLibrary.builder()
-                .audioRepository(SqliteRepository.fileBacked(seedSourceDb, FXAudioItemSqlTableDef.INSTANCE))
-                .build();
+            if ("json".equals(backend)) {
+                seedPath = tempDir.resolve("seed-audioItems.json");
+                iterationPath = tempDir.resolve("audioItems.json");
+                seedJson(xmlPath);
+            } else {
+                seedPath = tempDir.resolve("seed-audioItems.db");
+                iterationPath = tempDir.resolve("audioItems.db");
+                seedSqlite(xmlPath);
+            }
 
-        try {
-            importInto(seedLibrary, xmlPath);
-            Thread.sleep(600);
-        } finally {
-            // Closing the repository checkpoints the WAL and closes the connection pool,
-            // leaving a self-contained .db file to copy as the seed.
-            seedLibrary.close();
+            Files.copy(seedPath, iterationPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
         }
 
-        Files.copy(seedSourceDb, seedPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-    }
+        /**
+         * Closes the loaded repository (releasing the SQLite connection pool when present) and
+         * deletes the temp directory for this iteration.
+         *
+         * @throws Exception if cleanup fails
+         */
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception {
+            if (loadedRepo != null) {
+                loadedRepo.close();
+                loadedRepo = null;
+            }
+            deleteDirectory(tempDir);
+        }
+
+        /**
+         * Deletes the synthetic library generated for the trial.
+         *
+         * @throws IOException if the directory cannot be deleted
+         */
+        @TearDown(Level.Trial)
+        public void deleteDataset() throws IOException {
+            deleteDirectory(datasetDir);
+        }
+
+        private void seedJson(Path xmlPath) throws Exception {
+            Path seedAudioItemsJson = tempDir.resolve("seed-source-audioItems.json");
+            Files.createFile(seedAudioItemsJson);
+
+            ProgressiveAudioRepository seedRepository = bulkImportable(new JsonFileRepository<>(
+                    seedAudioItemsJson.toFile(),
+                    ObservableAudioItemMapSerializerKt.ObservableAudioItemMapSerializer()
+            ));
+            FXMusicLibrary seedLibrary = FXMusicLibrary.builder()
+                    .audioRepository(seedRepository)
+                    .build();
+
+            try {
+                importInto(seedLibrary, seedRepository, xmlPath);
+                // Allow the debounce window to flush all pending writes before closing.
+                Thread.sleep(600);
+            } finally {
+                seedLibrary.close();
+            }
+
+            Files.copy(seedAudioItemsJson, seedPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        private void seedSqlite(Path xmlPath) throws Exception {
+            Path seedSourceDb = tempDir.resolve("seed-source-audioItems.db");
+
+            ProgressiveAudioRepository seedRepository =
+                    bulkImportable(SqliteRepository.fileBacked(seedSourceDb, FXAudioItemSqlTableDef.INSTANCE));
+            FXMusicLibrary seedLibrary = FXMusicLibrary.builder()
+                    .audioRepository(seedRepository)
+                    .build();
+
+            try {
+                importInto(seedLibrary, seedRepository, xmlPath);
+                Thread.sleep(600);
+            } finally {
+                // Closing the repository checkpoints the WAL and closes the connection pool,
+                // leaving a self-contained .db file to copy as the seed.
+                seedLibrary.close();
+            }
+
+            Files.copy(seedSourceDb, seedPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        /**
+         * Wraps the seed repository so the import runs as a bulk import, as in the application:
+         * the library gets one change at the end instead of one FX update per track.
+         */
+        private static ProgressiveAudioRepository bulkImportable(Repository<Integer, ObservableAudioItem> repository) {
+            return new ProgressiveAudioRepository(repository, Comparator.comparing(ObservableAudioItem::getId), Integer.MAX_VALUE);
+        }
 
-    private void importInto(FXMusicLibrary library, Path xmlPath) throws Exception {
-        ItunesImportService<?, ?> importService = new ItunesImportService<>(library);
-        ItunesLibrary itunesLibrary = ItunesLibraryParser.INSTANCE.parse(xmlPath);
-        List<ItunesPlaylist> playlists = itunesLibrary.getPlaylists().stream()
-                .filter(p -> !p.isFolder())
-                .toList();
+        private void importInto(FXMusicLibrary library, ProgressiveAudioRepository repository, Path xmlPath) throws Exception {
+            ItunesImportService<?, ?> importService = new ItunesImportService<>(library);
+            ItunesLibrary itunesLibrary = ItunesLibraryParser.INSTANCE.parse(xmlPath);
+            List<ItunesPlaylist> playlists = itunesLibrary.getPlaylists().stream()
+                    .filter(p -> !p.isFolder())
+                    .toList();
+
+            ProgressiveAudioRepository.BulkImport bulkImport = repository.beginBulkImport();
+            try {
+                importService
+                        .importAsync(playlists, itunesLibrary, importPolicy(), null, progress -> Unit.INSTANCE)
+                        .get(SEED_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            } finally {
+                bulkImport.end();
+            }
+        }
 
-        importService
-                .importAsync(playlists, itunesLibrary, importPolicy(), null, progress -> Unit.INSTANCE)
-                .get(300, TimeUnit.SECONDS);
+        private static ItunesImportPolicy importPolicy() {
+            Set<AudioFileType> acceptedFileTypes = Set.copyOf(Arrays.asList(AudioFileType.values()));
+            return new ItunesImportPolicy(false, true, false, acceptedFileTypes);
+        }
     }
 
-    private static ItunesImportPolicy importPolicy() {
-        Set<AudioFileType> acceptedFileTypes = Set.copyOf(Arrays.asList(AudioFileType.values()));
-        return new ItunesImportPolicy(false, true, false, acceptedFileTypes);
+    /**
+     * Command line for {@link #launchToFirstFrame}, with a fresh empty {@code user.home} per
+     * iteration so every launch starts from the same state.
+     */
+    @State(Scope.Benchmark)
+    public static class LaunchState {
+
+        /**
+         * Startup mode: the plain {@code default} launch, or {@code accelerated} with the
+         * Spring AOT context and the JDK AOT cache.
+         */
+        @Param({"default", "accelerated"})
+        public String startup;
+
+        private List<String> command;
+        private Path homeDir;
+
+        /**
+         * Builds the child JVM command from the arguments recorded by
+         * {@code gradle trainStartupCache} under {@code build/startup}, or the directory
+         * given by {@code -Dmusicott.benchmark.startupDir}.
+         *
+         * @throws Exception if the recorded arguments or cache are missing
+         */
+        @Setup(Level.Iteration)
+        public void setup() throws Exception {
+            Path startupDir = Paths.get(System.getProperty("musicott.benchmark.startupDir", "build/startup"));
+            Path launchArguments = startupDir.resolve("launch.args");
+            Path startupCache = startupDir.resolve("musicott.aot");
+            if (!Files.exists(launchArguments) || !Files.exists(startupCache)) {
+                throw new IllegalStateException("No trained startup cache in " + startupDir.toAbsolutePath()
+                        + "; run `gradle trainStartupCache` first");
+            }
+            homeDir = Files.createTempDirectory("musicott-bench-launch-" + startup + "-");
+
+            String java = ProcessHandle.current().info().command()
+                    .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            List<String> recorded = Files.readAllLines(launchArguments).stream()
+                    .filter(argument -> !argument.isBlank())
+                    .toList();
+            // The recorded arguments end with "-cp <classpath> <main class>"; JVM options go before them.
+            int classpathIndex = recorded.indexOf("-cp");
+
+            command = new ArrayList<>();
+            command.add(java);
+            command.addAll(recorded.subList(0, classpathIndex));
+            command.add("-Duser.home=" + homeDir);
+            command.add("-Dmusicott.startup.exitAfterFirstFrameMillis=0");
+            if ("accelerated".equals(startup)) {
+                command.add("-Dspring.aot.enabled=true");
+                command.add("-XX:AOTCache=" + startupCache.toAbsolutePath());
+                command.add("-XX:AOTMode=auto");
+            }
+            command.addAll(recorded.subList(classpathIndex, recorded.size()));
+        }
+
+        /**
+         * Deletes the iteration's {@code user.home}, including the library the launch created.
+         *
+         * @throws Exception if cleanup fails
+         */
+        @TearDown(Level.Iteration)
+        public void tearDown() throws Exception {
+            deleteDirectory(homeDir);
+        }
     }
 
     private static void deleteDirectory(Path dir) throws IOException {
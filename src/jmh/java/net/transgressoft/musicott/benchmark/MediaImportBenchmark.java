@@ -8,20 +8,23 @@ import net.transgressoft.commons.music.itunes.ItunesImportService;
 import net.transgressoft.commons.music.itunes.ItunesLibrary;
 import net.transgressoft.commons.music.itunes.ItunesLibraryParser;
 import net.transgressoft.commons.music.itunes.ItunesPlaylist;
+import net.transgressoft.musicott.test.library.SyntheticLibrary;
 import kotlin.Unit;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
- * JMH benchmark measuring iTunes import throughput and heap allocation rate at three
- * dataset scales (small ~85 tracks, medium ~1,200 tracks, large ~17,732 tracks).
+ * JMH benchmark measuring iTunes import throughput and heap allocation rate at four
+ * dataset scales (small 100 tracks, medium 1,200, large 18,000 and huge 100,000).
  *
  * <p>Covers scenario (a) import wall-clock time and scenario (b) heap delta via the
  * {@code gc} profiler configured in the project's {@code jmh{}} Gradle block.
@@ -41,14 +44,9 @@ import java.util.concurrent.TimeUnit;
  * the dataset size. Each iteration uses a fresh {@link CoreMusicLibrary} instance backed
  * by a volatile (in-memory) repository so no disk I/O is added to the measured path.
  *
- * <p>Dataset XML paths follow D-08:
- * <ul>
- *   <li>small  &rarr; {@code ~/software/itunes-library-uat.xml}</li>
- *   <li>medium &rarr; {@code ~/software/musicott-benchmark-medium.xml}
- *       (generated by {@code scripts/generate-benchmark-xml.py medium})</li>
- *   <li>large  &rarr; {@code ~/software/musicott-benchmark-large.xml}
- *       (generated by {@code scripts/generate-benchmark-xml.py large})</li>
- * </ul>
+ * <p>Datasets are {@link SyntheticLibrary} tiers, generated once per trial into a temporary
+ * directory: the iTunes XML and one tiny tagged MP3 per track, so metadata reading hits real
+ * files. The same tier always produces the same library, on any machine.
  *
  * <p><b>Backend independence:</b> import processing (XML parse, metadata read, in-memory
  * add) is identical regardless of the audio repository's persistence backend; the JSON vs
@@ -62,38 +60,42 @@ import java.util.concurrent.TimeUnit;
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.SingleShotTime)
 @OutputTimeUnit(TimeUnit.SECONDS)
-// -Xmx12g: the large tier (~17,732 tracks) retains a full copy of each track's embedded
-// cover-art image in memory (MutableAudioItem._coverImageBytes), so peak heap scales with
-// library size and embedded-art weight; 4g OOMs on the full library.
+// -Xmx12g: each imported track retains a full copy of its embedded cover-art image in memory
+// (MutableAudioItem._coverImageBytes), so peak heap scales with library size and embedded-art
+// weight; 4g OOMed on a real 17,732-track collection. The synthetic tiers carry no covers, but
+// the headroom keeps the huge tier comparable with libraries generated with them.
 @Fork(value = 1, jvmArgsAppend = {"-Xmx12g", "-Xlog:gc*:file=build/reports/jmh/gc-import.log:tags,time,uptime,level"})
 @Warmup(iterations = 0)
 @Measurement(iterations = 3)
 public class MediaImportBenchmark {
 
     /**
-     * Dataset tier selector. Maps to the hardcoded XML paths from D-08.
+     * Dataset tier selector, one of the {@link SyntheticLibrary.Tier} names.
      */
-    @Param({"small", "medium", "large"})
+    @Param({"small", "medium", "large", "huge"})
     public String dataset;
 
+    private Path datasetDir;
     private Path xmlPath;
     private CoreMusicLibrary musicLibrary;
 
     /**
-     * Resolves the dataset XML path for the current tier and wires a fresh
-     * {@link CoreMusicLibrary} with a volatile (in-memory) repository so each
+     * Generates the synthetic library of the current tier: its iTunes XML and audio files.
+     *
+     * @throws IOException if the temporary directory cannot be created
+     */
+    @Setup(Level.Trial)
+    public void generateDataset() throws IOException {
+        datasetDir = Files.createTempDirectory("musicott-bench-import-" + dataset + "-");
+        xmlPath = SyntheticLibrary.tier(dataset).generate(datasetDir).getItunesXml();
+    }
+
+    /**
+     * Wires a fresh {@link CoreMusicLibrary} with a volatile (in-memory) repository so each
      * iteration starts from an empty state without adding disk I/O to the measurement.
      */
     @Setup(Level.Iteration)
     public void setup() {
-        String home = System.getProperty("user.home");
-        xmlPath = switch (dataset) {
-            case "small"  -> Paths.get(home, "software", "itunes-library-uat.xml");
-            case "medium" -> Paths.get(home, "software", "musicott-benchmark-medium.xml");
-            case "large"  -> Paths.get(home, "software", "musicott-benchmark-large.xml");
-            default -> throw new IllegalArgumentException("Unknown dataset tier: " + dataset);
-        };
-
         // Volatile (in-memory) repository: no JSON writes during the measured call so
         // measured time reflects import processing, not debounced serialization.
         musicLibrary = CoreMusicLibrary.builder().build();
@@ -106,7 +108,7 @@ public class MediaImportBenchmark {
      *
      * <p>Note: parsing and import are both timed here. Isolating import-only time would
      * require storing the parsed {@link ItunesLibrary} across iterations, but the library
-     * itself holds 17k track references and re-using it would not reflect a cold-start import.
+     * itself holds up to 100k track references and re-using it would not reflect a cold-start import.
      * The intent is to measure the full parse + import path as a user would experience it.
      *
      * @param bh JMH blackhole that prevents the result from being optimised away
@@ -135,6 +137,19 @@ public class MediaImportBenchmark {
         }
     }
 
+    /**
+     * Deletes the generated dataset.
+     *
+     * @throws IOException if the dataset directory cannot be walked
+     */
+    @TearDown(Level.Trial)
+    public void deleteDataset() throws IOException {
+        try (var stream = Files.walk(datasetDir)) {
+            stream.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile().delete());
+        }
+    }
+
     private static ItunesImportPolicy importPolicy() {
         Set<AudioFileType> acceptedFileTypes = Set.copyOf(Arrays.asList(AudioFileType.values()));
         return new ItunesImportPolicy(false, true, false, acceptedFileTypes);
@@ -13,6 +13,9 @@ import net.rgielen.fxweaver.core.FxControllerAndView;
 import net.rgielen.fxweaver.core.FxWeaver;
 import net.rgielen.fxweaver.spring.InjectionPointLazyFxControllerAndViewResolver;
 import net.rgielen.fxweaver.spring.SpringFxWeaver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
 import org.springframework.beans.factory.InjectionPoint;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
@@ -35,16 +38,42 @@ import java.util.function.Supplier;
  * wires the JavaFX/Spring beans (FxWeaver, host services, application paths). Two
  * startup paths are supported: a splash-driven background boot for the packaged app
  * and a synchronous no-splash path used by the test source sets.</p>
+ *
+ * <p>Both paths honour {@code -Dspring.aot.enabled=true}, set by the accelerated launch
+ * tasks in {@code gradle/startup.gradle}, and then refresh the context from the
+ * build-time generated initializer instead of scanning the classpath.</p>
  */
 @Configuration
 @Import(ApplicationConfiguration.class)
 @ComponentScan
 public class MusicottApplication {
 
+    private static final Logger logger = LoggerFactory.getLogger(MusicottApplication.class);
+
     public static void main(String[] args) {
+        fallBackFromMissingAotInitializer(MusicottApplication.class);
         Application.launch(SpringbootJavaFxApplication.class, args);
     }
 
+    /**
+     * Clears {@code spring.aot.enabled} when the AOT-generated context initializer for
+     * {@code applicationClass} is not on the classpath, e.g. a regular build launched with
+     * the flag left over. Spring would otherwise refuse to boot; the reflective refresh is
+     * slower but equivalent.
+     */
+    static void fallBackFromMissingAotInitializer(Class<?> applicationClass) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        String initializerName = applicationClass.getName() + "__ApplicationContextInitializer";
+        try {
+            Class.forName(initializerName, false, applicationClass.getClassLoader());
+        } catch (ClassNotFoundException notProcessed) {
+            logger.warn("{} not found; starting without the AOT-processed context", initializerName);
+            System.clearProperty(AotDetector.AOT_ENABLED);
+        }
+    }
+
     public record ApplicationPaths(Path audioItemsDatabasePath, Path playlistsPath, Path waveformsPath) {
     }
 
@@ -66,6 +95,7 @@ public class MusicottApplication {
                 // not pay the 800ms minimum display gate.
                 ConfigurableApplicationContext context = new SpringApplicationBuilder()
                         .sources(MusicottApplication.class)
+                        .main(MusicottApplication.class)
                         .run();
                 PrimaryStageInitializer initializer = context.getBean(PrimaryStageInitializer.class);
                 initializer.initializePrimaryStage(primaryStage);
@@ -7,8 +7,11 @@ import net.transgressoft.musicott.view.LogViewerController;
 import net.transgressoft.musicott.view.MainController;
 import net.transgressoft.musicott.view.custom.ApplicationImage;
 
+import javafx.animation.PauseTransition;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
+import javafx.util.Duration;
 import net.rgielen.fxweaver.core.FxWeaver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +19,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+
 /**
  * Bootstraps the primary JavaFX stage once the splash orchestrator hands it off after
  * Spring boot completes.
@@ -24,7 +29,8 @@ import org.springframework.stereotype.Component;
  * interaction does not pay the FXML parsing cost on the FX thread, (2) builds the main
  * scene, (3) wires graceful shutdown through {@link StopApplicationEvent}, and
  * (4) installs scene-derived minimum-size constraints with a chrome-compensated re-apply
- * after the stage is shown.
+ * after the stage is shown. When {@value #EXIT_AFTER_FIRST_FRAME_PROPERTY} is set it also
+ * (5) reports the launch-to-first-frame time and exits, for startup measurements.
  */
 @Component
 public class PrimaryStageInitializer {
@@ -39,6 +45,18 @@ public class PrimaryStageInitializer {
      */
     private static final double MIN_HEIGHT_FLOOR = 800.0;
 
+    /**
+     * Milliseconds to keep running after the main window's first frame before exiting.
+     * Set by the startup cache training run and by the launch benchmark; unset in normal use.
+     */
+    static final String EXIT_AFTER_FIRST_FRAME_PROPERTY = "musicott.startup.exitAfterFirstFrameMillis";
+
+    /**
+     * Marker logged at the main window's first frame, immediately followed by the
+     * milliseconds elapsed since the process was launched.
+     */
+    public static final String FIRST_FRAME_MARKER = "musicott.first-frame-ms=";
+
     private final FxWeaver fxWeaver;
     private final ApplicationEventPublisher applicationEventPublisher;
 
@@ -64,6 +82,7 @@ public class PrimaryStageInitializer {
         primaryStage.setScene(scene);
         primaryStage.getIcons().add(ApplicationImage.APP_ICON.get());
         installSceneDrivenMinimumSize(primaryStage, scene);
+        installFirstFrameProbe(primaryStage, scene);
     }
 
     /**
@@ -126,4 +145,31 @@ public class PrimaryStageInitializer {
                 stage.getMinHeight(), sceneMinHeight, chromeHeight, MIN_HEIGHT_FLOOR);
         });
     }
+
+    /**
+     * When {@value #EXIT_AFTER_FIRST_FRAME_PROPERTY} is set, logs {@link #FIRST_FRAME_MARKER}
+     * with the time since process launch on the first pulse after the stage is shown, then
+     * publishes {@link StopApplicationEvent} once the configured delay has elapsed.
+     */
+    private void installFirstFrameProbe(Stage stage, Scene scene) {
+        Long exitDelayMillis = Long.getLong(EXIT_AFTER_FIRST_FRAME_PROPERTY);
+        if (exitDelayMillis == null) {
+            return;
+        }
+        Instant launch = ProcessHandle.current().info().startInstant().orElseGet(Instant::now);
+        stage.addEventHandler(WindowEvent.WINDOW_SHOWN, shown -> {
+            Runnable firstPulse = new Runnable() {
+                @Override
+                public void run() {
+                    scene.removePostLayoutPulseListener(this);
+                    long elapsedMillis = java.time.Duration.between(launch, Instant.now()).toMillis();
+                    logger.info("First frame after launch: {}{}; exiting in {} ms", FIRST_FRAME_MARKER, elapsedMillis, exitDelayMillis);
+                    PauseTransition exitDelay = new PauseTransition(Duration.millis(exitDelayMillis));
+                    exitDelay.setOnFinished(e -> applicationEventPublisher.publishEvent(new StopApplicationEvent(PrimaryStageInitializer.this)));
+                    exitDelay.play();
+                }
+            };
+            scene.addPostLayoutPulseListener(firstPulse);
+        });
+    }
 }
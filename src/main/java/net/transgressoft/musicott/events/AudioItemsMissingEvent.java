@@ -0,0 +1,40 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+
+/**
+ * Published when the files of library tracks under a watched folder are found to be gone. The
+ * tracks stay in the library, flagged as not on disk.
+ */
+public class AudioItemsMissingEvent extends ApplicationEvent {
+
+    // ObservableAudioItem isn't Serializable; ApplicationEvent stays in-VM.
+    @SuppressWarnings("java:S1948")
+    public final Collection<ObservableAudioItem> audioItems;
+
+    public AudioItemsMissingEvent(Collection<ObservableAudioItem> audioItems, Object source) {
+        super(source);
+        this.audioItems = audioItems;
+    }
+}
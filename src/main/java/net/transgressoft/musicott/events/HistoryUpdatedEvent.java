@@ -17,23 +17,44 @@
 
 package net.transgressoft.musicott.events;
 
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
-
 import org.springframework.context.ApplicationEvent;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Published when the play history contents change (track completed, item removed, cleared).
+ *
+ * <p>Carries only the {@link QueueChange} delta of the mutation, so publishing is independent of
+ * the list length. The contents are not copied: the event holds a read-only view of the live
+ * history list of {@code PlayerService}, which is only changed on the JavaFX Application Thread.
+ * The view is therefore only valid on that thread while the event is being delivered, as Spring
+ * does synchronously. Listeners that keep the contents, or hand them to another thread, copy them
+ * while handling the event through {@link #snapshot()}. The same contract holds for
+ * {@link QueueUpdatedEvent}.
  */
 public class HistoryUpdatedEvent extends ApplicationEvent {
 
-    // TrackQueueRow is a JavaFX cell wrapper, not Serializable; ApplicationEvent stays in-VM.
+    public final QueueChange change;
+
+    // Read-only view of the live PlayerService list, valid during delivery; ApplicationEvent stays in-VM.
     @SuppressWarnings("java:S1948")
-    public final List<TrackQueueRow> historyItems;
+    private final List<Integer> history;
 
-    public HistoryUpdatedEvent(List<TrackQueueRow> historyItems, Object source) {
+    public HistoryUpdatedEvent(QueueChange change, List<Integer> history, Object source) {
         super(source);
-        this.historyItems = historyItems;
+        this.change = change;
+        this.history = Collections.unmodifiableList(history);
+    }
+
+    /**
+     * Returns an immutable copy of the track ids currently in the history list.
+     */
+    public List<Integer> snapshot() {
+        return List.copyOf(history);
+    }
+
+    public int size() {
+        return history.size();
     }
 }
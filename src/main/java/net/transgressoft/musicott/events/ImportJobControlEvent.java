@@ -0,0 +1,41 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the user pauses, resumes or cancels the running file or folder import, or
+ * cancels every queued one.
+ */
+public class ImportJobControlEvent extends ApplicationEvent {
+
+    public enum Action {
+        PAUSE,
+        RESUME,
+        CANCEL,
+        CANCEL_ALL
+    }
+
+    public final Action action;
+
+    public ImportJobControlEvent(Action action, Object source) {
+        super(source);
+        this.action = action;
+    }
+}
@@ -0,0 +1,40 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published while the audio library streams in after a progressive boot, each time a batch
+ * of tracks has been added, and a last time once every track is in the library.
+ */
+public class LibraryLoadingEvent extends ApplicationEvent {
+
+    public final int loadedItems;
+    public final int totalItems;
+
+    public LibraryLoadingEvent(int loadedItems, int totalItems, Object source) {
+        super(source);
+        this.loadedItems = loadedItems;
+        this.totalItems = totalItems;
+    }
+
+    public boolean isComplete() {
+        return loadedItems >= totalItems;
+    }
+}
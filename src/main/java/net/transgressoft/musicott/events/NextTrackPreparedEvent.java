@@ -0,0 +1,38 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the player has been primed for the track that follows the current one, so
+ * listeners can resolve whatever they render for it before the switch happens.
+ */
+public class NextTrackPreparedEvent extends ApplicationEvent {
+
+    // ObservableAudioItem isn't Serializable; ApplicationEvent stays in-VM.
+    @SuppressWarnings("java:S1948")
+    public final ObservableAudioItem nextTrack;
+
+    public NextTrackPreparedEvent(ObservableAudioItem nextTrack, Object source) {
+        super(source);
+        this.nextTrack = nextTrack;
+    }
+}
@@ -0,0 +1,69 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import java.util.List;
+
+/**
+ * Structural delta of a single mutation of the play queue or the history queue, carried by
+ * {@link QueueUpdatedEvent} and {@link HistoryUpdatedEvent}. Indices refer to the
+ * {@code PlayerService} storage, where index {@code size-1} is the next-up (or most recent) entry.
+ *
+ * <ul>
+ *     <li>{@link Type#ADDED}: {@code trackIds} were inserted starting at {@code fromIndex}.</li>
+ *     <li>{@link Type#REMOVED}: {@code trackIds} were removed, the first of them from {@code fromIndex}.</li>
+ *     <li>{@link Type#MOVED}: the single entry in {@code trackIds} moved from {@code fromIndex} to {@code toIndex}.</li>
+ *     <li>{@link Type#RESET}: the whole list was replaced or cleared; listeners needing the
+ *     contents take the event snapshot.</li>
+ * </ul>
+ *
+ * @param type      the kind of mutation
+ * @param fromIndex the first affected index, or {@code -1} for {@link Type#RESET}
+ * @param toIndex   the destination index of a {@link Type#MOVED} entry, otherwise the index
+ *                  right after the affected range
+ * @param trackIds  the ids inserted, removed or moved; empty for {@link Type#RESET}
+ */
+public record QueueChange(Type type, int fromIndex, int toIndex, List<Integer> trackIds) {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        MOVED,
+        RESET
+    }
+
+    public QueueChange {
+        trackIds = List.copyOf(trackIds);
+    }
+
+    public static QueueChange added(int fromIndex, List<Integer> trackIds) {
+        return new QueueChange(Type.ADDED, fromIndex, fromIndex + trackIds.size(), trackIds);
+    }
+
+    public static QueueChange removed(int fromIndex, List<Integer> trackIds) {
+        return new QueueChange(Type.REMOVED, fromIndex, fromIndex + trackIds.size(), trackIds);
+    }
+
+    public static QueueChange moved(int fromIndex, int toIndex, int trackId) {
+        return new QueueChange(Type.MOVED, fromIndex, toIndex, List.of(trackId));
+    }
+
+    public static QueueChange reset() {
+        return new QueueChange(Type.RESET, -1, -1, List.of());
+    }
+}
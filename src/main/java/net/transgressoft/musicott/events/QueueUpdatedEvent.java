@@ -17,23 +17,53 @@
 
 package net.transgressoft.musicott.events;
 
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
-
 import org.springframework.context.ApplicationEvent;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Published when the play queue contents change (add, remove, reorder, clear).
+ *
+ * <p>Carries only the {@link QueueChange} delta of the mutation, so publishing is independent of
+ * the list length. The contents are not copied: the event holds a read-only view of the live
+ * queue list of {@code PlayerService}, which is only changed on the JavaFX Application Thread.
+ * The view is therefore only valid on that thread while the event is being delivered, as Spring
+ * does synchronously. Listeners that keep the contents, or hand them to another thread, copy them
+ * while handling the event through {@link #snapshot()} or {@link #nextUp(int)}. The same contract
+ * holds for {@link HistoryUpdatedEvent}.
  */
 public class QueueUpdatedEvent extends ApplicationEvent {
 
-    // TrackQueueRow is a JavaFX cell wrapper, not Serializable; ApplicationEvent stays in-VM.
+    public final QueueChange change;
+
+    // Read-only view of the live PlayerService list, valid during delivery; ApplicationEvent stays in-VM.
     @SuppressWarnings("java:S1948")
-    public final List<TrackQueueRow> queueItems;
+    private final List<Integer> queue;
 
-    public QueueUpdatedEvent(List<TrackQueueRow> queueItems, Object source) {
+    public QueueUpdatedEvent(QueueChange change, List<Integer> queue, Object source) {
         super(source);
-        this.queueItems = queueItems;
+        this.change = change;
+        this.queue = Collections.unmodifiableList(queue);
+    }
+
+    /**
+     * Returns an immutable copy of the track ids currently in the queue list.
+     */
+    public List<Integer> snapshot() {
+        return List.copyOf(queue);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Returns an immutable copy of at most {@code count} track ids at the next-up end of the queue
+     * list, in storage order: the last one is the next-up track.
+     */
+    public List<Integer> nextUp(int count) {
+        int size = queue.size();
+        return List.copyOf(queue.subList(Math.max(0, size - count), size));
     }
 }
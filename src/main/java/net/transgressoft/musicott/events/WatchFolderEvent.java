@@ -0,0 +1,38 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.nio.file.Path;
+
+/**
+ * Published when the user asks for a folder to be watched, so the library follows the audio
+ * files added, changed and removed under it from then on.
+ */
+public class WatchFolderEvent extends ApplicationEvent {
+
+    // Path isn't guaranteed Serializable; ApplicationEvent stays in-VM.
+    @SuppressWarnings("java:S1948")
+    public final Path folder;
+
+    public WatchFolderEvent(Path folder, Object source) {
+        super(source);
+        this.folder = folder;
+    }
+}
@@ -18,6 +18,7 @@
 package net.transgressoft.musicott.services;
 
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.fx.music.player.FXAudioItemPlayer;
 import net.transgressoft.commons.music.event.PlayedEventSubscriber;
 import net.transgressoft.commons.music.player.AudioItemPlayer;
@@ -25,7 +26,6 @@ import net.transgressoft.commons.music.player.AudioItemPlayer.Status;
 import net.transgressoft.commons.music.player.UnsupportedAudioPlaybackException;
 import net.transgressoft.commons.music.player.event.AudioItemPlayerEvent.*;
 import net.transgressoft.musicott.events.*;
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
 
 import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
@@ -39,12 +39,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static net.transgressoft.commons.music.player.AudioItemPlayer.Status.*;
@@ -52,38 +57,69 @@ import static net.transgressoft.commons.music.player.event.AudioItemPlayerEvent.
 
 /**
  * Manages audio playback state, play queue, and history queue.
+ *
+ * <p>Both queues hold track ids only; the {@link ObservableAudioItem} behind each entry is
+ * resolved through the {@link ObservableAudioLibrary} when it is about to play or when a
+ * visible queue cell renders it. This keeps a queue of tens of thousands of shuffled tracks
+ * at a few bytes per entry, with no UI nodes built up front.
+ *
+ * <p>While a track plays, the next-up track of the play queue already has a primed player, so
+ * advancing to it is a swap rather than opening new media. The time each switch takes is
+ * kept in {@link #getLastTrackSwitchLatency()}.
  */
 @Service
 public class PlayerService {
 
     private static final int HISTORY_CAP = 150;
+    private static final int RANDOM_QUEUE_WINDOW = 25;
 
     private final Logger logger = LoggerFactory.getLogger(getClass().getName());
 
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObservableAudioLibrary audioLibrary;
 
-    private final ObservableList<TrackQueueRow> playQueueList = FXCollections.observableArrayList();
-    private final ObservableList<TrackQueueRow> historyQueueList = FXCollections.observableArrayList();
+    private final ObservableList<Integer> playQueueList = FXCollections.observableArrayList();
+    private final ObservableList<Integer> historyQueueList = FXCollections.observableArrayList();
 
     private Optional<ObservableAudioItem> currentTrack = Optional.empty();
     private FXAudioItemPlayer trackPlayer;
     private ChangeListener<Status> statusListener;
     private PlayedEventSubscriber playedEventSubscriber;
     private boolean playingRandom = false;
+    private ShuffleEngine shuffleEngine;
+    private PreparedTrack preparedTrack;
+    private Duration lastTrackSwitchLatency = Duration.ZERO;
+    private boolean lastTrackSwitchPrebuffered = false;
+    private ShuffleEngine.Weighting shuffleWeighting = ShuffleEngine.Weighting.UNIFORM;
 
     @Autowired
-    public PlayerService(ApplicationEventPublisher applicationEventPublisher) {
+    public PlayerService(ApplicationEventPublisher applicationEventPublisher, ObservableAudioLibrary audioLibrary) {
         this.applicationEventPublisher = applicationEventPublisher;
+        this.audioLibrary = audioLibrary;
     }
 
-    public ObservableList<TrackQueueRow> getPlayQueueList() {
+    /**
+     * Returns the ids of the queued tracks. Index {@code size-1} is next-up, index 0 is farthest-out.
+     */
+    public ObservableList<Integer> getPlayQueueList() {
         return playQueueList;
     }
 
-    public ObservableList<TrackQueueRow> getHistoryQueueList() {
+    /**
+     * Returns the ids of the recently played tracks. Index {@code size-1} is the most recent one.
+     */
+    public ObservableList<Integer> getHistoryQueueList() {
         return historyQueueList;
     }
 
+    /**
+     * Resolves a queued track id against the audio library. Empty when the track has been
+     * deleted from the library since it was queued.
+     */
+    public Optional<ObservableAudioItem> resolveTrack(int trackId) {
+        return audioLibrary.findById(trackId).map(ObservableAudioItem.class::cast);
+    }
+
     public Optional<ObservableAudioItem> currentTrack() {
         return currentTrack;
     }
@@ -108,6 +144,21 @@ public class PlayerService {
         return trackPlayer != null ? trackPlayer.getStatusProperty() : null;
     }
 
+    /**
+     * Returns how long the last track switch took, from releasing the outgoing player until the
+     * new one was started and announced.
+     */
+    public Duration getLastTrackSwitchLatency() {
+        return lastTrackSwitchLatency;
+    }
+
+    /**
+     * Whether the last track switch swapped in a player primed ahead of time.
+     */
+    public boolean isLastTrackSwitchPrebuffered() {
+        return lastTrackSwitchPrebuffered;
+    }
+
     public void play(ObservableAudioItem audioItem) {
         if (!audioItem.getPath().toFile().exists()) {
             logger.error("File not found: {}", audioItem.getPath());
@@ -125,6 +176,8 @@ public class PlayerService {
     }
 
     private void setPlayer(ObservableAudioItem audioItem) {
+        long switchStart = System.nanoTime();
+        double volume = currentVolume();
         // Release the previous player and its subscription before swapping in a new one — the
         // direct callers (previous, playFromQueue, playFromHistoryQueue) do not stop it themselves.
         if (trackPlayer != null) {
@@ -143,17 +196,25 @@ public class PlayerService {
             playedEventSubscriber = null;
         }
 
-        var newPlayer = new FXAudioItemPlayer();
-        // Bind to the AudioItemPlayer interface so Kotlin's @Throws on the interface method is
-        // visible to Java's checked-exception analysis (the concrete overrides do not carry it).
-        AudioItemPlayer playerView = newPlayer;
-        try {
-            playerView.play(audioItem);
-        } catch (UnsupportedAudioPlaybackException e) {
-            logger.error("Cannot play audio item {}", audioItem.getPath(), e);
-            newPlayer.dispose();
-            applicationEventPublisher.publishEvent(new ErrorEvent("Unsupported audio format", e.getMessage(), this));
-            return;
+        var newPlayer = takePreparedPlayer(audioItem);
+        boolean prebuffered = newPlayer != null;
+        if (prebuffered) {
+            newPlayer.seek(Duration.ZERO);
+            newPlayer.setVolume(volume);
+            newPlayer.resume();
+        } else {
+            newPlayer = new FXAudioItemPlayer();
+            // Bind to the AudioItemPlayer interface so Kotlin's @Throws on the interface method is
+            // visible to Java's checked-exception analysis (the concrete overrides do not carry it).
+            AudioItemPlayer playerView = newPlayer;
+            try {
+                playerView.play(audioItem);
+            } catch (UnsupportedAudioPlaybackException e) {
+                logger.error("Cannot play audio item {}", audioItem.getPath(), e);
+                newPlayer.dispose();
+                applicationEventPublisher.publishEvent(new ErrorEvent("Unsupported audio format", e.getMessage(), this));
+                return;
+            }
         }
         trackPlayer = newPlayer;
         currentTrack = Optional.of(audioItem);
@@ -167,7 +228,84 @@ public class PlayerService {
 
         trackPlayer.onFinish(() -> Platform.runLater(this::next));
         applicationEventPublisher.publishEvent(new AudioItemChangedEvent(audioItem, this));
-        logger.trace("Created new player for track {}", audioItem);
+
+        lastTrackSwitchLatency = Duration.ofNanos(System.nanoTime() - switchStart);
+        lastTrackSwitchPrebuffered = prebuffered;
+        logger.debug("Switched to track {} in {} µs ({})", audioItem.getId(), lastTrackSwitchLatency.toNanos() / 1000,
+                     prebuffered ? "pre-buffered" : "cold");
+
+        prepareNextTrack();
+    }
+
+    /**
+     * Primes a player for the next-up track of the play queue: its media is opened and started
+     * muted, then paused at once, so the decoder has buffered by the time the current track ends.
+     * {@link AudioItemPlayer} has no load-only operation, hence the play-and-pause.
+     *
+     * <p>Only the next-up entry is prepared. Queue changes that put a different track next-up prime
+     * that one instead, see {@link #refreshPreparedTrack()}; if another track still ends up playing,
+     * the prepared player is discarded and that switch takes the cold path.
+     */
+    private void prepareNextTrack() {
+        releasePreparedTrack();
+        if (playQueueList.isEmpty())
+            return;
+        var nextTrack = resolveTrack(playQueueList.get(playQueueList.size() - 1))
+                .filter(track -> track.getPath().toFile().exists())
+                .filter(AudioItemPlayer.Companion::isPlayable);
+        if (nextTrack.isEmpty())
+            return;
+
+        var player = new FXAudioItemPlayer();
+        AudioItemPlayer playerView = player;
+        try {
+            player.setVolume(0.0);
+            playerView.play(nextTrack.get());
+            player.pause();
+        } catch (UnsupportedAudioPlaybackException e) {
+            // The cold path reports the error to the user if this track is actually reached
+            logger.debug("Could not prepare a player for track {}", nextTrack.get().getPath(), e);
+            player.dispose();
+            return;
+        }
+        preparedTrack = new PreparedTrack(nextTrack.get().getId(), player);
+        applicationEventPublisher.publishEvent(new NextTrackPreparedEvent(nextTrack.get(), this));
+        logger.trace("Prepared player for next track {}", nextTrack.get());
+    }
+
+    /**
+     * Primes the next-up track again when a queue change has replaced it while a track is playing.
+     */
+    private void refreshPreparedTrack() {
+        if (currentTrack.isEmpty())
+            return;
+        Integer nextUpId = playQueueList.isEmpty() ? null : playQueueList.get(playQueueList.size() - 1);
+        Integer preparedId = preparedTrack == null ? null : preparedTrack.trackId();
+        if (! Objects.equals(nextUpId, preparedId))
+            prepareNextTrack();
+    }
+
+    private FXAudioItemPlayer takePreparedPlayer(ObservableAudioItem audioItem) {
+        if (preparedTrack != null && preparedTrack.trackId() == audioItem.getId()) {
+            var player = preparedTrack.player();
+            preparedTrack = null;
+            return player;
+        }
+        releasePreparedTrack();
+        return null;
+    }
+
+    private void releasePreparedTrack() {
+        if (preparedTrack != null) {
+            preparedTrack.player().stop();
+            preparedTrack.player().dispose();
+            preparedTrack = null;
+        }
+    }
+
+    private double currentVolume() {
+        var volumeProperty = trackPlayer != null ? trackPlayer.getVolumeProperty() : null;
+        return volumeProperty != null ? volumeProperty.get() : 1.0;
     }
 
     private void bindMediaPlayer() {
@@ -208,134 +346,220 @@ public class PlayerService {
     }
 
     public void next() {
-        currentTrack.ifPresent(track -> {
-            TrackQueueRow row = new TrackQueueRow(track);
-            historyQueueList.add(row);
-            enforceHistoryCap();
-            publishHistoryUpdatedEvent();
-        });
-        if (playQueueList.isEmpty()) {
+        currentTrack.ifPresent(track -> appendToHistory(track.getId()));
+        var nextTrack = pollResolvable(playQueueList, this::publishQueueUpdatedEvent);
+        topUpRandomQueue();
+        nextTrack.ifPresentOrElse(this::play, () -> {
+            releasePreparedTrack();
             stop();
-        } else {
-            TrackQueueRow nextRow = playQueueList.remove(playQueueList.size() - 1);
-            publishQueueUpdatedEvent();
-            play(nextRow.getTrack());
-        }
+        });
     }
 
     public void previous() {
         if (!historyQueueList.isEmpty()) {
             currentTrack.ifPresent(track -> {
-                // Delete-button handler is set by PlayQueueController.queueChangeListener
-                // when this row is observed entering playQueueList — keeping handler ownership
-                // in one place avoids the previous pattern where the controller silently
-                // overwrote a PlayerService-set handler.
-                playQueueList.add(new TrackQueueRow(track));
-                publishQueueUpdatedEvent();
+                playQueueList.add(track.getId());
+                publishQueueUpdatedEvent(QueueChange.added(playQueueList.size() - 1, List.of(track.getId())));
             });
-            TrackQueueRow previousRow = historyQueueList.remove(historyQueueList.size() - 1);
-            publishHistoryUpdatedEvent();
-            setPlayer(previousRow.getTrack());
+            pollResolvable(historyQueueList, this::publishHistoryUpdatedEvent).ifPresentOrElse(this::setPlayer, this::stop);
         } else {
             stop();
         }
     }
 
     /**
-     * Shuffles the playable items from the given pool, fills the play queue, and starts playback.
+     * Removes ids from the end of the given list until one resolves to a library track, publishing
+     * a single removal delta. Ids of tracks deleted from the library while queued are dropped on the way.
+     */
+    private Optional<ObservableAudioItem> pollResolvable(ObservableList<Integer> trackIds, Consumer<QueueChange> changePublisher) {
+        var polledIds = new ArrayList<Integer>(1);
+        Optional<ObservableAudioItem> track = Optional.empty();
+        while (track.isEmpty() && ! trackIds.isEmpty()) {
+            int trackId = trackIds.remove(trackIds.size() - 1);
+            polledIds.add(trackId);
+            track = resolveTrack(trackId);
+        }
+        if (! polledIds.isEmpty()) {
+            Collections.reverse(polledIds);
+            changePublisher.accept(QueueChange.removed(trackIds.size(), polledIds));
+        }
+        return track;
+    }
+
+    /**
+     * Starts random playback over the playable items of the given pool.
+     *
+     * <p>Tracks are drawn lazily by a {@link ShuffleEngine}: only a window of
+     * {@value #RANDOM_QUEUE_WINDOW} ids is queued at a time and it is topped up on every
+     * {@link #next()}, so starting a shuffle over a large library neither shuffles nor checks the
+     * playability of the whole pool up front. Tracks in the history queue or currently playing are
+     * drawn last (or with a low weight), so a new shuffle does not repeat what was just heard.
      *
-     * <p>If the pool contains no playable items, a {@link StatusMessageUpdateEvent} is published
+     * <p>If no drawn item is playable, a {@link StatusMessageUpdateEvent} is published
      * with the message "No playable tracks available" and the queue remains unchanged.
      * The {@code playingRandom} flag is set to {@code true} after the queue is populated, so
      * any subsequent explicit {@link #addToQueue} call will clear the random queue first.
      *
-     * @param pool the collection of audio items to draw from; non-playable items are filtered out
+     * @param pool the collection of audio items to draw from; non-playable items are skipped when drawn
      */
     public void playRandom(Collection<ObservableAudioItem> pool) {
-        var playable = pool.stream()
-                .filter(AudioItemPlayer.Companion::isPlayable)
-                .collect(Collectors.toCollection(ArrayList::new));
-        if (playable.isEmpty()) {
+        var recentlyPlayedIds = new HashSet<>(historyQueueList);
+        currentTrack.ifPresent(track -> recentlyPlayedIds.add(track.getId()));
+        var engine = new ShuffleEngine(pool, recentlyPlayedIds, shuffleWeighting, new Random());
+
+        var window = drawPlayable(engine, RANDOM_QUEUE_WINDOW);
+        if (window.isEmpty()) {
             applicationEventPublisher.publishEvent(
                     new StatusMessageUpdateEvent("No playable tracks available", this));
             return;
         }
-        Collections.shuffle(playable);
-        // Random playback replaces any existing queue. Clear explicitly first (with the flag still
-        // false so addToQueue does not self-clear the items being enqueued), then mark the queue as
-        // random once it is populated.
-        playQueueList.clear();
-        publishQueueUpdatedEvent();
-        playingRandom = false;
-        addToQueue(playable);
+        // Inverted storage: the first drawn id is next-up, so it goes last. Random playback replaces
+        // any existing queue in a single setAll change, then marks the queue as random so the next
+        // explicit addToQueue clears it.
+        Collections.reverse(window);
+        shuffleEngine = engine;
+        playQueueList.setAll(window);
+        publishQueueUpdatedEvent(QueueChange.reset());
         playingRandom = true;
+        logger.debug("Random playback started over a pool of {} tracks", engine.poolSize());
         next();
     }
 
-    public void addToQueue(Collection<ObservableAudioItem> audioItems) {
-        if (playingRandom) {
-            playQueueList.clear();
-            playingRandom = false;
+    public ShuffleEngine.Weighting getShuffleWeighting() {
+        return shuffleWeighting;
+    }
+
+    /**
+     * Selects how random playback weights the tracks of the pool. Takes effect on the next
+     * {@link #playRandom} call.
+     */
+    public void setShuffleWeighting(ShuffleEngine.Weighting shuffleWeighting) {
+        this.shuffleWeighting = shuffleWeighting;
+    }
+
+    private void topUpRandomQueue() {
+        if (shuffleEngine == null || playQueueList.size() >= RANDOM_QUEUE_WINDOW)
+            return;
+        var drawnIds = drawPlayable(shuffleEngine, RANDOM_QUEUE_WINDOW - playQueueList.size());
+        if (! shuffleEngine.hasNext())
+            shuffleEngine = null;
+        if (! drawnIds.isEmpty()) {
+            Collections.reverse(drawnIds);
+            playQueueList.addAll(0, drawnIds);
+            publishQueueUpdatedEvent(QueueChange.added(0, drawnIds));
         }
-        // Delete-button handler is set by PlayQueueController.queueChangeListener when each
-        // row is observed entering playQueueList — see removeFromPlayQueue / removeFromHistoryQueue.
-        var newRows = audioItems.stream()
+    }
+
+    private List<Integer> drawPlayable(ShuffleEngine engine, int count) {
+        var drawnIds = new ArrayList<Integer>(count);
+        while (drawnIds.size() < count && engine.hasNext()) {
+            OptionalInt trackId = engine.next();
+            trackId.ifPresent(id -> resolveTrack(id)
+                    .filter(AudioItemPlayer.Companion::isPlayable)
+                    .ifPresent(track -> drawnIds.add(id)));
+        }
+        return drawnIds;
+    }
+
+    public void addToQueue(Collection<ObservableAudioItem> audioItems) {
+        var newIds = audioItems.stream()
                 .filter(AudioItemPlayer.Companion::isPlayable)
-                .map(TrackQueueRow::new)
-                .toList();
+                .map(ObservableAudioItem::getId)
+                .collect(Collectors.toCollection(ArrayList::new));
         // Inverted storage: index size-1 is next-up, index 0 is farthest-out. The first input is
-        // next-up (bottom of the popover), the last input is farthest (top). Reverse the new rows
+        // next-up (bottom of the popover), the last input is farthest (top). Reverse the new ids
         // and addAll at index 0 in one call, avoiding O(n²) repeated shifts and N change events.
-        if (!newRows.isEmpty()) {
-            var reversed = new java.util.ArrayList<>(newRows);
-            java.util.Collections.reverse(reversed);
-            playQueueList.addAll(0, reversed);
-            publishQueueUpdatedEvent();
+        Collections.reverse(newIds);
+        if (playingRandom) {
+            // An explicit enqueue replaces the random queue in one change rather than a clear plus an add.
+            playingRandom = false;
+            shuffleEngine = null;
+            playQueueList.setAll(newIds);
+            publishQueueUpdatedEvent(QueueChange.reset());
+        } else if (!newIds.isEmpty()) {
+            playQueueList.addAll(0, newIds);
+            publishQueueUpdatedEvent(QueueChange.added(0, newIds));
         }
+        refreshPreparedTrack();
     }
 
-    public void playFromQueue(TrackQueueRow trackQueueRow) {
-        ObservableAudioItem track = trackQueueRow.getTrack();
-        // Append the previous current track to history (the one being LEFT). The selected
-        // track is what's about to start playing; it will be appended to history when it
-        // finishes naturally via next() — appending it here would duplicate it.
-        currentTrack.ifPresent(prev -> {
-            historyQueueList.add(new TrackQueueRow(prev));
-            enforceHistoryCap();
-            publishHistoryUpdatedEvent();
+    /**
+     * Starts playing the queued track at the given index, removing it from the play queue.
+     *
+     * @param queueIndex index into {@link #getPlayQueueList()}
+     */
+    public void playFromQueue(int queueIndex) {
+        if (queueIndex < 0 || queueIndex >= playQueueList.size())
+            return;
+        int trackId = playQueueList.remove(queueIndex);
+        publishQueueUpdatedEvent(QueueChange.removed(queueIndex, List.of(trackId)));
+        resolveTrack(trackId).ifPresent(track -> {
+            // Append the previous current track to history (the one being LEFT). The selected
+            // track is what's about to start playing; it will be appended to history when it
+            // finishes naturally via next() — appending it here would duplicate it.
+            currentTrack.ifPresent(prev -> appendToHistory(prev.getId()));
+            setPlayer(track);
         });
-        playQueueList.remove(trackQueueRow);
-        publishQueueUpdatedEvent();
-        setPlayer(track);
         logger.trace("Play from queue selected. Queue size {}, history queue size {}", playQueueList.size(), historyQueueList.size());
     }
 
-    public void playFromHistoryQueue(TrackQueueRow trackQueueRow) {
-        ObservableAudioItem track = trackQueueRow.getTrack();
-        setPlayer(track);
-        historyQueueList.remove(trackQueueRow);
-        publishHistoryUpdatedEvent();
+    /**
+     * Starts playing the history track at the given index, removing it from the history queue.
+     *
+     * @param historyIndex index into {@link #getHistoryQueueList()}
+     */
+    public void playFromHistoryQueue(int historyIndex) {
+        if (historyIndex < 0 || historyIndex >= historyQueueList.size())
+            return;
+        int trackId = historyQueueList.remove(historyIndex);
+        publishHistoryUpdatedEvent(QueueChange.removed(historyIndex, List.of(trackId)));
+        resolveTrack(trackId).ifPresent(this::setPlayer);
         logger.trace("Play from history selected. History queue size {}", historyQueueList.size());
     }
 
     public void clearQueue() {
+        shuffleEngine = null;
+        releasePreparedTrack();
         playQueueList.clear();
-        publishQueueUpdatedEvent();
+        publishQueueUpdatedEvent(QueueChange.reset());
         logger.debug("Play queue cleared");
     }
 
-    public void removeFromPlayQueue(TrackQueueRow row) {
-        if (playQueueList.remove(row)) {
-            publishQueueUpdatedEvent();
+    public void clearHistoryQueue() {
+        historyQueueList.clear();
+        publishHistoryUpdatedEvent(QueueChange.reset());
+        logger.debug("History queue cleared");
+    }
+
+    public void removeFromPlayQueue(int queueIndex) {
+        if (queueIndex >= 0 && queueIndex < playQueueList.size()) {
+            int trackId = playQueueList.remove(queueIndex);
+            publishQueueUpdatedEvent(QueueChange.removed(queueIndex, List.of(trackId)));
+            refreshPreparedTrack();
         }
     }
 
-    public void removeFromHistoryQueue(TrackQueueRow row) {
-        if (historyQueueList.remove(row)) {
-            publishHistoryUpdatedEvent();
+    public void removeFromHistoryQueue(int historyIndex) {
+        if (historyIndex >= 0 && historyIndex < historyQueueList.size()) {
+            int trackId = historyQueueList.remove(historyIndex);
+            publishHistoryUpdatedEvent(QueueChange.removed(historyIndex, List.of(trackId)));
         }
     }
 
+    /**
+     * Moves a play queue entry so it ends up at {@code toIndex}, as done by drag-and-drop
+     * reordering in the queue popover.
+     */
+    public void moveInPlayQueue(int fromIndex, int toIndex) {
+        int size = playQueueList.size();
+        if (fromIndex < 0 || toIndex < 0 || fromIndex >= size || toIndex >= size || fromIndex == toIndex)
+            return;
+        int trackId = playQueueList.remove(fromIndex);
+        playQueueList.add(toIndex, trackId);
+        publishQueueUpdatedEvent(QueueChange.moved(fromIndex, toIndex, trackId));
+        refreshPreparedTrack();
+    }
+
     public void increaseVolume() {
         if (trackPlayer != null) {
             double currentVolume = trackPlayer.getVolumeProperty().get();
@@ -357,18 +581,28 @@ public class PlayerService {
         }
     }
 
+    private void appendToHistory(int trackId) {
+        historyQueueList.add(trackId);
+        publishHistoryUpdatedEvent(QueueChange.added(historyQueueList.size() - 1, List.of(trackId)));
+        enforceHistoryCap();
+    }
+
     private void enforceHistoryCap() {
         if (historyQueueList.size() > HISTORY_CAP) {
             int overflow = historyQueueList.size() - HISTORY_CAP;
+            var evicted = List.copyOf(historyQueueList.subList(0, overflow));
             historyQueueList.remove(0, overflow);
+            publishHistoryUpdatedEvent(QueueChange.removed(0, evicted));
         }
     }
 
-    private void publishQueueUpdatedEvent() {
-        applicationEventPublisher.publishEvent(new QueueUpdatedEvent(List.copyOf(playQueueList), this));
+    private void publishQueueUpdatedEvent(QueueChange change) {
+        applicationEventPublisher.publishEvent(new QueueUpdatedEvent(change, playQueueList, this));
     }
 
-    private void publishHistoryUpdatedEvent() {
-        applicationEventPublisher.publishEvent(new HistoryUpdatedEvent(List.copyOf(historyQueueList), this));
+    private void publishHistoryUpdatedEvent(QueueChange change) {
+        applicationEventPublisher.publishEvent(new HistoryUpdatedEvent(change, historyQueueList, this));
     }
+
+    private record PreparedTrack(int trackId, FXAudioItemPlayer player) {}
 }
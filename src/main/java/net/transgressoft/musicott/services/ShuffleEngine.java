@@ -0,0 +1,181 @@
+/******************************************************************************
+ *     Copyright (C) 2025  Octavio Calleya Garcia                             *
+ *                                                                            *
+ *     This program is free software: you can redistribute it and/or modify   *
+ *     it under the terms of the GNU General Public License as published by   *
+ *     the Free Software Foundation, either version 3 of the License, or      *
+ *     (at your option) any later version.                                    *
+ *                                                                            *
+ *     This program is distributed in the hope that it will be useful,        *
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of         *
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the          *
+ *     GNU General Public License for more details.                           *
+ *                                                                            *
+ *     You should have received a copy of the GNU General Public License      *
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>. *
+ ******************************************************************************/
+
+package net.transgressoft.musicott.services;
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Draws track ids for random playback one at a time, so starting a shuffle over a large pool
+ * costs a single pass that copies the ids and never materializes a shuffled list of tracks.
+ *
+ * <p>With {@link Weighting#UNIFORM} the draw is an incremental Fisher-Yates shuffle over the id
+ * array: each call swaps one random remaining id into the drawn prefix in O(1). Ids that were
+ * played recently are set aside when drawn and handed out only after the rest of the pool.
+ *
+ * <p>With {@link Weighting#FAVOR_PLAY_COUNT} each id gets a weight that grows with the track's play
+ * count and shrinks sharply for recently played tracks, kept in a Fenwick tree of prefix sums.
+ * Each draw samples a point on the cumulative weight and descends the tree in O(log n), then zeroes
+ * the drawn weight so no track repeats within one session.
+ *
+ * <p>Instances are not thread-safe; {@link PlayerService} uses them from the JavaFX thread only.
+ */
+public class ShuffleEngine {
+
+    public enum Weighting {
+        UNIFORM,
+        FAVOR_PLAY_COUNT
+    }
+
+    private static final double RECENTLY_PLAYED_WEIGHT_FACTOR = 0.02;
+
+    private final int[] trackIds;
+    private final Set<Integer> recentlyPlayedIds;
+    private final Random random;
+    private final double[] weights;
+    private final double[] fenwickTree;
+    private final Deque<Integer> deferredRecentIds = new ArrayDeque<>();
+    private int consumedCount = 0;
+    private int drawnCount = 0;
+
+    /**
+     * @param pool              the tracks to draw from; only their ids and, when weighted, play counts are read
+     * @param recentlyPlayedIds ids of tracks played recently, which are drawn last or with a low weight
+     * @param weighting         how the draw probability of each track is computed
+     * @param random            source of randomness
+     */
+    public ShuffleEngine(Collection<? extends ObservableAudioItem> pool, Set<Integer> recentlyPlayedIds,
+                         Weighting weighting, Random random) {
+        this.recentlyPlayedIds = recentlyPlayedIds;
+        this.random = random;
+        this.trackIds = new int[pool.size()];
+        this.weights = weighting == Weighting.FAVOR_PLAY_COUNT ? new double[pool.size()] : null;
+        int index = 0;
+        for (ObservableAudioItem item : pool) {
+            trackIds[index] = item.getId();
+            if (weights != null)
+                weights[index] = weightOf(item);
+            index++;
+        }
+        this.fenwickTree = weights != null ? buildFenwickTree(weights) : null;
+    }
+
+    private double weightOf(ObservableAudioItem item) {
+        // log-scaled so a handful of heavily played tracks does not crowd out the rest of the pool
+        double weight = 1.0 + Math.log1p(Math.max(0, item.getPlayCount()));
+        return recentlyPlayedIds.contains(item.getId()) ? weight * RECENTLY_PLAYED_WEIGHT_FACTOR : weight;
+    }
+
+    public int poolSize() {
+        return trackIds.length;
+    }
+
+    public boolean hasNext() {
+        return drawnCount < trackIds.length;
+    }
+
+    /**
+     * Draws the next track id, never returning the same pool entry twice.
+     *
+     * @return the drawn id, or empty once the whole pool has been drawn
+     */
+    public OptionalInt next() {
+        if (! hasNext())
+            return OptionalInt.empty();
+        return fenwickTree != null ? OptionalInt.of(nextWeighted()) : OptionalInt.of(nextUniform());
+    }
+
+    private int nextUniform() {
+        // trackIds[0, consumedCount) holds ids already drawn or deferred; the rest is still undrawn
+        while (consumedCount < trackIds.length) {
+            int pick = consumedCount + random.nextInt(trackIds.length - consumedCount);
+            int trackId = trackIds[pick];
+            trackIds[pick] = trackIds[consumedCount];
+            trackIds[consumedCount++] = trackId;
+            if (recentlyPlayedIds.contains(trackId)) {
+                deferredRecentIds.addLast(trackId);
+            } else {
+                drawnCount++;
+                return trackId;
+            }
+        }
+        drawnCount++;
+        return deferredRecentIds.removeFirst();
+    }
+
+    private int nextWeighted() {
+        int index = findByCumulativeWeight(random.nextDouble() * prefixSum(trackIds.length));
+        addWeight(index, - weights[index]);
+        weights[index] = 0.0;
+        drawnCount++;
+        return trackIds[index];
+    }
+
+    private static double[] buildFenwickTree(double[] weights) {
+        // 1-based tree built in O(n) by pushing each node's partial sum to its parent
+        double[] tree = new double[weights.length + 1];
+        for (int i = 1; i <= weights.length; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= weights.length)
+                tree[parent] += tree[i];
+        }
+        return tree;
+    }
+
+    private double prefixSum(int count) {
+        double sum = 0.0;
+        for (int i = count; i > 0; i -= i & -i)
+            sum += fenwickTree[i];
+        return sum;
+    }
+
+    private void addWeight(int index, double delta) {
+        for (int i = index + 1; i < fenwickTree.length; i += i & -i)
+            fenwickTree[i] += delta;
+    }
+
+    /**
+     * Returns the 0-based index of the first entry whose cumulative weight exceeds {@code target},
+     * skipping entries already drawn (zero weight) even when rounding lands exactly on their boundary.
+     */
+    private int findByCumulativeWeight(double target) {
+        int position = 0;
+        double remaining = target;
+        for (int step = Integer.highestOneBit(trackIds.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < fenwickTree.length && fenwickTree[next] <= remaining) {
+                position = next;
+                remaining -= fenwickTree[next];
+            }
+        }
+        int index = Math.min(position, trackIds.length - 1);
+        // Floating point drift can leave the target past the last positive weight; walk back to it.
+        while (index > 0 && weights[index] <= 0.0)
+            index--;
+        while (index < trackIds.length - 1 && weights[index] <= 0.0)
+            index++;
+        return index;
+    }
+}
@@ -0,0 +1,119 @@
+package net.transgressoft.musicott.splash;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared progress of the loading steps that run while Spring builds its context, read by
+ * the splash's {@link BootProgressTask}.
+ *
+ * <p>The persistence beans are created inside {@code SpringApplicationBuilder.run()}, before
+ * the splash can reach any bean, so they report here instead: each repository load registers
+ * a {@link Step} and advances it from its own loader thread, while the boot Task polls
+ * {@link #fraction()} and {@link #message()}. Every step weighs the same, whatever its unit
+ * (bytes read, playlists decoded), so the overall fraction tracks the slowest of the
+ * concurrent loads rather than the largest.
+ *
+ * @author Octavio Calleya
+ */
+public final class BootProgress {
+
+    /** Singleton instance; created once at class-load time before any Spring context. */
+    public static final BootProgress INSTANCE = new BootProgress();
+
+    private final List<Step> steps = new CopyOnWriteArrayList<>();
+
+    BootProgress() {
+    }
+
+    /**
+     * Registers a new step shown as {@code message} while it is the least advanced one.
+     * A {@code total} of zero or less means the amount of work is not known yet.
+     */
+    public Step step(String message, long total) {
+        Step step = new Step(message, total);
+        steps.add(step);
+        return step;
+    }
+
+    /**
+     * Returns the mean completion of the registered steps in {@code [0, 1]}, or {@code -1}
+     * (indeterminate) when no step is registered.
+     */
+    public double fraction() {
+        if (steps.isEmpty()) {
+            return -1;
+        }
+        return steps.stream().mapToDouble(Step::fraction).average().orElse(0);
+    }
+
+    /**
+     * Returns the message of the least advanced unfinished step, if any.
+     */
+    public Optional<String> message() {
+        Step slowest = null;
+        for (Step step : steps) {
+            if (!step.isComplete() && (slowest == null || step.fraction() < slowest.fraction())) {
+                slowest = step;
+            }
+        }
+        return Optional.ofNullable(slowest).map(step -> step.message);
+    }
+
+    /**
+     * Forgets every registered step, so a new boot starts from zero.
+     */
+    public void reset() {
+        steps.clear();
+    }
+
+    /**
+     * One loading step. Safe to advance from any thread.
+     */
+    public static final class Step {
+
+        private final String message;
+        private final AtomicLong done = new AtomicLong();
+        private volatile long total;
+        private volatile boolean complete;
+
+        private Step(String message, long total) {
+            this.message = message;
+            this.total = total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public void advance(long amount) {
+            done.addAndGet(amount);
+        }
+
+        /**
+         * Replaces both the amount of work done and the total, for loads that report absolute counts.
+         */
+        public void update(long done, long total) {
+            this.total = total;
+            this.done.set(done);
+        }
+
+        public void complete() {
+            complete = true;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        double fraction() {
+            if (complete) {
+                return 1;
+            }
+            long currentTotal = total;
+            return currentTotal <= 0 ? 0 : Math.min(1, (double) done.get() / currentTotal);
+        }
+    }
+}
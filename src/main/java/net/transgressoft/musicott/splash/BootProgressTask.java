@@ -8,19 +8,25 @@ import javafx.concurrent.Task;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Background work that boots Spring and force-instantiates the heavy data beans,
- * driving the splash through four progress stages.
+ * driving the splash through two progress stages.
  *
- * <p>The first stage corresponds to {@code SpringApplicationBuilder.run()} — Spring
- * eagerly builds the {@code musicLibrary} bean here, which loads audio, playlist,
- * and waveform JSON files synchronously via {@code FXMusicLibrary.builder().build()}.
- * Stages 2-4 request the dependent beans by type; their bean factory methods are
- * trivial unwrappers (no extra I/O) but the stages remain visible to the user as
- * UX/branding markers per the locked progress-stage decision.
+ * <p>The first stage corresponds to {@code SpringApplicationBuilder.run()}, during which
+ * {@code ApplicationConfiguration} loads the audio, playlist and waveform repositories
+ * concurrently and the {@code musicLibrary} bean is built over them. The loads report
+ * item-level progress to {@link BootProgress}, which this Task polls while it is blocked
+ * in {@code run()}, so the bar and message follow the slowest load. Under a progressive
+ * boot the library is built over the first page of tracks only;
+ * {@code LibraryWarmUpService} streams in the rest once the main window is shown.
+ * The second stage requests the dependent beans by type and marks the UI preparation
+ * that the orchestrator then runs on the FX thread.
  *
  * <p>The {@code springContextReady} flag is flipped to {@code true} immediately
  * after {@code SpringApplicationBuilder.run()} returns. The orchestrator's
@@ -31,10 +37,12 @@ import java.util.concurrent.atomic.AtomicReference;
 public class BootProgressTask extends Task<ConfigurableApplicationContext> {
 
     static final String STAGE_LIBRARY = "Loading library…";
-    static final String STAGE_PLAYLISTS = "Loading playlists…";
-    static final String STAGE_WAVEFORMS = "Loading waveforms…";
     static final String STAGE_UI = "Preparing UI…";
 
+    // Share of the progress bar taken by the repository loads; the UI preparation takes the rest
+    private static final double LOADING_SHARE = 0.9;
+    private static final long PROGRESS_POLL_MILLIS = 50;
+
     private final Class<?> applicationClass;
     private final AtomicBoolean springContextReady = new AtomicBoolean(false);
     private final AtomicReference<ConfigurableApplicationContext> contextRef = new AtomicReference<>();
@@ -71,15 +79,31 @@ public class BootProgressTask extends Task<ConfigurableApplicationContext> {
 
     @Override
     protected ConfigurableApplicationContext call() throws Exception {
-        // Stage 1 — Spring boot. Per RESEARCH C-SPLASH-1: SpringApplicationBuilder.run()
-        // triggers musicLibrary() bean which loads ALL THREE JSON files synchronously
-        // inside FXMusicLibrary.builder().build() (audio + playlist + waveform).
-        // Show indeterminate progress while the long stage is running so the bar animates.
+        // Stage 1 — Spring boot. SpringApplicationBuilder.run() instantiates ApplicationConfiguration,
+        // which loads the audio, playlist and waveform repositories concurrently on their own
+        // threads and reports each load to BootProgress. The Task is blocked in run() meanwhile,
+        // so a poller mirrors that progress onto the splash until run() returns.
         updateMessage(STAGE_LIBRARY);
         updateProgress(-1, 1);
-        ConfigurableApplicationContext context = new SpringApplicationBuilder()
-                .sources(applicationClass)
-                .run();
+        BootProgress.INSTANCE.reset();
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "boot-progress-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleAtFixedRate(this::publishLoadProgress, 0, PROGRESS_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder()
+                    .sources(applicationClass)
+                    // Names the class whose AOT-generated initializer Spring loads under
+                    // -Dspring.aot.enabled=true; the FX launcher thread is not a main() frame
+                    // Spring could deduce it from.
+                    .main(applicationClass)
+                    .run();
+        } finally {
+            poller.shutdownNow();
+        }
         // Cache the context for handleFailure BEFORE flipping the readiness flag.
         // Ordering matters: failures observed via setOnFailed run on a different thread,
         // but the JavaFX Task framework provides a happens-before edge from call() to
@@ -88,31 +112,26 @@ public class BootProgressTask extends Task<ConfigurableApplicationContext> {
         // setOnSucceeded scene-build) can find the live context to publish through.
         contextRef.set(context);
         springContextReady.set(true);
-        updateProgress(0.25, 1.0);
-
-        // Stage 2 — playlists. The bean is already instantiated by Spring eager init;
-        // the access is a no-op trip but the message change is the user-visible signal.
-        updateMessage(STAGE_PLAYLISTS);
-        updateProgress(-1, 1);
-        context.getBean(ObservablePlaylistHierarchy.class);
-        updateProgress(0.5, 1.0);
+        updateProgress(LOADING_SHARE, 1.0);
 
-        // Stage 3 — waveforms.
-        updateMessage(STAGE_WAVEFORMS);
-        updateProgress(-1, 1);
-        context.getBean(AudioWaveformRepository.class);
-        updateProgress(0.75, 1.0);
-
-        // Stage 4 — UI prewarm signaling. The actual prewarm + scene build runs on the
+        // Stage 2 — UI prewarm signaling. The actual prewarm + scene build runs on the
         // FX thread inside the orchestrator's setOnSucceeded handler (FxWeaver
         // loadView is not safe off the FX thread per RESEARCH Open Question 2).
         updateMessage(STAGE_UI);
         updateProgress(-1, 1);
-        // Audio library bean access (so the message-change is bracketed by a real bean
-        // request, even though it is a no-op trip).
+        // Bean accesses bracket the message change with real bean requests, even though
+        // the repositories behind them are loaded by now.
+        context.getBean(ObservablePlaylistHierarchy.class);
+        context.getBean(AudioWaveformRepository.class);
         context.getBean(ObservableAudioLibrary.class);
         updateProgress(1.0, 1.0);
 
         return context;
     }
+
+    private void publishLoadProgress() {
+        double fraction = BootProgress.INSTANCE.fraction();
+        updateProgress(fraction < 0 ? -1 : fraction * LOADING_SHARE, 1.0);
+        updateMessage(BootProgress.INSTANCE.message().orElse(STAGE_LIBRARY));
+    }
 }
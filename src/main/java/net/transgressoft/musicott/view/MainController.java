@@ -31,8 +31,10 @@ import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylistHierarchy;
 import net.transgressoft.commons.music.audio.AudioFileType;
 import net.transgressoft.musicott.events.*;
+import net.transgressoft.musicott.service.ImportMode;
 import net.transgressoft.musicott.service.MediaImportService;
 import net.transgressoft.musicott.services.PlayerService;
+import net.transgressoft.musicott.services.ShuffleEngine;
 import net.transgressoft.musicott.view.custom.ApplicationImage;
 import net.transgressoft.musicott.search.SearchCoordinator;
 import net.transgressoft.musicott.view.custom.alerts.AlertFactory;
@@ -642,6 +644,15 @@ public class MainController {
         miniatureCoverImageProperty.setValue(audioItem.getCoverImageProperty().get().orElse(defaultPlaylistImage));
     }
 
+    /**
+     * Redraws the track table so the rows of tracks whose files vanished from a watched folder
+     * pick up the not-on-disk style, which is only evaluated when a row is given its item.
+     */
+    @EventListener(classes = AudioItemsMissingEvent.class)
+    public void audioItemsMissingEventListener() {
+        Platform.runLater(mainAudioItemTable::refresh);
+    }
+
     @EventListener(classes = EditionFinishedEvent.class)
     public void editionFinishedEventListener() {
         menuBarController.selectAllMenuItem.setDisable(false);
@@ -661,6 +672,12 @@ public class MainController {
         @FXML
         private MenuItem importItunesMenuItem;
         @FXML
+        private MenuItem watchFolderMenuItem;
+        @FXML
+        private MenuItem stopWatchingFoldersMenuItem;
+        @FXML
+        private CheckMenuItem backgroundImportMenuItem;
+        @FXML
         private MenuItem newPlaylistMenuItem;
         @FXML
         private MenuItem newPlaylistFolderMenuItem;
@@ -693,6 +710,8 @@ public class MainController {
         @FXML
         private MenuItem nextMenuItem;
         @FXML
+        private CheckMenuItem favorPlayCountMenuItem;
+        @FXML
         private MenuItem increaseVolumeMenuItem;
         @FXML
         private MenuItem decreaseVolumeMenuItem;
@@ -709,6 +728,8 @@ public class MainController {
         @FXML
         private MenuItem showApplicationLogsMenuItem;
         @FXML
+        private MenuItem showImportReportMenuItem;
+        @FXML
         private Menu aboutMenu;
         @FXML
         private MenuItem aboutMenuItem;
@@ -767,6 +788,17 @@ public class MainController {
                     mediaImportService.importDirectory(directory);
             });
             importItunesMenuItem.setOnAction(e -> itunesImportWizard.show(rootBorderPane.getScene().getWindow()));
+            watchFolderMenuItem.setOnAction(e -> {
+                DirectoryChooser chooser = new DirectoryChooser();
+                chooser.setTitle("Choose folder to watch");
+                File directory = chooser.showDialog(rootBorderPane.getScene().getWindow());
+                if (directory != null)
+                    applicationContext.publishEvent(new WatchFolderEvent(directory.toPath(), this));
+            });
+            stopWatchingFoldersMenuItem.setOnAction(e -> applicationContext.publishEvent(new StopWatchingFoldersEvent(this)));
+            backgroundImportMenuItem.setSelected(mediaImportService.getImportMode() == ImportMode.BACKGROUND);
+            backgroundImportMenuItem.setOnAction(e ->
+                    mediaImportService.setImportMode(backgroundImportMenuItem.isSelected() ? ImportMode.BACKGROUND : ImportMode.FAST));
             newPlaylistMenuItem.setOnAction(e -> changeViewToPlaylistCreationMode(playlistRepository::createPlaylist));
             newPlaylistFolderMenuItem.setOnAction(e -> changeViewToPlaylistCreationMode(playlistRepository::createPlaylistDirectory));
             deletePlaylistMenuItem.setOnAction(e -> applicationContext.publishEvent(new DeleteSelectedPlaylistEvent(this)));
@@ -839,6 +871,13 @@ public class MainController {
             });
 
             showApplicationLogsMenuItem.setOnAction(e -> applicationContext.publishEvent(new OpenLogViewerEvent(this)));
+            showImportReportMenuItem.setOnAction(e -> {
+                var profile = mediaImportService.getLastImportProfile();
+                if (profile == null)
+                    applicationContext.publishEvent(new StatusMessageUpdateEvent("No import has finished yet", this));
+                else
+                    alertFactory.importReportDialog(profile).showAndWait();
+            });
         }
 
         private void bindShowHideTableInfo() {
@@ -912,6 +951,9 @@ public class MainController {
 
             nextMenuItem.disableProperty().bind(playerController.nextButtonDisabledProperty());
             nextMenuItem.setOnAction(e -> playerController.next());
+            favorPlayCountMenuItem.setSelected(playerService.getShuffleWeighting() == ShuffleEngine.Weighting.FAVOR_PLAY_COUNT);
+            favorPlayCountMenuItem.setOnAction(e -> playerService.setShuffleWeighting(
+                    favorPlayCountMenuItem.isSelected() ? ShuffleEngine.Weighting.FAVOR_PLAY_COUNT : ShuffleEngine.Weighting.UNIFORM));
 
             increaseVolumeMenuItem.setOnAction(e -> playerController.increaseVolume());
             decreaseVolumeMenuItem.setOnAction(e -> playerController.decreaseVolume());
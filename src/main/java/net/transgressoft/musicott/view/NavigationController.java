@@ -7,6 +7,7 @@ import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist;
 import net.transgressoft.commons.music.m3u.M3uImportService;
 import net.transgressoft.musicott.events.ErrorEvent;
 import net.transgressoft.musicott.events.ExportSelectedPlaylistsEvent;
+import net.transgressoft.musicott.events.ImportJobControlEvent;
 import net.transgressoft.musicott.events.ImportPlaylistsFromM3uEvent;
 import net.transgressoft.musicott.events.SelectCurrentPlayingAudioItemEvent;
 import net.transgressoft.musicott.events.StatusMessageUpdateEvent;
@@ -148,6 +149,8 @@ public class NavigationController {
             newPlaylistButtonContextMenu.show(newPlaylistButton, newPlaylistButtonX, newPlaylistButtonY);
         });
 
+        taskProgressBar.setContextMenu(importControlContextMenu());
+
         navigationVBox.getChildren().add(1, navigationMenuListView);
 
         VBox.setVgrow(navigationVBox, Priority.ALWAYS);
@@ -171,6 +174,27 @@ public class NavigationController {
         });
     }
 
+    /**
+     * Context menu of the progress bar that controls the file and folder imports: the running one
+     * can be paused, handing its turn to the queued ones until it is resumed, or cancelled, and
+     * every queued one cancelled at once.
+     */
+    private ContextMenu importControlContextMenu() {
+        ContextMenu contextMenu = new ContextMenu();
+        for (var action : ImportJobControlEvent.Action.values()) {
+            String text = switch (action) {
+                case PAUSE -> "Pause Import";
+                case RESUME -> "Resume Import";
+                case CANCEL -> "Cancel Import";
+                case CANCEL_ALL -> "Cancel All Imports";
+            };
+            MenuItem menuItem = new MenuItem(text);
+            menuItem.setOnAction(e -> applicationEventPublisher.publishEvent(new ImportJobControlEvent(action, this)));
+            contextMenu.getItems().add(menuItem);
+        }
+        return contextMenu;
+    }
+
     public void setOnNewPlaylistAction(EventHandler<ActionEvent> handler) {
         newPlaylistMI.setAccelerator(new KeyCodeCombination(KeyCode.N, operativeSystemKeyModifier));
         newPlaylistMI.setOnAction(handler);
@@ -218,11 +242,12 @@ public class NavigationController {
      * Reflects task progress on the sidebar progress bar, shown in the fixed row to the right of the
      * new-playlist button. The bar is revealed only while a task is in progress (non-zero progress)
      * and hidden when idle; because the bar stays {@code managed}, toggling its visibility never
-     * shifts the surrounding layout.
+     * shifts the surrounding layout. Imports publish their progress from the JavaFX Application
+     * Thread once per frame, so it is applied right away instead of queueing another task.
      */
     @EventListener
     public void onStatusProgress(StatusProgressUpdateEvent event) {
-        Platform.runLater(() -> {
+        runOnFxThread(() -> {
             taskProgressBar.setProgress(event.statusProgress);
             taskProgressBar.setVisible(event.statusProgress != 0);
         });
@@ -241,16 +266,26 @@ public class NavigationController {
             return;
         }
         String msg = event.statusMessage;
-        Platform.runLater(() -> {
+        runOnFxThread(() -> {
             if (msg.isBlank()) {
                 taskProgressBar.setTooltip(null);
                 taskProgressBar.setVisible(false);
+            } else if (taskProgressBar.getTooltip() != null) {
+                taskProgressBar.getTooltip().setText(msg);
             } else {
                 taskProgressBar.setTooltip(new Tooltip(msg));
             }
         });
     }
 
+    private static void runOnFxThread(Runnable update) {
+        if (Platform.isFxApplicationThread()) {
+            update.run();
+        } else {
+            Platform.runLater(update);
+        }
+    }
+
     /**
      * Handles an {@link ExportSelectedPlaylistsEvent} by opening a {@link DirectoryChooser} on the
      * FX thread (required — JavaFX dialogs must run on the Application Thread), then exporting
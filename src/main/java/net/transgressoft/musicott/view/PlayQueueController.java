@@ -7,7 +7,6 @@ import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.view.custom.table.AudioItemTableViewBase;
 import net.transgressoft.musicott.view.custom.table.TrackQueueListCell;
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
 
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -24,7 +23,6 @@ import org.springframework.stereotype.Controller;
 
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Consumer;
 
 /**
  * Controller for the play queue and history queue pane. Uses {@link PlayerService} directly
@@ -32,6 +30,9 @@ import java.util.function.Consumer;
  * {@link PlayerController}. Supports toggling between queue and history views, clearing
  * each list independently, and accepting drag-and-drop from the library table.
  *
+ * <p>Both lists hold track ids; the {@link ListView} renders them through recycled
+ * {@link TrackQueueListCell}s that resolve only the visible tracks.
+ *
  * @author Octavio Calleya
  */
 @FxmlView ("/fxml/PlayQueueController.fxml")
@@ -44,14 +45,17 @@ public class PlayQueueController {
     // Used as the fixed cell size so the ListView's intrinsic prefHeight = items * cellSize and
     // the bottom-aligning VBox can shrink it to fit content with empty space at the top.
     private static final double TRACK_QUEUE_ROW_CELL_HEIGHT = 54.0;
+    // The popover never shows more rows than this; capping the ListView's preferred height keeps
+    // it a scrolling viewport, so a shuffled library of any size only builds the visible cells.
+    private static final int MAX_VISIBLE_ROWS = 8;
 
     private final Logger logger = LoggerFactory.getLogger(getClass().getName());
 
     private final PlayerService playerService;
     private final ObservableAudioLibrary audioLibrary;
 
-    private ObservableList<TrackQueueRow> playQueueList;
-    private ObservableList<TrackQueueRow> historyQueueList;
+    private ObservableList<Integer> playQueueList;
+    private ObservableList<Integer> historyQueueList;
 
     @FXML
     private AnchorPane playQueuePane;
@@ -62,7 +66,7 @@ public class PlayQueueController {
     @FXML
     private Button deleteAllButton;
     @FXML
-    private ListView<TrackQueueRow> queuesListView;
+    private ListView<Integer> queuesListView;
 
     @Autowired
     public PlayQueueController(PlayerService playerService, ObservableAudioLibrary audioLibrary) {
@@ -75,11 +79,12 @@ public class PlayQueueController {
         playQueueList = playerService.getPlayQueueList();
         historyQueueList = playerService.getHistoryQueueList();
 
-        playQueueList.addListener(queueChangeListener(playQueueList, "play queue", playerService::removeFromPlayQueue));
-        historyQueueList.addListener(queueChangeListener(historyQueueList, "history queue", playerService::removeFromHistoryQueue));
+        playQueueList.addListener(queueChangeListener());
+        historyQueueList.addListener(queueChangeListener());
 
         historyQueueButton.setId("historyQueueButton");
-        queuesListView.setCellFactory(_ -> new TrackQueueListCell(() -> historyQueueButton.isSelected()));
+        queuesListView.setCellFactory(_ -> new TrackQueueListCell(
+                () -> historyQueueButton.isSelected(), playerService::resolveTrack, this::removeEntry, playerService::moveInPlayQueue));
         queuesListView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
         queuesListView.setFixedCellSize(TRACK_QUEUE_ROW_CELL_HEIGHT);
         queuesListView.setItems(playQueueList);
@@ -104,41 +109,44 @@ public class PlayQueueController {
         refreshQueueListLayout();
     }
 
-    private ListChangeListener<TrackQueueRow> queueChangeListener(ObservableList<TrackQueueRow> list, String label,
-                                                                  Consumer<TrackQueueRow> remover) {
+    private ListChangeListener<Integer> queueChangeListener() {
         return change -> {
             boolean queueShapeChanged = false;
             while (change.next()) {
                 queueShapeChanged = queueShapeChanged || change.wasAdded() || change.wasRemoved() || change.wasReplaced();
-                change.getRemoved().forEach(TrackQueueRow::dispose);
-                // Route delete-button clicks through PlayerService so QueueUpdatedEvent /
-                // HistoryUpdatedEvent fires on every removal path consistently. Routing the
-                // PlayerService remover from here also preserves the previous behavior where
-                // PlayerService-set handlers in addToQueue() / previous() were silently
-                // overwritten on add.
-                change.getAddedSubList().forEach(trackQueueRow -> trackQueueRow.setOnDeleteButtonClickedHandler(event -> {
-                    remover.accept(trackQueueRow);
-                    logger.trace("Removing track from {} by clicking the button. Size: {}", label, list.size());
-                }));
             }
             if (queueShapeChanged)
                 refreshQueueListLayout();
         };
     }
 
+    /**
+     * Routes delete-button clicks of the queue cells through {@link PlayerService} so
+     * {@code QueueUpdatedEvent} / {@code HistoryUpdatedEvent} fire on every removal path consistently.
+     */
+    private void removeEntry(int index) {
+        if (historyQueueButton.isSelected()) {
+            playerService.removeFromHistoryQueue(index);
+            logger.trace("Removing track from history queue by clicking the button. Size: {}", historyQueueList.size());
+        } else {
+            playerService.removeFromPlayQueue(index);
+            logger.trace("Removing track from play queue by clicking the button. Size: {}", playQueueList.size());
+        }
+    }
+
     private void onQueueListClicked(MouseEvent event) {
         if (event.getClickCount() != 2) {
             return;
         }
-        TrackQueueRow selected = queuesListView.getSelectionModel().getSelectedItem();
-        if (selected == null) {
+        int selectedIndex = queuesListView.getSelectionModel().getSelectedIndex();
+        if (selectedIndex < 0) {
             return;
         }
         queuesListView.getSelectionModel().clearSelection();
         if (historyQueueButton.isSelected()) {
-            playerService.playFromHistoryQueue(selected);
+            playerService.playFromHistoryQueue(selectedIndex);
         } else {
-            playerService.playFromQueue(selected);
+            playerService.playFromQueue(selectedIndex);
         }
         refreshQueueListLayout();
     }
@@ -177,12 +185,12 @@ public class PlayQueueController {
     }
 
     private void clearHistoryQueue() {
-        historyQueueList.clear();
+        playerService.clearHistoryQueue();
         logger.trace("History queue cleared");
     }
 
     private void clearPlayQueue() {
-        playQueueList.clear();
+        playerService.clearQueue();
         logger.trace("Play queue cleared");
     }
 
@@ -208,7 +216,7 @@ public class PlayQueueController {
             deleteAllButton.setVisible(hasItems);
             deleteAllButton.setManaged(hasItems);
             double targetHeight = hasItems
-                    ? queuesListView.getItems().size() * TRACK_QUEUE_ROW_CELL_HEIGHT + LIST_VIEW_CHROME_HEIGHT
+                    ? Math.min(queuesListView.getItems().size(), MAX_VISIBLE_ROWS) * TRACK_QUEUE_ROW_CELL_HEIGHT + LIST_VIEW_CHROME_HEIGHT
                     : 0.0;
             queuesListView.setPrefHeight(targetHeight);
             queuesListView.setMinHeight(0.0);
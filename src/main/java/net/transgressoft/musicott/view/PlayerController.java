@@ -1,18 +1,17 @@
 package net.transgressoft.musicott.view;
 
-import net.transgressoft.commons.fx.music.waveform.PlayableWaveformPane;
-import net.transgressoft.commons.fx.music.waveform.SeekEvent;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist;
+import net.transgressoft.commons.fx.music.waveform.SeekEvent;
 import net.transgressoft.commons.music.player.AudioItemPlayer.Status;
-import net.transgressoft.commons.music.waveform.AudioWaveform;
-import net.transgressoft.commons.music.waveform.AudioWaveformRepository;
 import net.transgressoft.musicott.events.*;
+import net.transgressoft.musicott.service.WaveformPeakService;
 import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.view.custom.ApplicationImage;
+import net.transgressoft.musicott.view.custom.TiledWaveformPane;
+import net.transgressoft.musicott.view.custom.WaveformPeakPyramid;
 import net.transgressoft.musicott.view.custom.table.AudioItemTableViewBase;
-import net.transgressoft.musicott.view.custom.table.TrackQueueRow;
 
 import jakarta.annotation.PreDestroy;
 import javafx.animation.PauseTransition;
@@ -39,6 +38,7 @@ import javafx.stage.Window;
 import javafx.util.Duration;
 import net.rgielen.fxweaver.core.FxmlView;
 import org.controlsfx.control.PopOver;
+import org.fxmisc.easybind.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,13 +47,15 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Controller;
 
+import java.io.ByteArrayInputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static net.transgressoft.commons.music.player.AudioItemPlayer.Status.*;
-import org.fxmisc.easybind.Subscription;
-
 import static org.fxmisc.easybind.EasyBind.combine;
 import static org.fxmisc.easybind.EasyBind.subscribe;
 
@@ -70,11 +72,13 @@ public class PlayerController {
     private static final double PLAY_QUEUE_DESIGNED_HEIGHT = 467.0;
     private static final double PLAY_QUEUE_RESERVED_HEIGHT = 90.0;
     private static final double VOLUME_AMOUNT = 0.05;
+    // Pyramids of recently shown tracks; older ones are read back from the persisted peaks
+    private static final int MAX_CACHED_PYRAMIDS = 16;
     private static final String PLAY_QUEUE_BUTTON_STYLE = "-fx-effect: dropshadow(one-pass-box, rgb(99, 255, 109), 3, 0.2, 0, 0);";
 
     private final Logger logger = LoggerFactory.getLogger(getClass().getName());
 
-    private final AudioWaveformRepository<AudioWaveform, ObservableAudioItem> waveformRepository;
+    private final WaveformPeakService waveformPeakService;
     private final PlayerService playerService;
     private final ObservableAudioLibrary audioLibrary;
     private final ApplicationEventPublisher applicationEventPublisher;
@@ -114,7 +118,16 @@ public class PlayerController {
     @FXML
     private PlayQueueController playQueueLayoutController;
 
-    private PlayableWaveformPane playableWaveformPane;
+    private TiledWaveformPane waveformPane;
+    // Accessed on the JavaFX thread only
+    private final Map<Integer, WaveformPeakPyramid> peakPyramids = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, WaveformPeakPyramid> eldest) {
+            return size() > MAX_CACHED_PYRAMIDS;
+        }
+    };
+    // The cover of the next-up track, decoded ahead of the switch; accessed on the JavaFX thread only
+    private PreparedCover preparedCover;
     private ReadOnlyBooleanProperty emptyLibraryProperty;
     private boolean muted = false;
     private double preMuteVolume = 0.0;
@@ -157,11 +170,11 @@ public class PlayerController {
     };
 
     @Autowired
-    public PlayerController(AudioWaveformRepository<AudioWaveform, ObservableAudioItem> waveformRepository,
+    public PlayerController(WaveformPeakService waveformPeakService,
                             PlayerService playerService,
                             ObservableAudioLibrary audioLibrary,
                             ApplicationEventPublisher applicationEventPublisher) {
-        this.waveformRepository = waveformRepository;
+        this.waveformPeakService = waveformPeakService;
         this.playerService = playerService;
         this.audioLibrary = audioLibrary;
         this.applicationEventPublisher = applicationEventPublisher;
@@ -186,14 +199,14 @@ public class PlayerController {
         });
         subscribe(volumeSlider.valueProperty(), p -> volumeProgressBar.setProgress(p.doubleValue()));
 
-        playableWaveformPane = new PlayableWaveformPane();
-        playableWaveformPane.getBackgroundColorProperty().set(Color.rgb(73, 73, 73));
-        playableWaveformPane.getWaveformColorProperty().set(Color.rgb(34, 34, 34));
-        playableWaveformPane.getPlayedColorProperty().set(Color.rgb(99, 255, 109));
+        waveformPane = new TiledWaveformPane();
+        waveformPane.getBackgroundColorProperty().set(Color.rgb(73, 73, 73));
+        waveformPane.getWaveformColorProperty().set(Color.rgb(34, 34, 34));
+        waveformPane.getPlayedColorProperty().set(Color.rgb(99, 255, 109));
         // Add waveform behind the labels VBox in the StackPane (z-order: waveform at index 0, VBox on top)
-        playerStackPane.getChildren().add(0, playableWaveformPane);
+        playerStackPane.getChildren().add(0, waveformPane);
 
-        playableWaveformPane.addEventHandler(SeekEvent.Companion.getSEEK(), event -> {
+        waveformPane.addEventHandler(SeekEvent.Companion.getSEEK(), event -> {
             java.time.Duration total = playerService.getTotalDuration();
             if (!total.isZero()) {
                 long seekMillis = Math.round(event.getSeekRatio() * total.toMillis());
@@ -369,7 +382,7 @@ public class PlayerController {
         playQueueFocusLossDelay.stop();
         unbindPlayQueueOwnerWindow(playQueueOwnerWindow);
         hidePlayQueue();
-        playableWaveformPane.dispose();
+        waveformPane.dispose();
     }
 
     @SuppressWarnings("unchecked")
@@ -459,7 +472,7 @@ public class PlayerController {
 
     public void setStopped() {
         playButton.setSelected(false);
-        playableWaveformPane.getProgressProperty().set(0.0);
+        waveformPane.getProgressProperty().set(0.0);
         nextButton.setDisable(true);
         prevButton.setDisable(true);
         songTitleLabel.textProperty().unbind();
@@ -518,24 +531,33 @@ public class PlayerController {
     public void updatePlayerComponents(ObservableAudioItem currentTrack) {
         logger.trace("Setting up player and view for track {}", currentTrack);
 
-        waveformRepository.getOrCreateWaveformAsync(currentTrack,
-                        (short) playableWaveformPane.getWidth(),
-                        (short) playableWaveformPane.getHeight())
-                .thenAccept(waveform -> Platform.runLater(() -> playableWaveformPane.loadWaveform(waveform)));
+        var cachedPyramid = peakPyramids.get(currentTrack.getId());
+        waveformPane.loadPeaks(cachedPyramid);
+        if (cachedPyramid == null) {
+            peakPyramidAsync(currentTrack).thenAccept(pyramid -> Platform.runLater(() -> {
+                // Only show it if the user has not moved on to another track meanwhile
+                if (playerService.currentTrack().filter(track -> track.getId() == currentTrack.getId()).isPresent())
+                    waveformPane.loadPeaks(pyramid);
+            }));
+        }
 
         songTitleLabel.textProperty().bind(currentTrack.getTitleProperty());
         artistAlbumLabel.textProperty().bind(
                 combine(currentTrack.getArtistProperty(), currentTrack.getAlbumProperty(), (art, alb) -> art.getName() + " - " + alb.getName()));
 
-        currentTrack.getCoverImageProperty().get().ifPresentOrElse(currentCover::setImage, () -> currentCover.setImage(defaultCoverImage));
+        if (preparedCover != null && preparedCover.trackId() == currentTrack.getId())
+            currentCover.setImage(preparedCover.image());
+        else
+            currentTrack.getCoverImageProperty().get().ifPresentOrElse(currentCover::setImage, () -> currentCover.setImage(defaultCoverImage));
+        preparedCover = null;
     }
 
-    public void playFromQueue(TrackQueueRow trackQueueRow) {
-        playerService.playFromQueue(trackQueueRow);
+    public void playFromQueue(int queueIndex) {
+        playerService.playFromQueue(queueIndex);
     }
 
-    public void playFromHistoryQueue(TrackQueueRow trackQueueRow) {
-        playerService.playFromHistoryQueue(trackQueueRow);
+    public void playFromHistoryQueue(int historyIndex) {
+        playerService.playFromHistoryQueue(historyIndex);
     }
 
     /**
@@ -645,13 +667,60 @@ public class PlayerController {
             progressSubscription = subscribe(currentTimeProp, time -> {
                 java.time.Duration total = playerService.getTotalDuration();
                 if (!total.isZero()) {
-                    playableWaveformPane.getProgressProperty().set(time.toMillis() / total.toMillis());
+                    waveformPane.getProgressProperty().set(time.toMillis() / total.toMillis());
                 }
                 updateTrackLabels(time, Duration.millis(total.toMillis()));
             });
         }
     }
 
+    /**
+     * Resolves the waveform and cover of the track that plays next while the current one is still
+     * playing, so {@link #updatePlayerComponents} finds both ready when the switch happens.
+     */
+    @EventListener
+    public void nextTrackPreparedEventListener(NextTrackPreparedEvent event) {
+        ObservableAudioItem nextTrack = event.nextTrack;
+        if (! peakPyramids.containsKey(nextTrack.getId()))
+            peakPyramidAsync(nextTrack);
+        prepareCoverAsync(nextTrack);
+    }
+
+    /**
+     * Decodes the cover of the given track off the JavaFX thread, keeping it for
+     * {@link #updatePlayerComponents} once it is ready.
+     */
+    private void prepareCoverAsync(ObservableAudioItem track) {
+        preparedCover = null;
+        int trackId = track.getId();
+        byte[] coverBytes = track.getCoverImageBytes();
+        if (coverBytes == null)
+            return;
+        CompletableFuture.supplyAsync(() -> new Image(new ByteArrayInputStream(coverBytes)))
+                .thenAccept(image -> {
+                    if (image.isError())
+                        logger.debug("Could not decode the cover of track {}", trackId, image.getException());
+                    else
+                        Platform.runLater(() -> preparedCover = new PreparedCover(trackId, image));
+                });
+    }
+
+    /**
+     * Loads the persisted peaks of the given track, computed first if needed, and builds its peak
+     * pyramid off the JavaFX thread, caching the pyramid once it is ready.
+     */
+    private CompletableFuture<WaveformPeakPyramid> peakPyramidAsync(ObservableAudioItem track) {
+        int trackId = track.getId();
+        return waveformPeakService.peaksAsync(track)
+                .thenApplyAsync(WaveformPeakPyramid::of)
+                .whenComplete((pyramid, exception) -> {
+                    if (exception != null)
+                        logger.warn("Could not build the waveform of track {}", trackId, exception);
+                    else
+                        Platform.runLater(() -> peakPyramids.put(trackId, pyramid));
+                });
+    }
+
     @EventListener
     public void playbackStatusChangedEventListener(PlaybackStatusChangedEvent event) {
         Status status = event.status;
@@ -669,4 +738,5 @@ public class PlayerController {
         }
     }
 
+    private record PreparedCover(int trackId, Image image) {}
 }
@@ -0,0 +1,196 @@
+package net.transgressoft.musicott.view.custom;
+
+import net.transgressoft.commons.fx.music.waveform.SeekEvent;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.event.Event;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Waveform pane that renders a {@link WaveformPeakPyramid} as cached image tiles.
+ *
+ * <p>The waveform is drawn twice, in the waveform and the played colors, as tiles of
+ * {@value #TILE_WIDTH} pixels kept in a small LRU cache keyed by pane size. The played copy sits on
+ * top, clipped to the played fraction, so a progress update only resizes the clip and never
+ * repaints pixels. A resize renders tiles for the new size once, from peaks sampled off the
+ * pyramid, and switching back to a previous size reuses its cached tiles.
+ *
+ * <p>Clicking or dragging on the pane fires a {@link SeekEvent} with the fraction of the width at
+ * the pointer, as the music-commons waveform pane does.
+ */
+public class TiledWaveformPane extends Region {
+
+    static final int TILE_WIDTH = 256;
+    private static final int MAX_CACHED_TILES = 96;
+
+    private final ObjectProperty<Color> backgroundColorProperty = new SimpleObjectProperty<>(this, "background color", Color.TRANSPARENT);
+    private final ObjectProperty<Color> waveformColorProperty = new SimpleObjectProperty<>(this, "waveform color", Color.GRAY);
+    private final ObjectProperty<Color> playedColorProperty = new SimpleObjectProperty<>(this, "played color", Color.WHITE);
+    private final DoubleProperty progressProperty = new SimpleDoubleProperty(this, "progress", 0.0);
+
+    private final Pane waveformLayer = new Pane();
+    private final Pane playedLayer = new Pane();
+    private final Rectangle playedClip = new Rectangle();
+
+    private final Map<TileKey, WritableImage> tileCache = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, WritableImage> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+
+    private WaveformPeakPyramid pyramid;
+    private int renderedWidth = -1;
+    private int renderedHeight = -1;
+    private int tilesRendered = 0;
+
+    private record TileKey(int width, int height, int tileIndex, boolean played) {}
+
+    public TiledWaveformPane() {
+        waveformLayer.setMouseTransparent(true);
+        playedLayer.setMouseTransparent(true);
+        playedLayer.setClip(playedClip);
+        playedClip.heightProperty().bind(heightProperty());
+        playedClip.widthProperty().bind(widthProperty().multiply(progressProperty));
+        getChildren().addAll(waveformLayer, playedLayer);
+
+        backgroundColorProperty.addListener((obs, oldColor, newColor) -> invalidateTiles());
+        waveformColorProperty.addListener((obs, oldColor, newColor) -> invalidateTiles());
+        playedColorProperty.addListener((obs, oldColor, newColor) -> invalidateTiles());
+
+        addEventHandler(MouseEvent.MOUSE_PRESSED, this::fireSeek);
+        addEventHandler(MouseEvent.MOUSE_DRAGGED, this::fireSeek);
+    }
+
+    public ObjectProperty<Color> getBackgroundColorProperty() {
+        return backgroundColorProperty;
+    }
+
+    public ObjectProperty<Color> getWaveformColorProperty() {
+        return waveformColorProperty;
+    }
+
+    public ObjectProperty<Color> getPlayedColorProperty() {
+        return playedColorProperty;
+    }
+
+    public DoubleProperty getProgressProperty() {
+        return progressProperty;
+    }
+
+    /**
+     * Shows the given waveform, or an empty pane when {@code null}.
+     */
+    public void loadPeaks(WaveformPeakPyramid pyramid) {
+        this.pyramid = pyramid;
+        invalidateTiles();
+    }
+
+    /**
+     * Returns how many tiles have been rasterized since construction; tiles served from the cache
+     * are not counted.
+     */
+    public int tilesRendered() {
+        return tilesRendered;
+    }
+
+    public void dispose() {
+        pyramid = null;
+        invalidateTiles();
+    }
+
+    private void invalidateTiles() {
+        tileCache.clear();
+        renderedWidth = -1;
+        renderedHeight = -1;
+        requestLayout();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        int width = (int) Math.round(getWidth());
+        int height = (int) Math.round(getHeight());
+        waveformLayer.resizeRelocate(0, 0, getWidth(), getHeight());
+        playedLayer.resizeRelocate(0, 0, getWidth(), getHeight());
+        if (width == renderedWidth && height == renderedHeight)
+            return;
+        renderedWidth = width;
+        renderedHeight = height;
+        waveformLayer.getChildren().clear();
+        playedLayer.getChildren().clear();
+        if (pyramid == null || width <= 0 || height <= 0)
+            return;
+
+        float[] peaks = null;
+        for (int tileIndex = 0; tileIndex * TILE_WIDTH < width; tileIndex++) {
+            var waveformKey = new TileKey(width, height, tileIndex, false);
+            var playedKey = new TileKey(width, height, tileIndex, true);
+            if (peaks == null && (! tileCache.containsKey(waveformKey) || ! tileCache.containsKey(playedKey)))
+                peaks = pyramid.peaksFor(width);
+            waveformLayer.getChildren().add(tileView(waveformKey, peaks, waveformColorProperty.get()));
+            playedLayer.getChildren().add(tileView(playedKey, peaks, playedColorProperty.get()));
+        }
+    }
+
+    private ImageView tileView(TileKey key, float[] peaks, Color color) {
+        var image = tileCache.get(key);
+        if (image == null) {
+            image = renderTile(key, peaks, color);
+            tileCache.put(key, image);
+        }
+        var view = new ImageView(image);
+        view.setLayoutX((double) key.tileIndex() * TILE_WIDTH);
+        return view;
+    }
+
+    private WritableImage renderTile(TileKey key, float[] peaks, Color color) {
+        int from = key.tileIndex() * TILE_WIDTH;
+        int tileWidth = Math.min(TILE_WIDTH, key.width() - from);
+        int height = key.height();
+        int background = toArgb(backgroundColorProperty.get());
+        int foreground = toArgb(color);
+        float middle = height / 2f;
+
+        var pixels = new int[tileWidth * height];
+        Arrays.fill(pixels, background);
+        for (int x = 0; x < tileWidth; x++) {
+            float halfExtent = Math.max(0.5f, peaks[from + x] * middle);
+            int top = Math.max(0, (int) Math.floor(middle - halfExtent));
+            int bottom = Math.min(height, (int) Math.ceil(middle + halfExtent));
+            for (int y = top; y < bottom; y++)
+                pixels[y * tileWidth + x] = foreground;
+        }
+        var image = new WritableImage(tileWidth, height);
+        image.getPixelWriter().setPixels(0, 0, tileWidth, height, PixelFormat.getIntArgbInstance(), pixels, 0, tileWidth);
+        tilesRendered++;
+        return image;
+    }
+
+    private static int toArgb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+
+    private void fireSeek(MouseEvent event) {
+        if (getWidth() <= 0)
+            return;
+        double ratio = Math.clamp(event.getX() / getWidth(), 0.0, 1.0);
+        Event.fireEvent(this, new SeekEvent(this, this, ratio));
+    }
+}
@@ -0,0 +1,82 @@
+package net.transgressoft.musicott.view.custom;
+
+/**
+ * Resolution-independent peaks of a track's waveform, computed once and reused at any width.
+ *
+ * <p>Level 0 holds the peaks it is built from, normalized to {@code [0, 1]}: the 4096 per track
+ * that {@code WaveformPeakService} persists. Each following level halves the column count by
+ * keeping the larger of every two peaks, down to {@value #MIN_COLUMNS} columns. {@link #peaksFor(int)} samples the coarsest level that still has
+ * at least as many columns as the requested width, so producing the peaks for a pane of any size
+ * touches at most about twice that many values and never decodes audio again.
+ *
+ * <p>Instances are immutable and safe to build off the JavaFX thread.
+ */
+public final class WaveformPeakPyramid {
+
+    static final int MIN_COLUMNS = 64;
+
+    private final float[][] levels;
+
+    private WaveformPeakPyramid(float[][] levels) {
+        this.levels = levels;
+    }
+
+    public static WaveformPeakPyramid of(float[] amplitudes) {
+        float max = 0f;
+        for (float amplitude : amplitudes)
+            max = Math.max(max, Math.abs(amplitude));
+        var base = new float[Math.max(1, amplitudes.length)];
+        for (int i = 0; i < amplitudes.length; i++)
+            base[i] = max > 0f ? Math.abs(amplitudes[i]) / max : 0f;
+
+        int levelCount = 1;
+        for (int columns = base.length; columns / 2 >= MIN_COLUMNS; columns /= 2)
+            levelCount++;
+        var levels = new float[levelCount][];
+        levels[0] = base;
+        for (int level = 1; level < levelCount; level++) {
+            float[] finer = levels[level - 1];
+            var coarser = new float[finer.length / 2];
+            for (int i = 0; i < coarser.length; i++)
+                coarser[i] = Math.max(finer[2 * i], finer[2 * i + 1]);
+            levels[level] = coarser;
+        }
+        return new WaveformPeakPyramid(levels);
+    }
+
+    public int levelCount() {
+        return levels.length;
+    }
+
+    public int columns(int level) {
+        return levels[level].length;
+    }
+
+    /**
+     * Returns the coarsest level with at least {@code width} columns, or level 0 when the
+     * requested width is larger than the finest level.
+     */
+    public int levelFor(int width) {
+        int level = levels.length - 1;
+        while (level > 0 && levels[level].length < width)
+            level--;
+        return level;
+    }
+
+    /**
+     * Returns one normalized peak per pixel column for a waveform drawn {@code width} pixels wide.
+     */
+    public float[] peaksFor(int width) {
+        float[] source = levels[levelFor(width)];
+        var peaks = new float[Math.max(0, width)];
+        for (int x = 0; x < peaks.length; x++) {
+            int from = (int) ((long) x * source.length / width);
+            int to = Math.max(from + 1, (int) ((long) (x + 1) * source.length / width));
+            float peak = 0f;
+            for (int i = from; i < to; i++)
+                peak = Math.max(peak, source[i]);
+            peaks[x] = peak;
+        }
+        return peaks;
+    }
+}
@@ -4,6 +4,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Dialog;
 import javafx.scene.control.MenuBar;
 import net.transgressoft.commons.music.itunes.ImportResult;
+import net.transgressoft.musicott.service.ImportProfile;
 import net.transgressoft.musicott.services.SimpleWebRedirectionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -72,4 +73,14 @@ public class AlertFactory {
     public Alert importInProgressAlert() {
         return new ImportInProgressAlert();
     }
+
+    /**
+     * Creates a dialog showing the profile of an import as JSON, which can be exported to a file.
+     *
+     * @param profile the stage timings, format throughput, slowest files and errors of the import
+     * @return a modal dialog with the report and an export button
+     */
+    public Dialog<Void> importReportDialog(ImportProfile profile) {
+        return new ImportReportDialog(profile);
+    }
 }
@@ -0,0 +1,82 @@
+package net.transgressoft.musicott.view.custom.alerts;
+
+import javafx.event.ActionEvent;
+import javafx.scene.control.ButtonBar.ButtonData;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.TextArea;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.FileChooser;
+import javafx.stage.FileChooser.ExtensionFilter;
+import javafx.stage.Modality;
+import net.transgressoft.musicott.service.ImportProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Shows the profile of the last import as JSON: the time of each stage, the throughput of each
+ * audio format, the slowest files and the errors. The report can be exported to a JSON file,
+ * e.g. to attach it to a bug report about a slow import.
+ *
+ * @author Octavio Calleya
+ */
+public class ImportReportDialog extends Dialog<Void> {
+
+    private static final String DIALOG_STYLE = "/css/dialog.css";
+    private static final double DIALOG_PREF_WIDTH = 640;
+    private static final double DIALOG_PREF_HEIGHT = 520;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass().getName());
+
+    public ImportReportDialog(ImportProfile profile) {
+        getDialogPane().getStylesheets().add(DIALOG_STYLE);
+        initModality(Modality.APPLICATION_MODAL);
+        DialogIconHelper.attachAppIconOnShow(this);
+        setTitle("Import Report");
+        setHeaderText("Import of " + profile.getSource() + " " + profile.getOutcome() + ": " + profile.summary());
+        setResizable(true);
+
+        String json = profile.toJson();
+        TextArea reportArea = new TextArea(json);
+        reportArea.setEditable(false);
+        reportArea.setWrapText(false);
+        getDialogPane().setContent(reportArea);
+        getDialogPane().setPrefSize(DIALOG_PREF_WIDTH, DIALOG_PREF_HEIGHT);
+
+        ButtonType exportButtonType = new ButtonType("Export...", ButtonData.LEFT);
+        getDialogPane().getButtonTypes().addAll(exportButtonType, ButtonType.CLOSE);
+        // Consumed so that exporting does not close the dialog
+        getDialogPane().lookupButton(exportButtonType).addEventFilter(ActionEvent.ACTION, event -> {
+            export(json);
+            event.consume();
+        });
+
+        getDialogPane().addEventFilter(KeyEvent.KEY_PRESSED, ke -> {
+            if (ke.getCode() == KeyCode.ESCAPE) {
+                close();
+                ke.consume();
+            }
+        });
+    }
+
+    private void export(String json) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export import report");
+        chooser.setInitialFileName("import-report.json");
+        chooser.getExtensionFilters().add(new ExtensionFilter("JSON files (*.json)", "*.json"));
+        File file = chooser.showSaveDialog(getDialogPane().getScene().getWindow());
+        if (file != null) {
+            try {
+                Files.writeString(file.toPath(), json);
+                logger.info("Import report exported to {}", file);
+            } catch (IOException exception) {
+                logger.error("Could not export the import report to {}", file, exception);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
 
 package net.transgressoft.musicott.view.custom.table;
 
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.musicott.view.custom.DragBoardImage;
 
 import javafx.scene.control.ListCell;
@@ -27,27 +28,48 @@ import javafx.scene.input.DragEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.TransferMode;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
 
 /**
- * Custom {@link ListCell} that defines the behaviour of the {@link TrackQueueRow} items
- * in the play queue list view. Supports drag-and-drop reordering within the queue.
- * Dragging is suppressed when the history queue is active, as determined by the
+ * Custom {@link ListCell} that renders a track id of the play queue or the history queue.
+ * Each cell owns a single {@link TrackQueueRow} graphic that is re-pointed at the resolved
+ * track whenever the {@code ListView} recycles the cell, so the number of nodes is bounded
+ * by the visible rows rather than by the queue length.
+ * Supports drag-and-drop reordering within the queue: the dragged entry moves to the drop position.
+ * Dragging and dropping are suppressed when the history queue is active, as determined by the
  * {@code showingHistoryQueue} supplier provided at construction time.
  *
  * @author Octavio Calleya
  */
-public class TrackQueueListCell extends ListCell<TrackQueueRow> {
+public class TrackQueueListCell extends ListCell<Integer> {
 
     private static final String DRAG_OVER_STYLE = "-fx-border-color: rgb(99, 255, 109); -fx-border-width: 0px 0px 1px 0px";
     private final BooleanSupplier showingHistoryQueue;
+    private final IntFunction<Optional<ObservableAudioItem>> trackResolver;
+    private final BiConsumer<Integer, Integer> onMove;
+    private final TrackQueueRow trackQueueRow = new TrackQueueRow();
 
     /**
      * @param isHistoryQueueShowing supplier that returns {@code true} when the history queue is currently displayed
+     * @param trackResolver         resolves a queued track id to its library item
+     * @param onDelete              receives the index of the entry whose delete button was clicked
+     * @param onMove                receives the index of the dragged entry and the index it was dropped on
      */
-    public TrackQueueListCell(BooleanSupplier isHistoryQueueShowing) {
+    public TrackQueueListCell(BooleanSupplier isHistoryQueueShowing, IntFunction<Optional<ObservableAudioItem>> trackResolver,
+                              IntConsumer onDelete, BiConsumer<Integer, Integer> onMove) {
         super();
         this.showingHistoryQueue = isHistoryQueueShowing;
+        this.trackResolver = trackResolver;
+        this.onMove = onMove;
+        trackQueueRow.setOnDeleteButtonClickedHandler(event -> {
+            if (! isEmpty())
+                onDelete.accept(getIndex());
+        });
         setOnDragOver(this::onDragOver);
         setOnDragDetected(this::onDragDetected);
         setOnDragDropped(this::onDragDropped);
@@ -72,10 +94,7 @@ public class TrackQueueListCell extends ListCell<TrackQueueRow> {
             var dragboard = startDragAndDrop(TransferMode.COPY_OR_MOVE);
             dragboard.setDragView(new DragBoardImage());
 
-            var selection = getListView().getSelectionModel().getSelectedItems();
-            var selectionTracks = selection.stream()
-                                                     .map(tqr -> tqr.getTrack().getId())
-                                                     .toList();
+            List<Integer> selectionTracks = List.copyOf(getListView().getSelectionModel().getSelectedItems());
 
             var clipboardContent = new ClipboardContent();
             clipboardContent.put(AudioItemTableViewBase.TRACKS_DATA_FORMAT, selectionTracks);
@@ -85,22 +104,17 @@ public class TrackQueueListCell extends ListCell<TrackQueueRow> {
     }
 
     private void onDragDropped (DragEvent event) {
-        var selection = getListView().getSelectionModel().getSelectedItem();
-        var itemsList = getListView().getItems();
-
-        int thisIndex = itemsList.indexOf(getItem());
         int draggedIndex = getListView().getSelectionModel().getSelectedIndex();
-        itemsList.set(draggedIndex, getItem());
-        itemsList.set(thisIndex, selection);
+        if (! isEmpty() && draggedIndex >= 0 && ! showingHistoryQueue.getAsBoolean())
+            onMove.accept(draggedIndex, getIndex());
         event.consume();
     }
 
     @Override
-    protected void updateItem(TrackQueueRow trackQueueRow, boolean empty) {
-        super.updateItem(trackQueueRow, empty);
-        if (empty || trackQueueRow == null)
-            setGraphic(null);
-        else
-            setGraphic(trackQueueRow);
+    protected void updateItem(Integer trackId, boolean empty) {
+        super.updateItem(trackId, empty);
+        var track = empty || trackId == null ? Optional.<ObservableAudioItem>empty() : trackResolver.apply(trackId);
+        trackQueueRow.setTrack(track.orElse(null));
+        setGraphic(track.isPresent() ? trackQueueRow : null);
     }
 }
@@ -22,6 +22,7 @@ package net.transgressoft.musicott.view.custom.table;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.musicott.view.custom.ApplicationImage;
 
+import javafx.beans.binding.Binding;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -40,9 +41,13 @@ import static org.fxmisc.easybind.EasyBind.combine;
 import static org.fxmisc.easybind.EasyBind.subscribe;
 
 /**
- * Class that represents a single {@link ObservableAudioItem} in the play queue or the history queue.
- * It contains labels showing the artist and track names, the cover image, and a button
- * to remove the {@code TrackQueueRow} from his list.
+ * Graphic of a {@link TrackQueueListCell} that shows a single {@link ObservableAudioItem} of the
+ * play queue or the history queue. It contains labels showing the artist and track names, the
+ * cover image, and a button to remove the entry from its list.
+ *
+ * <p>One instance is owned by each recycled list cell and re-pointed at a different track through
+ * {@link #setTrack(ObservableAudioItem)} as the cell scrolls, so only the visible rows ever exist
+ * as nodes regardless of the queue length.
  *
  * @author Octavio Calleya
  * @version 0.10.1-b
@@ -51,16 +56,20 @@ public class TrackQueueRow extends GridPane {
 
     private static final double COVER_SIZE = 42.0;
 
-    private final ObservableAudioItem track;
+    private final Image defaultCover = ApplicationImage.DEFAULT_COVER.get();
+
+    private ObservableAudioItem track;
 
     private ImageView coverImage;
+    private Label nameLabel;
+    private Label artistAlbumLabel;
     private VBox labelBox;
     private Button deleteTrackQueueRowButton;
+    private Binding<String> artistAlbumBinding;
     private Subscription coverSubscription;
 
-    public TrackQueueRow(ObservableAudioItem track) {
+    public TrackQueueRow() {
         super();
-        this.track = track;
         placeCover();
         placeLabels();
         placeDeleteHoverButton();
@@ -79,6 +88,30 @@ public class TrackQueueRow extends GridPane {
         return track;
     }
 
+    /**
+     * Points this row at the given track, re-binding the labels and the cover image.
+     * Passing {@code null} releases the current bindings, as when the owning cell becomes empty.
+     */
+    public void setTrack(ObservableAudioItem track) {
+        if (this.track == track)
+            return;
+        dispose();
+        this.track = track;
+        if (track == null) {
+            nameLabel.setText("");
+            artistAlbumLabel.setText("");
+            coverImage.setImage(defaultCover);
+            return;
+        }
+
+        nameLabel.textProperty().bind(track.getTitleProperty());
+        artistAlbumBinding = combine(track.getArtistProperty(), track.getAlbumProperty(), (art, alb) -> art.getName() + " - " + alb.getName());
+        artistAlbumLabel.textProperty().bind(artistAlbumBinding);
+        coverImage.setImage(track.getCoverImageProperty().get().orElse(defaultCover));
+        coverSubscription = subscribe(track.getCoverImageProperty(),
+                opt -> coverImage.setImage(opt.orElse(defaultCover)));
+    }
+
     private void placeCover() {
         coverImage = new ImageView();
         coverImage.setId("coverImage");
@@ -87,23 +120,15 @@ public class TrackQueueRow extends GridPane {
         coverImage.setSmooth(true);
         coverImage.setFitWidth(COVER_SIZE);
         coverImage.setFitHeight(COVER_SIZE);
-
-        Image defaultCover = ApplicationImage.DEFAULT_COVER.get();
-        coverImage.setImage(track.getCoverImageProperty().get().orElse(defaultCover));
-        coverSubscription = subscribe(track.getCoverImageProperty(),
-                opt -> coverImage.setImage(opt.orElse(defaultCover)));
-
+        coverImage.setImage(defaultCover);
         add(coverImage, 0, 0);
     }
 
     private void placeLabels() {
-        var nameLabel = new Label();
+        nameLabel = new Label();
         nameLabel.setId("nameLabel");
-        nameLabel.textProperty().bind(track.getTitleProperty());
-        var artistAlbumLabel = new Label();
+        artistAlbumLabel = new Label();
         artistAlbumLabel.setId("artistAlbumLabel");
-        artistAlbumLabel.textProperty().bind(
-                combine(track.getArtistProperty(), track.getAlbumProperty(), (art, alb) -> art.getName() + " - " + alb.getName()));
         labelBox = new VBox();
         VBox.setMargin(nameLabel, new Insets(0, 0, 1, 0));
         VBox.setMargin(artistAlbumLabel, new Insets(1, 0, 0, 0));
@@ -125,14 +150,19 @@ public class TrackQueueRow extends GridPane {
     }
 
     /**
-     * Releases the cover-property subscription. Call when the row leaves both the play queue and
-     * the history queue so the row no longer pins {@code track} as a listener target and can be
-     * garbage-collected.
+     * Releases the label bindings and the cover-property subscription so the row no longer pins
+     * {@code track} as a listener target. Called whenever the owning cell is re-pointed or emptied.
      */
     public void dispose() {
         if (coverSubscription != null) {
             coverSubscription.unsubscribe();
             coverSubscription = null;
         }
+        nameLabel.textProperty().unbind();
+        artistAlbumLabel.textProperty().unbind();
+        if (artistAlbumBinding != null) {
+            artistAlbumBinding.dispose();
+            artistAlbumBinding = null;
+        }
     }
 }
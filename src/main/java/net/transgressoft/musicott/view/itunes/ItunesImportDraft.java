@@ -20,6 +20,7 @@ import java.util.List;
 class ItunesImportDraft {
 
     Path libraryPath;
+    // The playlists of the library only; its tracks are read from the file at import time
     ItunesLibrary parsedLibrary;
     final List<ItunesPlaylist> selectedPlaylists = new ArrayList<>();
     boolean useFileMetadata = true;
@@ -27,40 +27,59 @@ import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
 import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist
 import net.transgressoft.commons.fx.music.playlist.ObservablePlaylistHierarchy
-import net.transgressoft.commons.media.persistence.waveform.AudioWaveformMapSerializer
 import net.transgressoft.commons.music.m3u.M3uImportService
 import net.transgressoft.commons.persistence.fx.music.audio.FXAudioItemSqlTableDef
-import net.transgressoft.commons.persistence.fx.music.playlist.ObservablePlaylistMapSerializer
 import net.transgressoft.commons.music.audio.AudioMetadataIO
 import net.transgressoft.commons.music.audio.JAudioTaggerMetadataIO
 import net.transgressoft.commons.music.waveform.AudioWaveform
 import net.transgressoft.commons.music.waveform.AudioWaveformRepository
 import net.transgressoft.lirp.persistence.Repository
-import net.transgressoft.lirp.persistence.json.JsonFileRepository
 import net.transgressoft.lirp.persistence.sql.SqliteRepository
 import net.transgressoft.musicott.MusicottApplication
+import net.transgressoft.musicott.persistence.BinaryWaveformRepository
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import net.transgressoft.musicott.persistence.JournaledPlaylistRepository
+import net.transgressoft.musicott.persistence.PlaylistJournal
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository
+import net.transgressoft.musicott.persistence.WaveformBinaryStore
+import net.transgressoft.musicott.persistence.WaveformPeakStore
+import net.transgressoft.musicott.splash.BootProgress
 import org.apache.commons.lang3.SystemUtils
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.StandardOpenOption
 import java.util.Optional
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
 import java.util.function.Supplier
+import kotlin.concurrent.thread
 
 /**
  * Central Spring bean definitions for the domain and persistence layer.
  *
  * Creates the application data directory and files on startup, then exposes the
  * music-commons repositories as beans: the audio library backed by a lirp SQLite
- * repository, and the playlist hierarchy and waveform cache backed by lirp JSON file
- * repositories. Also provides supporting beans such as the metadata I/O service, the
+ * repository, the playlist hierarchy backed by an append-only journal, and the
+ * waveform cache backed by a lazily read binary store. Also provides supporting beans such as the metadata I/O service, the
  * m3u import service, file/directory choosers, and the OS-appropriate key modifier.
  */
 @Configuration
 class ApplicationConfiguration @Autowired constructor(private val applicationPaths: MusicottApplication.ApplicationPaths) {
 
+    private companion object {
+        const val WAVEFORM_STORE_FILE_NAME = "waveforms.bin"
+        const val WAVEFORM_PEAKS_FILE_NAME = "waveform-peaks.bin"
+        const val PLAYLIST_JOURNAL_FILE_NAME = "playlists.journal"
+        const val FILE_FINGERPRINTS_FILE_NAME = "fingerprints.bin"
+        const val PAGE_WARMING_BUFFER_BYTES = 1024 * 1024
+    }
+
     init {
         initializeApplicationFiles()
     }
@@ -69,21 +88,13 @@ class ApplicationConfiguration @Autowired constructor(private val applicationPat
         try {
             applicationPaths.audioItemsDatabasePath.parent?.let { Files.createDirectories(it) }
 
-            // The audio item SQLite database file is created by SqliteRepository on first connection.
-            createFileIfNotExists(applicationPaths.playlistsPath)
-            createFileIfNotExists(applicationPaths.waveformsPath)
+            // The audio item SQLite database file is created by SqliteRepository on first connection,
+            // and the playlist journal and the waveform store create their own files on first access.
         } catch (exception: IOException) {
             throw RuntimeException("Could not create application files", exception)
         }
     }
 
-    @Throws(IOException::class)
-    private fun createFileIfNotExists(path: Path) {
-        if (!Files.exists(path)) {
-            Files.createFile(path)
-        }
-    }
-
     @Bean
     fun operativeSystemKeyModifier(): KeyCombination.Modifier =
         if (SystemUtils.IS_OS_MAC_OSX)
@@ -105,20 +116,131 @@ class ApplicationConfiguration @Autowired constructor(private val applicationPat
 
     // The three persistence repositories are exposed as dedicated beans so the Spring
     // container owns their lifecycle: each is AutoCloseable, so on context shutdown Spring
-    // invokes close() — flushing the JSON repositories and, for the SQLite audio repository,
-    // checkpointing the WAL and shutting down the connection pool. Spring Boot's shutdown
+    // invokes close() — flushing the playlist journal, syncing the waveform store and,
+    // for the SQLite audio repository, checkpointing the WAL and shutting down the connection pool. Spring Boot's shutdown
     // hook runs on the application's System.exit path, so the close is deterministic.
+    //
+    // They are loaded concurrently, each on its own thread, from the moment this configuration
+    // is instantiated; the bean methods only wait for their own load, so the boot takes as long
+    // as the slowest repository instead of the sum of the three. Each load reports its progress
+    // to BootProgress, which the splash polls while Spring is still building the context.
+    private val audioItemRepositoryLoad = loadAsync("audio-repository-loader", "Loading library…", ::loadAudioItemRepository)
+    private val playlistRepositoryLoad = loadAsync("playlist-repository-loader", "Loading playlists…", ::loadPlaylistRepository)
+    private val waveformRepositoryLoad = loadAsync("waveform-repository-loader", "Loading waveforms…", ::loadWaveformRepository)
+
+    @Bean
+    fun audioItemRepository(): Repository<Int, ObservableAudioItem> = audioItemRepositoryLoad.await()
+
+    @Bean
+    fun playlistFileRepository(): Repository<Int, ObservablePlaylist> = playlistRepositoryLoad.await()
+
     @Bean
-    fun audioItemRepository(): Repository<Int, ObservableAudioItem> =
-        SqliteRepository.fileBacked(applicationPaths.audioItemsDatabasePath, FXAudioItemSqlTableDef)
+    fun waveformFileRepository(): Repository<Int, AudioWaveform> = waveformRepositoryLoad.await()
+
+    /**
+     * Reads the database files through once before SQLite opens them, so its page reads hit the
+     * OS cache instead of seeking through the disk. The step reports those bytes only: SQLite
+     * materializes the rows without reporting progress, so the step stays full while it does.
+     *
+     * SQLite reads every row when it opens, and lirp offers no bounded query to read a first page
+     * instead, so the splash still waits for the whole table. With the splash screen on, what is
+     * deferred is building the FX library over those rows: it starts with the tracks the library
+     * table shows first (most recently added, its default sort) and
+     * [net.transgressoft.musicott.service.LibraryWarmUpService] streams in the rest once the main
+     * window is up. The synchronous boot used when the splash is disabled publishes the whole
+     * library upfront, as a single first page, so bulk imports are available either way.
+     */
+    private fun loadAudioItemRepository(step: BootProgress.Step): Repository<Int, ObservableAudioItem> {
+        val databaseFiles =
+            listOf(
+                applicationPaths.audioItemsDatabasePath,
+                applicationPaths.audioItemsDatabasePath.resolveSibling("${applicationPaths.audioItemsDatabasePath.fileName}-wal")
+            ).filter(Files::exists)
+        val databaseBytes = databaseFiles.sumOf(Files::size)
+        step.setTotal(databaseBytes)
+        databaseFiles.forEach { warmPages(it, step) }
+
+        val repository = SqliteRepository.fileBacked(applicationPaths.audioItemsDatabasePath, FXAudioItemSqlTableDef)
+        val order = compareByDescending<ObservableAudioItem> { it.dateOfCreation }
+        return if (Boolean.getBoolean("musicott.splash.disabled") || Boolean.getBoolean("musicott.boot.progressive.disabled"))
+            ProgressiveAudioRepository(repository, order, firstPageSize = Int.MAX_VALUE)
+        else
+            ProgressiveAudioRepository(repository, order)
+    }
+
+    /**
+     * Playlists live in an append-only journal next to the legacy `playlists.json`, whose content
+     * is migrated into it on the first start after an upgrade.
+     */
+    private fun loadPlaylistRepository(step: BootProgress.Step): Repository<Int, ObservablePlaylist> {
+        val journal = PlaylistJournal(applicationPaths.playlistsPath.resolveSibling(PLAYLIST_JOURNAL_FILE_NAME))
+        PlaylistJournal.migrateJsonFile(applicationPaths.playlistsPath, journal)
+        return JournaledPlaylistRepository(journal, loadProgress = { loaded, total -> step.update(loaded.toLong(), total.toLong()) })
+    }
+
+    /**
+     * Waveforms live in a binary store next to the legacy `waveforms.json`, whose content is
+     * migrated into it on the first start after an upgrade. The store reads nothing until a
+     * waveform is requested, but its index is scanned here anyway, off the critical path, so the
+     * first waveform shown does not pay for it.
+     */
+    private fun loadWaveformRepository(step: BootProgress.Step): Repository<Int, AudioWaveform> {
+        val store = WaveformBinaryStore(applicationPaths.waveformsPath.resolveSibling(WAVEFORM_STORE_FILE_NAME))
+        val repository = BinaryWaveformRepository(store)
+        BinaryWaveformRepository.migrateJsonFile(applicationPaths.waveformsPath, repository)
+        store.preload(step::update)
+        return repository
+    }
 
+    private fun <R> loadAsync(threadName: String, message: String, load: (BootProgress.Step) -> R): CompletableFuture<R> {
+        val step = BootProgress.INSTANCE.step(message, 0)
+        val future = CompletableFuture<R>()
+        thread(name = threadName, isDaemon = true) {
+            try {
+                future.complete(load(step))
+            } catch (exception: Throwable) {
+                future.completeExceptionally(exception)
+            } finally {
+                step.complete()
+            }
+        }
+        return future
+    }
+
+    private fun warmPages(file: Path, step: BootProgress.Step) {
+        FileChannel.open(file, StandardOpenOption.READ).use { channel ->
+            val buffer = ByteBuffer.allocateDirect(PAGE_WARMING_BUFFER_BYTES)
+            while (true) {
+                val read = channel.read(buffer.clear())
+                if (read < 0) break
+                step.advance(read.toLong())
+            }
+        }
+    }
+
+    private fun <R> CompletableFuture<R>.await(): R =
+        try {
+            join()
+        } catch (exception: CompletionException) {
+            throw exception.cause ?: exception
+        }
+
+    /**
+     * The size, modification time and tag hash of every imported file, next to the library
+     * database, so re-imports and watched folders only read the files that changed. Closed, and so
+     * flushed, by Spring on shutdown.
+     */
     @Bean
-    fun playlistFileRepository(): Repository<Int, ObservablePlaylist> =
-        JsonFileRepository(applicationPaths.playlistsPath.toFile(), ObservablePlaylistMapSerializer, loadOnInit = false)
+    fun fileFingerprintStore(): FileFingerprintStore =
+        FileFingerprintStore(applicationPaths.audioItemsDatabasePath.resolveSibling(FILE_FINGERPRINTS_FILE_NAME))
 
+    /**
+     * The peaks the player pane renders waveforms from, in a binary store next to the waveforms.
+     * Closed by Spring on shutdown.
+     */
     @Bean
-    fun waveformFileRepository(): Repository<Int, AudioWaveform> =
-        JsonFileRepository(applicationPaths.waveformsPath.toFile(), AudioWaveformMapSerializer)
+    fun waveformPeakStore(): WaveformPeakStore =
+        WaveformPeakStore(WaveformBinaryStore(applicationPaths.waveformsPath.resolveSibling(WAVEFORM_PEAKS_FILE_NAME)))
 
     @Bean
     fun musicLibrary(
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import kotlinx.serialization.json.Json
+import mu.KotlinLogging
+import net.transgressoft.commons.media.persistence.waveform.AudioWaveformMapSerializer
+import net.transgressoft.commons.music.waveform.AudioWaveform
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.lirp.persistence.VolatileRepository
+import java.io.ByteArrayOutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.util.Optional
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+
+/**
+ * Waveform repository persisted in a [WaveformBinaryStore] and hydrated one waveform at a time.
+ *
+ * Nothing is read at construction. [findById] serves waveforms already in memory and otherwise
+ * decodes the single record of that id from the store, so boot cost no longer grows with the
+ * number of cached waveforms. Adding or replacing a waveform appends its record to the store
+ * right away; removing one appends a tombstone.
+ *
+ * Each record holds the waveform encoded with the same [AudioWaveformMapSerializer] the JSON
+ * repository used, deflated. Every other [Repository] operation is delegated to the in-memory
+ * repository of hydrated waveforms, so queries such as `size` or `search` only see the waveforms
+ * requested during the session; the waveform repository only looks waveforms up by id.
+ */
+class BinaryWaveformRepository(
+    private val store: WaveformBinaryStore,
+    private val hydrated: Repository<Int, AudioWaveform> = VolatileRepository("Waveforms")
+) : Repository<Int, AudioWaveform> by hydrated {
+
+    private val logger = KotlinLogging.logger {}
+
+    companion object {
+        private val json = Json { ignoreUnknownKeys = true }
+
+        /**
+         * Moves the waveforms of a legacy `waveforms.json` file into [repository], then renames the
+         * file with a `.migrated` suffix so the migration runs once. Does nothing when the file is
+         * missing or empty.
+         */
+        fun migrateJsonFile(jsonFile: Path, repository: BinaryWaveformRepository) {
+            if (!Files.exists(jsonFile) || Files.size(jsonFile) == 0L) return
+            val waveforms = json.decodeFromString(AudioWaveformMapSerializer, Files.readString(jsonFile))
+            waveforms.values.forEach(repository::addOrReplace)
+            Files.move(jsonFile, jsonFile.resolveSibling("${jsonFile.fileName}.migrated"), StandardCopyOption.REPLACE_EXISTING)
+            KotlinLogging.logger {}.info { "Migrated ${waveforms.size} waveform(s) from $jsonFile to the binary store" }
+        }
+    }
+
+    override fun findById(id: Int): Optional<AudioWaveform> =
+        hydrated.findById(id).or { hydrate(id) }
+
+    override fun add(entity: AudioWaveform): Boolean =
+        hydrated.add(entity).also { added -> if (added) persist(entity) }
+
+    override fun addOrReplace(entity: AudioWaveform): Boolean =
+        hydrated.addOrReplace(entity).also { changed -> if (changed) persist(entity) }
+
+    override fun remove(entity: AudioWaveform): Boolean {
+        val stored = store.contains(entity.id)
+        store.remove(entity.id)
+        return hydrated.remove(entity) || stored
+    }
+
+    override fun close() {
+        hydrated.close()
+        store.close()
+    }
+
+    private fun hydrate(id: Int): Optional<AudioWaveform> {
+        val payload = store.get(id) ?: return Optional.empty()
+        return try {
+            val waveform = decode(payload).getValue(id)
+            // Added to the in-memory repository directly: the store already holds this record
+            hydrated.add(waveform)
+            Optional.of(waveform)
+        } catch (exception: Exception) {
+            logger.warn(exception) { "Discarding unreadable waveform record of item $id" }
+            store.remove(id)
+            Optional.empty()
+        }
+    }
+
+    private fun persist(waveform: AudioWaveform) {
+        val encoded = json.encodeToString(AudioWaveformMapSerializer, mapOf(waveform.id to waveform)).toByteArray()
+        val deflated = ByteArrayOutputStream(encoded.size / 4)
+        DeflaterOutputStream(deflated).use { it.write(encoded) }
+        store.put(waveform.id, deflated.toByteArray())
+    }
+
+    private fun decode(payload: ByteArray): Map<Int, AudioWaveform> {
+        val encoded = InflaterInputStream(payload.inputStream()).use { it.readBytes() }
+        return json.decodeFromString(AudioWaveformMapSerializer, encoded.decodeToString())
+    }
+}
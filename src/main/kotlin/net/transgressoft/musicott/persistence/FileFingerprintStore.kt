@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import mu.KotlinLogging
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption.READ
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.zip.CRC32C
+
+/**
+ * Persistent table of what the audio files of the library looked like when their tags were last
+ * read, so a re-import or a watched folder can tell the unchanged files apart by a `stat` alone.
+ *
+ * A file is [unchanged][isUnchanged] when its size and modification time match its [Fingerprint].
+ * When only the modification time moved, as after a copy or a `touch`, the file is opened once to
+ * compare a hash of its first and last [EDGE_BYTES] with the recorded one: that is where the
+ * tag blocks of the supported formats live, so a retag that kept the size still shows up. On a
+ * match the new time is recorded and the file counts as unchanged.
+ *
+ * The table sits in a small binary file next to the library database: a header followed by one
+ * `[path][size][modified][hash]` record per file. It is read on first access, kept in memory and
+ * rewritten whole by [flush] (through a sibling file moved over the old one, so a crash leaves
+ * either version intact), which callers do once per import or sync rather than per file. A file
+ * that cannot be read is treated as empty: every file then looks new and is read again.
+ *
+ * All public methods are thread-safe; recording reads the file outside the lock.
+ */
+class FileFingerprintStore(private val file: Path) : AutoCloseable {
+
+    private val logger = KotlinLogging.logger {}
+
+    private var fingerprints: MutableMap<Path, Fingerprint>? = null
+    private var dirty = false
+
+    /**
+     * What a file looked like when its tags were last read.
+     */
+    data class Fingerprint(val size: Long, val lastModifiedMillis: Long, val edgeHash: Long)
+
+    companion object {
+        private const val MAGIC = 0x4D465031 // "MFP1"
+        private const val EDGE_BYTES = 8 * 1024
+
+        // The head holds the ID3v2 and FLAC tag blocks of a file, the tail its ID3v1 and APE ones
+        private fun edgeHash(file: Path, size: Long): Long {
+            val crc = CRC32C()
+            FileChannel.open(file, READ).use { channel ->
+                val buffer = ByteBuffer.allocate(EDGE_BYTES)
+                fun hashAt(position: Long) {
+                    buffer.clear()
+                    while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) Unit
+                    crc.update(buffer.flip())
+                }
+                hashAt(0)
+                if (size > EDGE_BYTES) hashAt(maxOf(EDGE_BYTES.toLong(), size - EDGE_BYTES))
+            }
+            return crc.value
+        }
+    }
+
+    @Synchronized
+    fun size(): Int = table().size
+
+    @Synchronized
+    operator fun get(file: Path): Fingerprint? = table()[file]
+
+    @Synchronized
+    operator fun contains(file: Path): Boolean = table().containsKey(file)
+
+    /**
+     * Returns whether [file], whose current [attributes] were just read, is as it was when last
+     * [recorded][record]. A file never recorded is not unchanged.
+     */
+    fun isUnchanged(file: Path, attributes: BasicFileAttributes): Boolean {
+        val recorded = get(file) ?: return false
+        val lastModifiedMillis = attributes.lastModifiedTime().toMillis()
+        if (recorded.size != attributes.size()) return false
+        if (recorded.lastModifiedMillis == lastModifiedMillis) return true
+        val edgeHash =
+            try {
+                edgeHash(file, attributes.size())
+            } catch (exception: IOException) {
+                return false
+            }
+        if (edgeHash != recorded.edgeHash) return false
+        put(file, recorded.copy(lastModifiedMillis = lastModifiedMillis))
+        return true
+    }
+
+    /**
+     * Records [file] as it is now, after its tags were read. Forgets it if it is gone.
+     */
+    fun record(file: Path) {
+        try {
+            val attributes = Files.readAttributes(file, BasicFileAttributes::class.java)
+            val size = attributes.size()
+            put(file, Fingerprint(size, attributes.lastModifiedTime().toMillis(), edgeHash(file, size)))
+        } catch (exception: NoSuchFileException) {
+            remove(file)
+        } catch (exception: IOException) {
+            logger.debug { "Could not fingerprint $file: ${exception.message}" }
+        }
+    }
+
+    @Synchronized
+    fun remove(file: Path) {
+        if (table().remove(file) != null) dirty = true
+    }
+
+    /**
+     * Forgets every file under [directory].
+     */
+    @Synchronized
+    fun removeUnder(directory: Path) {
+        if (table().keys.removeIf { it.startsWith(directory) }) dirty = true
+    }
+
+    /**
+     * Writes the table to its file if it changed since it was read or last flushed.
+     */
+    @Synchronized
+    fun flush() {
+        val table = fingerprints ?: return
+        if (!dirty) return
+        val writing = file.resolveSibling("${file.fileName}.writing")
+        try {
+            file.parent?.let(Files::createDirectories)
+            DataOutputStream(BufferedOutputStream(Files.newOutputStream(writing), 64 * 1024)).use { output ->
+                output.writeInt(MAGIC)
+                output.writeInt(table.size)
+                table.forEach { (path, fingerprint) ->
+                    output.writeUTF(path.toString())
+                    output.writeLong(fingerprint.size)
+                    output.writeLong(fingerprint.lastModifiedMillis)
+                    output.writeLong(fingerprint.edgeHash)
+                }
+            }
+            Files.move(writing, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+            dirty = false
+            logger.debug { "Wrote ${table.size} file fingerprint(s) to $file" }
+        } catch (exception: IOException) {
+            logger.warn(exception) { "Could not write the file fingerprints to $file" }
+        }
+    }
+
+    @Synchronized
+    override fun close() {
+        flush()
+    }
+
+    @Synchronized
+    private fun put(file: Path, fingerprint: Fingerprint) {
+        if (table().put(file, fingerprint) != fingerprint) dirty = true
+    }
+
+    private fun table(): MutableMap<Path, Fingerprint> = fingerprints ?: load().also { fingerprints = it }
+
+    private fun load(): MutableMap<Path, Fingerprint> {
+        val table = HashMap<Path, Fingerprint>()
+        if (!Files.exists(file)) return table
+        try {
+            DataInputStream(BufferedInputStream(Files.newInputStream(file), 64 * 1024)).use { input ->
+                if (input.readInt() != MAGIC) throw IOException("Not a fingerprint file")
+                repeat(input.readInt()) {
+                    table[Path.of(input.readUTF())] = Fingerprint(input.readLong(), input.readLong(), input.readLong())
+                }
+            }
+        } catch (exception: IOException) {
+            val reason = if (exception is EOFException) "it is truncated" else exception.message
+            logger.warn { "Ignoring the file fingerprints in $file, $reason; every file will be read again" }
+            table.clear()
+        }
+        return table
+    }
+}
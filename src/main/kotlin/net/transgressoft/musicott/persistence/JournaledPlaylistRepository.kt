@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.jsonObject
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.playlist.ObservablePlaylist
+import net.transgressoft.commons.persistence.fx.music.playlist.ObservablePlaylistMapSerializer
+import net.transgressoft.lirp.event.CrudEvent
+import net.transgressoft.lirp.event.LirpEventSubscription
+import net.transgressoft.lirp.entity.LirpEntity
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.lirp.persistence.VolatileRepository
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * Playlist repository persisted in a [PlaylistJournal], one line per changed playlist.
+ *
+ * The journal is read once at construction: the latest document of every playlist is merged into
+ * the same JSON object the JSON file repository used to write, and decoded with the same
+ * [ObservablePlaylistMapSerializer]. From then on the repository listens to its own events; a
+ * created, updated or removed playlist is marked dirty, and a writer thread appends the dirty
+ * playlists shortly after, so a drag of many tracks into one playlist becomes a single line with
+ * that playlist instead of a rewrite of every playlist. The same thread compacts the journal
+ * periodically once superseded lines outweigh the live ones.
+ *
+ * Every [Repository] operation is delegated to the in-memory repository of playlists.
+ */
+class JournaledPlaylistRepository(
+    private val journal: PlaylistJournal,
+    private val playlists: Repository<Int, ObservablePlaylist> = VolatileRepository("Playlists"),
+    private val flushDelayMillis: Long = DEFAULT_FLUSH_DELAY_MILLIS,
+    compactionIntervalMillis: Long = DEFAULT_COMPACTION_INTERVAL_MILLIS,
+    loadProgress: (loaded: Int, total: Int) -> Unit = { _, _ -> }
+) : Repository<Int, ObservablePlaylist> by playlists {
+
+    private val logger = KotlinLogging.logger {}
+
+    private val writer =
+        Executors.newSingleThreadScheduledExecutor { runnable ->
+            Thread(runnable, "playlist-journal").apply { isDaemon = true }
+        }
+    private val dirtyIds = LinkedHashSet<Int>()
+    private var pendingFlush: ScheduledFuture<*>? = null
+    private val subscription: LirpEventSubscription<in LirpEntity, CrudEvent.Type, CrudEvent<Int, ObservablePlaylist>>
+
+    companion object {
+        private const val DEFAULT_FLUSH_DELAY_MILLIS = 200L
+        private const val PROGRESS_STEP = 50
+        private val DEFAULT_COMPACTION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5)
+
+        private val json = Json { ignoreUnknownKeys = true }
+    }
+
+    init {
+        val documents = journal.documents()
+        if (documents.isNotEmpty()) {
+            // Parsing the documents is the bulk of the work, so progress counts them as they are parsed
+            var parsed = 0
+            val merged =
+                JsonObject(
+                    documents.entries.associate { (id, document) ->
+                        (id.toString() to json.parseToJsonElement(document)).also {
+                            if (++parsed % PROGRESS_STEP == 0) loadProgress(parsed, documents.size)
+                        }
+                    }
+                )
+            json.decodeFromJsonElement(ObservablePlaylistMapSerializer, merged).values.forEach(playlists::add)
+            logger.debug { "Loaded ${documents.size} playlist(s) from the journal" }
+        }
+        loadProgress(documents.size, documents.size)
+        subscription = playlists.subscribe { event -> markDirty(event.entities.keys) }
+        writer.scheduleWithFixedDelay(::compactIfNeeded, compactionIntervalMillis, compactionIntervalMillis, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * Appends the dirty playlists right away instead of waiting for the scheduled write.
+     */
+    fun flush() {
+        writer.submit(::writeDirty).get()
+    }
+
+    override fun close() {
+        subscription.cancel()
+        writer.submit(::writeDirty).get()
+        writer.shutdown()
+        writer.awaitTermination(10, TimeUnit.SECONDS)
+        journal.close()
+        playlists.close()
+    }
+
+    private fun markDirty(ids: Collection<Int>) {
+        synchronized(dirtyIds) {
+            dirtyIds.addAll(ids)
+            if (pendingFlush == null && !writer.isShutdown) {
+                pendingFlush = writer.schedule(::writeDirty, flushDelayMillis, TimeUnit.MILLISECONDS)
+            }
+        }
+    }
+
+    private fun writeDirty() {
+        val ids =
+            synchronized(dirtyIds) {
+                pendingFlush = null
+                dirtyIds.toList().also { dirtyIds.clear() }
+            }
+        if (ids.isEmpty()) return
+        try {
+            journal.appendAll(ids.associateWith { id -> playlists.findById(id).map(::encode).orElse(null) })
+        } catch (exception: Exception) {
+            logger.error(exception) { "Could not write ${ids.size} playlist(s) to the journal, retrying" }
+            markDirty(ids)
+        }
+    }
+
+    private fun encode(playlist: ObservablePlaylist): String =
+        json.encodeToJsonElement(ObservablePlaylistMapSerializer, mapOf(playlist.id to playlist))
+            .jsonObject.getValue(playlist.id.toString())
+            .toString()
+
+    private fun compactIfNeeded() {
+        try {
+            if (journal.needsCompaction()) journal.compact()
+        } catch (exception: Exception) {
+            logger.error(exception) { "Could not compact the playlist journal" }
+        }
+    }
+}
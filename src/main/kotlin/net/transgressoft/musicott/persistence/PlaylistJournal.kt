@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonObject
+import mu.KotlinLogging
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption.CREATE
+import java.nio.file.StandardOpenOption.READ
+import java.nio.file.StandardOpenOption.TRUNCATE_EXISTING
+import java.nio.file.StandardOpenOption.WRITE
+
+/**
+ * Append-only text journal of JSON documents keyed by an `Int` id.
+ *
+ * After a header line, every line is `<id>\t<json>`: the current document of that id, superseding
+ * earlier lines for it, or a tombstone when the JSON part is empty. Writing a document therefore
+ * appends one line instead of rewriting the file. A line without its trailing newline was cut
+ * short by a crash and is dropped, together with anything after it, when the journal is opened.
+ * A torn or foreign header cannot be trusted either, so the journal is started over empty, which
+ * lets [migrateJsonFile] bring back the playlists of a legacy `playlists.json` that is still there.
+ *
+ * The latest line of every live id is kept in memory, so [compact] can rewrite the journal with one
+ * line per id without going back to the entities. The compacted journal is written to a sibling
+ * file and atomically moved over the old one, so a crash during compaction leaves either journal
+ * intact.
+ *
+ * All public methods are synchronized; appends come from the repository's writer thread while
+ * compaction is scheduled separately.
+ */
+class PlaylistJournal(private val file: Path) : AutoCloseable {
+
+    private val logger = KotlinLogging.logger {}
+
+    private var channel: FileChannel? = null
+    private var latestLines: MutableMap<Int, ByteArray>? = null
+    private var fileSize = 0L
+    private var liveBytes = 0L
+
+    companion object {
+        private const val HEADER = "musicott-playlist-journal 1\n"
+        private const val COMPACTION_RATIO = 0.5
+        private const val MIN_COMPACTION_BYTES = 256 * 1024L
+
+        private val json = Json
+
+        /**
+         * Appends every playlist of a legacy `playlists.json` file to an empty [journal], copying the
+         * JSON of each one as is, then renames the file with a `.migrated` suffix so the migration
+         * runs once. Does nothing when the file is missing or empty, or the journal has content.
+         */
+        fun migrateJsonFile(jsonFile: Path, journal: PlaylistJournal) {
+            if (!Files.exists(jsonFile) || Files.size(jsonFile) == 0L || journal.size() > 0) return
+            val playlists = json.parseToJsonElement(Files.readString(jsonFile)).jsonObject
+            journal.appendAll(playlists.entries.associate { (id, playlist) -> id.toInt() to playlist.toString() })
+            Files.move(jsonFile, jsonFile.resolveSibling("${jsonFile.fileName}.migrated"), StandardCopyOption.REPLACE_EXISTING)
+            KotlinLogging.logger {}.info { "Migrated ${playlists.size} playlist(s) from $jsonFile to the journal" }
+        }
+    }
+
+    /**
+     * The latest JSON document of every live id, in id order.
+     */
+    @Synchronized
+    fun documents(): Map<Int, String> =
+        latest().toSortedMap().mapValues { (_, line) -> documentOf(line) }
+
+    @Synchronized
+    fun size(): Int = latest().size
+
+    /**
+     * Appends the given documents in one write, a `null` document removing its id, and forces them
+     * to disk before returning.
+     */
+    @Synchronized
+    fun appendAll(documents: Map<Int, String?>) {
+        if (documents.isEmpty()) return
+        val lines = latest()
+        val batch = ArrayList<ByteBuffer>(documents.size)
+        documents.forEach { (id, document) ->
+            require(document == null || document.isNotEmpty()) { "Empty documents are reserved for tombstones" }
+            require(document?.contains('\n') != true) { "Documents must fit on a single line" }
+            val line = "$id\t${document.orEmpty()}\n".toByteArray()
+            batch.add(ByteBuffer.wrap(line))
+            val previous = if (document == null) lines.remove(id) else lines.put(id, line)
+            liveBytes += (if (document == null) 0 else line.size) - (previous?.size ?: 0)
+        }
+        val channel = openChannel()
+        val buffers = batch.toTypedArray()
+        channel.position(fileSize)
+        while (buffers.any { it.hasRemaining() }) {
+            fileSize += channel.write(buffers)
+        }
+        channel.force(false)
+    }
+
+    /**
+     * Whether superseded lines and tombstones take up more than half of the journal.
+     */
+    @Synchronized
+    fun needsCompaction(): Boolean {
+        latest()
+        val supersededBytes = fileSize - HEADER.length - liveBytes
+        return supersededBytes >= MIN_COMPACTION_BYTES && supersededBytes > fileSize * COMPACTION_RATIO
+    }
+
+    /**
+     * Rewrites the journal with only the latest line of every live id.
+     */
+    @Synchronized
+    fun compact() {
+        val lines = latest()
+        val reclaimed = fileSize - HEADER.length - liveBytes
+        val compactedFile = file.resolveSibling("${file.fileName}.compacting")
+        FileChannel.open(compactedFile, CREATE, WRITE, TRUNCATE_EXISTING).use { target ->
+            val buffers = (listOf(HEADER.toByteArray()) + lines.toSortedMap().values).map(ByteBuffer::wrap).toTypedArray()
+            while (buffers.any { it.hasRemaining() }) target.write(buffers)
+            target.force(false)
+        }
+        channel?.close()
+        channel = null
+        Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        fileSize = HEADER.length + liveBytes
+        logger.info { "Compacted $file, reclaiming $reclaimed bytes" }
+    }
+
+    @Synchronized
+    override fun close() {
+        channel?.let {
+            it.force(false)
+            it.close()
+        }
+        channel = null
+    }
+
+    private fun latest(): MutableMap<Int, ByteArray> = latestLines ?: load().also { latestLines = it }
+
+    private fun load(): MutableMap<Int, ByteArray> {
+        val channel = openChannel()
+        val lines = HashMap<Int, ByteArray>()
+        fileSize = channel.size()
+        if (fileSize == 0L) {
+            writeHeader(channel)
+            return lines
+        }
+
+        val content = ByteArray(fileSize.toInt())
+        val buffer = ByteBuffer.wrap(content)
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position().toLong()) >= 0) continue
+        if (!content.copyOf(HEADER.length).contentEquals(HEADER.toByteArray())) {
+            logger.warn { "Discarding $file, its header is incomplete or not a playlist journal header" }
+            writeHeader(channel)
+            return lines
+        }
+
+        var offset = HEADER.length
+        while (offset < content.size) {
+            val end = content.indexOf('\n'.code.toByte(), offset)
+            val tab = content.indexOf('\t'.code.toByte(), offset)
+            val id = if (end >= 0 && tab in offset until end) String(content, offset, tab - offset).toIntOrNull() else null
+            if (id == null) {
+                logger.warn { "Discarding incomplete playlist journal line at offset $offset of $file" }
+                channel.truncate(offset.toLong())
+                fileSize = offset.toLong()
+                break
+            }
+            val line = content.copyOfRange(offset, end + 1)
+            val previous = if (tab + 1 == end) lines.remove(id) else lines.put(id, line)
+            liveBytes += (if (tab + 1 == end) 0 else line.size) - (previous?.size ?: 0)
+            offset = end + 1
+        }
+        return lines
+    }
+
+    private fun writeHeader(channel: FileChannel) {
+        channel.truncate(0)
+        val header = ByteBuffer.wrap(HEADER.toByteArray())
+        while (header.hasRemaining()) channel.write(header, header.position().toLong())
+        channel.force(false)
+        fileSize = HEADER.length.toLong()
+    }
+
+    private fun documentOf(line: ByteArray): String {
+        val tab = line.indexOf('\t'.code.toByte())
+        return String(line, tab + 1, line.size - tab - 2)
+    }
+
+    private fun ByteArray.indexOf(byte: Byte, from: Int): Int {
+        for (i in from until size) if (this[i] == byte) return i
+        return -1
+    }
+
+    private fun openChannel(): FileChannel =
+        channel ?: FileChannel.open(file.also { it.parent?.let(Files::createDirectories) }, CREATE, READ, WRITE)
+            .also { channel = it }
+}
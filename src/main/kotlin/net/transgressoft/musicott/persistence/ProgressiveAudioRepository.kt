@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.lirp.persistence.VolatileRepository
+import java.util.Optional
+import java.util.PriorityQueue
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Audio repository that exposes the tracks of a [backing] repository one page at a time, so the
+ * music library built on top of it starts with only the first page.
+ *
+ * Paging does not shorten the read of the backing repository itself: a SQLite one has already
+ * materialized every track by the time it is handed here, and only offers predicate search, so
+ * the first page is picked from all of them. What is deferred is handing the rest to the library,
+ * its catalogs and the views.
+ *
+ * At construction only the first [firstPageSize] tracks in [order] are picked and added to the
+ * [visible] repository, which is what every [Repository] operation is delegated to; the rest are not
+ * sorted nor kept aside. [streamRemaining] then sorts and adds them in batches of [batchSize],
+ * each batch as a single change, so the library, its catalogs and the views pick the tracks up as
+ * they arrive. Tracks not streamed yet are still found by [findById] through the backing
+ * repository, so references such as playlist contents resolve from the start.
+ *
+ * The backing repository owns persistence: it holds every track instance, the same ones handed to
+ * the visible repository, so edits are persisted as before. Adding, replacing or removing a track
+ * is applied to both repositories.
+ *
+ * Large imports run as a [BulkImport]: the tracks added until it [ends][BulkImport.end] are written to the backing repository in batches of [bulkWriteSize] but held back from
+ * the visible one, and then published to it in a single change. The library's observable
+ * projections get one notification instead of one per track. A long import can also
+ * [publish][BulkImport.publish] what it holds in the meantime, one change per batch. Held tracks
+ * are found by [findById] but not by [search].
+ */
+class ProgressiveAudioRepository @JvmOverloads constructor(
+    private val backing: Repository<Int, ObservableAudioItem>,
+    private val order: Comparator<ObservableAudioItem>,
+    firstPageSize: Int = DEFAULT_FIRST_PAGE_SIZE,
+    private val batchSize: Int = DEFAULT_BATCH_SIZE,
+    private val bulkWriteSize: Int = DEFAULT_BULK_WRITE_SIZE,
+    private val visible: Repository<Int, ObservableAudioItem> = VolatileRepository("AudioItems")
+) : Repository<Int, ObservableAudioItem> by visible {
+
+    private val logger = KotlinLogging.logger {}
+
+    private var totalItems: Int
+    private var loadedItems = 0
+    private var bulkImport: BulkImport? = null
+
+    /**
+     * Completes once every track of the backing repository is visible.
+     */
+    val fullyLoaded = CompletableFuture<Void?>()
+
+    companion object {
+        private const val DEFAULT_FIRST_PAGE_SIZE = 1_000
+        private const val DEFAULT_BATCH_SIZE = 2_000
+        private const val DEFAULT_BULK_WRITE_SIZE = 1_000
+    }
+
+    init {
+        val items = backing.search { true }
+        totalItems = items.size
+        firstPage(items, firstPageSize).forEach { visible.add(it) }
+        loadedItems = minOf(firstPageSize, totalItems)
+        if (loadedItems == totalItems) fullyLoaded.complete(null)
+        logger.debug { "Showing $loadedItems of $totalItems audio item(s), streaming the rest" }
+    }
+
+    /**
+     * Returns the first [size] of [items] in [order], keeping only that many in a bounded heap
+     * instead of sorting them all.
+     */
+    private fun firstPage(items: Collection<ObservableAudioItem>, size: Int): List<ObservableAudioItem> {
+        if (items.size <= size) return items.sortedWith(order)
+        val page = PriorityQueue(size + 1, order.reversed())
+        items.forEach { item ->
+            page.add(item)
+            if (page.size > size) page.poll()
+        }
+        return page.sortedWith(order)
+    }
+
+    @Synchronized
+    fun loadedCount(): Int = loadedItems
+
+    @Synchronized
+    fun totalCount(): Int = totalItems
+
+    fun isFullyLoaded(): Boolean = fullyLoaded.isDone
+
+    /**
+     * Adds the tracks not visible yet in batches of [batchSize], each one published in a single
+     * change, calling [onBatch] with the loaded and total counts after each one. Blocks until every
+     * track is visible; meant for a background thread.
+     */
+    fun streamRemaining(onBatch: (loaded: Int, total: Int) -> Unit) {
+        val remaining = backing.search { true }.filter { visible.findById(it.id).isEmpty }.sortedWith(order)
+        remaining.chunked(batchSize).forEach { batch ->
+            val (loaded, total) =
+                synchronized(this) {
+                    val pending = batch.filterTo(LinkedHashSet()) { isPending(it.id) }
+                    if (pending.isNotEmpty()) {
+                        visible.addOrReplaceAll(pending)
+                        loadedItems += pending.size
+                    }
+                    loadedItems to totalItems
+                }
+            onBatch(loaded, total)
+        }
+        fullyLoaded.complete(null)
+        logger.debug { "Streamed the remaining ${remaining.size} audio item(s)" }
+    }
+
+    /**
+     * Whether the track with the given [id] is in the backing repository but neither visible nor
+     * held back by a bulk import, that is, still to be streamed. Called with the lock held.
+     */
+    private fun isPending(id: Int): Boolean =
+        !fullyLoaded.isDone && bulkImport?.held?.containsKey(id) != true &&
+            visible.findById(id).isEmpty && backing.findById(id).isPresent
+
+    /**
+     * Starts holding back the tracks added from now on until the returned bulk import ends,
+     * calling [onAdded] with the number of tracks held so far after each one.
+     *
+     * @throws IllegalStateException if a bulk import is already running
+     */
+    @JvmOverloads
+    @Synchronized
+    fun beginBulkImport(onAdded: (held: Int) -> Unit = {}): BulkImport {
+        check(bulkImport == null) { "A bulk import is already running" }
+        return BulkImport(onAdded).also { bulkImport = it }
+    }
+
+    override fun findById(id: Int): Optional<ObservableAudioItem> =
+        visible.findById(id)
+            .or { Optional.ofNullable(synchronized(this) { bulkImport?.held?.get(id) }) }
+            .or { if (fullyLoaded.isDone) Optional.empty() else backing.findById(id) }
+
+    override fun add(entity: ObservableAudioItem): Boolean {
+        val bulk = synchronized(this) { bulkImport }
+        if (bulk != null) {
+            return bulk.hold(entity) ?: add(entity)
+        }
+        return visible.add(entity).also { added -> if (added) backing.add(entity) }
+    }
+
+    override fun addOrReplace(entity: ObservableAudioItem): Boolean {
+        val replacedHeld =
+            synchronized(this) {
+                val held = bulkImport?.held
+                if (held != null && held.containsKey(entity.id)) {
+                    held[entity.id] = entity
+                    true
+                } else {
+                    false
+                }
+            }
+        if (replacedHeld) {
+            return backing.addOrReplace(entity)
+        }
+        return visible.addOrReplace(entity).also { changed -> if (changed) backing.addOrReplace(entity) }
+    }
+
+    override fun remove(entity: ObservableAudioItem): Boolean {
+        val wasPendingOrHeld =
+            synchronized(this) {
+                // Removed from the backing repository under the lock, so a batch being streamed
+                // cannot publish it after it is gone
+                val wasPending = isPending(entity.id).also { if (it) totalItems-- }
+                val wasHeld = bulkImport?.release(entity) == true
+                if (wasPending || wasHeld) backing.remove(entity)
+                wasPending || wasHeld
+            }
+        if (wasPendingOrHeld) return true
+        return visible.remove(entity).also { removed -> if (removed) backing.remove(entity) }
+    }
+
+    override fun close() {
+        visible.close()
+        backing.close()
+    }
+
+    /**
+     * A running bulk import: the tracks held back from the visible repository, and those of them
+     * not written to the backing one yet. Guarded by the repository's lock.
+     */
+    inner class BulkImport internal constructor(private val onAdded: (held: Int) -> Unit) {
+
+        internal val held = LinkedHashMap<Int, ObservableAudioItem>()
+        private val unwritten = ArrayList<ObservableAudioItem>()
+
+        /**
+         * The time spent so far writing held tracks to the backing repository, in nanoseconds.
+         */
+        var writeNanos = 0L
+            private set
+
+        /**
+         * The time spent so far publishing held tracks to the visible repository, and through it to
+         * the library's observable projections, in nanoseconds.
+         */
+        var publishNanos = 0L
+            private set
+
+        /**
+         * Writes the held tracks not written yet to the backing repository and publishes every held
+         * track to the visible one in a single change. Returns the number of tracks published, or 0
+         * when this bulk import has already ended.
+         */
+        fun end(): Int {
+            val published =
+                synchronized(this@ProgressiveAudioRepository) {
+                    if (bulkImport !== this) return 0
+                    bulkImport = null
+                    publishHeld()
+                }
+            logger.debug { "Bulk import ended, publishing $published audio item(s)" }
+            return published
+        }
+
+        /**
+         * Publishes the tracks held so far like [end] does, but keeps holding back the ones added
+         * afterwards. Returns the number of tracks published, or 0 when this bulk import has ended.
+         */
+        fun publish(): Int =
+            synchronized(this@ProgressiveAudioRepository) {
+                if (bulkImport !== this) 0 else publishHeld()
+            }
+
+        private fun publishHeld(): Int {
+            writeUnwritten()
+            val published = held.size
+            if (published > 0) {
+                val start = System.nanoTime()
+                visible.addOrReplaceAll(held.values.toSet())
+                publishNanos += System.nanoTime() - start
+                held.clear()
+            }
+            return published
+        }
+
+        /**
+         * Holds [entity] back, writing a batch to the backing repository once [bulkWriteSize] tracks
+         * are unwritten. Returns whether it was added, or `null` when this bulk import has ended in
+         * the meantime and the track must be added normally.
+         */
+        internal fun hold(entity: ObservableAudioItem): Boolean? {
+            val heldCount =
+                synchronized(this@ProgressiveAudioRepository) {
+                    if (bulkImport !== this) return null
+                    if (held.containsKey(entity.id) || visible.findById(entity.id).isPresent || isPending(entity.id)) {
+                        return false
+                    }
+                    held[entity.id] = entity
+                    unwritten.add(entity)
+                    if (unwritten.size >= bulkWriteSize) writeUnwritten()
+                    held.size
+                }
+            onAdded(heldCount)
+            return true
+        }
+
+        internal fun release(entity: ObservableAudioItem): Boolean {
+            unwritten.remove(entity)
+            return held.remove(entity.id) != null
+        }
+
+        private fun writeUnwritten() {
+            if (unwritten.isEmpty()) return
+            val start = System.nanoTime()
+            backing.addOrReplaceAll(unwritten.toSet())
+            writeNanos += System.nanoTime() - start
+            unwritten.clear()
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+import mu.KotlinLogging
+import java.io.BufferedInputStream
+import java.io.EOFException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.MappedByteBuffer
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption.CREATE
+import java.nio.file.StandardOpenOption.READ
+import java.nio.file.StandardOpenOption.TRUNCATE_EXISTING
+import java.nio.file.StandardOpenOption.WRITE
+
+/**
+ * Append-only binary file of byte payloads keyed by an `Int` id, read through a memory mapping.
+ *
+ * The file is a short header followed by records of `[varint id][varint length][payload]`. Every
+ * write appends a record, so persisting one entry never rewrites the others; a record with a zero
+ * length is a tombstone for its id. The last record for an id wins.
+ *
+ * Nothing is read until the first access (or [preload]), which scans the record headers once (skipping the
+ * payloads) to build an in-memory index of payload offsets. That scan also drops a record left
+ * incomplete or garbled by a crash, truncating the file there (the whole file when even the
+ * header is cut short or unreadable), and compacts the file when superseded records take up more than half of
+ * it — before anything is mapped, as a mapped file cannot be replaced on every platform.
+ * Payloads are then read with a single copy out of a read-only [MappedByteBuffer], remapped when
+ * appends grow the file past the mapped region. Files up to 2 GiB are supported.
+ *
+ * All public methods are synchronized; the store is shared by the FX thread and waveform workers.
+ */
+class WaveformBinaryStore(private val file: Path) : AutoCloseable {
+
+    private val logger = KotlinLogging.logger {}
+
+    private var channel: FileChannel? = null
+    private var mapping: MappedByteBuffer? = null
+    private var index: MutableMap<Int, Entry>? = null
+    private var fileSize = 0L
+    private var supersededBytes = 0L
+
+    private data class Entry(val payloadOffset: Long, val length: Int, val recordSize: Int)
+
+    companion object {
+        private val MAGIC = byteArrayOf('M'.code.toByte(), 'W'.code.toByte(), 'F'.code.toByte())
+        private const val VERSION: Byte = 1
+        private const val HEADER_SIZE = 4L
+        private const val COMPACTION_RATIO = 0.5
+        private const val MIN_COMPACTION_BYTES = 64 * 1024L
+        private const val PROGRESS_STEP_BYTES = 1024 * 1024L
+    }
+
+    /**
+     * Scans the record headers now instead of on first access, reporting the bytes scanned so far
+     * and the file size to [onProgress] about every mebibyte.
+     */
+    @Synchronized
+    fun preload(onProgress: (scanned: Long, total: Long) -> Unit) {
+        index(onProgress)
+    }
+
+    @Synchronized
+    fun get(id: Int): ByteArray? {
+        val entry = index()[id] ?: return null
+        val buffer = mapped(entry.payloadOffset + entry.length)
+        val payload = ByteArray(entry.length)
+        buffer.get(entry.payloadOffset.toInt(), payload)
+        return payload
+    }
+
+    @Synchronized
+    fun contains(id: Int): Boolean = index().containsKey(id)
+
+    @Synchronized
+    fun ids(): Set<Int> = index().keys.toSet()
+
+    @Synchronized
+    fun size(): Int = index().size
+
+    /**
+     * Appends [payload] as the current value of [id], superseding any earlier one.
+     */
+    @Synchronized
+    fun put(id: Int, payload: ByteArray) {
+        require(payload.isNotEmpty()) { "Empty payloads are reserved for tombstones" }
+        val entries = index()
+        val entry = append(id, payload)
+        entries.put(id, entry)?.let { supersededBytes += it.recordSize }
+    }
+
+    @Synchronized
+    fun remove(id: Int) {
+        val entries = index()
+        val removed = entries.remove(id) ?: return
+        val tombstone = append(id, ByteArray(0))
+        supersededBytes += removed.recordSize + tombstone.recordSize
+    }
+
+    @Synchronized
+    override fun close() {
+        channel?.let {
+            it.force(false)
+            it.close()
+        }
+        channel = null
+        mapping = null
+    }
+
+    private fun append(id: Int, payload: ByteArray): Entry {
+        val header = ByteBuffer.allocate(2 * VarInts.MAX_BYTES)
+        VarInts.write(id, header)
+        VarInts.write(payload.size, header)
+        header.flip()
+        val headerSize = header.remaining()
+        val recordOffset = fileSize
+        val channel = openChannel()
+        var position = recordOffset
+        val record = arrayOf(header, ByteBuffer.wrap(payload))
+        while (record.any { it.hasRemaining() }) {
+            position += channel.position(position).write(record)
+        }
+        fileSize = position
+        return Entry(recordOffset + headerSize, payload.size, headerSize + payload.size)
+    }
+
+    private fun index(onProgress: (scanned: Long, total: Long) -> Unit = { _, _ -> }): MutableMap<Int, Entry> =
+        index ?: loadIndex(onProgress).also {
+            index = it
+            if (supersededBytes >= MIN_COMPACTION_BYTES && supersededBytes > fileSize * COMPACTION_RATIO) {
+                compact(it)
+            }
+        }
+
+    private fun loadIndex(onProgress: (scanned: Long, total: Long) -> Unit): MutableMap<Int, Entry> {
+        val channel = openChannel()
+        val entries = HashMap<Int, Entry>()
+        fileSize = channel.size()
+        if (fileSize == 0L) {
+            writeHeader(channel)
+            return entries
+        }
+        if (!hasValidHeader(channel)) {
+            logger.warn { "Discarding $file, its header is incomplete or not of version $VERSION" }
+            channel.truncate(0)
+            fileSize = 0
+            writeHeader(channel)
+            return entries
+        }
+
+        var offset = HEADER_SIZE
+        var reportedOffset = offset
+        // Not closed: the stream is only a view of the channel, which closing it would close too
+        val input = BufferedInputStream(Channels.newInputStream(channel.position(HEADER_SIZE)), 64 * 1024)
+        while (offset < fileSize) {
+            val recordOffset = offset
+            try {
+                val id = VarInts.read(input)
+                val length = VarInts.read(input)
+                val headerSize = VarInts.size(id) + VarInts.size(length)
+                if (recordOffset + headerSize + length > fileSize) throw TornRecordException()
+                input.skipNBytes(length.toLong())
+                offset = recordOffset + headerSize + length
+                val previous =
+                    if (length == 0) {
+                        supersededBytes += headerSize
+                        entries.remove(id)
+                    } else {
+                        entries.put(id, Entry(recordOffset + headerSize, length, headerSize + length))
+                    }
+                previous?.let { supersededBytes += it.recordSize }
+                if (offset - reportedOffset >= PROGRESS_STEP_BYTES) {
+                    onProgress(offset, fileSize)
+                    reportedOffset = offset
+                }
+            } catch (_: TornRecordException) {
+                logger.warn { "Discarding incomplete waveform record at offset $recordOffset of $file" }
+                channel.truncate(recordOffset)
+                fileSize = recordOffset
+                break
+            }
+        }
+        onProgress(fileSize, fileSize)
+        return entries
+    }
+
+    private fun compact(entries: MutableMap<Int, Entry>) {
+        val compactedFile = file.resolveSibling("${file.fileName}.compacting")
+        val source = openChannel()
+        FileChannel.open(compactedFile, CREATE, WRITE, TRUNCATE_EXISTING).use { target ->
+            writeHeader(target)
+            target.position(HEADER_SIZE)
+            var position = HEADER_SIZE
+            val compacted = HashMap<Int, Entry>(entries.size)
+            entries.toSortedMap().forEach { (id, entry) ->
+                val headerSize = entry.recordSize - entry.length
+                val recordOffset = entry.payloadOffset - headerSize
+                var transferred = 0L
+                while (transferred < entry.recordSize) {
+                    transferred += source.transferTo(recordOffset + transferred, entry.recordSize - transferred, target)
+                }
+                compacted[id] = Entry(position + headerSize, entry.length, entry.recordSize)
+                position += entry.recordSize
+            }
+            target.force(false)
+            entries.clear()
+            entries.putAll(compacted)
+            fileSize = position
+        }
+        source.close()
+        channel = null
+        Files.move(compactedFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        logger.info { "Compacted $file, reclaiming $supersededBytes bytes" }
+        supersededBytes = 0
+    }
+
+    private fun mapped(requiredSize: Long): MappedByteBuffer {
+        val current = mapping
+        if (current != null && current.capacity() >= requiredSize) return current
+        return openChannel().map(FileChannel.MapMode.READ_ONLY, 0, fileSize).also { mapping = it }
+    }
+
+    private fun openChannel(): FileChannel =
+        channel ?: FileChannel.open(file.also { it.parent?.let(Files::createDirectories) }, CREATE, READ, WRITE)
+            .also { channel = it }
+
+    private fun writeHeader(channel: FileChannel) {
+        val header = ByteBuffer.allocate(HEADER_SIZE.toInt()).put(MAGIC).put(VERSION).flip()
+        while (header.hasRemaining()) channel.write(header, header.position().toLong())
+        fileSize = maxOf(fileSize, HEADER_SIZE)
+    }
+
+    private fun hasValidHeader(channel: FileChannel): Boolean {
+        val header = ByteBuffer.allocate(HEADER_SIZE.toInt())
+        channel.read(header, 0)
+        return fileSize >= HEADER_SIZE && header.array().copyOf(MAGIC.size).contentEquals(MAGIC) && header.get(3) == VERSION
+    }
+}
+
+/**
+ * A record cut short or garbled by a crash while it was being appended.
+ */
+internal class TornRecordException(message: String = "Incomplete record") : EOFException(message)
+
+/**
+ * Unsigned LEB128 encoding of non-negative ints: seven bits per byte, high bit set on all but the last.
+ */
+internal object VarInts {
+
+    const val MAX_BYTES = 5
+
+    fun write(value: Int, buffer: ByteBuffer) {
+        require(value >= 0) { "Negative values are not supported: $value" }
+        var remaining = value
+        while (remaining >= 0x80) {
+            buffer.put(((remaining and 0x7F) or 0x80).toByte())
+            remaining = remaining ushr 7
+        }
+        buffer.put(remaining.toByte())
+    }
+
+    /**
+     * Reads a varint from [input].
+     *
+     * @throws TornRecordException if the input ends in the middle of it, or it does not encode a
+     *         non-negative int
+     */
+    fun read(input: InputStream): Int {
+        var value = 0
+        var shift = 0
+        while (shift < 7 * MAX_BYTES) {
+            val byte = input.read()
+            if (byte < 0) throw TornRecordException()
+            value = value or ((byte and 0x7F) shl shift)
+            if (byte and 0x80 == 0) {
+                if (value < 0) throw TornRecordException("Malformed varint")
+                return value
+            }
+            shift += 7
+        }
+        throw TornRecordException("Malformed varint")
+    }
+
+    fun size(value: Int): Int {
+        var size = 1
+        var remaining = value ushr 7
+        while (remaining != 0) {
+            size++
+            remaining = remaining ushr 7
+        }
+        return size
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.persistence
+
+/**
+ * Normalized waveform peaks by track id, persisted in a [WaveformBinaryStore].
+ *
+ * Each record holds one unsigned byte per peak, the peak in `[0, 1]` scaled to 255: a few
+ * kilobytes per track, read back with a single copy out of the store's mapping. A byte resolves
+ * more levels than any waveform pane is pixels tall.
+ *
+ * Thread-safe, as the store is.
+ */
+class WaveformPeakStore(private val store: WaveformBinaryStore) : AutoCloseable {
+
+    companion object {
+        private const val LEVELS = 255f
+    }
+
+    fun get(trackId: Int): FloatArray? {
+        val payload = store.get(trackId) ?: return null
+        return FloatArray(payload.size) { (payload[it].toInt() and 0xFF) / LEVELS }
+    }
+
+    fun contains(trackId: Int): Boolean = store.contains(trackId)
+
+    /**
+     * Stores [peaks], each expected in `[0, 1]`, as the peaks of [trackId].
+     */
+    fun put(trackId: Int, peaks: FloatArray) {
+        store.put(trackId, ByteArray(peaks.size) { (peaks[it].coerceIn(0f, 1f) * LEVELS + 0.5f).toInt().toByte() })
+    }
+
+    fun remove(trackId: Int) = store.remove(trackId)
+
+    override fun close() = store.close()
+}
@@ -11,9 +11,11 @@ import kotlinx.coroutines.javafx.JavaFx
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 import mu.KotlinLogging
+import net.transgressoft.musicott.events.LibraryLoadingEvent
 import net.transgressoft.musicott.events.StatusMessageUpdateEvent
 import net.transgressoft.musicott.view.NavigationController.NavigationMode
 import org.springframework.context.ApplicationEventPublisher
+import org.springframework.context.event.EventListener
 import org.springframework.stereotype.Service
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.atomic.AtomicLong
@@ -44,6 +46,10 @@ import kotlin.coroutines.CoroutineContext
  * Views register themselves by calling [register] from their FXML `initialize()` method.
  * No view controller is constructor-injected, avoiding circular Spring dependencies.
  *
+ * While the library is still streaming in after a progressive boot, the status message says so,
+ * and the latest non-blank query is run again once a [LibraryLoadingEvent] reports the library
+ * complete, so its results cover the tracks that arrived after it ran.
+ *
  * The internal [CoroutineScope] is backed by a [SupervisorJob] so that a cancelled or failing
  * child job does not cascade to cancel sibling searches. The scope is cancelled on Spring
  * context shutdown via [@PreDestroy][PreDestroy].
@@ -69,6 +75,8 @@ class SearchCoordinator(
     private val scope = CoroutineScope(job + dispatcher)
 
     @Volatile private var currentJob: Job? = null
+    @Volatile private var lastQuery = ""
+    @Volatile private var libraryLoading = false
     private val generation = AtomicLong(0)
 
     private val searchables = ConcurrentHashMap<NavigationMode, Searchable<*>>()
@@ -106,6 +114,7 @@ class SearchCoordinator(
         currentJob?.cancel()
         val gen = generation.incrementAndGet()
         val trimmed = query.trim()
+        lastQuery = trimmed
 
         currentJob =
             scope.launch {
@@ -116,7 +125,8 @@ class SearchCoordinator(
 
                 delay(debounceMillis)
 
-                applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Searching...", this@SearchCoordinator))
+                val status = if (libraryLoading) "Searching (library still loading)..." else "Searching..."
+                applicationEventPublisher.publishEvent(StatusMessageUpdateEvent(status, this@SearchCoordinator))
 
                 val lowerQuery = trimmed.lowercase()
 
@@ -144,6 +154,15 @@ class SearchCoordinator(
             }
     }
 
+    @EventListener
+    fun libraryLoadingEventListener(event: LibraryLoadingEvent) {
+        libraryLoading = !event.isComplete
+        if (event.isComplete && lastQuery.isNotBlank()) {
+            logger.debug { "Library loaded, running query '$lastQuery' again" }
+            onQuery(lastQuery)
+        }
+    }
+
     /**
      * Resets every registered view to show all items. Runs on the FX thread and is generation-guarded
      * so a newer query issued while this reset was queued wins.
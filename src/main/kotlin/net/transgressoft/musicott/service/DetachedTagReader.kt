@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.music.audio.AudioMetadataIO
+
+/**
+ * Reads the tags of library tracks again without touching the tracks off the JavaFX Application
+ * Thread, which the views bound to their properties rely on.
+ *
+ * The file is [read] into a detached clone of the track on the calling thread, so the disk is not
+ * hit on the FX thread; the tags are then [applied][apply] to the track itself on the FX thread,
+ * in a single [mutate][ObservableAudioItem.mutate] so the library projections re-key once.
+ */
+internal class DetachedTagReader(private val audioMetadataIO: AudioMetadataIO) {
+
+    /**
+     * Returns a clone of [audioItem] holding the tags read from its file. Blocks on the file.
+     */
+    fun read(audioItem: ObservableAudioItem): ObservableAudioItem = audioItem.clone().also(audioMetadataIO::readMetadata)
+
+    /**
+     * Copies the tags of [read], as returned by [read], onto [audioItem]. Call on the JavaFX
+     * Application Thread.
+     */
+    fun apply(audioItem: ObservableAudioItem, read: ObservableAudioItem) {
+        audioItem.mutate {
+            title = read.title
+            artist = read.artist
+            album = read.album
+            genres = read.genres
+            comments = read.comments
+            trackNumber = read.trackNumber
+            discNumber = read.discNumber
+            bpm = read.bpm
+            coverImageBytes = read.coverImageBytes
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import mu.KotlinLogging
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Limits how many files are read at once from each [StorageDevice], and tunes each limit from the
+ * throughput it observes.
+ *
+ * A device starts at the initial limit of its [kind][StorageDevice.Kind]. Reads beyond the limit
+ * suspend until one on the same device completes; reads on other devices are not held up. Every
+ * [windowNanos] the completed reads of a device are turned into a throughput and the limit climbs
+ * one step in its current direction (up at first) as long as the throughput keeps improving by
+ * [IMPROVEMENT]. When it drops by as much, the direction reverses; in between, the limit stays.
+ * Windows in which the device never had a read waiting are not used for tuning, since their
+ * throughput is bounded by the caller, not the device. Limits are remembered for the lifetime of
+ * the limiter, so a later import starts where the previous one left off.
+ *
+ * On top of the tuned limits, [ceiling] caps the reads of every device, e.g. to leave the CPU and
+ * the disk to playback. Reads held back only by the ceiling do not mark a window as saturated.
+ *
+ * @param deviceOf resolves the device of a file; called once per directory
+ * @param nanoTime the clock the windows are measured with; injectable for testing
+ * @param windowNanos how long each throughput window lasts
+ * @param ceiling the most reads at once on any device, whatever its limit; read on every read
+ */
+internal class DeviceConcurrencyLimiter(
+    private val deviceOf: (Path) -> StorageDevice = StorageDevice::of,
+    private val nanoTime: () -> Long = System::nanoTime,
+    private val windowNanos: Long = DEFAULT_WINDOW_NANOS,
+    private val ceiling: () -> Int = { Int.MAX_VALUE }
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val devicesByDirectory = ConcurrentHashMap<Path, StorageDevice>()
+    private val limits = ConcurrentHashMap<StorageDevice, DeviceLimit>()
+
+    companion object {
+        private val DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(2)
+        private const val IMPROVEMENT = 0.05
+    }
+
+    /**
+     * Runs [read] once the device of [file] has room for another read, and returns its result.
+     */
+    suspend fun <T> withPermit(
+        file: Path,
+        read: () -> T
+    ): T {
+        val device = devicesByDirectory.computeIfAbsent(file.parent ?: file) { deviceOf(file) }
+        val limit = limits.computeIfAbsent(device, ::DeviceLimit)
+        limit.acquire()
+        try {
+            return read()
+        } finally {
+            limit.release()
+        }
+    }
+
+    /**
+     * Returns the current read limit of [device].
+     */
+    fun limitOf(device: StorageDevice): Int = limits[device]?.current() ?: device.kind.initialLimit
+
+    /**
+     * The read limit of one device and the state its tuning works from. Guarded by its own lock.
+     */
+    private inner class DeviceLimit(private val device: StorageDevice) {
+
+        private var limit = device.kind.initialLimit
+        private var inFlight = 0
+        private val waiting = ArrayDeque<CompletableDeferred<Unit>>()
+
+        private var windowStart = nanoTime()
+        private var completedInWindow = 0
+        private var saturatedInWindow = false
+        private var previousThroughput = 0.0
+        private var direction = 1
+
+        @Synchronized
+        fun current(): Int = limit
+
+        suspend fun acquire() {
+            val permit =
+                synchronized(this) {
+                    if (inFlight < permits()) {
+                        inFlight++
+                        return
+                    }
+                    if (inFlight >= limit) saturatedInWindow = true
+                    CompletableDeferred<Unit>().also(waiting::addLast)
+                }
+            try {
+                permit.await()
+            } catch (exception: CancellationException) {
+                synchronized(this) {
+                    // Granted in the meantime: hand the permit on instead of leaking it
+                    if (!waiting.remove(permit)) {
+                        inFlight--
+                        grantWaiting()
+                    }
+                }
+                throw exception
+            }
+        }
+
+        @Synchronized
+        fun release() {
+            inFlight--
+            completedInWindow++
+            val now = nanoTime()
+            if (now - windowStart >= windowNanos) {
+                tune(completedInWindow * 1e9 / (now - windowStart))
+                windowStart = now
+                completedInWindow = 0
+                saturatedInWindow = false
+            }
+            grantWaiting()
+        }
+
+        private fun tune(throughput: Double) {
+            if (!saturatedInWindow) return
+            if (previousThroughput > 0) {
+                when {
+                    throughput >= previousThroughput * (1 + IMPROVEMENT) -> Unit
+                    throughput <= previousThroughput * (1 - IMPROVEMENT) -> direction = -direction
+                    else -> {
+                        previousThroughput = throughput
+                        return
+                    }
+                }
+            }
+            previousThroughput = throughput
+            val step = maxOf(1, limit / 4)
+            val tuned = (limit + direction * step).coerceIn(1, device.kind.maxLimit)
+            if (tuned != limit) {
+                logger.debug { "Read limit of $device: $limit -> $tuned at ${"%.1f".format(throughput)} files/s" }
+                limit = tuned
+            }
+        }
+
+        private fun permits(): Int = minOf(limit, ceiling().coerceAtLeast(1))
+
+        private fun grantWaiting() {
+            while (inFlight < permits() && waiting.isNotEmpty()) {
+                inFlight++
+                waiting.removeFirst().complete(Unit)
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ChannelResult
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.channels.consume
+import kotlinx.coroutines.channels.trySendBlocking
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runInterruptible
+import kotlinx.coroutines.selects.onTimeout
+import kotlinx.coroutines.selects.select
+import kotlinx.coroutines.sync.Semaphore
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import java.io.IOException
+import java.nio.file.FileVisitResult
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.io.path.extension
+import kotlin.time.TimeSource
+
+/**
+ * Imports the audio files under a directory, or a given list of files, as a stream, in three
+ * stages connected by bounded channels:
+ *
+ * 1. **walk**: one coroutine walks the tree and sends every file with an accepted extension that
+ *    is not to be [skipped][skipFile], or just sends the files of the list;
+ * 2. **read**: every path is [read][readFile] into a library track on a virtual thread of its own,
+ *    as soon as the [limiter] lets another read through on the file's storage device;
+ * 3. **insert**: one coroutine counts the tracks read and [inserts][insertBatch] them every
+ *    [insertBatchSize] tracks, or sooner when [insertIntervalMillis] have passed since the last
+ *    batch, so the first tracks show up early even on slow storage.
+ *
+ * When a stage falls behind, the channel in front of it fills up and the stages before it suspend,
+ * so the memory an import uses does not depend on the size of the tree: the full path list is
+ * never built, at most [QUEUE_CAPACITY] paths and tracks wait between stages and at most
+ * [maxReadsInFlight] files are being read or waiting for their device. The total number
+ * of files is only known once the walk is over; [onProgress] reports the tracks inserted against
+ * the files found so far after every batch.
+ *
+ * A file whose tags cannot be read is logged and skipped. Cancelling the coroutine running [run]
+ * stops every stage; the tracks read until then are inserted or not depending on [insertBatch].
+ *
+ * @param acceptedExtensions the lower-case extensions of the files to import
+ * @param readFile reads one file into a library track; called concurrently on virtual threads
+ * @param insertBatch inserts the tracks read since its previous call
+ * @param onProgress called after every batch with the tracks inserted, the accepted files found
+ *        so far, and whether the walk is over, i.e. whether that count is the total
+ * @param skipFile whether a file the walk found can be left out, judging by its attributes alone,
+ *        e.g. because it is in the library unchanged; skipped files do not count as found
+ * @param limiter how many files may be read at once from each storage device
+ * @param maxReadsInFlight the most files read or waiting to be read at once, across devices
+ * @param insertBatchSize how many tracks make a batch; asked after every track, so it can change
+ *        while the import runs
+ * @param profiler records how long the walk takes, if given; the time it waits for the reads to
+ *        catch up is included
+ * @param dispatcher the dispatcher the walk blocks on; injectable for testing
+ */
+internal class DirectoryImportPipeline(
+    private val acceptedExtensions: Set<String>,
+    private val readFile: (Path) -> ObservableAudioItem,
+    private val insertBatch: () -> Unit,
+    private val onProgress: (inserted: Int, found: Int, walkComplete: Boolean) -> Unit,
+    private val skipFile: (Path, BasicFileAttributes) -> Boolean = { _, _ -> false },
+    private val limiter: DeviceConcurrencyLimiter = DeviceConcurrencyLimiter(),
+    private val maxReadsInFlight: Int = DEFAULT_MAX_READS_IN_FLIGHT,
+    private val insertBatchSize: () -> Int = { DEFAULT_INSERT_BATCH_SIZE },
+    private val insertIntervalMillis: Long = DEFAULT_INSERT_INTERVAL_MILLIS,
+    private val profiler: ImportProfiler? = null,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+    private val logger = KotlinLogging.logger {}
+
+    companion object {
+        const val QUEUE_CAPACITY = 256
+        private const val DEFAULT_INSERT_BATCH_SIZE = 500
+        private const val DEFAULT_INSERT_INTERVAL_MILLIS = 1_000L
+        private const val DEFAULT_MAX_READS_IN_FLIGHT = 256
+    }
+
+    /**
+     * Imports the accepted files under [directory] and returns how many tracks were read. Suspends
+     * until every stage is done.
+     *
+     * @throws IOException if the walk fails for a reason other than an unreadable entry
+     */
+    suspend fun run(directory: Path): Int =
+        stream { paths, found ->
+            val walkStart = System.nanoTime()
+            val skipped = walk(directory, paths, found)
+            profiler?.add(ImportProfiler.Stage.WALK, System.nanoTime() - walkStart)
+            logger.debug { "Directory walk found ${found.get()} accepted audio file(s) to read, skipped $skipped" }
+        }
+
+    /**
+     * Imports the given [files] through the read and insert stages, without walking, and returns
+     * how many tracks were read. The files are not filtered by extension.
+     */
+    suspend fun run(files: List<Path>): Int =
+        stream { paths, found ->
+            for (file in files) {
+                found.incrementAndGet()
+                paths.send(file)
+            }
+        }
+
+    private suspend fun stream(produce: suspend (SendChannel<Path>, AtomicInteger) -> Unit): Int =
+        coroutineScope {
+            val paths = Channel<Path>(QUEUE_CAPACITY)
+            val tracks = Channel<ObservableAudioItem>(QUEUE_CAPACITY)
+            val found = AtomicInteger()
+            val walkComplete = AtomicBoolean()
+
+            launch(dispatcher) {
+                try {
+                    produce(paths, found)
+                    walkComplete.set(true)
+                } finally {
+                    paths.close()
+                }
+            }
+            launch {
+                try {
+                    read(paths, tracks)
+                } finally {
+                    tracks.close()
+                }
+            }
+
+            insert(tracks, found, walkComplete)
+        }
+
+    // Returns how many accepted files were skipped
+    private suspend fun walk(
+        directory: Path,
+        paths: SendChannel<Path>,
+        found: AtomicInteger
+    ): Int {
+        val context = currentCoroutineContext()
+        var skipped = 0
+        // The visitor is blocking; sending from it parks the walking thread while the readers are behind
+        runInterruptible {
+            Files.walkFileTree(
+                directory,
+                object : SimpleFileVisitor<Path>() {
+                    override fun visitFile(file: Path, attributes: BasicFileAttributes): FileVisitResult {
+                        context.ensureActive()
+                        if (attributes.isRegularFile && file.extension.lowercase() in acceptedExtensions) {
+                            if (skipFile(file, attributes)) {
+                                skipped++
+                            } else {
+                                found.incrementAndGet()
+                                paths.trySendBlocking(file)
+                            }
+                        }
+                        return FileVisitResult.CONTINUE
+                    }
+
+                    override fun visitFileFailed(file: Path, exception: IOException): FileVisitResult {
+                        logger.warn { "Skipping unreadable entry $file: ${exception.message}" }
+                        return FileVisitResult.CONTINUE
+                    }
+                }
+            )
+        }
+        return skipped
+    }
+
+    private suspend fun read(
+        paths: ReceiveChannel<Path>,
+        tracks: SendChannel<ObservableAudioItem>
+    ) {
+        val readsInFlight = Semaphore(maxReadsInFlight)
+        // Tag reading blocks on file I/O, so each read gets a cheap thread of its own and the
+        // limiter, not a pool size, decides how many of them hit a device at once
+        Executors.newVirtualThreadPerTaskExecutor().asCoroutineDispatcher().use { virtualThreads ->
+            coroutineScope {
+                for (path in paths) {
+                    readsInFlight.acquire()
+                    launch(virtualThreads) {
+                        try {
+                            readTrack(path)?.let { tracks.send(it) }
+                        } finally {
+                            readsInFlight.release()
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private suspend fun readTrack(path: Path): ObservableAudioItem? =
+        try {
+            limiter.withPermit(path) { readFile(path) }
+        } catch (exception: CancellationException) {
+            throw exception
+        } catch (exception: Exception) {
+            logger.warn(exception) { "Could not import $path: ${exception.message}" }
+            null
+        }
+
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private suspend fun insert(
+        tracks: ReceiveChannel<ObservableAudioItem>,
+        found: AtomicInteger,
+        walkComplete: AtomicBoolean
+    ): Int {
+        var inserted = 0
+        var unbatched = 0
+        var lastBatch = TimeSource.Monotonic.markNow()
+
+        fun insertUnbatched() {
+            insertBatch()
+            inserted += unbatched
+            unbatched = 0
+            lastBatch = TimeSource.Monotonic.markNow()
+            onProgress(inserted, found.get(), walkComplete.get())
+        }
+
+        tracks.consume {
+            while (true) {
+                // While tracks wait for their batch, stop waiting for the next one when the interval is up
+                val received =
+                    select<ChannelResult<ObservableAudioItem>?> {
+                        tracks.onReceiveCatching { it }
+                        if (unbatched > 0) {
+                            onTimeout((insertIntervalMillis - lastBatch.elapsedNow().inWholeMilliseconds).coerceAtLeast(0)) { null }
+                        }
+                    }
+                when {
+                    received == null -> insertUnbatched()
+                    received.isClosed -> break
+                    else -> {
+                        unbatched++
+                        if (unbatched >= insertBatchSize()) {
+                            insertUnbatched()
+                        }
+                    }
+                }
+            }
+        }
+        insertUnbatched()
+        return inserted
+    }
+}
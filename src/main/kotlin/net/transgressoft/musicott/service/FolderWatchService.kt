@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import jakarta.annotation.PreDestroy
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.javafx.JavaFx
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runInterruptible
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.commons.music.audio.AudioFileType
+import net.transgressoft.commons.music.audio.AudioMetadataIO
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.musicott.MusicottApplication
+import net.transgressoft.musicott.events.AudioItemsMissingEvent
+import net.transgressoft.musicott.events.ExceptionEvent
+import net.transgressoft.musicott.events.LibraryLoadingEvent
+import net.transgressoft.musicott.events.StageReadyEvent
+import net.transgressoft.musicott.events.StatusMessageUpdateEvent
+import net.transgressoft.musicott.events.StopWatchingFoldersEvent
+import net.transgressoft.musicott.events.WatchFolderEvent
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.context.event.EventListener
+import org.springframework.stereotype.Service
+import java.io.IOException
+import java.nio.file.ClosedWatchServiceException
+import java.nio.file.FileSystems
+import java.nio.file.FileVisitResult
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.StandardWatchEventKinds.ENTRY_CREATE
+import java.nio.file.StandardWatchEventKinds.ENTRY_DELETE
+import java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY
+import java.nio.file.StandardWatchEventKinds.OVERFLOW
+import java.nio.file.WatchKey
+import java.nio.file.WatchService
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.CoroutineContext
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.TimeSource
+
+/**
+ * Keeps the library in sync with the folders the user chose to watch, so files added, retagged
+ * or removed there are picked up without importing the folder again.
+ *
+ * Watching is opt-in: a folder is added with a [WatchFolderEvent] and every folder is dropped
+ * with a [StopWatchingFoldersEvent]; the list is kept in a file next to the library database.
+ * Each watched tree is registered with a [WatchService], one directory at a time since watches
+ * are not recursive. The events of a burst, such as an album being copied, are coalesced until
+ * the folders have been quiet for [debounceMillis] and then handed to a [LibraryFolderSync] in one
+ * go, so only the changed files are read. Because a watch can lose events (on overflow, on file
+ * systems without notifications, or while the application is closed), every folder is also
+ * reconciled in full when watching starts and every [reconcileIntervalMillis] after that; a
+ * reconciliation only stats the files, and reads the ones the [FileFingerprintStore] shared with
+ * the imports no longer finds unchanged.
+ *
+ * New files are created in the library, changed files have their tags read again and their
+ * waveform peaks discarded, and tracks whose files vanished are announced with an [AudioItemsMissingEvent] and stay in the library,
+ * shown as not on disk. Syncing waits while the library is still streaming in after a
+ * progressive boot, and while [MediaImportService] is importing.
+ *
+ * @param dispatcher the dispatcher the watch and the syncs block on; injectable for testing
+ * @param fxDispatcher the context the library is read from and the tags read again are applied on
+ */
+@Service
+class FolderWatchService(
+    private val audioLibrary: ObservableAudioLibrary,
+    private val audioItemRepository: Repository<Int, ObservableAudioItem>,
+    audioMetadataIO: AudioMetadataIO,
+    private val mediaImportService: MediaImportService,
+    private val applicationEventPublisher: ApplicationEventPublisher,
+    private val fileFingerprints: FileFingerprintStore,
+    private val waveformPeakService: WaveformPeakService,
+    applicationPaths: MusicottApplication.ApplicationPaths,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val fxDispatcher: CoroutineContext = Dispatchers.JavaFx,
+    private val debounceMillis: Long = DEBOUNCE_MILLIS,
+    private val reconcileIntervalMillis: Long = RECONCILE_INTERVAL_MILLIS
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val job = SupervisorJob()
+    private val scope = CoroutineScope(job + dispatcher)
+
+    private val foldersFile = applicationPaths.audioItemsDatabasePath.resolveSibling(WATCHED_FOLDERS_FILE_NAME)
+    private val folders = CopyOnWriteArrayList(readFolders())
+    private val watchedDirectories = ConcurrentHashMap<WatchKey, Path>()
+    private val syncLock = Mutex()
+
+    private val tagReader = DetachedTagReader(audioMetadataIO)
+
+    private val folderSync =
+        LibraryFolderSync(
+            ACCEPTED_EXTENSIONS,
+            fileFingerprints,
+            importFile = { path -> audioLibrary.createFromFile(path) },
+            refreshItem = { item ->
+                waveformPeakService.invalidate(item.id)
+                val read = tagReader.read(item)
+                scope.launch(fxDispatcher) { tagReader.apply(item, read) }
+            },
+            onMissing = { items -> applicationEventPublisher.publishEvent(AudioItemsMissingEvent(items, this)) }
+        )
+
+    @Volatile private var stageReady = false
+    @Volatile private var watchService: WatchService? = null
+    private var watching: Job? = null
+
+    companion object {
+        private const val WATCHED_FOLDERS_FILE_NAME = "watched-folders.txt"
+        private const val DEBOUNCE_MILLIS = 1_000L
+        private const val MAX_DEBOUNCE_MILLIS = 10_000L
+        private const val IMPORT_PAUSE_POLL_MILLIS = 1_000L
+        private val RECONCILE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(30)
+
+        private val ACCEPTED_EXTENSIONS = AudioFileType.values().map(AudioFileType::extension).toSet()
+    }
+
+    fun watchedFolders(): List<Path> = folders.toList()
+
+    @EventListener(StageReadyEvent::class)
+    fun stageReadyEventListener() {
+        stageReady = true
+        val repository = audioItemRepository as? ProgressiveAudioRepository
+        if (repository == null || repository.isFullyLoaded()) start()
+    }
+
+    /**
+     * Starts watching once the library has streamed in, when it was still partial as the main
+     * window came up: a partial library would have its missing tracks imported again.
+     */
+    @EventListener
+    fun libraryLoadingEventListener(event: LibraryLoadingEvent) {
+        if (stageReady && event.isComplete) start()
+    }
+
+    @EventListener
+    fun watchFolderEventListener(event: WatchFolderEvent) {
+        val folder = event.folder.toAbsolutePath().normalize()
+        if (folders.any { folder.startsWith(it) }) {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("$folder is already watched", this))
+            return
+        }
+        // A new folder containing watched ones replaces them
+        folders.removeIf { it.startsWith(folder) }
+        folders.add(folder)
+        saveFolders()
+        logger.info { "Watching $folder" }
+        restart()
+    }
+
+    @EventListener(StopWatchingFoldersEvent::class)
+    fun stopWatchingFoldersEventListener() {
+        folders.clear()
+        saveFolders()
+        logger.info { "Stopped watching folders" }
+        restart()
+        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Stopped watching folders", this))
+    }
+
+    @Synchronized
+    private fun start() {
+        if (watching != null || folders.isEmpty()) return
+        val service = FileSystems.getDefault().newWatchService()
+        watchService = service
+        watching =
+            scope.launch {
+                try {
+                    folders.forEach { register(service, it) }
+                    reconcile()
+                    launch { reconcilePeriodically() }
+                    watch(service)
+                } catch (exception: ClosedWatchServiceException) {
+                    logger.debug { "Folder watch closed" }
+                } catch (exception: IOException) {
+                    logger.error(exception) { "Watching folders failed" }
+                    applicationEventPublisher.publishEvent(ExceptionEvent(exception, this@FolderWatchService))
+                }
+            }
+    }
+
+    @Synchronized
+    private fun restart() {
+        stop()
+        if (stageReady) start()
+    }
+
+    @Synchronized
+    private fun stop() {
+        watching?.cancel()
+        watching = null
+        watchService?.close()
+        watchService = null
+        watchedDirectories.clear()
+    }
+
+    private fun register(service: WatchService, directory: Path) {
+        Files.walkFileTree(
+            directory,
+            object : SimpleFileVisitor<Path>() {
+                override fun preVisitDirectory(dir: Path, attributes: BasicFileAttributes): FileVisitResult {
+                    watchedDirectories[dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY)] = dir
+                    return FileVisitResult.CONTINUE
+                }
+
+                override fun visitFileFailed(file: Path, exception: IOException): FileVisitResult {
+                    logger.warn { "Not watching $file: ${exception.message}" }
+                    return FileVisitResult.CONTINUE
+                }
+            }
+        )
+    }
+
+    private suspend fun watch(service: WatchService) {
+        while (true) {
+            val changed = HashSet<Path>()
+            var overflowed = collect(service, runInterruptible { service.take() }, changed)
+            val burst = TimeSource.Monotonic.markNow()
+            while (burst.elapsedNow() < MAX_DEBOUNCE_MILLIS.milliseconds) {
+                val next = runInterruptible { service.poll(debounceMillis, TimeUnit.MILLISECONDS) } ?: break
+                overflowed = collect(service, next, changed) || overflowed
+            }
+            if (overflowed) {
+                logger.debug { "Folder watch overflowed, reconciling every watched folder" }
+                reconcile()
+            } else {
+                sync(outermost(changed))
+            }
+        }
+    }
+
+    /**
+     * Adds the paths of the events of [key] to [changed], and starts watching the directories
+     * created under it. Returns whether events were lost.
+     */
+    private fun collect(
+        service: WatchService,
+        key: WatchKey,
+        changed: MutableSet<Path>
+    ): Boolean {
+        val directory = watchedDirectories[key]
+        var overflowed = false
+        for (event in key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+                overflowed = true
+                continue
+            }
+            val path = directory.resolve(event.context() as Path)
+            changed.add(path)
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(service, path)
+                } catch (exception: IOException) {
+                    logger.warn { "Not watching $path: ${exception.message}" }
+                }
+            }
+        }
+        if (!key.reset()) watchedDirectories.remove(key)
+        return overflowed
+    }
+
+    // A directory that changed is synced whole, so nothing under it needs syncing on its own
+    private fun outermost(paths: Set<Path>): List<Path> =
+        paths.filter { path -> generateSequence(path.parent) { it.parent }.none { it in paths } }
+
+    private suspend fun reconcilePeriodically() {
+        while (true) {
+            delay(reconcileIntervalMillis)
+            reconcile()
+        }
+    }
+
+    private suspend fun reconcile() {
+        report(applyChanges { library -> folderSync.reconcile(folders, library) })
+    }
+
+    private suspend fun sync(paths: Collection<Path>) {
+        if (paths.isNotEmpty()) report(applyChanges { library -> folderSync.sync(paths, library) })
+    }
+
+    private suspend fun applyChanges(change: (List<ObservableAudioItem>) -> LibraryFolderSync.Changes): LibraryFolderSync.Changes =
+        syncLock.withLock {
+            while (mediaImportService.isImporting()) delay(IMPORT_PAUSE_POLL_MILLIS)
+            val library = withContext(fxDispatcher) { audioLibrary.audioItemsProperty.toList() }
+            change(library).also { fileFingerprints.flush() }
+        }
+
+    private fun report(changes: LibraryFolderSync.Changes) {
+        if (changes.isEmpty()) return
+        logger.info { "Watched folders synced: $changes" }
+        val summary =
+            listOfNotNull(
+                changes.imported.takeIf { it > 0 }?.let { "$it added" },
+                changes.refreshed.takeIf { it > 0 }?.let { "$it updated" },
+                changes.missing.takeIf { it > 0 }?.let { "$it missing" }
+            ).joinToString()
+        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Watched folders synced: $summary", this))
+    }
+
+    private fun readFolders(): List<Path> =
+        try {
+            if (Files.exists(foldersFile)) Files.readAllLines(foldersFile).filter(String::isNotBlank).map(Path::of) else emptyList()
+        } catch (exception: IOException) {
+            logger.warn(exception) { "Could not read the watched folders from $foldersFile" }
+            emptyList()
+        }
+
+    private fun saveFolders() {
+        try {
+            Files.write(foldersFile, folders.map(Path::toString))
+        } catch (exception: IOException) {
+            logger.error(exception) { "Could not save the watched folders to $foldersFile" }
+            applicationEventPublisher.publishEvent(ExceptionEvent(exception, this))
+        }
+    }
+
+    /**
+     * Stops watching. Invoked automatically by Spring on context shutdown.
+     */
+    @PreDestroy
+    fun close() {
+        stop()
+        job.cancel()
+        logger.debug { "FolderWatchService scope cancelled" }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.javafx.JavaFx
+import kotlinx.coroutines.withContext
+import mu.KotlinLogging
+import java.lang.management.ManagementFactory
+
+/**
+ * Throttles a running import so the UI keeps its frames and the playing track keeps playing.
+ *
+ * Every [sampleMillis] the governor takes three readings:
+ *
+ * - **frame lag**: how long a task posted to the FX thread waits before it runs, which is the
+ *   time the FX thread is busy with a pulse, a layout or the changes an import batch fired;
+ * - **playback health**: whether the position of the playing track advanced with the wall clock;
+ *   a track that stands still while playing is starved of CPU or disk;
+ * - **system load**: the load average per core, which only the [background][ImportMode.BACKGROUND]
+ *   mode yields to.
+ *
+ * From them it tunes a [read ceiling][readCeiling], the most files read at once from a device on
+ * top of the [DeviceConcurrencyLimiter]'s own limit, and the [batch size][batchSize] of the
+ * inserts, AIMD style: while every reading is within the budget of the [mode], the ceiling grows
+ * by one and the batch by [BATCH_STEP]; as soon as one is not, both are halved. Small batches
+ * keep every change the FX thread handles short, so a congested UI recovers within a few frames.
+ * The values carry over from one import to the next; switching to a stricter mode lowers them at
+ * once, switching to a faster one lets them grow.
+ *
+ * @param playbackPositionMillis the position of the playing track, or `null` when nothing plays;
+ *        called on the FX thread
+ * @param loadPerCore the system load average divided by the number of cores
+ * @param fxDispatcher the dispatcher of the FX thread; injectable for testing
+ * @param nanoTime the clock the readings are timed with; injectable for testing
+ * @param sampleMillis how long the governor waits between readings
+ */
+internal class ImportGovernor(
+    private val playbackPositionMillis: () -> Long?,
+    private val loadPerCore: () -> Double = ::systemLoadPerCore,
+    private val fxDispatcher: CoroutineDispatcher = Dispatchers.JavaFx,
+    private val nanoTime: () -> Long = System::nanoTime,
+    private val sampleMillis: Long = SAMPLE_MILLIS
+) {
+    private val logger = KotlinLogging.logger {}
+
+    companion object {
+        private const val SAMPLE_MILLIS = 250L
+        private const val MIN_BATCH_SIZE = 25
+        private const val BATCH_STEP = 25
+        private const val LOAD_BUDGET_PER_CORE = 1.0
+
+        // A playing track whose position advanced less than this share of the wall clock stalled
+        private const val STALL_RATIO = 0.5
+
+        private fun systemLoadPerCore(): Double {
+            val system = ManagementFactory.getOperatingSystemMXBean()
+            // Negative where the platform has no load average
+            return system.systemLoadAverage.coerceAtLeast(0.0) / system.availableProcessors
+        }
+    }
+
+    /**
+     * One round of readings.
+     */
+    internal data class Sample(val frameLagMillis: Double, val playbackStalled: Boolean, val loadPerCore: Double)
+
+    @Volatile private var readCeiling = ImportMode.FAST.maxReadCeiling
+    @Volatile private var batchSize = ImportMode.FAST.maxBatchSize
+
+    @Volatile var mode = ImportMode.FAST
+        set(value) {
+            synchronized(this) {
+                field = value
+                readCeiling = readCeiling.coerceAtMost(value.maxReadCeiling)
+                batchSize = batchSize.coerceAtMost(value.maxBatchSize)
+            }
+            logger.info { "Import mode set to $value" }
+        }
+
+    /**
+     * The most files an import may read at once from one device.
+     */
+    fun readCeiling(): Int = readCeiling
+
+    /**
+     * How many tracks an import inserts in one batch.
+     */
+    fun batchSize(): Int = batchSize
+
+    /**
+     * Takes readings and tunes the ceiling and the batch size until cancelled.
+     */
+    suspend fun run() {
+        var previousPosition: Long? = null
+        var previousAt = nanoTime()
+        while (true) {
+            delay(sampleMillis)
+            val postedAt = nanoTime()
+            val position = withContext(fxDispatcher) { playbackPositionMillis() }
+            val now = nanoTime()
+
+            // A position behind the previous one is a seek or another track, not a stall
+            val stalled =
+                position != null && previousPosition != null && position >= previousPosition &&
+                    position - previousPosition < (now - previousAt) / 1e6 * STALL_RATIO
+            previousPosition = position
+            previousAt = now
+            adjust(Sample((now - postedAt) / 1e6, stalled, loadPerCore()))
+        }
+    }
+
+    @Synchronized
+    internal fun adjust(sample: Sample) {
+        val congested =
+            sample.frameLagMillis > mode.frameLagBudgetMillis || sample.playbackStalled ||
+                (mode.yieldsToSystemLoad && sample.loadPerCore > LOAD_BUDGET_PER_CORE)
+        if (congested) {
+            val ceiling = (readCeiling / 2).coerceAtLeast(1)
+            val batch = (batchSize / 2).coerceAtLeast(MIN_BATCH_SIZE)
+            if (ceiling != readCeiling || batch != batchSize) {
+                logger.debug { "Import throttled to $ceiling read(s) and batches of $batch: $sample" }
+            }
+            readCeiling = ceiling
+            batchSize = batch
+        } else {
+            readCeiling = (readCeiling + 1).coerceAtMost(mode.maxReadCeiling)
+            batchSize = (batchSize + BATCH_STEP).coerceAtMost(mode.maxBatchSize)
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import java.nio.file.Path
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Future
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * A request to import a directory tree or a set of files, queued by [MediaImportService] until
+ * the imports before it are done.
+ *
+ * A job is [queued][State.QUEUED], then [running][State.RUNNING], and ends [done][State.DONE],
+ * [cancelled][State.CANCELLED], or [merged][State.MERGED] into a later job that covers all of it.
+ * It can be paused at any point before it ends: a queued job is then passed over, and a running
+ * one stops reading files and goes back to queued, giving up its slot to the jobs after it until
+ * it is resumed. When it runs again it picks up where it stopped: a directory job skips the
+ * files imported and unchanged since, and a file job imports only the files it had not read.
+ */
+class ImportJob internal constructor(val id: Int, val directory: Path?, files: Collection<Path>) {
+
+    enum class State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        CANCELLED,
+        MERGED
+    }
+
+    private val lock = ReentrantLock()
+
+    // Only changed under the lock of the ImportJobQueue
+    internal val filesToImport = LinkedHashSet(files)
+
+    private val filesRead = ConcurrentHashMap.newKeySet<Path>()
+
+    @Volatile var state = State.QUEUED
+        internal set
+
+    @Volatile var isPaused = false
+        private set
+
+    // The running import, so cancelling the job stops its walk as well as its reads
+    @Volatile internal var execution: Future<*>? = null
+
+    val isActive: Boolean
+        get() = state == State.QUEUED || state == State.RUNNING
+
+    /**
+     * The files of a file job; empty for a directory job.
+     */
+    val files: List<Path>
+        get() = filesToImport.toList()
+
+    /**
+     * The files of a file job it has not read yet, in a run before it was paused.
+     */
+    internal val filesLeft: List<Path>
+        get() = filesToImport.filterNot(filesRead::contains)
+
+    /**
+     * Whether importing this job imports [path], or the whole tree under it.
+     */
+    internal fun covers(path: Path): Boolean = directory?.let(path::startsWith) ?: (path in filesToImport)
+
+    internal fun pause() {
+        lock.withLock {
+            isPaused = true
+            if (state == State.RUNNING) state = State.QUEUED
+        }
+    }
+
+    internal fun resume() {
+        lock.withLock { isPaused = false }
+    }
+
+    internal fun end(state: State) {
+        lock.withLock { this.state = state }
+    }
+
+    internal fun markRead(path: Path) {
+        filesRead.add(path)
+    }
+
+    /**
+     * Throws [CancellationException] if the job stopped running: it was cancelled, or paused and
+     * gave up its slot.
+     */
+    internal fun ensureRunning() {
+        if (state != State.RUNNING) throw CancellationException("Import of $this ${if (isPaused) "paused" else "cancelled"}")
+    }
+
+    override fun toString() = directory?.toString() ?: "${filesToImport.size} file(s)"
+}
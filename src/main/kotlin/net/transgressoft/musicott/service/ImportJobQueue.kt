@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import net.transgressoft.musicott.service.ImportJob.State
+import java.nio.file.Path
+
+/**
+ * The [ImportJob]s waiting to run or running, in the order they were requested, with the work
+ * already queued taken out of every new request:
+ *
+ * - a directory inside the tree of a queued or running directory job is not queued again;
+ * - a directory that contains queued directory jobs takes their place, merging them;
+ * - files already in a queued or running job, or inside the tree of one, are left out of a new
+ *   file job, and files inside a new directory are taken out of the queued file jobs.
+ *
+ * What a running job is importing cannot be changed, so a directory that contains it is queued
+ * whole; the files the running job imports are then unchanged when the new job reaches them and
+ * are skipped by the fingerprint check. All methods are thread-safe.
+ */
+internal class ImportJobQueue {
+
+    private val jobs = ArrayList<ImportJob>()
+    private var nextId = 1
+
+    /**
+     * Queues the import of [directory], unless a queued or running job already covers it.
+     *
+     * @return the new job, or `null` if nothing new was queued
+     */
+    @Synchronized
+    fun addDirectory(directory: Path): ImportJob? {
+        if (jobs.any { it.isActive && it.directory != null && directory.startsWith(it.directory) }) return null
+        val job = ImportJob(nextId++, directory, emptyList())
+        val merged = jobs.filter { it.state == State.QUEUED && it.directory?.startsWith(directory) == true }
+        merged.forEach { it.end(State.MERGED) }
+        jobs.removeAll(merged.toSet())
+        jobs.filter { it.state == State.QUEUED && it.directory == null }.forEach { fileJob ->
+            fileJob.filesToImport.removeIf { it.startsWith(directory) }
+            if (fileJob.filesToImport.isEmpty()) {
+                fileJob.end(State.MERGED)
+                jobs.remove(fileJob)
+            }
+        }
+        jobs.add(job)
+        return job
+    }
+
+    /**
+     * Queues the import of the [files] no queued or running job covers yet.
+     *
+     * @return the new job, or `null` if every file was already queued
+     */
+    @Synchronized
+    fun addFiles(files: Collection<Path>): ImportJob? {
+        val newFiles = files.filterTo(LinkedHashSet()) { file -> jobs.none { it.isActive && it.covers(file) } }
+        if (newFiles.isEmpty()) return null
+        return ImportJob(nextId++, null, newFiles).also(jobs::add)
+    }
+
+    /**
+     * Marks the first queued job that is not paused as running and returns it, or returns `null`
+     * if there is none.
+     */
+    @Synchronized
+    fun next(): ImportJob? =
+        jobs.firstOrNull { it.state == State.QUEUED && !it.isPaused }?.also { it.state = State.RUNNING }
+
+    /**
+     * Takes a job that ended out of the queue.
+     */
+    @Synchronized
+    fun finish(job: ImportJob, state: State) {
+        if (job.isActive) job.end(state)
+        jobs.remove(job)
+    }
+
+    @Synchronized
+    fun pause(job: ImportJob) {
+        if (job.isActive) job.pause()
+    }
+
+    @Synchronized
+    fun resume(job: ImportJob) {
+        if (job.isActive) job.resume()
+    }
+
+    /**
+     * Cancels [job]. A queued job is taken out of the queue at once; a running one stops at its
+     * next file and is taken out when it ends.
+     */
+    @Synchronized
+    fun cancel(job: ImportJob) {
+        if (!job.isActive) return
+        val wasQueued = job.state == State.QUEUED
+        job.end(State.CANCELLED)
+        if (wasQueued) jobs.remove(job)
+    }
+
+    @Synchronized
+    fun running(): ImportJob? = jobs.firstOrNull { it.state == State.RUNNING }
+
+    @Synchronized
+    fun jobs(): List<ImportJob> = jobs.toList()
+
+    @Synchronized
+    fun isEmpty(): Boolean = jobs.isEmpty()
+
+    /**
+     * Whether a job is running or waits to run, that is, whether any job left is not paused.
+     */
+    @Synchronized
+    fun hasRunnableJobs(): Boolean = jobs.any { it.isActive && !it.isPaused }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+/**
+ * How much a file or directory import may take from the rest of the application, chosen by the
+ * user and applied by the [ImportGovernor].
+ *
+ * - [FAST] reads as many files at once as the storage allows and backs off only when the frames
+ *   of the UI run well past their budget or the playing track stalls;
+ * - [BACKGROUND] reads a few files at a time in small batches, and also backs off as soon as a
+ *   frame is late or every core of the machine is busy.
+ */
+enum class ImportMode(
+    internal val frameLagBudgetMillis: Double,
+    internal val maxReadCeiling: Int,
+    internal val maxBatchSize: Int,
+    internal val yieldsToSystemLoad: Boolean
+) {
+    FAST(50.0, 64, 500, false),
+    BACKGROUND(16.0, 4, 100, true)
+}
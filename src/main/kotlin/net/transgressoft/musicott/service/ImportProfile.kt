@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.json.Json
+
+/**
+ * What an import spent its time on, as recorded by an [ImportProfiler] and exported as JSON.
+ *
+ * The time of a stage is summed over the threads that ran it, so the stages of an import that
+ * reads files concurrently add up to more than [totalMillis]. Batches are written to the
+ * repository while the tracks are created, so the write stage also counts within the read or
+ * iTunes stage. The formats are those of the files read, with the time their reads took; a read
+ * includes reading the file's cover, which is part of its tag.
+ *
+ * @property source what was imported: a directory, a number of files, or the iTunes library
+ * @property outcome how the import ended: `completed`, `cancelled` or `failed`
+ * @property startedAt when the import started, as an ISO-8601 instant
+ * @property totalMillis how long the import ran, start to end
+ * @property warningsAndErrors the WARN and ERROR records logged while it ran
+ */
+@Serializable
+data class ImportProfile(
+    val source: String,
+    val outcome: String,
+    val startedAt: String,
+    val totalMillis: Double,
+    val filesRead: Int,
+    val filesFailed: Int,
+    val warningsAndErrors: Int,
+    val stages: List<StageTiming>,
+    val formats: List<FormatTiming>,
+    val slowestFiles: List<FileTiming>,
+    val errors: Map<String, Int>
+) {
+    /**
+     * The time spent in one stage, and how many times it ran.
+     */
+    @Serializable
+    data class StageTiming(val stage: String, val millis: Double, val count: Int)
+
+    /**
+     * The reads of the files of one format; [filesPerSecond] is the throughput of a single reader.
+     */
+    @Serializable
+    data class FormatTiming(
+        val format: String,
+        val files: Int,
+        val failed: Int,
+        val totalMillis: Double,
+        val averageMillis: Double,
+        val maxMillis: Double,
+        val filesPerSecond: Double
+    )
+
+    @Serializable
+    data class FileTiming(val path: String, val format: String, val millis: Double, val error: String? = null)
+
+    /**
+     * One line for the header of the report, e.g. `1,234 files read in 12.3 s, 2 failed`.
+     */
+    fun summary(): String =
+        "%,d files read in %.1f s, %,d failed".format(filesRead, totalMillis / 1_000, filesFailed)
+
+    fun toJson(): String = json.encodeToString(serializer(), this)
+
+    companion object {
+        private val json = Json { prettyPrint = true }
+    }
+}
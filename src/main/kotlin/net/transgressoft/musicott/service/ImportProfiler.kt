@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import net.transgressoft.commons.music.audio.AudioFileType
+import net.transgressoft.musicott.service.ImportProfile.FileTiming
+import net.transgressoft.musicott.service.ImportProfile.FormatTiming
+import net.transgressoft.musicott.service.ImportProfile.StageTiming
+import java.nio.file.Path
+import java.time.Instant
+import java.util.EnumMap
+import java.util.PriorityQueue
+import kotlin.io.path.extension
+
+/**
+ * Records the stages and the file reads of one import run into an [ImportProfile].
+ *
+ * Stages are timed with [stage], or [added][add] from timings taken elsewhere; every file read is
+ * timed with [file], which keeps the totals of its format, the [slowestCount] slowest files and
+ * the count of each kind of error. All methods are thread-safe; recording a file takes a lock
+ * only for the few additions it makes.
+ *
+ * @param source what is being imported, for the report
+ * @param slowestCount how many of the slowest files the report lists
+ * @param nanoTime the clock stages and files are timed with; injectable for testing
+ */
+internal class ImportProfiler(
+    private val source: String,
+    private val slowestCount: Int = SLOWEST_FILES,
+    private val nanoTime: () -> Long = System::nanoTime
+) {
+    companion object {
+        private const val SLOWEST_FILES = 20
+        private const val NANOS_PER_MILLI = 1e6
+
+        private val TYPES_BY_EXTENSION = AudioFileType.values().associateBy { it.extension }
+
+        private fun formatOf(path: Path): String {
+            val extension = path.extension.lowercase()
+            return TYPES_BY_EXTENSION[extension]?.name ?: extension.ifEmpty { "unknown" }
+        }
+    }
+
+    enum class Stage(val label: String) {
+        PARSE("parse iTunes library"),
+        ITUNES("import iTunes tracks and playlists"),
+        WALK("walk directories"),
+        READ("read tags"),
+        WRITE("write to repository"),
+        PUBLISH("publish to library")
+    }
+
+    private class Totals {
+        var count = 0
+        var failed = 0
+        var nanos = 0L
+        var maxNanos = 0L
+    }
+
+    private class Read(val path: Path, val format: String, val nanos: Long, val error: String?)
+
+    private val startedAt = Instant.now()
+    private val startNanos = nanoTime()
+
+    private val stages = EnumMap<Stage, Totals>(Stage::class.java)
+    private val formats = HashMap<String, Totals>()
+    private val slowest = PriorityQueue<Read>(compareBy(Read::nanos))
+    private val errors = HashMap<String, Int>()
+
+    /**
+     * Runs [block] and adds the time it took to [stage].
+     */
+    fun <T> stage(
+        stage: Stage,
+        block: () -> T
+    ): T {
+        val start = nanoTime()
+        try {
+            return block()
+        } finally {
+            add(stage, nanoTime() - start)
+        }
+    }
+
+    /**
+     * Adds [nanos] spent in [stage] over [count] runs of it.
+     */
+    @Synchronized
+    fun add(
+        stage: Stage,
+        nanos: Long,
+        count: Int = 1
+    ) {
+        stages.getOrPut(stage, ::Totals).apply {
+            this.count += count
+            this.nanos += nanos
+        }
+    }
+
+    /**
+     * Runs [read] on [path] and records the time it took, and its error if it throws, which is
+     * rethrown.
+     */
+    fun <T> file(
+        path: Path,
+        read: () -> T
+    ): T {
+        val start = nanoTime()
+        try {
+            return read().also { record(path, nanoTime() - start, null) }
+        } catch (exception: Exception) {
+            record(path, nanoTime() - start, exception.javaClass.simpleName)
+            throw exception
+        }
+    }
+
+    @Synchronized
+    private fun record(
+        path: Path,
+        nanos: Long,
+        error: String?
+    ) {
+        val format = formatOf(path)
+        formats.getOrPut(format, ::Totals).apply {
+            count++
+            if (error != null) failed++
+            this.nanos += nanos
+            maxNanos = maxOf(maxNanos, nanos)
+        }
+        stages.getOrPut(Stage.READ, ::Totals).apply {
+            count++
+            this.nanos += nanos
+        }
+        if (error != null) errors.merge(error, 1, Int::plus)
+        if (slowest.size < slowestCount || nanos > slowest.peek().nanos) {
+            slowest.add(Read(path, format, nanos, error))
+            if (slowest.size > slowestCount) slowest.poll()
+        }
+    }
+
+    /**
+     * The profile of the import so far, which ended with [outcome].
+     */
+    @Synchronized
+    fun report(
+        outcome: String,
+        warningsAndErrors: Int
+    ): ImportProfile {
+        val read = formats.values.sumOf(Totals::count)
+        val failed = formats.values.sumOf(Totals::failed)
+        return ImportProfile(
+            source = source,
+            outcome = outcome,
+            startedAt = startedAt.toString(),
+            totalMillis = (nanoTime() - startNanos) / NANOS_PER_MILLI,
+            filesRead = read - failed,
+            filesFailed = failed,
+            warningsAndErrors = warningsAndErrors,
+            stages = stages.map { (stage, totals) -> StageTiming(stage.label, totals.nanos / NANOS_PER_MILLI, totals.count) },
+            formats =
+                formats.entries
+                    .sortedByDescending { it.value.nanos }
+                    .map { (format, totals) ->
+                        FormatTiming(
+                            format,
+                            files = totals.count,
+                            failed = totals.failed,
+                            totalMillis = totals.nanos / NANOS_PER_MILLI,
+                            averageMillis = totals.nanos / NANOS_PER_MILLI / totals.count,
+                            maxMillis = totals.maxNanos / NANOS_PER_MILLI,
+                            filesPerSecond = if (totals.nanos > 0) totals.count * 1e9 / totals.nanos else 0.0
+                        )
+                    },
+            slowestFiles =
+                slowest.sortedByDescending(Read::nanos).map {
+                    FileTiming(it.path.toString(), it.format, it.nanos / NANOS_PER_MILLI, it.error)
+                },
+            errors = errors.toSortedMap()
+        )
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.javafx.JavaFx
+import kotlinx.coroutines.launch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.coroutines.CoroutineContext
+import kotlin.math.exp
+import kotlin.math.roundToLong
+
+/**
+ * Reports the progress of an import to the status bar without flooding the JavaFX Application
+ * Thread, however many items the import goes through.
+ *
+ * The import threads only [advance] or [update] the count of items done and the total, both
+ * packed in a single atomic; nothing is published from them. Once per frame a loop on
+ * [fxDispatcher] reads the latest value and, if it moved, hands [publish] the fraction done and a
+ * message with the throughput and, when the total is final, the time left. A 50k-track import
+ * thus costs at most sixty status updates a second rather than one or two FX tasks per track.
+ *
+ * The throughput is smoothed over the last couple of seconds, so a burst of cached files or a
+ * slow directory does not throw the estimate off for long.
+ *
+ * @param scope the scope the frame loop runs in; cancelling it stops the reporting
+ * @param unit the plural noun of the items counted, as shown in the message
+ * @param publish called on [fxDispatcher] with the fraction done, negative while there is no
+ *        total yet, and the status message
+ * @param fxDispatcher the context the updates are published from
+ * @param nanoTime the clock the throughput is measured with; injectable for testing
+ * @param frameMillis the minimum time between two updates
+ */
+internal class ImportProgressReporter(
+    private val scope: CoroutineScope,
+    private val unit: String,
+    private val publish: (progress: Double, message: String) -> Unit,
+    private val fxDispatcher: CoroutineContext = Dispatchers.JavaFx,
+    private val nanoTime: () -> Long = System::nanoTime,
+    private val frameMillis: Long = FRAME_MILLIS
+) {
+    // The items done in the high 32 bits, the total in the low 31, and whether it is final in bit 31
+    private val state = AtomicLong()
+
+    private var frames: Job? = null
+    private var published = -1L
+    private var lastDone = 0
+    private var lastFrameNanos = 0L
+    private var itemsPerSecond = 0.0
+
+    companion object {
+        const val FRAME_MILLIS = 16L
+        private const val FINAL_TOTAL = 1L shl 31
+        private const val TOTAL_MASK = FINAL_TOTAL - 1
+        private const val ONE_DONE = 1L shl 32
+        private const val DONE_MASK = -ONE_DONE
+        private val RATE_TIME_CONSTANT_NANOS = TimeUnit.SECONDS.toNanos(2).toDouble()
+
+        internal fun formatDuration(seconds: Long): String {
+            val hours = seconds / 3600
+            val minutes = seconds % 3600 / 60
+            return if (hours > 0) "%d:%02d:%02d".format(hours, minutes, seconds % 60) else "%d:%02d".format(minutes, seconds % 60)
+        }
+    }
+
+    /**
+     * Starts publishing once per frame, until [finish].
+     */
+    fun start() {
+        lastFrameNanos = nanoTime()
+        frames =
+            scope.launch(fxDispatcher) {
+                while (isActive) {
+                    delay(frameMillis)
+                    publishFrame()
+                }
+            }
+    }
+
+    /**
+     * Counts one more item done. Safe to call from any thread.
+     */
+    fun advance() {
+        state.addAndGet(ONE_DONE)
+    }
+
+    /**
+     * Sets the [total] of items to go through; while it is not [final], as during a directory walk,
+     * no time left is estimated. Safe to call from any thread.
+     */
+    fun total(total: Int, final: Boolean) {
+        state.updateAndGet { (it and DONE_MASK) or total.toLong() or if (final) FINAL_TOTAL else 0L }
+    }
+
+    /**
+     * Sets both the items [done] and the [total], which is final. Safe to call from any thread.
+     */
+    fun update(done: Int, total: Int) {
+        state.set((done.toLong() shl 32) or total.toLong() or FINAL_TOTAL)
+    }
+
+    /**
+     * Stops publishing and clears the progress from the status bar.
+     */
+    fun finish() {
+        frames?.cancel()
+        // Queued behind any frame already running, so nothing is published after the reset
+        scope.launch(fxDispatcher) { publish(0.0, "") }
+    }
+
+    private fun publishFrame() {
+        val current = state.get()
+        val now = nanoTime()
+        val done = (current ushr 32).toInt()
+        val elapsed = now - lastFrameNanos
+        if (elapsed > 0) {
+            val frameRate = (done - lastDone) * 1e9 / elapsed
+            val weight = 1 - exp(-elapsed / RATE_TIME_CONSTANT_NANOS)
+            itemsPerSecond += (frameRate - itemsPerSecond) * weight
+        }
+        lastDone = done
+        lastFrameNanos = now
+        if (current == published) return
+        published = current
+
+        val total = (current and TOTAL_MASK).toInt()
+        val final = current and FINAL_TOTAL != 0L
+        if (total == 0) {
+            publish(-1.0, "Importing $unit...")
+            return
+        }
+        val rate = itemsPerSecond.roundToLong()
+        val message =
+            buildString {
+                append("Importing: %,d of %,d%s %s".format(done, total, if (final) "" else "+", unit))
+                if (rate > 0) {
+                    append(", %,d %s/s".format(rate, unit))
+                    if (final) append(", ${formatDuration(((total - done) / itemsPerSecond).roundToLong())} left")
+                }
+            }
+        publish(done.toDouble() / total, message)
+    }
+}
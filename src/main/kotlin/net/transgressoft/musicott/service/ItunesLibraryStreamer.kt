@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import mu.KotlinLogging
+import net.transgressoft.commons.music.itunes.ItunesLibrary
+import net.transgressoft.commons.music.itunes.ItunesLibraryParser
+import java.nio.file.Files
+import java.nio.file.Path
+import javax.xml.stream.XMLEventFactory
+import javax.xml.stream.XMLEventReader
+import javax.xml.stream.XMLEventWriter
+import javax.xml.stream.XMLInputFactory
+import javax.xml.stream.XMLOutputFactory
+import javax.xml.stream.events.StartElement
+
+/**
+ * Parses an iTunes library XML in two passes that never hold the whole library in memory.
+ *
+ * Most of an iTunes library is its `Tracks` dictionary: a hundred thousand tracks make hundreds
+ * of megabytes of plist, while the playlists are little more than lists of track ids. Both passes
+ * stream the document with StAX and copy it to a temporary file, leaving out the track
+ * dictionaries that are not needed, and parse that copy with the [ItunesLibraryParser]:
+ *
+ * 1. the [outline][parseOutline] leaves out every track, which gives the playlist tree and its
+ *    track counts the import wizard shows;
+ * 2. the [selection][parseSelection] keeps only the tracks of the playlists to import, so the
+ *    import holds those tracks and no others.
+ *
+ * Copying takes constant memory, whatever the size of the library.
+ */
+internal object ItunesLibraryStreamer {
+    private val logger = KotlinLogging.logger {}
+
+    // Elements of the root <plist><dict> are at depth 3, those of the Tracks <dict> at depth 4
+    private const val ROOT_ENTRY_DEPTH = 3
+    private const val TRACK_ENTRY_DEPTH = 4
+    private const val TRACKS_KEY = "Tracks"
+
+    private val inputFactory =
+        XMLInputFactory.newInstance().apply {
+            // The plist DTD is neither fetched nor needed to copy the document
+            setProperty(XMLInputFactory.SUPPORT_DTD, false)
+            setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false)
+        }
+    private val outputFactory = XMLOutputFactory.newInstance()
+    private val eventFactory = XMLEventFactory.newInstance()
+
+    /**
+     * Parses the playlists of the library at [xmlPath], without any of its tracks.
+     */
+    fun parseOutline(xmlPath: Path): ItunesLibrary {
+        val (library, tracks) = parseFiltered(xmlPath, keepTrack = { false })
+        logger.info { "Parsed the outline of an iTunes library of $tracks tracks and ${library.playlists.size} playlists" }
+        return library
+    }
+
+    /**
+     * Parses the library at [xmlPath] with only the tracks whose ids are in [trackIds], and every
+     * playlist.
+     */
+    fun parseSelection(
+        xmlPath: Path,
+        trackIds: Set<Int>
+    ): ItunesLibrary {
+        val (library, _) = parseFiltered(xmlPath, keepTrack = trackIds::contains)
+        logger.info { "Parsed ${library.tracks.size} of the tracks of the iTunes library to import" }
+        return library
+    }
+
+    // Returns the parsed copy and how many tracks the original has
+    private fun parseFiltered(
+        xmlPath: Path,
+        keepTrack: (Int) -> Boolean
+    ): Pair<ItunesLibrary, Int> {
+        val filtered = Files.createTempFile("itunes-library-", ".xml")
+        try {
+            val tracks = filter(xmlPath, filtered, keepTrack)
+            return ItunesLibraryParser.parse(filtered) to tracks
+        } finally {
+            Files.deleteIfExists(filtered)
+        }
+    }
+
+    /**
+     * Copies the plist at [source] to [target], leaving out the entries of the `Tracks`
+     * dictionary whose id [keepTrack] rejects, and returns how many tracks [source] has.
+     */
+    internal fun filter(
+        source: Path,
+        target: Path,
+        keepTrack: (Int) -> Boolean
+    ): Int {
+        var tracks = 0
+        Files.newInputStream(source).buffered().use { input ->
+            Files.newOutputStream(target).buffered().use { output ->
+                val reader = inputFactory.createXMLEventReader(input)
+                val writer = outputFactory.createXMLEventWriter(output, Charsets.UTF_8.name())
+                var depth = 0
+                var rootKey: String? = null
+                var trackKey: String? = null
+                var inTracks = false
+                while (reader.hasNext()) {
+                    val event = reader.nextEvent()
+                    when {
+                        event.isStartElement -> {
+                            val element = event.asStartElement()
+                            val name = element.name.localPart
+                            depth++
+                            when {
+                                depth == ROOT_ENTRY_DEPTH && name == "key" -> {
+                                    rootKey = reader.elementText
+                                    writeKey(writer, element, rootKey)
+                                    depth--
+                                }
+                                inTracks && depth == TRACK_ENTRY_DEPTH && name == "key" -> {
+                                    trackKey = reader.elementText
+                                    depth--
+                                }
+                                inTracks && depth == TRACK_ENTRY_DEPTH -> {
+                                    tracks++
+                                    if (trackKey?.toIntOrNull()?.let(keepTrack) == true) {
+                                        writeKey(writer, eventFactory.createStartElement("", "", "key"), trackKey)
+                                        writer.add(event)
+                                    } else {
+                                        skipElement(reader)
+                                        depth--
+                                    }
+                                }
+                                else -> {
+                                    if (depth == ROOT_ENTRY_DEPTH && name == "dict" && rootKey == TRACKS_KEY) inTracks = true
+                                    writer.add(event)
+                                }
+                            }
+                        }
+                        event.isEndElement -> {
+                            if (inTracks && depth == ROOT_ENTRY_DEPTH) inTracks = false
+                            depth--
+                            writer.add(event)
+                        }
+                        // The whitespace around the track entries, most of it around those left out
+                        inTracks && depth == ROOT_ENTRY_DEPTH && event.isCharacters -> Unit
+                        else -> writer.add(event)
+                    }
+                }
+                writer.flush()
+                writer.close()
+                reader.close()
+            }
+        }
+        return tracks
+    }
+
+    private fun writeKey(
+        writer: XMLEventWriter,
+        start: StartElement,
+        text: String
+    ) {
+        writer.add(start)
+        writer.add(eventFactory.createCharacters(text))
+        writer.add(eventFactory.createEndElement(start.name, null))
+    }
+
+    // Consumes the events of the element whose start was just read, up to its end
+    private fun skipElement(reader: XMLEventReader) {
+        var open = 1
+        while (open > 0) {
+            val event = reader.nextEvent()
+            if (event.isStartElement) {
+                open++
+            } else if (event.isEndElement) {
+                open--
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import java.io.IOException
+import java.nio.file.FileVisitResult
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.attribute.BasicFileAttributes
+import kotlin.io.path.extension
+
+/**
+ * Keeps the library in step with the audio files under a set of folders, one file at a time.
+ *
+ * Every audio file seen under the folders is recorded in the [FileFingerprintStore]. Syncing a
+ * file compares it against its fingerprint and the library:
+ *
+ * - a file the library does not have is [imported][importFile];
+ * - a file that is no longer [unchanged][FileFingerprintStore.isUnchanged] since it was last
+ *   recorded is [refreshed][refreshItem];
+ * - a library track under the folders whose file is gone is reported [missing][onMissing], once,
+ *   and refreshed if the file shows up again.
+ *
+ * The first time a file the library already has is seen, its fingerprint is only recorded: the
+ * library is assumed to be up to date with it. [sync] handles the paths a file system watch
+ * reported; [reconcile] walks the folders whole and catches whatever the watch missed. Neither is
+ * thread-safe; the caller serializes them and [flushes][FileFingerprintStore.flush] the store.
+ *
+ * @param acceptedExtensions the lower-case extensions of the files to sync
+ * @param fingerprints the fingerprints of the files last read, shared with the imports
+ * @param importFile reads a new file into a library track
+ * @param refreshItem re-reads the tags of a track whose file changed
+ * @param onMissing called with the tracks whose files disappeared
+ */
+internal class LibraryFolderSync(
+    private val acceptedExtensions: Set<String>,
+    private val fingerprints: FileFingerprintStore,
+    private val importFile: (Path) -> ObservableAudioItem,
+    private val refreshItem: (ObservableAudioItem) -> Unit,
+    private val onMissing: (List<ObservableAudioItem>) -> Unit
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val missing = HashSet<Path>()
+
+    /**
+     * How many tracks a sync imported, refreshed and found missing.
+     */
+    data class Changes(val imported: Int = 0, val refreshed: Int = 0, val missing: Int = 0) {
+        fun isEmpty() = imported == 0 && refreshed == 0 && missing == 0
+
+        operator fun plus(other: Changes) = Changes(imported + other.imported, refreshed + other.refreshed, missing + other.missing)
+    }
+
+    /**
+     * Walks every file under [folders] and syncs the [libraryItems] with them. Tracks under the
+     * folders whose files were not found are reported missing.
+     */
+    fun reconcile(
+        folders: Collection<Path>,
+        libraryItems: Collection<ObservableAudioItem>
+    ): Changes {
+        val library = libraryItems.associateBy { it.path }
+        var changes = Changes()
+        for (folder in folders) {
+            val found = HashSet<Path>()
+            changes += walk(folder, library, found)
+            changes += flagMissing(library.filterKeys { it.startsWith(folder) && it !in found }.values)
+        }
+        return changes
+    }
+
+    /**
+     * Syncs the [libraryItems] with the given [paths], files or directories, that changed under
+     * the folders. A directory that exists is walked whole; one that is gone takes every track
+     * under it along.
+     */
+    fun sync(
+        paths: Collection<Path>,
+        libraryItems: Collection<ObservableAudioItem>
+    ): Changes {
+        val library = libraryItems.associateBy { it.path }
+        var changes = Changes()
+        for (path in paths) {
+            val attributes =
+                try {
+                    Files.readAttributes(path, BasicFileAttributes::class.java)
+                } catch (exception: NoSuchFileException) {
+                    null
+                } catch (exception: IOException) {
+                    logger.warn { "Could not read $path: ${exception.message}" }
+                    continue
+                }
+            changes +=
+                when {
+                    attributes == null -> {
+                        fingerprints.removeUnder(path)
+                        flagMissing(library.filterKeys { it.startsWith(path) }.values)
+                    }
+                    attributes.isDirectory -> walk(path, library, HashSet())
+                    attributes.isRegularFile && isAccepted(path) -> syncFile(path, attributes, library)
+                    else -> Changes()
+                }
+        }
+        return changes
+    }
+
+    private fun walk(
+        directory: Path,
+        library: Map<Path, ObservableAudioItem>,
+        found: MutableSet<Path>
+    ): Changes {
+        var changes = Changes()
+        Files.walkFileTree(
+            directory,
+            object : SimpleFileVisitor<Path>() {
+                override fun visitFile(file: Path, attributes: BasicFileAttributes): FileVisitResult {
+                    if (attributes.isRegularFile && isAccepted(file)) {
+                        found.add(file)
+                        changes += syncFile(file, attributes, library)
+                    }
+                    return FileVisitResult.CONTINUE
+                }
+
+                override fun visitFileFailed(file: Path, exception: IOException): FileVisitResult {
+                    logger.warn { "Skipping unreadable entry $file: ${exception.message}" }
+                    return FileVisitResult.CONTINUE
+                }
+            }
+        )
+        return changes
+    }
+
+    private fun syncFile(
+        file: Path,
+        attributes: BasicFileAttributes,
+        library: Map<Path, ObservableAudioItem>
+    ): Changes {
+        val item = library[file]
+        return try {
+            when {
+                item == null -> {
+                    importFile(file)
+                    fingerprints.record(file)
+                    Changes(imported = 1)
+                }
+                missing.remove(file) || (file in fingerprints && !fingerprints.isUnchanged(file, attributes)) -> {
+                    refreshItem(item)
+                    fingerprints.record(file)
+                    Changes(refreshed = 1)
+                }
+                file !in fingerprints -> {
+                    fingerprints.record(file)
+                    Changes()
+                }
+                else -> Changes()
+            }
+        } catch (exception: Exception) {
+            // Forgotten, so the next sync or reconciliation tries it again
+            fingerprints.remove(file)
+            logger.warn(exception) { "Could not sync $file: ${exception.message}" }
+            Changes()
+        }
+    }
+
+    private fun flagMissing(items: Collection<ObservableAudioItem>): Changes {
+        val newlyMissing = items.filter { missing.add(it.path) }
+        if (newlyMissing.isEmpty()) return Changes()
+        newlyMissing.forEach { fingerprints.remove(it.path) }
+        onMissing(newlyMissing)
+        return Changes(missing = newlyMissing.size)
+    }
+
+    private fun isAccepted(file: Path) = file.extension.lowercase() in acceptedExtensions
+}
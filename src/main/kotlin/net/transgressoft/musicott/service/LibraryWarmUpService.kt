@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import jakarta.annotation.PreDestroy
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.musicott.events.ExceptionEvent
+import net.transgressoft.musicott.events.LibraryLoadingEvent
+import net.transgressoft.musicott.events.StageReadyEvent
+import net.transgressoft.musicott.events.StatusMessageUpdateEvent
+import net.transgressoft.musicott.events.StatusProgressUpdateEvent
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.context.event.EventListener
+import org.springframework.stereotype.Service
+
+/**
+ * Streams the rest of the audio library in once the main window is up, when the application
+ * booted with only the first page of tracks in a [ProgressiveAudioRepository].
+ *
+ * Publishes a [LibraryLoadingEvent] before the first batch, after each batch and once every track
+ * is in, and mirrors the progress in the status bar. Services that must not act on a partial
+ * library, such as search and imports, listen to those events. Does nothing when the audio
+ * repository is not progressive.
+ *
+ * @param dispatcher the dispatcher the batches are added on; injectable for deterministic testing
+ */
+@Service
+class LibraryWarmUpService(
+    private val audioItemRepository: Repository<Int, ObservableAudioItem>,
+    private val applicationEventPublisher: ApplicationEventPublisher,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val job = SupervisorJob()
+    private val scope = CoroutineScope(job + dispatcher)
+
+    @Volatile private var started = false
+
+    @EventListener(StageReadyEvent::class)
+    fun start() {
+        val repository = audioItemRepository as? ProgressiveAudioRepository ?: return
+        if (started || repository.isFullyLoaded()) return
+        started = true
+
+        // Published synchronously, so listeners know the library is partial before any batch arrives
+        publishProgress(repository.loadedCount(), repository.totalCount())
+        scope.launch {
+            val startNanos = System.nanoTime()
+            try {
+                repository.streamRemaining(::publishProgress)
+                logger.info { "Library loaded in the background in ${(System.nanoTime() - startNanos) / 1_000_000} ms" }
+            } catch (exception: Exception) {
+                logger.error(exception) { "Streaming the audio library failed" }
+                applicationEventPublisher.publishEvent(ExceptionEvent(exception, this@LibraryWarmUpService))
+            }
+        }
+    }
+
+    private fun publishProgress(loaded: Int, total: Int) {
+        applicationEventPublisher.publishEvent(LibraryLoadingEvent(loaded, total, this))
+        if (loaded < total) {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Loading library... $loaded of $total tracks", this))
+            applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(loaded.toDouble() / total, this))
+        } else {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("", this))
+            applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(0.0, this))
+        }
+    }
+
+    /**
+     * Stops streaming. Invoked automatically by Spring on context shutdown.
+     */
+    @PreDestroy
+    fun close() {
+        job.cancel()
+        logger.debug { "LibraryWarmUpService scope cancelled" }
+    }
+}
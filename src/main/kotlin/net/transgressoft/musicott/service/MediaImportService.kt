@@ -16,148 +16,448 @@
  */
 package net.transgressoft.musicott.service
 
+import jakarta.annotation.PreDestroy
 import javafx.application.Platform
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.future.future
+import kotlinx.coroutines.javafx.JavaFx
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import mu.KotlinLogging
 import net.transgressoft.commons.fx.music.FXMusicLibrary
 import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
 import net.transgressoft.commons.music.audio.AudioFileType
+import net.transgressoft.commons.music.audio.AudioMetadataIO
 import net.transgressoft.commons.music.itunes.ImportResult
 import net.transgressoft.commons.music.itunes.ItunesImportPolicy
 import net.transgressoft.commons.music.itunes.ItunesImportService
 import net.transgressoft.commons.music.itunes.ItunesLibrary
-import net.transgressoft.commons.music.itunes.ItunesLibraryParser
 import net.transgressoft.commons.music.itunes.ItunesPlaylist
-import net.transgressoft.lirp.entity.LirpEntity
-import net.transgressoft.lirp.event.CrudEvent
-import net.transgressoft.lirp.event.LirpEventSubscription
+import net.transgressoft.commons.music.player.AudioItemPlayer
+import net.transgressoft.lirp.persistence.Repository
 import net.transgressoft.musicott.events.ExceptionEvent
+import net.transgressoft.musicott.events.ImportJobControlEvent
+import net.transgressoft.musicott.events.LibraryLoadingEvent
 import net.transgressoft.musicott.events.StatusMessageUpdateEvent
 import net.transgressoft.musicott.events.StatusProgressUpdateEvent
 import net.transgressoft.musicott.logging.RingBufferHolder
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository
+import net.transgressoft.musicott.services.PlayerService
 import net.transgressoft.musicott.view.custom.alerts.AlertFactory
-import org.jetbrains.annotations.UnknownNullability
 import org.springframework.context.ApplicationEventPublisher
+import org.springframework.context.event.EventListener
 import org.springframework.stereotype.Service
 import java.io.File
-import java.io.IOException
-import java.nio.file.Files
 import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.CancellationException
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
 import java.util.concurrent.atomic.AtomicBoolean
-import java.util.concurrent.atomic.AtomicInteger
-import java.util.function.BiConsumer
-import kotlin.io.path.extension
 
 /**
  * Unified service handling all media import operations — file import, directory import,
- * and iTunes library import — with mutual exclusion to prevent concurrent imports.
+ * and iTunes library import — running one import at a time.
  *
- * Only one import operation can run at a time. Attempting a second import while one is
- * in progress shows a warning dialog to the user.
+ * File and directory imports are [ImportJob]s on an [ImportJobQueue]. They are accepted at any
+ * time and run one after another; a request is merged with the queued ones, so a directory inside
+ * one already queued, or a file already queued, is not imported twice. Each job can be paused,
+ * resumed and cancelled on its own; pausing the running job stops it and hands its turn to the
+ * jobs queued after it, and once resumed it runs again where it stopped. An iTunes import runs
+ * alone: it is refused with a warning dialog while any other import is queued or running, and
+ * queued jobs wait for it to end.
+ *
+ * iTunes and directory imports run as a bulk import of the [ProgressiveAudioRepository]: the new
+ * tracks are persisted in large batches and reach the library's observable projections in one
+ * change per batch, instead of one FX update per track. An iTunes import publishes its tracks at
+ * the end; a directory import streams them through a [DirectoryImportPipeline], which walks the
+ * tree, reads the tags and publishes a batch every few hundred tracks or every second, so the
+ * first tracks appear right away and memory does not grow with the size of the tree.
+ *
+ * File and directory imports read tags on virtual threads, as many at once per storage device as
+ * a [DeviceConcurrencyLimiter] allows. Its limits start from the kind of device and are tuned
+ * from the throughput observed, and they are kept across imports for the life of the service.
+ * Every file read is recorded in the [FileFingerprintStore]; importing a directory again skips the
+ * files that are in the library and unchanged since, telling them apart by a `stat` alone.
+ *
+ * While a file or directory import runs, an [ImportGovernor] watches the frame lag of the FX
+ * thread, the playing track and the system load, and caps the reads per device and the batch
+ * size so the UI and playback do not stutter. How much it holds an import back depends on the
+ * [importMode] the user chose.
+ *
+ * Every import reports its progress through an [ImportProgressReporter]: the reading threads
+ * only bump a counter, and the status bar is updated at most once per frame with the throughput
+ * and the time left.
+ *
+ * Every import is profiled by an [ImportProfiler]: the time of each stage, of every file read
+ * and of every format, and the errors. The [ImportProfile] of the last one is kept in
+ * [lastImportProfile], for the user to view and export as JSON.
+ *
+ * An iTunes library is never held whole: [parseLibrary] keeps only its playlists, and the
+ * import reads from the file the tracks of the playlists chosen, both through the StAX
+ * [ItunesLibraryStreamer].
+ *
+ * An iTunes import that takes its metadata from the files runs in two phases. The first creates
+ * the tracks from the fields of the iTunes database, so the whole library is browsable as soon as
+ * that pass is over; the second reads the complete tags of the files, covers included, on a
+ * [MetadataHydrator] in the background, holding off while another import is reading files. The
+ * tags are read into detached copies of the tracks and applied to the tracks on the FX thread.
  */
 @Service
 class MediaImportService(
     private val applicationEventPublisher: ApplicationEventPublisher,
     private val musicLibrary: FXMusicLibrary,
-    private val alertFactory: AlertFactory
+    audioItemRepository: Repository<Int, ObservableAudioItem>,
+    private val alertFactory: AlertFactory,
+    private val fileFingerprints: FileFingerprintStore,
+    audioMetadataIO: AudioMetadataIO,
+    playerService: PlayerService
 ) {
     private companion object {
         // Name of the synthetic top-level playlist directory the sidebar's PlaylistTreeView
         // renders children of. iTunes-imported playlists with no iTunes parent are wired here.
         const val ROOT_PLAYLIST_NAME = "ROOT_PLAYLIST"
+
+        const val IMPORT_WAIT_POLL_MILLIS = 500L
+
+        val ACCEPTED_EXTENSIONS = AudioFileType.values().map(AudioFileType::extension).toSet()
     }
 
     private val logger = KotlinLogging.logger {}
 
-    private val importing = AtomicBoolean(false)
-    private val progress = AtomicInteger()
-    private var totalFiles = 0
+    private val itunesImporting = AtomicBoolean(false)
+
+    @Volatile private var libraryLoading = false
+
+    private val job = SupervisorJob()
+    private val scope = CoroutineScope(job + Dispatchers.IO)
 
     private val coreItunesImportService = ItunesImportService(musicLibrary)
     private var currentImportFuture: CompletableFuture<ImportResult>? = null
+
+    private val jobQueue = ImportJobQueue()
+    private val jobsWaiting = Channel<Unit>(Channel.CONFLATED)
+
+    private val governor =
+        ImportGovernor(playbackPositionMillis = {
+            playerService.getCurrentTimeProperty()
+                ?.takeIf { playerService.playerStatus() == AudioItemPlayer.Status.PLAYING }
+                ?.value?.toMillis()?.toLong()
+        })
+
+    // Shared by every import, so the read limits tuned for a device carry over to the next one
+    private val readLimiter = DeviceConcurrencyLimiter(ceiling = governor::readCeiling)
     private val audioLibrary = musicLibrary.audioLibrary()
+    private val progressiveRepository = audioItemRepository as? ProgressiveAudioRepository
+    @Volatile private var currentBulkImport: ProgressiveAudioRepository.BulkImport? = null
+
+    private val tagReader = DetachedTagReader(audioMetadataIO)
 
+    private val metadataHydrator =
+        MetadataHydrator(
+            hydrate = { item ->
+                val read = tagReader.read(item)
+                withContext(Dispatchers.JavaFx) { tagReader.apply(item, read) }
+            },
+            // Paused jobs do not count, so hydration goes on while the only imports left are paused
+            isPaused = ::isImporting,
+            onDrained = { hydrated ->
+                applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Loaded artwork and tags of $hydrated track(s)", this))
+            }
+        )
+
+    /**
+     * The outline of the iTunes library last parsed: its playlists, without any of its tracks.
+     */
     final var lastParsedLibrary: ItunesLibrary? = null
         private set
 
-    fun isImporting(): Boolean = importing.get()
+    @Volatile private var lastParsedLibraryPath: Path? = null
 
-    fun importFiles(filesToOpen: List<File>) {
-        if (!tryStartImport()) return
+    @Volatile private var lastParseNanos = 0L
 
-        logger.info { "Importing ${filesToOpen.size} file(s)" }
-        val mark = RingBufferHolder.INSTANCE.warnErrorCount()
-        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Importing files...", this))
-
-        val paths = filesToOpen.map(File::toPath)
-        totalFiles = paths.size
-        progress.set(0)
-        val progressSubscription =
-            audioLibrary.subscribe {
-                applicationEventPublisher.publishEvent(
-                    StatusProgressUpdateEvent(progress.getAndIncrement().toDouble() / totalFiles, this)
-                )
-            }
+    /**
+     * The profile of the last import that ended, or `null` if none has yet.
+     */
+    @Volatile final var lastImportProfile: ImportProfile? = null
+        private set
 
-        logger.debug { "Dispatching async file batch import: ${paths.size} file(s)" }
-        audioLibrary
-            .createFromFileBatchAsync(paths)
-            .whenComplete(completeImport(progressSubscription, mark))
+    init {
+        scope.launch { runImportJobs() }
     }
 
-    fun importDirectory(directory: File) {
-        if (!tryStartImport()) return
+    /**
+     * Whether an import is reading files: an iTunes import, or a file or directory job that is not
+     * paused. Paused jobs wait in the queue without touching the disk.
+     */
+    fun isImporting(): Boolean = itunesImporting.get() || jobQueue.hasRunnableJobs()
 
-        logger.info { "Importing directory ${directory.path}" }
+    /**
+     * Whether file and directory imports read as fast as the storage allows or leave room for the
+     * UI and playback. A change applies to the running import as well.
+     */
+    var importMode: ImportMode
+        get() = governor.mode
+        set(value) {
+            governor.mode = value
+        }
+
+    /**
+     * The file and directory imports queued or running, in the order they run.
+     */
+    fun importJobs(): List<ImportJob> = jobQueue.jobs()
+
+    /**
+     * Queues the import of [filesToOpen], leaving out the files a queued or running import
+     * already covers.
+     *
+     * @return the queued job, or `null` if there was nothing new to import
+     */
+    fun importFiles(filesToOpen: List<File>): ImportJob? =
+        enqueue(jobQueue.addFiles(filesToOpen.map(File::toPath)), "${filesToOpen.size} file(s)")
+
+    /**
+     * Queues the import of [directory], unless a queued or running import already covers it.
+     * Queued imports of directories inside it are merged into the new one.
+     *
+     * @return the queued job, or `null` if there was nothing new to import
+     */
+    fun importDirectory(directory: File): ImportJob? = enqueue(jobQueue.addDirectory(directory.toPath()), directory.path)
+
+    /**
+     * Pauses [job] until it is [resumed][resumeImport]: a queued job is passed over, and a
+     * running one stops and goes back to the queue, so the jobs after it run meanwhile.
+     */
+    fun pauseImport(job: ImportJob) {
+        jobQueue.pause(job)
+        job.execution?.cancel(true)
+        logger.info { "Import of $job paused" }
+        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Import of $job paused", this))
+    }
+
+    fun resumeImport(job: ImportJob) {
+        jobQueue.resume(job)
+        logger.info { "Import of $job resumed" }
+        jobsWaiting.trySend(Unit)
+    }
+
+    /**
+     * Cancels [job]. A running job stops at its next file; the tracks it already added stay.
+     */
+    fun cancelImport(job: ImportJob) {
+        jobQueue.cancel(job)
+        job.execution?.cancel(true)
+        logger.info { "Import of $job cancelled" }
+    }
+
+    private fun enqueue(job: ImportJob?, requested: String): ImportJob? {
+        if (job == null) {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Already importing $requested", this))
+            return null
+        }
+        logger.info { "Queued import #${job.id} of $job" }
+        if (jobQueue.jobs().size > 1 || itunesImporting.get() || libraryLoading) {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Import of $job queued", this))
+        }
+        jobsWaiting.trySend(Unit)
+        return job
+    }
+
+    // Runs the queued jobs one after another with the same read limits, each starting as soon as
+    // the one before ends or is paused. They wait for the library to finish loading, so new tracks
+    // are never checked against a partial library, and for an iTunes import to end.
+    private suspend fun runImportJobs() {
+        for (wakeUp in jobsWaiting) {
+            while (true) {
+                while (libraryLoading || itunesImporting.get()) delay(IMPORT_WAIT_POLL_MILLIS)
+                val job = jobQueue.next() ?: break
+                runImportJob(job)
+            }
+        }
+    }
+
+    private suspend fun runImportJob(job: ImportJob) {
+        logger.info { "Importing $job" }
         val mark = RingBufferHolder.INSTANCE.warnErrorCount()
-        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Importing files...", this))
+        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Importing $job...", this))
         applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(-1.0, this))
 
-        progress.set(0)
-        val progressSubscription =
-            audioLibrary.subscribe {
-                if (it.isCreate()) {
-                    applicationEventPublisher.publishEvent(
-                        StatusProgressUpdateEvent(progress.getAndIncrement().toDouble() / totalFiles, this)
+        val directory = job.directory
+        val progress = startProgressReporter("files")
+        val profiler = ImportProfiler(job.toString())
+        val governing = scope.launch { governor.run() }
+        var bulkImport: ProgressiveAudioRepository.BulkImport? = null
+        val import =
+            if (directory != null) {
+                val libraryPaths = withContext(Dispatchers.JavaFx) { audioLibrary.audioItemsProperty.mapTo(HashSet()) { it.path } }
+                bulkImport = progressiveRepository?.beginBulkImport()
+                currentBulkImport = bulkImport
+                val pipeline =
+                    importPipeline(
+                        job,
+                        progress,
+                        profiler,
+                        insertBatch = { bulkImport?.publish() },
+                        onProgress = { _, found, walkComplete -> progress.total(found, walkComplete) },
+                        skipFile = { path, attributes -> path in libraryPaths && fileFingerprints.isUnchanged(path, attributes) }
                     )
+                scope.future { pipeline.run(directory) }
+            } else {
+                val files = job.filesLeft
+                progress.total(files.size, final = true)
+                // Each track reaches the library as it is read, so there are no batches to insert
+                val pipeline = importPipeline(job, progress, profiler, insertBatch = {}, onProgress = { _, _, _ -> })
+                scope.future { pipeline.run(files) }
+            }
+        job.execution = import
+        // Paused before its execution was set, so pauseImport could not stop it
+        if (job.state != ImportJob.State.RUNNING) import.cancel(true)
+
+        val (imported, failure) =
+            try {
+                import.await() to null
+            } catch (exception: Exception) {
+                currentCoroutineContext().ensureActive()
+                null to exception
+            }
+        governing.cancel()
+        progress.finish()
+        bulkImport?.let {
+            endBulkImport(it)
+            profileBulkImport(profiler, it)
+        }
+        currentBulkImport = null
+        fileFingerprints.flush()
+        // A paused job went back to the queue and stays there until it is resumed
+        val paused = job.state == ImportJob.State.QUEUED
+        if (!paused) {
+            jobQueue.finish(job, if (failure is CancellationException) ImportJob.State.CANCELLED else ImportJob.State.DONE)
+        }
+        reportImportOutcome(job, mark, profiler, imported, failure, paused)
+    }
+
+    private fun importPipeline(
+        job: ImportJob,
+        progress: ImportProgressReporter,
+        profiler: ImportProfiler,
+        insertBatch: () -> Unit,
+        onProgress: (Int, Int, Boolean) -> Unit,
+        skipFile: (Path, BasicFileAttributes) -> Boolean = { _, _ -> false }
+    ) = DirectoryImportPipeline(
+        ACCEPTED_EXTENSIONS,
+        readFile = { path ->
+            job.ensureRunning()
+            try {
+                profiler.file(path) { audioLibrary.createFromFile(path) }.also {
+                    fileFingerprints.record(path)
+                    job.markRead(path)
                 }
+            } finally {
+                progress.advance()
             }
+        },
+        insertBatch = insertBatch,
+        onProgress = onProgress,
+        skipFile = skipFile,
+        limiter = readLimiter,
+        insertBatchSize = governor::batchSize,
+        profiler = profiler
+    )
+
+    /**
+     * Creates and starts the reporter of an import's progress, which publishes the latest count of
+     * [unit] at most once per frame.
+     */
+    private fun startProgressReporter(unit: String) =
+        ImportProgressReporter(scope, unit, publish = { fraction, message ->
+            applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(fraction, this))
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent(message, this))
+        }).also(ImportProgressReporter::start)
 
-        val extensions =
-            AudioFileType
-                .values()
-                .map(AudioFileType::extension)
-                .toSet()
+    private fun endBulkImport(bulkImport: ProgressiveAudioRepository.BulkImport) {
+        val published = bulkImport.end()
+        logger.debug { "Bulk import published $published audio item(s) to the library" }
+    }
 
-        CompletableFuture
-            .supplyAsync { findAcceptedFiles(directory, extensions) }
-            .thenCompose(audioLibrary::createFromFileBatchAsync)
-            .whenComplete(completeImport(progressSubscription, mark))
+    private fun profileBulkImport(
+        profiler: ImportProfiler,
+        bulkImport: ProgressiveAudioRepository.BulkImport
+    ) {
+        profiler.add(ImportProfiler.Stage.WRITE, bulkImport.writeNanos)
+        profiler.add(ImportProfiler.Stage.PUBLISH, bulkImport.publishNanos)
     }
 
-    private fun completeImport(
-        progressSubscription: LirpEventSubscription<in LirpEntity, CrudEvent.Type, CrudEvent<Int, ObservableAudioItem>>,
-        mark: Long
-    ): BiConsumer<in @UnknownNullability List<ObservableAudioItem>, in @UnknownNullability Throwable?> =
-        { result, ex ->
-            logger.debug { "Import async pipeline completing" }
-            progressSubscription.cancel()
-            if (ex != null) {
-                logger.error(ex.message, ex)
-                applicationEventPublisher.publishEvent(ExceptionEvent(ex, this))
-            } else {
-                logger.info { "Import finished: ${result.size} item(s) added" }
+    private fun keepProfile(
+        profiler: ImportProfiler,
+        outcome: String,
+        warningsAndErrors: Int
+    ) {
+        val profile = profiler.report(outcome, warningsAndErrors)
+        lastImportProfile = profile
+        logger.info { "Import of ${profile.source} profiled: ${profile.summary()}" }
+    }
+
+    private fun reportImportOutcome(
+        job: ImportJob,
+        mark: Long,
+        profiler: ImportProfiler,
+        imported: Int?,
+        failure: Throwable?,
+        paused: Boolean
+    ) {
+        val cause = if (failure is CompletionException) failure.cause else failure
+        val message =
+            when {
+                paused -> {
+                    logger.info { "Import of $job stopped, it runs again once resumed" }
+                    "Import of $job paused"
+                }
+                cause is CancellationException -> {
+                    logger.info { "Import of $job cancelled" }
+                    "Import of $job cancelled"
+                }
+                cause != null -> {
+                    logger.error(cause.message, cause)
+                    applicationEventPublisher.publishEvent(ExceptionEvent(cause, this))
+                    "Import process completed"
+                }
+                else -> {
+                    logger.info { "Import of $job finished: $imported item(s) added" }
+                    if (imported == 0 && job.directory != null) "No new or changed audio files found" else "Import process completed"
+                }
             }
-            val delta = (RingBufferHolder.INSTANCE.warnErrorCount() - mark).toInt()
-            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Import process completed", delta, this))
-            finishImport()
-        }
+        val delta = (RingBufferHolder.INSTANCE.warnErrorCount() - mark).toInt()
+        val outcome =
+            when {
+                paused -> "paused"
+                cause == null -> "completed"
+                cause is CancellationException -> "cancelled"
+                else -> "failed"
+            }
+        keepProfile(profiler, outcome, delta)
+        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent(message, delta, this))
+    }
 
+    /**
+     * Parses the outline of the iTunes library at [xmlPath]: its playlists with the ids of their
+     * tracks, but none of the tracks, which are only read from the file by the import of the
+     * playlists chosen. Kept in [lastParsedLibrary] for [importSelectedPlaylists].
+     */
     fun parseLibrary(xmlPath: Path): ItunesLibrary {
         logger.info { "Parsing iTunes library from $xmlPath" }
-        val library = ItunesLibraryParser.parse(xmlPath)
+        val parseStart = System.nanoTime()
+        val library = ItunesLibraryStreamer.parseOutline(xmlPath)
+        lastParseNanos = System.nanoTime() - parseStart
         lastParsedLibrary = library
-        logger.info { "Parsed ${library.tracks.size} tracks and ${library.playlists.size} playlists" }
+        lastParsedLibraryPath = xmlPath
         return library
     }
 
@@ -165,8 +465,10 @@ class MediaImportService(
      * Starts an asynchronous iTunes import of the supplied playlists using the supplied policy.
      *
      * The library must have been previously parsed via [parseLibrary]; otherwise this method
-     * throws [IllegalStateException]. The supplied [policy] is forwarded unchanged to the
-     * underlying iTunes import service; this method does not interpret it.
+     * throws [IllegalStateException]. The library file is then read again for the tracks of the
+     * selected playlists alone, in the background, before they are imported. The supplied
+     * [policy] is forwarded unchanged to the underlying iTunes import service; this method does
+     * not interpret it.
      *
      * Status updates are published via the application event publisher as
      * [StatusProgressUpdateEvent] / [StatusMessageUpdateEvent] events for the application's
@@ -183,8 +485,8 @@ class MediaImportService(
     ): CompletableFuture<ImportResult> {
         if (!tryStartImport()) return CompletableFuture.completedFuture(null)
 
-        val library =
-            lastParsedLibrary
+        val libraryPath =
+            lastParsedLibraryPath.takeIf { lastParsedLibrary != null }
                 ?: run {
                     finishImport()
                     throw IllegalStateException("No iTunes library parsed. Call parseLibrary() first.")
@@ -192,25 +494,43 @@ class MediaImportService(
         val mark = RingBufferHolder.INSTANCE.warnErrorCount()
         applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Importing from iTunes...", this))
 
+        // The file tags, covers above all, are most of the cost of an import; when they are the
+        // metadata source they are read after the tracks are in, from the iTunes fields. Nothing
+        // is written to the files on that first pass, the tags read later would be overwritten
+        val deferFileMetadata = policy.useFileMetadata
+        val firstPassPolicy = if (deferFileMetadata) policy.copy(useFileMetadata = false, writeMetadata = false) else policy
+        // Called from the JavaFX Application Thread, the only one the library list can be read on
+        val knownIds = if (deferFileMetadata) audioLibrary.audioItemsProperty.mapTo(HashSet()) { it.id } else emptySet()
+
+        val bulkImport = progressiveRepository?.beginBulkImport()
+        currentBulkImport = bulkImport
+        val progress = startProgressReporter("tracks")
+        val profiler = ImportProfiler("iTunes library")
+        profiler.add(ImportProfiler.Stage.PARSE, lastParseNanos)
+        val selectedIds = selectedPlaylists.mapTo(HashSet(), ItunesPlaylist::persistentId)
+        val trackIds = selectedPlaylists.flatMapTo(HashSet(), ItunesPlaylist::trackIds)
         val future =
-            coreItunesImportService
-                .importAsync(
-                    selectedPlaylists,
-                    library,
-                    policy
-                ) { progress ->
-                    Platform.runLater {
-                        // Guard against an empty import surfacing Infinity / NaN to the status bar.
-                        val fraction =
-                            if (progress.totalItems > 0) {
-                                progress.itemsProcessed.toDouble() / progress.totalItems
-                            } else {
-                                0.0
-                            }
-                        applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(fraction, this))
-                        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("Importing: ${progress.currentFile}", this))
+            scope
+                .future {
+                    val selection =
+                        profiler.stage(ImportProfiler.Stage.PARSE) { ItunesLibraryStreamer.parseSelection(libraryPath, trackIds) }
+                    // The playlists chosen from the outline, as parsed along with their tracks
+                    val playlists = selection.playlists.filter { it.persistentId in selectedIds }
+                    val importStart = System.nanoTime()
+                    try {
+                        coreItunesImportService
+                            .importAsync(playlists, selection, firstPassPolicy) { itunesProgress ->
+                                progress.update(itunesProgress.itemsProcessed, itunesProgress.totalItems)
+                            }.await()
+                    } finally {
+                        profiler.add(ImportProfiler.Stage.ITUNES, System.nanoTime() - importStart)
                     }
                 }.whenComplete { result, ex ->
+                    progress.finish()
+                    bulkImport?.let {
+                        endBulkImport(it)
+                        profileBulkImport(profiler, it)
+                    }
                     Platform.runLater {
                         currentImportFuture = null
                         if (ex != null) {
@@ -220,11 +540,20 @@ class MediaImportService(
                             logger.info {
                                 "iTunes import finished: ${result.imported.size} track(s) imported, ${result.unresolved.size} unresolved"
                             }
+                            if (deferFileMetadata) {
+                                metadataHydrator.enqueue(audioLibrary.audioItemsProperty.filter { it.id !in knownIds })
+                            }
                             alertFactory.itunesImportResultAlert(result).showAndWait()
                         }
                         val delta = (RingBufferHolder.INSTANCE.warnErrorCount() - mark).toInt()
+                        val outcome =
+                            when {
+                                ex == null -> "completed"
+                                ex is CancellationException || ex.cause is CancellationException -> "cancelled"
+                                else -> "failed"
+                            }
+                        keepProfile(profiler, outcome, delta)
                         applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("iTunes import completed", delta, this))
-                        applicationEventPublisher.publishEvent(StatusProgressUpdateEvent(0.0, this))
                         finishImport()
                     }
                 }
@@ -233,15 +562,49 @@ class MediaImportService(
         return future
     }
 
+    /**
+     * Cancels the running iTunes import and every queued or running file and directory import.
+     */
     fun cancelImport() {
         currentImportFuture?.cancel(true)
         currentImportFuture = null
+        jobQueue.jobs().forEach(::cancelImport)
+        // The cancelled import may still be adding tracks; publish those held so far right away,
+        // the rest are added as they come
+        currentBulkImport?.let(::endBulkImport)
         finishImport()
-        logger.info { "iTunes import cancelled" }
+        logger.info { "Import cancelled" }
+    }
+
+    /**
+     * Tracks whether the library is still streaming in after a progressive boot. Imports wait
+     * until it is complete, so new tracks are never checked against a partial library.
+     */
+    @EventListener
+    fun libraryLoadingEventListener(event: LibraryLoadingEvent) {
+        libraryLoading = !event.isComplete
+    }
+
+    /**
+     * Applies the user's pause, resume or cancel to the running file or directory import, or
+     * cancels every import.
+     */
+    @EventListener
+    fun importJobControlEventListener(event: ImportJobControlEvent) {
+        when (event.action) {
+            ImportJobControlEvent.Action.PAUSE -> jobQueue.running()?.let(::pauseImport)
+            ImportJobControlEvent.Action.RESUME -> jobQueue.jobs().firstOrNull(ImportJob::isPaused)?.let(::resumeImport)
+            ImportJobControlEvent.Action.CANCEL -> jobQueue.running()?.let(::cancelImport)
+            ImportJobControlEvent.Action.CANCEL_ALL -> cancelImport()
+        }
     }
 
     private fun tryStartImport(): Boolean {
-        if (!importing.compareAndSet(false, true)) {
+        if (libraryLoading) {
+            applicationEventPublisher.publishEvent(StatusMessageUpdateEvent("The library is still loading, try again in a moment", this))
+            return false
+        }
+        if (!jobQueue.isEmpty() || !itunesImporting.compareAndSet(false, true)) {
             Platform.runLater { alertFactory.importInProgressAlert().showAndWait() }
             return false
         }
@@ -249,37 +612,13 @@ class MediaImportService(
     }
 
     private fun finishImport() {
-        importing.set(false)
+        itunesImporting.set(false)
     }
 
-    private fun findAcceptedFiles(
-        directory: File,
-        acceptedExtensions: Set<String>
-    ): List<Path> {
-        val paths =
-            try {
-                Files.walk(directory.toPath()).use { pathStream ->
-                    pathStream
-                        .filter(Files::isRegularFile)
-                        .filter { it.extension.lowercase() in acceptedExtensions }
-                        .toList()
-                }
-            } catch (exception: IOException) {
-                logger.error("Error scanning directory: {}", exception.message, exception)
-                applicationEventPublisher.publishEvent(ExceptionEvent(exception, this))
-                return emptyList()
-            }
-
-        logger.debug { "Directory scan found ${paths.size} accepted audio file(s)" }
-        val message =
-            if (paths.isEmpty()) {
-                "No supported audio files found"
-            } else {
-                "Found ${paths.size} audio files"
-            }
-        applicationEventPublisher.publishEvent(StatusMessageUpdateEvent(message, this))
-
-        totalFiles = paths.size
-        return paths
+    @PreDestroy
+    fun close() {
+        job.cancel()
+        metadataHydrator.close()
+        logger.debug { "MediaImportService scope cancelled" }
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExecutorCoroutineDispatcher
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.yield
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Second phase of an import: reads the complete tags of tracks that reached the library with only
+ * the fields the table and the views need, in the background and one track at a time.
+ *
+ * Tracks are [enqueued][enqueue] once they are in the library; the covers, comments, lyrics and
+ * other tags read from their files then arrive through [hydrate] on a single worker. The worker
+ * runs on a minimum priority thread and holds off while [isPaused], so it never competes with the
+ * first phase of another import for the disk. [onDrained] is called with the number of tracks
+ * hydrated whenever the queue runs empty.
+ *
+ * @param hydrate reads the complete tags of a track from its file and applies them to it; suspends
+ *        while they are applied on the thread the track's properties are bound on
+ * @param isPaused whether the worker should wait before the next track
+ * @param onDrained called with how many tracks were hydrated since the queue was last empty
+ * @param dispatcher the dispatcher the worker runs on; injectable for testing
+ */
+internal class MetadataHydrator(
+    private val hydrate: suspend (ObservableAudioItem) -> Unit,
+    private val isPaused: () -> Boolean,
+    private val onDrained: (Int) -> Unit,
+    private val dispatcher: CoroutineDispatcher = lowPriorityDispatcher()
+) : AutoCloseable {
+    private val logger = KotlinLogging.logger {}
+
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+    private val queue = Channel<ObservableAudioItem>(Channel.UNLIMITED)
+    private val queued = AtomicInteger()
+
+    companion object {
+        private const val PAUSE_POLL_MILLIS = 1_000L
+
+        private fun lowPriorityDispatcher() =
+            Executors.newSingleThreadExecutor { task ->
+                Thread(task, "metadata-hydrator").apply {
+                    isDaemon = true
+                    priority = Thread.MIN_PRIORITY
+                }
+            }.asCoroutineDispatcher()
+    }
+
+    init {
+        scope.launch {
+            var hydrated = 0
+            for (item in queue) {
+                while (isPaused()) delay(PAUSE_POLL_MILLIS)
+                try {
+                    hydrate(item)
+                    hydrated++
+                } catch (exception: CancellationException) {
+                    throw exception
+                } catch (exception: Exception) {
+                    logger.warn { "Could not read the tags of ${item.path}: ${exception.message}" }
+                }
+                if (queued.decrementAndGet() == 0) {
+                    logger.debug { "Hydrated the tags of $hydrated track(s)" }
+                    onDrained(hydrated)
+                    hydrated = 0
+                }
+                yield()
+            }
+        }
+    }
+
+    /**
+     * The number of tracks waiting to be hydrated.
+     */
+    fun pending(): Int = queued.get()
+
+    /**
+     * Queues [items], already in the library, to have their complete tags read.
+     */
+    fun enqueue(items: Collection<ObservableAudioItem>) {
+        if (items.isEmpty()) return
+        queued.addAndGet(items.size)
+        items.forEach(queue::trySend)
+        logger.debug { "Deferred the complete tags of ${items.size} track(s)" }
+    }
+
+    override fun close() {
+        queue.close()
+        scope.cancel()
+        (dispatcher as? ExecutorCoroutineDispatcher)?.close()
+    }
+}
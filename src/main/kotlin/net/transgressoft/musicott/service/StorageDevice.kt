@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import mu.KotlinLogging
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+
+/**
+ * The storage a file lives on, as far as concurrent reads are concerned: the file store (device or
+ * mount point) it belongs to and what kind of storage that is.
+ *
+ * The [kind] is a first guess at how many reads the device serves well at once; the
+ * [DeviceConcurrencyLimiter] tunes it from there. Network mounts are recognized by their file
+ * system type. On Linux, local block devices are told apart by the kernel's `rotational` flag;
+ * elsewhere they are [Kind.UNKNOWN].
+ */
+internal data class StorageDevice(val name: String, val kind: Kind) {
+
+    /**
+     * How many concurrent reads a kind of storage starts with, and the most it may be tuned up to.
+     */
+    enum class Kind(val initialLimit: Int, val maxLimit: Int) {
+        SOLID_STATE(16, 64),
+        ROTATIONAL(2, 8),
+        NETWORK(2, 16),
+        UNKNOWN(4, 32)
+    }
+
+    companion object {
+        private val logger = KotlinLogging.logger {}
+
+        private val NETWORK_FILE_SYSTEMS =
+            setOf(
+                "nfs", "nfs4", "cifs", "smb", "smbfs", "smb2", "smb3", "afpfs", "webdav", "davfs", "9p",
+                "fuse.sshfs", "fuse.rclone", "fuse.gvfsd-fuse"
+            )
+
+        private val SYS_CLASS_BLOCK: Path = Paths.get("/sys/class/block")
+
+        fun of(path: Path): StorageDevice =
+            try {
+                val store = Files.getFileStore(path)
+                val type = store.type().lowercase()
+                val kind = if (type in NETWORK_FILE_SYSTEMS) Kind.NETWORK else blockDeviceKind(store.name())
+                StorageDevice(store.toString(), kind)
+            } catch (exception: IOException) {
+                logger.debug { "Could not resolve the file store of $path: ${exception.message}" }
+                StorageDevice("unknown", Kind.UNKNOWN)
+            }
+
+        // /sys/class/block/<partition> links into the directory of its disk, which has the queue flags
+        private fun blockDeviceKind(deviceName: String): Kind {
+            if (!deviceName.startsWith("/dev/") || !Files.isDirectory(SYS_CLASS_BLOCK)) return Kind.UNKNOWN
+            return try {
+                val blockDevice = SYS_CLASS_BLOCK.resolve(deviceName.removePrefix("/dev/")).toRealPath()
+                val rotational =
+                    sequenceOf(blockDevice, blockDevice.parent)
+                        .map { it.resolve("queue/rotational") }
+                        .firstOrNull(Files::isReadable)
+                        ?: return Kind.UNKNOWN
+                if (Files.readString(rotational).trim() == "1") Kind.ROTATIONAL else Kind.SOLID_STATE
+            } catch (exception: IOException) {
+                Kind.UNKNOWN
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import jakarta.annotation.PreDestroy
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.commons.music.waveform.AudioWaveform
+import net.transgressoft.commons.music.waveform.AudioWaveformRepository
+import net.transgressoft.lirp.entity.LirpEntity
+import net.transgressoft.lirp.event.CrudEvent
+import net.transgressoft.lirp.event.LirpEventSubscription
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.musicott.persistence.WaveformPeakStore
+import org.springframework.stereotype.Service
+import java.util.concurrent.CompletableFuture
+import kotlin.math.abs
+
+/**
+ * Source of the peaks the waveform pane renders: [PEAK_COLUMNS] peaks per track normalized to
+ * `[0, 1]`, from which the pane derives every coarser level it draws.
+ *
+ * The peaks are sampled once per track from a waveform requested at that full resolution, not
+ * from one sized for the pane, and persisted in the [WaveformPeakStore]; from then on they are
+ * read back from it, in this and later sessions, without touching the waveform again. The
+ * waveform itself is dropped from the waveform repository, and so from its store, as soon as its
+ * peaks are sampled, leaving the peak store as the only copy on disk.
+ *
+ * The peaks of a track are removed when it is deleted from the library, and [invalidate]d when
+ * its file changes so they are sampled again from the new audio.
+ */
+@Service
+class WaveformPeakService(
+    private val waveformRepository: AudioWaveformRepository<AudioWaveform, ObservableAudioItem>,
+    private val waveformFileRepository: Repository<Int, AudioWaveform>,
+    private val peakStore: WaveformPeakStore,
+    audioLibrary: ObservableAudioLibrary
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val librarySubscription: LirpEventSubscription<in LirpEntity, CrudEvent.Type, CrudEvent<Int, ObservableAudioItem>>? =
+        audioLibrary.subscribe { event ->
+            if (event.isDelete()) {
+                event.entities.keys.forEach(::invalidate)
+            }
+        }
+
+    companion object {
+        const val PEAK_COLUMNS = 4096
+
+        // Height handed to the waveform; peaks are normalized against their maximum afterwards
+        private const val AMPLITUDE_SCALE = 1024
+    }
+
+    /**
+     * Returns the peaks of [audioItem], computing and persisting them first if they are not stored
+     * yet. Completes off the calling thread.
+     */
+    fun peaksAsync(audioItem: ObservableAudioItem): CompletableFuture<FloatArray> {
+        val trackId = audioItem.id
+        return CompletableFuture.supplyAsync { peakStore.get(trackId) }
+            .thenCompose { stored ->
+                if (stored != null) {
+                    CompletableFuture.completedFuture(stored)
+                } else {
+                    waveformRepository.getOrCreateWaveformAsync(audioItem, PEAK_COLUMNS.toShort(), AMPLITUDE_SCALE.toShort())
+                        .thenApplyAsync { waveform ->
+                            normalized(waveform.amplitudes(PEAK_COLUMNS, AMPLITUDE_SCALE)).also {
+                                peakStore.put(trackId, it)
+                                waveformFileRepository.remove(waveform)
+                                logger.trace { "Stored the waveform peaks of track $trackId" }
+                            }
+                        }
+                }
+            }
+    }
+
+    fun hasPeaks(trackId: Int): Boolean = peakStore.contains(trackId)
+
+    /**
+     * Discards the stored peaks of [trackId], so they are sampled again the next time they are
+     * requested.
+     */
+    fun invalidate(trackId: Int) {
+        peakStore.remove(trackId)
+        logger.trace { "Discarded the waveform peaks of track $trackId" }
+    }
+
+    /**
+     * Cancels the library subscription. Invoked automatically by Spring on context shutdown.
+     */
+    @PreDestroy
+    fun close() {
+        librarySubscription?.cancel()
+    }
+
+    private fun normalized(amplitudes: FloatArray): FloatArray {
+        val max = amplitudes.maxOfOrNull { abs(it) } ?: 0f
+        return FloatArray(amplitudes.size) { if (max > 0f) abs(amplitudes[it]) / max else 0f }
+    }
+}
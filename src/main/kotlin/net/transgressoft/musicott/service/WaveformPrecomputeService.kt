@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2025  Octavio Calleya Garcia
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package net.transgressoft.musicott.service
+
+import jakarta.annotation.PreDestroy
+import javafx.application.Platform
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import mu.KotlinLogging
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.lirp.entity.LirpEntity
+import net.transgressoft.lirp.event.CrudEvent
+import net.transgressoft.lirp.event.LirpEventSubscription
+import net.transgressoft.musicott.events.LibraryLoadingEvent
+import net.transgressoft.musicott.events.QueueChange
+import net.transgressoft.musicott.events.QueueUpdatedEvent
+import net.transgressoft.musicott.events.StageReadyEvent
+import org.springframework.context.event.EventListener
+import org.springframework.stereotype.Service
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Computes waveform peaks in the background for tracks likely to be played soon, so the player
+ * pane finds them already persisted by the [WaveformPeakService] instead of decoding the file when
+ * playback starts.
+ *
+ * Candidates are taken, in this order of priority, from the upcoming entries of the play queue,
+ * tracks added to the library during the session, and the most played tracks of the library.
+ * A fixed number of workers pull candidates off a priority queue; each worker awaits one
+ * waveform at a time and then idles long enough that its share of CPU stays within [cpuBudget].
+ * Workers start only once the main window is up and hold off entirely while
+ * [MediaImportService] is importing, so precomputation never competes with boot or imports.
+ *
+ * @param dispatcher the dispatcher the workers run on; injectable for deterministic testing
+ * @param workerCount how many waveforms may be computed concurrently
+ * @param cpuBudget the fraction of its running time each worker spends computing, in (0, 1]
+ * @param startDelayMillis how long after the main window is shown the workers start
+ */
+@Service
+class WaveformPrecomputeService(
+    private val waveformPeakService: WaveformPeakService,
+    private val audioLibrary: ObservableAudioLibrary,
+    private val mediaImportService: MediaImportService,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.Default,
+    private val workerCount: Int = DEFAULT_WORKER_COUNT,
+    private val cpuBudget: Double = CPU_BUDGET,
+    private val startDelayMillis: Long = START_DELAY_MILLIS
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val job = SupervisorJob()
+    private val scope = CoroutineScope(job + dispatcher)
+
+    private val candidates = PriorityBlockingQueue(64, compareBy<Candidate>({ it.reason.ordinal }, { it.sequence }))
+    private val pendingReasons = ConcurrentHashMap<Int, Reason>()
+    private val sequence = AtomicLong()
+
+    @Volatile private var started = false
+    @Volatile private var libraryLoading = false
+    private var librarySubscription: LirpEventSubscription<in LirpEntity, CrudEvent.Type, CrudEvent<Int, ObservableAudioItem>>? = null
+
+    /**
+     * Why a track was scheduled; declaration order is scheduling priority.
+     */
+    enum class Reason {
+        QUEUED,
+        RECENTLY_ADDED,
+        FREQUENTLY_PLAYED
+    }
+
+    private data class Candidate(val trackId: Int, val reason: Reason, val sequence: Long)
+
+    companion object {
+        private const val CPU_BUDGET = 0.25
+        private const val START_DELAY_MILLIS = 10_000L
+        private const val IDLE_POLL_MILLIS = 2_000L
+        private const val IMPORT_PAUSE_POLL_MILLIS = 1_000L
+        private const val QUEUE_LOOKAHEAD = 10
+        private const val FREQUENTLY_PLAYED_COUNT = 200
+        private const val MAX_PENDING = 2_000
+
+        private val DEFAULT_WORKER_COUNT = (Runtime.getRuntime().availableProcessors() / 4).coerceIn(1, 2)
+    }
+
+    /**
+     * Seeds the most played tracks and starts the workers once the main window exists. Reads the
+     * library on the calling thread, which is the JavaFX Application Thread for [StageReadyEvent].
+     */
+    @EventListener(StageReadyEvent::class)
+    fun start() {
+        if (started) return
+        started = true
+
+        // While the library streams in after a progressive boot, its create events are not new tracks
+        val libraryItems = if (libraryLoading) null else audioLibrary.audioItemsProperty.toList()
+        librarySubscription =
+            audioLibrary.subscribe { event ->
+                if (event.isCreate() && !libraryLoading) {
+                    request(event.entities.keys, Reason.RECENTLY_ADDED)
+                }
+            }
+
+        scope.launch {
+            delay(startDelayMillis)
+            libraryItems?.let(::requestMostPlayed)
+            logger.debug { "Starting $workerCount waveform precompute worker(s) with a CPU budget of $cpuBudget" }
+            repeat(workerCount) { scope.launch { runWorker() } }
+        }
+    }
+
+    /**
+     * Seeds the most played tracks once the library has finished streaming in, when it was still
+     * partial at [start].
+     */
+    @EventListener
+    fun libraryLoadingEventListener(event: LibraryLoadingEvent) {
+        val wasLoading = libraryLoading
+        libraryLoading = !event.isComplete
+        if (started && wasLoading && event.isComplete) {
+            Platform.runLater {
+                val libraryItems = audioLibrary.audioItemsProperty.toList()
+                scope.launch { requestMostPlayed(libraryItems) }
+            }
+        }
+    }
+
+    private fun requestMostPlayed(libraryItems: List<ObservableAudioItem>) {
+        val mostPlayed =
+            libraryItems
+                .filter { it.playCount > 0 }
+                .sortedByDescending { it.playCount }
+                .take(FREQUENTLY_PLAYED_COUNT)
+                .map { it.id }
+        request(mostPlayed, Reason.FREQUENTLY_PLAYED)
+    }
+
+    /**
+     * Schedules the waveforms of the given tracks. A track already pending keeps its place unless
+     * [reason] has a higher priority than the one it was scheduled with.
+     */
+    fun request(trackIds: Collection<Int>, reason: Reason) {
+        trackIds.forEach { trackId ->
+            if (reason != Reason.QUEUED && pendingReasons.size >= MAX_PENDING) return
+            val previous = pendingReasons[trackId]
+            if (previous == null || reason < previous) {
+                pendingReasons[trackId] = reason
+                candidates.add(Candidate(trackId, reason, sequence.getAndIncrement()))
+            }
+        }
+    }
+
+    /**
+     * Schedules the next few tracks of the play queue whenever tracks are queued. Queue storage is
+     * inverted, so the next-up tracks are at its end; only those are copied out of the queue, and
+     * only when the change reached them.
+     */
+    @EventListener
+    fun queueUpdatedEventListener(event: QueueUpdatedEvent) {
+        val change = event.change
+        val reachesNextUp =
+            when (change.type()) {
+                QueueChange.Type.RESET -> true
+                // Tracks added farther out than the lookahead, such as a shuffle top-up, change nothing
+                QueueChange.Type.ADDED -> change.toIndex() > event.size() - QUEUE_LOOKAHEAD
+                else -> false
+            }
+        if (reachesNextUp) {
+            request(event.nextUp(QUEUE_LOOKAHEAD).asReversed(), Reason.QUEUED)
+        }
+    }
+
+    private suspend fun runWorker() {
+        while (currentCoroutineContext().isActive) {
+            if (mediaImportService.isImporting()) {
+                delay(IMPORT_PAUSE_POLL_MILLIS)
+                continue
+            }
+            val candidate = candidates.poll()
+            if (candidate == null) {
+                delay(IDLE_POLL_MILLIS)
+                continue
+            }
+            // A track rescheduled with a higher priority leaves its older entry behind; only the
+            // first one polled still has a pending reason
+            if (pendingReasons.remove(candidate.trackId) == null) continue
+
+            val computeMillis = precompute(candidate)
+            delay((computeMillis * (1 - cpuBudget) / cpuBudget).toLong())
+        }
+    }
+
+    private suspend fun precompute(candidate: Candidate): Long {
+        val audioItem = audioLibrary.findById(candidate.trackId).orElse(null) as? ObservableAudioItem
+        if (audioItem == null || waveformPeakService.hasPeaks(audioItem.id) || !Files.exists(audioItem.path)) return 0
+
+        val startNanos = System.nanoTime()
+        try {
+            waveformPeakService.peaksAsync(audioItem).await()
+            logger.trace { "Precomputed waveform of track ${candidate.trackId} (${candidate.reason})" }
+        } catch (exception: CancellationException) {
+            throw exception
+        } catch (exception: Exception) {
+            logger.debug(exception) { "Could not precompute waveform of track ${candidate.trackId}" }
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000
+    }
+
+    /**
+     * Returns the number of tracks waiting to have their waveform computed.
+     */
+    fun pendingCount(): Int = pendingReasons.size
+
+    /**
+     * Stops the workers and the library subscription. Invoked automatically by Spring on context shutdown.
+     */
+    @PreDestroy
+    fun close() {
+        librarySubscription?.cancel()
+        job.cancel()
+        logger.debug { "WaveformPrecomputeService scope cancelled" }
+    }
+}
@@ -0,0 +1,44 @@
+package net.transgressoft.musicott;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.AotDetector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MusicottApplication")
+class MusicottApplicationTest {
+
+    @AfterEach
+    void clearAotFlag() {
+        System.clearProperty(AotDetector.AOT_ENABLED);
+    }
+
+    @Test
+    @DisplayName("starts without the AOT context when its initializer was not generated")
+    void startsWithoutTheAotContextWhenItsInitializerWasNotGenerated() {
+        System.setProperty(AotDetector.AOT_ENABLED, "true");
+
+        MusicottApplication.fallBackFromMissingAotInitializer(MusicottApplication.class);
+
+        assertThat(AotDetector.useGeneratedArtifacts()).isFalse();
+    }
+
+    @Test
+    @DisplayName("keeps the AOT context when its initializer is on the classpath")
+    void keepsTheAotContextWhenItsInitializerIsOnTheClasspath() {
+        System.setProperty(AotDetector.AOT_ENABLED, "true");
+
+        MusicottApplication.fallBackFromMissingAotInitializer(Processed.class);
+
+        assertThat(AotDetector.useGeneratedArtifacts()).isTrue();
+    }
+
+    static class Processed {
+    }
+
+    /** Stands in for the initializer Spring AOT generates for {@link Processed}. */
+    static class Processed__ApplicationContextInitializer {
+    }
+}
@@ -1,10 +1,16 @@
 package net.transgressoft.musicott.service;
 
 import net.transgressoft.commons.fx.music.FXMusicLibrary;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
 import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
 import net.transgressoft.commons.music.audio.AudioFileType;
+import net.transgressoft.commons.music.audio.AudioMetadataIO;
 import net.transgressoft.commons.music.itunes.ItunesImportPolicy;
+import net.transgressoft.lirp.persistence.Repository;
+import net.transgressoft.musicott.persistence.FileFingerprintStore;
+import net.transgressoft.musicott.services.PlayerService;
 import net.transgressoft.musicott.view.custom.alerts.AlertFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,7 +20,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -41,15 +46,32 @@ class MediaImportServiceTest {
     @Mock
     FXMusicLibrary fxMusicLibrary;
 
+    @Mock
+    Repository<Integer, ObservableAudioItem> audioItemRepository;
+
     @Mock
     AlertFactory alertFactory;
 
+    @Mock
+    FileFingerprintStore fileFingerprints;
+
+    @Mock
+    AudioMetadataIO audioMetadataIO;
+
+    @Mock
+    PlayerService playerService;
+
     MediaImportService service;
 
     @BeforeEach
     void setUp() {
         when(fxMusicLibrary.audioLibrary()).thenReturn(audioLibrary);
-        service = new MediaImportService(applicationEventPublisher, fxMusicLibrary, alertFactory);
+        service = new MediaImportService(applicationEventPublisher, fxMusicLibrary, audioItemRepository, alertFactory, fileFingerprints, audioMetadataIO, playerService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
     }
 
     @Test
@@ -79,42 +101,4 @@ class MediaImportServiceTest {
     void isImportingReturnsFalseInitially() {
         assertThat(service.isImporting()).isFalse();
     }
-
-    @Test
-    @DisplayName("import progress fraction formula produces values within [0.0, 1.0] in non-decreasing order")
-    void importProgressFractionFormulaProducesValuesWithinBoundsInNonDecreasingOrder() {
-        // Directly validates the formula progress.getAndIncrement().toDouble() / totalFiles
-        // produces a non-decreasing sequence bounded by [0.0, 1.0].
-        // This mirrors the calculation MediaImportService uses in importFiles/importDirectory
-        // when publishing StatusProgressUpdateEvent per created audio item.
-        int totalFiles = 5;
-        List<Double> progressValues = new ArrayList<>();
-        AtomicInteger progress = new AtomicInteger(0);
-
-        for (int i = 0; i < totalFiles; i++) {
-            double fraction = (double) progress.getAndIncrement() / totalFiles;
-            progressValues.add(fraction);
-        }
-
-        assertThat(progressValues).hasSize(totalFiles);
-
-        // All fractions must be within [0.0, 1.0]
-        progressValues.forEach(p ->
-                assertThat(p).as("progress fraction %f must be within [0.0, 1.0]", p)
-                        .isBetween(0.0, 1.0));
-
-        // Values must be non-decreasing
-        for (int i = 1; i < progressValues.size(); i++) {
-            assertThat(progressValues.get(i))
-                    .as("progress at index %d must be >= index %d", i, i - 1)
-                    .isGreaterThanOrEqualTo(progressValues.get(i - 1));
-        }
-
-        // First value is 0.0 (0 / totalFiles)
-        assertThat(progressValues.get(0)).isEqualTo(0.0);
-
-        // Last value approaches 1.0 (the next increment after totalFiles-1 would give exactly 1.0)
-        double lastFraction = (double) progress.get() / totalFiles;
-        assertThat(lastFraction).isEqualTo(1.0);
-    }
 }
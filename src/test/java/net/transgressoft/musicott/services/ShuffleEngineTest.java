@@ -0,0 +1,101 @@
+package net.transgressoft.musicott.services;
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ShuffleEngine")
+class ShuffleEngineTest {
+
+    @Test
+    @DisplayName("draws every id of the pool exactly once in uniform mode")
+    void drawsEveryIdOfThePoolExactlyOnceInUniformMode() {
+        var pool = pool(200, id -> 0);
+        var engine = new ShuffleEngine(pool, Set.of(), ShuffleEngine.Weighting.UNIFORM, new Random(7));
+
+        assertThat(drawAll(engine)).containsExactlyInAnyOrderElementsOf(ids(200));
+        assertThat(engine.hasNext()).isFalse();
+        assertThat(engine.next()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("draws recently played ids after the rest of the pool in uniform mode")
+    void drawsRecentlyPlayedIdsAfterTheRestOfThePoolInUniformMode() {
+        var pool = pool(50, id -> 0);
+        var recentlyPlayed = Set.of(3, 17, 42);
+        var engine = new ShuffleEngine(pool, recentlyPlayed, ShuffleEngine.Weighting.UNIFORM, new Random(11));
+
+        var drawn = drawAll(engine);
+
+        assertThat(drawn).hasSize(50);
+        assertThat(drawn.subList(47, 50)).containsExactlyInAnyOrderElementsOf(recentlyPlayed);
+    }
+
+    @Test
+    @DisplayName("draws every id of the pool exactly once in weighted mode")
+    void drawsEveryIdOfThePoolExactlyOnceInWeightedMode() {
+        var pool = pool(333, id -> id % 10);
+        var engine = new ShuffleEngine(pool, Set.of(5), ShuffleEngine.Weighting.FAVOR_PLAY_COUNT, new Random(3));
+
+        assertThat(drawAll(engine)).containsExactlyInAnyOrderElementsOf(ids(333));
+    }
+
+    @Test
+    @DisplayName("favors frequently played tracks in weighted mode")
+    void favorsFrequentlyPlayedTracksInWeightedMode() {
+        // Ids 0-9 were played a thousand times each, ids 10-99 never
+        var pool = pool(100, id -> id < 10 ? 1000 : 0);
+        int favoredFirstDraws = 0;
+        for (int seed = 0; seed < 500; seed++) {
+            var engine = new ShuffleEngine(pool, Set.of(), ShuffleEngine.Weighting.FAVOR_PLAY_COUNT, new Random(seed));
+            if (engine.next().getAsInt() < 10)
+                favoredFirstDraws++;
+        }
+
+        // Uniform draws would pick one of them about 10% of the time; the log weighting gives about 47%
+        assertThat(favoredFirstDraws).isGreaterThan(150);
+    }
+
+    @Test
+    @DisplayName("has nothing to draw from an empty pool")
+    void hasNothingToDrawFromAnEmptyPool() {
+        var engine = new ShuffleEngine(List.of(), Set.of(), ShuffleEngine.Weighting.FAVOR_PLAY_COUNT, new Random());
+
+        assertThat(engine.poolSize()).isZero();
+        assertThat(engine.hasNext()).isFalse();
+        assertThat(engine.next()).isEmpty();
+    }
+
+    private List<ObservableAudioItem> pool(int size, IntUnaryOperator playCountOf) {
+        var pool = new ArrayList<ObservableAudioItem>(size);
+        for (int id = 0; id < size; id++) {
+            ObservableAudioItem item = mock(ObservableAudioItem.class);
+            when(item.getId()).thenReturn(id);
+            when(item.getPlayCount()).thenReturn((short) playCountOf.applyAsInt(id));
+            pool.add(item);
+        }
+        return pool;
+    }
+
+    private List<Integer> ids(int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    private List<Integer> drawAll(ShuffleEngine engine) {
+        var drawn = new ArrayList<Integer>();
+        while (engine.hasNext())
+            drawn.add(engine.next().getAsInt());
+        return drawn;
+    }
+}
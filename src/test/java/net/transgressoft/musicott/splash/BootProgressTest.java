@@ -0,0 +1,62 @@
+package net.transgressoft.musicott.splash;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("BootProgress")
+class BootProgressTest {
+
+    BootProgress progress = new BootProgress();
+
+    @Test
+    @DisplayName("is indeterminate until a step is registered")
+    void isIndeterminateUntilAStepIsRegistered() {
+        assertThat(progress.fraction()).isEqualTo(-1);
+        assertThat(progress.message()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("weighs every step the same whatever its unit")
+    void weighsEveryStepTheSameWhateverItsUnit() {
+        BootProgress.Step bytes = progress.step("Loading library…", 1_000_000);
+        BootProgress.Step playlists = progress.step("Loading playlists…", 10);
+
+        bytes.advance(500_000);
+        playlists.update(10, 10);
+
+        assertThat(progress.fraction()).isCloseTo(0.75, within(1e-9));
+    }
+
+    @Test
+    @DisplayName("shows the message of the least advanced unfinished step")
+    void showsTheMessageOfTheLeastAdvancedUnfinishedStep() {
+        BootProgress.Step library = progress.step("Loading library…", 100);
+        BootProgress.Step playlists = progress.step("Loading playlists…", 100);
+        BootProgress.Step waveforms = progress.step("Loading waveforms…", 0);
+
+        library.advance(20);
+        playlists.advance(60);
+        waveforms.complete();
+
+        assertThat(progress.message()).contains("Loading library…");
+
+        library.complete();
+        assertThat(progress.message()).contains("Loading playlists…");
+
+        playlists.complete();
+        assertThat(progress.message()).isEmpty();
+        assertThat(progress.fraction()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("counts a step of unknown size as not started")
+    void countsAStepOfUnknownSizeAsNotStarted() {
+        progress.step("Loading library…", 0).advance(42);
+        progress.step("Loading playlists…", 4).advance(4);
+
+        assertThat(progress.fraction()).isCloseTo(0.5, within(1e-9));
+    }
+}
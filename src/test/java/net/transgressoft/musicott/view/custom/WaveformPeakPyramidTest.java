@@ -0,0 +1,56 @@
+package net.transgressoft.musicott.view.custom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("WaveformPeakPyramid")
+class WaveformPeakPyramidTest {
+
+    @Test
+    @DisplayName("halves the columns per level down to the minimum")
+    void halvesTheColumnsPerLevelDownToTheMinimum() {
+        var pyramid = WaveformPeakPyramid.of(new float[4096]);
+
+        // 4096, 2048, 1024, 512, 256, 128, 64
+        assertThat(pyramid.levelCount()).isEqualTo(7);
+        assertThat(pyramid.columns(0)).isEqualTo(4096);
+        assertThat(pyramid.columns(6)).isEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("picks the coarsest level that still covers the requested width")
+    void picksTheCoarsestLevelThatStillCoversTheRequestedWidth() {
+        var pyramid = WaveformPeakPyramid.of(new float[4096]);
+
+        assertThat(pyramid.columns(pyramid.levelFor(600))).isEqualTo(1024);
+        assertThat(pyramid.columns(pyramid.levelFor(64))).isEqualTo(64);
+        assertThat(pyramid.levelFor(8000)).isZero();
+    }
+
+    @Test
+    @DisplayName("keeps a single loud sample visible at any width")
+    void keepsASingleLoudSampleVisibleAtAnyWidth() {
+        var amplitudes = new float[4096];
+        amplitudes[2049] = 30f;
+        var pyramid = WaveformPeakPyramid.of(amplitudes);
+
+        for (int width : new int[] {37, 600, 1920, 5000}) {
+            float[] peaks = pyramid.peaksFor(width);
+            assertThat(peaks).hasSize(width);
+            float max = 0f;
+            for (float peak : peaks)
+                max = Math.max(max, peak);
+            assertThat(max).as("max peak at width %d", width).isEqualTo(1f);
+        }
+    }
+
+    @Test
+    @DisplayName("normalizes peaks against the loudest amplitude")
+    void normalizesPeaksAgainstTheLoudestAmplitude() {
+        var pyramid = WaveformPeakPyramid.of(new float[] {2f, -4f, 1f, 0f});
+
+        assertThat(pyramid.peaksFor(4)).containsExactly(0.5f, 1f, 0.25f, 0f);
+    }
+}
@@ -0,0 +1,93 @@
+package net.transgressoft.musicott.persistence
+
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.attribute.FileTime
+
+@DisplayName("FileFingerprintStore")
+class FileFingerprintStoreTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val storeFile: Path by lazy { tempDir.resolve("fingerprints.bin") }
+
+    fun file(name: String, content: String): Path = tempDir.resolve(name).also { Files.writeString(it, content) }
+
+    fun attributesOf(file: Path): BasicFileAttributes = Files.readAttributes(file, BasicFileAttributes::class.java)
+
+    fun moveModifiedTime(file: Path) =
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000))
+
+    @Test
+    @DisplayName("reads back the fingerprints flushed in a previous session")
+    fun readsBackTheFingerprintsFlushedInAPreviousSession() {
+        val track = file("track.mp3", "ID3 tags and audio")
+        FileFingerprintStore(storeFile).use { store -> store.record(track) }
+
+        FileFingerprintStore(storeFile).use { store ->
+            assert(store.size() == 1) { "Expected 1 fingerprint, but got ${store.size()}" }
+            assert(store[track]?.size == Files.size(track)) { "Fingerprint ${store[track]}" }
+            assert(store.isUnchanged(track, attributesOf(track)))
+        }
+    }
+
+    @Test
+    @DisplayName("does not consider unchanged a file that was never recorded or whose size changed")
+    fun doesNotConsiderUnchangedAFileThatWasNeverRecordedOrWhoseSizeChanged() {
+        val recorded = file("recorded.mp3", "tags")
+        val unrecorded = file("unrecorded.mp3", "tags")
+        val store = FileFingerprintStore(storeFile)
+        store.record(recorded)
+
+        Files.writeString(recorded, "longer tags")
+
+        assert(!store.isUnchanged(recorded, attributesOf(recorded)))
+        assert(!store.isUnchanged(unrecorded, attributesOf(unrecorded)))
+    }
+
+    @Test
+    @DisplayName("considers unchanged a touched file whose content is the same")
+    fun considersUnchangedATouchedFileWhoseContentIsTheSame() {
+        val track = file("track.flac", "fLaC tags")
+        val store = FileFingerprintStore(storeFile)
+        store.record(track)
+
+        moveModifiedTime(track)
+
+        assert(store.isUnchanged(track, attributesOf(track)))
+        assert(store[track]?.lastModifiedMillis == Files.getLastModifiedTime(track).toMillis()) { "Fingerprint ${store[track]}" }
+    }
+
+    @Test
+    @DisplayName("detects a retag that kept the size of the file")
+    fun detectsARetagThatKeptTheSizeOfTheFile() {
+        val track = file("track.mp3", "artist: A")
+        val store = FileFingerprintStore(storeFile)
+        store.record(track)
+
+        Files.writeString(track, "artist: B")
+        moveModifiedTime(track)
+
+        assert(!store.isUnchanged(track, attributesOf(track)))
+    }
+
+    @Test
+    @DisplayName("forgets the files under a removed directory")
+    fun forgetsTheFilesUnderARemovedDirectory() {
+        Files.createDirectories(tempDir.resolve("album"))
+        val inAlbum = file("album/1.mp3", "tags")
+        val outside = file("single.mp3", "tags")
+        val store = FileFingerprintStore(storeFile)
+        store.record(inAlbum)
+        store.record(outside)
+
+        store.removeUnder(tempDir.resolve("album"))
+
+        assert(inAlbum !in store && outside in store)
+    }
+}
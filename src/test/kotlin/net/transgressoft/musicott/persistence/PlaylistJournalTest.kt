@@ -0,0 +1,122 @@
+package net.transgressoft.musicott.persistence
+
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+@DisplayName("PlaylistJournal")
+class PlaylistJournalTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val journalFile: Path by lazy { tempDir.resolve("playlists.journal") }
+
+    @Test
+    @DisplayName("reads back the latest document of every id after a reopen")
+    fun readsBackTheLatestDocumentOfEveryIdAfterAReopen() {
+        PlaylistJournal(journalFile).use { journal ->
+            journal.appendAll(mapOf(1 to """{"name":"Rock"}""", 2 to """{"name":"Jazz"}"""))
+            journal.appendAll(mapOf(1 to """{"name":"Rock & Roll"}"""))
+            journal.appendAll(mapOf(2 to null))
+        }
+
+        PlaylistJournal(journalFile).use { journal ->
+            assert(journal.documents() == mapOf(1 to """{"name":"Rock & Roll"}"""))
+        }
+    }
+
+    @Test
+    @DisplayName("appends a single line per written document")
+    fun appendsASingleLinePerWrittenDocument() {
+        PlaylistJournal(journalFile).use { journal ->
+            journal.appendAll(mapOf(1 to "{}".repeat(5_000)))
+            val sizeAfterFirst = Files.size(journalFile)
+            journal.appendAll(mapOf(2 to """{"a":1}"""))
+
+            // "2\t{"a":1}\n"
+            assert(Files.size(journalFile) == sizeAfterFirst + 10) {
+                "Expected ${sizeAfterFirst + 10} bytes, but got ${Files.size(journalFile)}"
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("drops a line cut short by a crash and keeps the ones before it")
+    fun dropsALineCutShortByACrash() {
+        PlaylistJournal(journalFile).use { journal ->
+            journal.appendAll(mapOf(1 to """{"name":"Rock"}"""))
+        }
+        val intactSize = Files.size(journalFile)
+        Files.writeString(journalFile, "2\t{\"name\":\"Ja", StandardOpenOption.APPEND)
+
+        PlaylistJournal(journalFile).use { journal ->
+            assert(journal.documents().keys == setOf(1))
+            journal.appendAll(mapOf(3 to """{"name":"Pop"}"""))
+        }
+
+        assert(Files.size(journalFile) == intactSize + "3\t{\"name\":\"Pop\"}".length + 1)
+        PlaylistJournal(journalFile).use { journal ->
+            assert(journal.documents().keys == setOf(1, 3))
+        }
+    }
+
+    @Test
+    @DisplayName("compacts to one line per live id once superseded lines dominate")
+    fun compactsToOneLinePerLiveId() {
+        val large = """{"items":[${(1..2_000).joinToString(",")}]}"""
+        PlaylistJournal(journalFile).use { journal ->
+            repeat(40) { journal.appendAll(mapOf(1 to large)) }
+            journal.appendAll(mapOf(2 to """{"a":1}""", 3 to """{"b":2}"""))
+            journal.appendAll(mapOf(3 to null))
+            assert(journal.needsCompaction())
+
+            journal.compact()
+
+            assert(!journal.needsCompaction())
+            journal.appendAll(mapOf(4 to """{"c":3}"""))
+        }
+
+        val lines = Files.readAllLines(journalFile)
+        assert(lines.size == 4) { "Expected a header and three lines, but got ${lines.size}" }
+        PlaylistJournal(journalFile).use { journal ->
+            assert(journal.documents() == mapOf(1 to large, 2 to """{"a":1}""", 4 to """{"c":3}"""))
+        }
+    }
+
+    @Test
+    @DisplayName("migrates the playlists of a legacy JSON file once")
+    fun migratesThePlaylistsOfALegacyJsonFileOnce() {
+        val jsonFile = tempDir.resolve("playlists.json")
+        Files.writeString(jsonFile, """{"1":{"name":"Rock"},"7":{"name":"Jazz","playlists":[1]}}""")
+
+        PlaylistJournal(journalFile).use { journal ->
+            PlaylistJournal.migrateJsonFile(jsonFile, journal)
+            assert(journal.documents() == mapOf(1 to """{"name":"Rock"}""", 7 to """{"name":"Jazz","playlists":[1]}"""))
+        }
+
+        assert(!Files.exists(jsonFile))
+        assert(Files.exists(tempDir.resolve("playlists.json.migrated")))
+    }
+
+    @Test
+    @DisplayName("starts over from a torn header and migrates the legacy JSON file again")
+    fun startsOverFromATornHeaderAndMigratesTheLegacyJsonFileAgain() {
+        Files.writeString(journalFile, "musicott-play")
+        val jsonFile = tempDir.resolve("playlists.json")
+        Files.writeString(jsonFile, """{"1":{"name":"Rock"}}""")
+
+        PlaylistJournal(journalFile).use { journal ->
+            PlaylistJournal.migrateJsonFile(jsonFile, journal)
+            assert(journal.documents() == mapOf(1 to """{"name":"Rock"}"""))
+        }
+
+        assert(Files.readString(journalFile).startsWith("musicott-playlist-journal 1\n"))
+        PlaylistJournal(journalFile).use { journal ->
+            assert(journal.documents() == mapOf(1 to """{"name":"Rock"}"""))
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package net.transgressoft.musicott.persistence
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.lirp.persistence.Repository
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.RETURNS_DEFAULTS
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import java.time.LocalDateTime
+import java.util.Optional
+
+@DisplayName("ProgressiveAudioRepository")
+class ProgressiveAudioRepositoryTest {
+
+    val addedToVisible = mutableListOf<Int>()
+    val visibleChanges = mutableListOf<Set<Int>>()
+
+    // Repositories answering search and findById with the given items, accepting every add
+    @Suppress("UNCHECKED_CAST")
+    fun repository(items: Collection<ObservableAudioItem> = emptyList()): Repository<Int, ObservableAudioItem> {
+        val stored = items.associateByTo(LinkedHashMap()) { it.id }
+        return mock(Repository::class.java) { invocation ->
+            when (invocation.method.name) {
+                "search" -> stored.values.toSet()
+                "findById" -> Optional.ofNullable(stored[invocation.arguments[0] as Int])
+                "add" -> true
+                "remove" -> stored.remove((invocation.arguments[0] as ObservableAudioItem).id) != null
+                else -> RETURNS_DEFAULTS.answer(invocation)
+            }
+        } as Repository<Int, ObservableAudioItem>
+    }
+
+    // Records the ids added to it, in order, and each set of ids added at once
+    @Suppress("UNCHECKED_CAST")
+    fun visibleRepository(): Repository<Int, ObservableAudioItem> {
+        val stored = mutableMapOf<Int, ObservableAudioItem>()
+        return mock(Repository::class.java) { invocation ->
+            when (invocation.method.name) {
+                "add" -> {
+                    val item = invocation.arguments[0] as ObservableAudioItem
+                    stored[item.id] = item
+                    addedToVisible.add(item.id)
+                }
+                "addOrReplaceAll" -> {
+                    val items = invocation.arguments[0] as Set<ObservableAudioItem>
+                    items.associateByTo(stored) { it.id }
+                    visibleChanges.add(items.map { it.id }.toSet())
+                }
+                "findById" -> Optional.ofNullable(stored[invocation.arguments[0] as Int])
+                "remove" -> stored.remove((invocation.arguments[0] as ObservableAudioItem).id) != null
+                else -> RETURNS_DEFAULTS.answer(invocation)
+            }
+        } as Repository<Int, ObservableAudioItem>
+    }
+
+    fun audioItem(id: Int): ObservableAudioItem {
+        val item = mock(ObservableAudioItem::class.java)
+        `when`(item.id).thenReturn(id)
+        `when`(item.dateOfCreation).thenReturn(LocalDateTime.of(2020, 1, 1, 0, 0).plusDays(id.toLong()))
+        return item
+    }
+
+    fun progressiveRepository(backing: Repository<Int, ObservableAudioItem>) =
+        ProgressiveAudioRepository(
+            backing,
+            compareByDescending { it.dateOfCreation },
+            firstPageSize = 3,
+            batchSize = 4,
+            bulkWriteSize = 2,
+            visible = visibleRepository()
+        )
+
+    @Test
+    @DisplayName("starts with the first page in the given order")
+    fun startsWithTheFirstPageInTheGivenOrder() {
+        val repository = progressiveRepository(repository((1..10).map(::audioItem)))
+
+        assert(addedToVisible == listOf(10, 9, 8))
+        assert(repository.loadedCount() == 3)
+        assert(repository.totalCount() == 10)
+        assert(!repository.isFullyLoaded())
+    }
+
+    @Test
+    @DisplayName("streams the remaining tracks in batches, each in a single change, and reports each one")
+    fun streamsTheRemainingTracksInBatches() {
+        val repository = progressiveRepository(repository((1..10).map(::audioItem)))
+        val reported = mutableListOf<Pair<Int, Int>>()
+
+        repository.streamRemaining { loaded, total -> reported.add(loaded to total) }
+
+        assert(addedToVisible == listOf(10, 9, 8))
+        assert(visibleChanges == listOf(setOf(7, 6, 5, 4), setOf(3, 2, 1))) { "Visible changes $visibleChanges" }
+        assert(reported == listOf(7 to 10, 10 to 10)) { "Reported $reported" }
+        assert(repository.isFullyLoaded())
+    }
+
+    @Test
+    @DisplayName("finds tracks that have not been streamed yet")
+    fun findsTracksThatHaveNotBeenStreamedYet() {
+        val repository = progressiveRepository(repository((1..10).map(::audioItem)))
+
+        assert(repository.findById(1).map { it.id }.orElse(null) == 1)
+        assert(repository.findById(11).isEmpty)
+    }
+
+    @Test
+    @DisplayName("removes a pending track from the backing repository and skips it when streaming")
+    fun removesAPendingTrackFromTheBackingRepository() {
+        val items = (1..10).map(::audioItem)
+        val backing = repository(items)
+        val repository = progressiveRepository(backing)
+
+        assert(repository.remove(items[0]))
+        repository.streamRemaining { _, _ -> }
+
+        verify(backing).remove(items[0])
+        assert(visibleChanges.none { 1 in it })
+        assert(repository.totalCount() == 9)
+        assert(repository.loadedCount() == 9)
+    }
+
+    @Test
+    @DisplayName("adds new tracks to the backing repository too")
+    fun addsNewTracksToTheBackingRepositoryToo() {
+        val backing = repository()
+        val repository = progressiveRepository(backing)
+        val item = audioItem(42)
+
+        assert(repository.add(item))
+
+        verify(backing).add(item)
+        assert(repository.isFullyLoaded())
+    }
+
+    @Test
+    @DisplayName("holds back the tracks of a bulk import and publishes them in a single change")
+    fun holdsBackTheTracksOfABulkImport() {
+        val backing = repository()
+        val repository = progressiveRepository(backing)
+        val heldCounts = mutableListOf<Int>()
+        val items = (1..5).map(::audioItem)
+
+        val bulkImport = repository.beginBulkImport { heldCounts.add(it) }
+        items.forEach { assert(repository.add(it)) }
+
+        assert(addedToVisible.isEmpty())
+        assert(heldCounts == listOf(1, 2, 3, 4, 5))
+        assert(repository.findById(3).isPresent)
+
+        assert(bulkImport.end() == 5)
+
+        assert(visibleChanges == listOf((1..5).toSet())) { "Visible changes $visibleChanges" }
+        verify(backing).addOrReplaceAll(setOf(items[0], items[1]))
+        verify(backing).addOrReplaceAll(setOf(items[2], items[3]))
+        verify(backing).addOrReplaceAll(setOf(items[4]))
+    }
+
+    @Test
+    @DisplayName("publishes the tracks held so far and keeps holding back the next ones")
+    fun publishesTheTracksHeldSoFarAndKeepsHoldingBackTheNextOnes() {
+        val backing = repository()
+        val repository = progressiveRepository(backing)
+        val items = (1..4).map(::audioItem)
+        val bulkImport = repository.beginBulkImport()
+
+        items.take(3).forEach { repository.add(it) }
+        assert(bulkImport.publish() == 3)
+        repository.add(items[3])
+
+        assert(visibleChanges == listOf(setOf(1, 2, 3))) { "Visible changes $visibleChanges" }
+        assert(addedToVisible.isEmpty())
+        verify(backing).addOrReplaceAll(setOf(items[2]))
+
+        assert(bulkImport.end() == 1)
+        assert(visibleChanges == listOf(setOf(1, 2, 3), setOf(4))) { "Visible changes $visibleChanges" }
+    }
+
+    @Test
+    @DisplayName("adds tracks normally once the bulk import has ended")
+    fun addsTracksNormallyOnceTheBulkImportHasEnded() {
+        val backing = repository()
+        val repository = progressiveRepository(backing)
+        val bulkImport = repository.beginBulkImport()
+        repository.add(audioItem(1))
+        bulkImport.end()
+
+        val item = audioItem(2)
+        assert(repository.add(item))
+
+        assert(addedToVisible == listOf(2))
+        verify(backing).add(item)
+        assert(bulkImport.end() == 0)
+    }
+
+    @Test
+    @DisplayName("does not publish a held track removed during the bulk import")
+    fun doesNotPublishAHeldTrackRemovedDuringTheBulkImport() {
+        val backing = repository()
+        val repository = progressiveRepository(backing)
+        val items = (1..3).map(::audioItem)
+        val bulkImport = repository.beginBulkImport()
+        items.forEach { repository.add(it) }
+
+        assert(repository.remove(items[2]))
+        bulkImport.end()
+
+        assert(visibleChanges == listOf(setOf(1, 2)))
+        verify(backing).remove(items[2])
+    }
+}
@@ -0,0 +1,155 @@
+package net.transgressoft.musicott.persistence
+
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+@DisplayName("WaveformBinaryStore")
+class WaveformBinaryStoreTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val storeFile: Path by lazy { tempDir.resolve("waveforms.bin") }
+
+    @Test
+    @DisplayName("reads back payloads written in a previous session")
+    fun readsBackPayloadsWrittenInAPreviousSession() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, byteArrayOf(1, 2, 3))
+            store.put(300, ByteArray(1_000) { it.toByte() })
+        }
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.get(1)!!.contentEquals(byteArrayOf(1, 2, 3)))
+            assert(store.get(300)!!.contentEquals(ByteArray(1_000) { it.toByte() }))
+            assert(store.get(2) == null)
+            assert(store.ids() == setOf(1, 300))
+        }
+    }
+
+    @Test
+    @DisplayName("appends on write instead of rewriting the file")
+    fun appendsOnWriteInsteadOfRewritingTheFile() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, ByteArray(100))
+            val sizeAfterFirst = Files.size(storeFile)
+            store.put(2, ByteArray(100))
+
+            // 100 payload bytes plus a one-byte id and a one-byte length
+            assert(Files.size(storeFile) == sizeAfterFirst + 102) {
+                "Expected ${sizeAfterFirst + 102} bytes, but got ${Files.size(storeFile)}"
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("serves the latest value and forgets removed ids after a reopen")
+    fun servesTheLatestValueAndForgetsRemovedIdsAfterAReopen() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, byteArrayOf(1))
+            store.put(1, byteArrayOf(2))
+            store.put(2, byteArrayOf(3))
+            store.remove(2)
+            assert(store.get(1)!!.contentEquals(byteArrayOf(2)))
+            assert(!store.contains(2))
+        }
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.get(1)!!.contentEquals(byteArrayOf(2)))
+            assert(!store.contains(2))
+        }
+    }
+
+    @Test
+    @DisplayName("drops a record cut short by a crash and keeps the ones before it")
+    fun dropsARecordCutShortByACrash() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, byteArrayOf(1, 2, 3))
+        }
+        val intactSize = Files.size(storeFile)
+        // Id 2 announcing ten payload bytes of which only two were written
+        Files.write(storeFile, byteArrayOf(2, 10, 7, 7), StandardOpenOption.APPEND)
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.ids() == setOf(1))
+            store.put(3, byteArrayOf(9))
+        }
+
+        assert(Files.size(storeFile) == intactSize + 3)
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.get(3)!!.contentEquals(byteArrayOf(9)))
+        }
+    }
+
+    @Test
+    @DisplayName("drops a record whose header was cut short in the middle of a varint")
+    fun dropsARecordCutShortInTheMiddleOfAVarint() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, byteArrayOf(1, 2, 3))
+        }
+        val intactSize = Files.size(storeFile)
+        // Id 2 followed by the first byte of a two-byte length
+        Files.write(storeFile, byteArrayOf(2, 0x80.toByte()), StandardOpenOption.APPEND)
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.ids() == setOf(1))
+            assert(store.get(1)!!.contentEquals(byteArrayOf(1, 2, 3)))
+        }
+
+        assert(Files.size(storeFile) == intactSize)
+    }
+
+    @Test
+    @DisplayName("drops a record with a malformed varint and keeps the ones before it")
+    fun dropsARecordWithAMalformedVarint() {
+        WaveformBinaryStore(storeFile).use { store ->
+            store.put(1, byteArrayOf(1, 2, 3))
+        }
+        val intactSize = Files.size(storeFile)
+        // More continuation bytes than any int takes
+        Files.write(storeFile, ByteArray(6) { 0xFF.toByte() }, StandardOpenOption.APPEND)
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.ids() == setOf(1))
+            store.put(2, byteArrayOf(4))
+        }
+
+        assert(Files.size(storeFile) == intactSize + 3)
+    }
+
+    @Test
+    @DisplayName("starts over when the file header was cut short")
+    fun startsOverWhenTheFileHeaderWasCutShort() {
+        Files.write(storeFile, byteArrayOf('M'.code.toByte(), 'W'.code.toByte()))
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.ids().isEmpty())
+            store.put(1, byteArrayOf(1))
+        }
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.get(1)!!.contentEquals(byteArrayOf(1)))
+        }
+    }
+
+    @Test
+    @DisplayName("compacts superseded records when they take up most of the file")
+    fun compactsSupersededRecordsWhenTheyTakeUpMostOfTheFile() {
+        WaveformBinaryStore(storeFile).use { store ->
+            repeat(10) { store.put(1, ByteArray(20_000) { i -> (i + it).toByte() }) }
+        }
+        val uncompactedSize = Files.size(storeFile)
+
+        WaveformBinaryStore(storeFile).use { store ->
+            assert(store.get(1)!!.contentEquals(ByteArray(20_000) { i -> (i + 9).toByte() }))
+        }
+
+        assert(Files.size(storeFile) < uncompactedSize / 5) {
+            "Expected the store to shrink from $uncompactedSize bytes, but it is ${Files.size(storeFile)}"
+        }
+    }
+}
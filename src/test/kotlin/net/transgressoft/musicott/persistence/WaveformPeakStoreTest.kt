@@ -0,0 +1,32 @@
+package net.transgressoft.musicott.persistence
+
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+import kotlin.math.abs
+
+@DisplayName("WaveformPeakStore")
+class WaveformPeakStoreTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val storeFile: Path by lazy { tempDir.resolve("waveform-peaks.bin") }
+
+    @Test
+    @DisplayName("reads back the peaks of a previous session within a byte's resolution")
+    fun readsBackThePeaksOfAPreviousSession() {
+        val peaks = FloatArray(4096) { (it % 100) / 99f }
+        WaveformPeakStore(WaveformBinaryStore(storeFile)).use { store ->
+            store.put(7, peaks)
+        }
+
+        WaveformPeakStore(WaveformBinaryStore(storeFile)).use { store ->
+            val stored = store.get(7)!!
+            assert(stored.size == peaks.size)
+            assert(stored.indices.all { abs(stored[it] - peaks[it]) <= 0.5f / 255 }) { "Peaks differ beyond rounding" }
+            assert(store.get(8) == null)
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import kotlinx.coroutines.yield
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.nio.file.Path
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+@DisplayName("DeviceConcurrencyLimiter")
+class DeviceConcurrencyLimiterTest {
+
+    val disk = StorageDevice("disk", StorageDevice.Kind.ROTATIONAL)
+    val ssd = StorageDevice("ssd", StorageDevice.Kind.SOLID_STATE)
+
+    val diskFile: Path = Path.of("/disk/music/track.mp3")
+    val ssdFile: Path = Path.of("/ssd/music/track.mp3")
+
+    val clock = AtomicLong()
+
+    val limiter =
+        DeviceConcurrencyLimiter(
+            deviceOf = { if (it.startsWith("/ssd")) ssd else disk },
+            nanoTime = clock::get,
+            windowNanos = TimeUnit.SECONDS.toNanos(1)
+        )
+
+    /**
+     * Occupies every read permit of the disk with reads that block on [release], and returns once
+     * all of them are running.
+     */
+    suspend fun CoroutineScope.holdEveryPermit(release: CountDownLatch): List<Job> {
+        val started = AtomicInteger()
+        val limit = limiter.limitOf(disk)
+        val holders =
+            List(limit) {
+                launch(Dispatchers.IO) {
+                    limiter.withPermit(diskFile) {
+                        started.incrementAndGet()
+                        release.await()
+                    }
+                }
+            }
+        withTimeout(5_000) { while (started.get() < limit) yield() }
+        return holders
+    }
+
+    /**
+     * Plays one throughput window on the disk: keeps every permit busy, has one more read wait
+     * for them if [saturated], and completes a last read once [elapsedMillis] have passed.
+     */
+    fun window(
+        elapsedMillis: Long,
+        saturated: Boolean = true
+    ) = runBlocking {
+        val release = CountDownLatch(1)
+        val holders = holdEveryPermit(release)
+        // Undispatched, the extra read queues up before this line returns
+        val waiter = if (saturated) launch(start = CoroutineStart.UNDISPATCHED) { limiter.withPermit(diskFile) { } } else null
+        release.countDown()
+        (holders + listOfNotNull(waiter)).joinAll()
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(elapsedMillis))
+        limiter.withPermit(diskFile) { }
+        limiter.limitOf(disk)
+    }
+
+    @Test
+    @DisplayName("starts every device at the initial limit of its kind")
+    fun startsEveryDeviceAtTheInitialLimitOfItsKind() {
+        assert(limiter.limitOf(disk) == StorageDevice.Kind.ROTATIONAL.initialLimit)
+        assert(limiter.limitOf(ssd) == StorageDevice.Kind.SOLID_STATE.initialLimit)
+    }
+
+    @Test
+    @DisplayName("never reads more files of a device at once than its limit")
+    fun neverReadsMoreFilesOfADeviceAtOnceThanItsLimit() {
+        val reading = AtomicInteger()
+        val mostReading = AtomicInteger()
+
+        runBlocking {
+            List(20) {
+                launch(Dispatchers.IO) {
+                    limiter.withPermit(diskFile) {
+                        mostReading.accumulateAndGet(reading.incrementAndGet(), ::maxOf)
+                        Thread.sleep(5)
+                        reading.decrementAndGet()
+                    }
+                }
+            }.joinAll()
+        }
+
+        assert(mostReading.get() <= limiter.limitOf(disk)) { "At most ${mostReading.get()} reads at once" }
+    }
+
+    @Test
+    @DisplayName("never reads more files of a device at once than the ceiling, whatever its limit")
+    fun neverReadsMoreFilesOfADeviceAtOnceThanTheCeilingWhateverItsLimit() {
+        val capped = DeviceConcurrencyLimiter(deviceOf = { ssd }, ceiling = { 2 })
+        val reading = AtomicInteger()
+        val mostReading = AtomicInteger()
+
+        runBlocking {
+            List(20) {
+                launch(Dispatchers.IO) {
+                    capped.withPermit(ssdFile) {
+                        mostReading.accumulateAndGet(reading.incrementAndGet(), ::maxOf)
+                        Thread.sleep(5)
+                        reading.decrementAndGet()
+                    }
+                }
+            }.joinAll()
+        }
+
+        assert(mostReading.get() <= 2) { "At most ${mostReading.get()} reads at once" }
+        assert(capped.limitOf(ssd) == StorageDevice.Kind.SOLID_STATE.initialLimit)
+    }
+
+    @Test
+    @DisplayName("does not hold up the reads of a device while another one is saturated")
+    fun doesNotHoldUpTheReadsOfADeviceWhileAnotherOneIsSaturated() {
+        val release = CountDownLatch(1)
+        runBlocking {
+            val holders = holdEveryPermit(release)
+
+            val read = withTimeout(5_000) { limiter.withPermit(ssdFile) { "read" } }
+
+            assert(read == "read")
+            release.countDown()
+            holders.joinAll()
+        }
+    }
+
+    @Test
+    @DisplayName("raises the limit while the throughput keeps growing, and lowers it once it drops")
+    fun raisesTheLimitWhileTheThroughputKeepsGrowingAndLowersItOnceItDrops() {
+        val initial = limiter.limitOf(disk)
+
+        val raised = listOf(1_000L, 700L, 400L).map { window(it) }
+        assert(raised == listOf(initial + 1, initial + 2, initial + 3)) { "Limits $raised" }
+
+        val lowered = window(10_000)
+        assert(lowered == initial + 2) { "Expected ${initial + 2}, but got $lowered" }
+    }
+
+    @Test
+    @DisplayName("does not tune the limit from windows in which no read had to wait")
+    fun doesNotTuneTheLimitFromWindowsInWhichNoReadHadToWait() {
+        val limit = window(1_000, saturated = false)
+
+        assert(limit == StorageDevice.Kind.ROTATIONAL.initialLimit) { "Limit $limit" }
+    }
+}
@@ -0,0 +1,153 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.runBlocking
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.mockito.Mockito.mock
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+@DisplayName("DirectoryImportPipeline")
+class DirectoryImportPipelineTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val read: MutableList<Path> = Collections.synchronizedList(mutableListOf())
+    val progress = mutableListOf<Triple<Int, Int, Boolean>>()
+    var batches = 0
+
+    fun file(relativePath: String): Path =
+        tempDir.resolve(relativePath).also {
+            Files.createDirectories(it.parent)
+            Files.createFile(it)
+        }
+
+    fun pipeline(readFile: (Path) -> ObservableAudioItem = ::readTrack) =
+        DirectoryImportPipeline(
+            setOf("mp3", "flac"),
+            readFile,
+            insertBatch = { batches++ },
+            onProgress = { inserted, found, walkComplete -> progress.add(Triple(inserted, found, walkComplete)) },
+            limiter = DeviceConcurrencyLimiter(deviceOf = { StorageDevice("test", StorageDevice.Kind.ROTATIONAL) }),
+            insertBatchSize = { 2 },
+            insertIntervalMillis = Long.MAX_VALUE
+        )
+
+    fun readTrack(path: Path): ObservableAudioItem {
+        read.add(path)
+        return mock(ObservableAudioItem::class.java)
+    }
+
+    @Test
+    @DisplayName("reads every accepted file of the tree and inserts them in batches")
+    fun readsEveryAcceptedFileOfTheTreeAndInsertsThemInBatches() {
+        val accepted =
+            listOf(
+                file("a.mp3"),
+                file("artist/album/b.MP3"),
+                file("artist/album/c.flac"),
+                file("artist/other/d.mp3"),
+                file("e.flac")
+            )
+        file("cover.jpg")
+        file("artist/album/notes.txt")
+
+        val imported = runBlocking { pipeline().run(tempDir) }
+
+        assert(imported == 5) { "Expected 5 imported tracks, but got $imported" }
+        assert(read.toSet() == accepted.toSet()) { "Read $read" }
+        // Two full batches and the last track
+        assert(batches == 3) { "Expected 3 batches, but got $batches" }
+        assert(progress.map { it.first } == listOf(2, 4, 5)) { "Progress $progress" }
+        assert(progress.last() == Triple(5, 5, true)) { "Progress $progress" }
+    }
+
+    @Test
+    @DisplayName("reports progress fractions within [0, 1] that reach 1 once the walk is over")
+    fun reportsProgressFractionsWithinBoundsThatReachOneOnceTheWalkIsOver() {
+        repeat(7) { file("artist/album-${it % 3}/track-$it.mp3") }
+
+        runBlocking { pipeline().run(tempDir) }
+
+        val fractions = progress.map { (inserted, found, _) -> inserted.toDouble() / found }
+        assert(fractions.all { it in 0.0..1.0 }) { "Fractions $fractions out of [0, 1] for progress $progress" }
+        assert(progress.zipWithNext().all { (previous, next) -> next.first >= previous.first }) { "Progress $progress" }
+        // Once the total is final the fraction only grows
+        val final = progress.filter { it.third }.map { (inserted, found, _) -> inserted.toDouble() / found }
+        assert(final.zipWithNext().all { (previous, next) -> next >= previous }) { "Fractions $final" }
+        assert(progress.last() == Triple(7, 7, true)) { "Progress $progress" }
+        assert(fractions.last() == 1.0) { "Fractions $fractions" }
+    }
+
+    @Test
+    @DisplayName("inserts a partial batch once the insert interval is up, without waiting for another track")
+    fun insertsAPartialBatchOnceTheInsertIntervalIsUp() {
+        val first = file("first.mp3")
+        val second = file("second.mp3")
+        val firstBatch = CountDownLatch(1)
+        var insertedBeforeSecondRead = false
+
+        val pipeline =
+            DirectoryImportPipeline(
+                setOf("mp3"),
+                readFile = { path ->
+                    if (path == second) {
+                        insertedBeforeSecondRead = firstBatch.await(5, TimeUnit.SECONDS)
+                    }
+                    readTrack(path)
+                },
+                insertBatch = {
+                    batches++
+                    firstBatch.countDown()
+                },
+                onProgress = { inserted, found, walkComplete -> progress.add(Triple(inserted, found, walkComplete)) },
+                limiter = DeviceConcurrencyLimiter(deviceOf = { StorageDevice("test", StorageDevice.Kind.ROTATIONAL) }),
+                insertBatchSize = { 2 },
+                insertIntervalMillis = 50
+            )
+        val imported = runBlocking { pipeline.run(listOf(first, second)) }
+
+        assert(imported == 2) { "Expected 2 imported tracks, but got $imported" }
+        assert(insertedBeforeSecondRead) { "The first track was not inserted while the second one was being read" }
+        assert(progress.first().first == 1) { "Progress $progress" }
+        assert(progress.last() == Triple(2, 2, true)) { "Progress $progress" }
+    }
+
+    @Test
+    @DisplayName("skips the files it cannot read and imports the rest")
+    fun skipsTheFilesItCannotReadAndImportsTheRest() {
+        file("good.mp3")
+        val broken = file("broken.mp3")
+        file("also-good.flac")
+
+        val imported =
+            runBlocking {
+                pipeline { path ->
+                    if (path == broken) throw IOException("Not an audio file")
+                    readTrack(path)
+                }.run(tempDir)
+            }
+
+        assert(imported == 2) { "Expected 2 imported tracks, but got $imported" }
+        assert(broken !in read)
+    }
+
+    @Test
+    @DisplayName("imports a list of files without filtering them")
+    fun importsAListOfFilesWithoutFilteringThem() {
+        val files = listOf(file("a.mp3"), file("b.wav"), file("c.m4a"))
+
+        val imported = runBlocking { pipeline().run(files) }
+
+        assert(imported == 3) { "Expected 3 imported tracks, but got $imported" }
+        assert(read.toSet() == files.toSet()) { "Read $read" }
+        assert(progress.last() == Triple(3, 3, true)) { "Progress $progress" }
+    }
+}
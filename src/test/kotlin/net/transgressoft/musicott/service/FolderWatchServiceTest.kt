@@ -0,0 +1,163 @@
+package net.transgressoft.musicott.service
+
+import javafx.beans.property.SimpleListProperty
+import javafx.collections.FXCollections
+import kotlinx.coroutines.asCoroutineDispatcher
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.commons.music.audio.AudioMetadataIO
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.musicott.MusicottApplication
+import net.transgressoft.musicott.events.AudioItemsMissingEvent
+import net.transgressoft.musicott.events.WatchFolderEvent
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.timeout
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import org.springframework.context.ApplicationEventPublisher
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.Collections
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+@DisplayName("FolderWatchService")
+class FolderWatchServiceTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val fxExecutor = Executors.newSingleThreadExecutor { Thread(it, "fx-test") }
+    val library = FXCollections.observableArrayList<ObservableAudioItem>()
+    val items = mutableMapOf<Path, ObservableAudioItem>()
+    val events: MutableList<Any> = Collections.synchronizedList(mutableListOf())
+    val mutatedOn: MutableList<String> = Collections.synchronizedList(mutableListOf())
+
+    val audioLibrary: ObservableAudioLibrary = mock(ObservableAudioLibrary::class.java)
+    @Suppress("UNCHECKED_CAST")
+    val audioItemRepository = mock(Repository::class.java) as Repository<Int, ObservableAudioItem>
+    val audioMetadataIO: AudioMetadataIO = mock(AudioMetadataIO::class.java)
+    val mediaImportService: MediaImportService = mock(MediaImportService::class.java)
+    val waveformPeakService: WaveformPeakService = mock(WaveformPeakService::class.java)
+
+    lateinit var folder: Path
+    lateinit var fingerprints: FileFingerprintStore
+    lateinit var service: FolderWatchService
+
+    @BeforeEach
+    fun setup() {
+        folder = Files.createDirectories(tempDir.resolve("music")).toAbsolutePath().normalize()
+        val database = Files.createDirectories(tempDir.resolve("database"))
+        fingerprints = FileFingerprintStore(database.resolve("fingerprints.bin"))
+        `when`(audioLibrary.audioItemsProperty).thenReturn(SimpleListProperty(library))
+        `when`(audioLibrary.createFromFile(any())).thenAnswer { invocation ->
+            items.getValue(invocation.getArgument<Path>(0)).also { library.add(it) }
+        }
+        service =
+            FolderWatchService(
+                audioLibrary,
+                audioItemRepository,
+                audioMetadataIO,
+                mediaImportService,
+                ApplicationEventPublisher { event -> events.add(event) },
+                fingerprints,
+                waveformPeakService,
+                MusicottApplication.ApplicationPaths(database.resolve("audio-items.json"), database.resolve("playlists.json"), database.resolve("waveforms.json")),
+                fxDispatcher = fxExecutor.asCoroutineDispatcher(),
+                debounceMillis = 50
+            )
+    }
+
+    @AfterEach
+    fun tearDown() {
+        service.close()
+        fxExecutor.shutdownNow()
+        fingerprints.close()
+    }
+
+    fun audioItem(path: Path): ObservableAudioItem {
+        val item = mock(ObservableAudioItem::class.java)
+        val read = mock(ObservableAudioItem::class.java)
+        `when`(item.id).thenReturn(items.size + 1)
+        `when`(item.path).thenReturn(path)
+        `when`(item.clone()).thenReturn(read)
+        doAnswer {
+            mutatedOn.add(Thread.currentThread().name)
+            null
+        }.`when`(item).mutate(any())
+        items[path] = item
+        return item
+    }
+
+    fun watch() {
+        service.stageReadyEventListener()
+        service.watchFolderEventListener(WatchFolderEvent(folder, this))
+    }
+
+    fun eventually(description: String, condition: () -> Boolean) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20)
+        while (!condition()) {
+            assert(System.nanoTime() < deadline) { "Timed out waiting until $description" }
+            Thread.sleep(20)
+        }
+    }
+
+    @Test
+    @DisplayName("imports a file created under a watched folder")
+    fun importsAFileCreatedUnderAWatchedFolder() {
+        val created = folder.resolve("artist/album/track.mp3")
+        audioItem(created)
+        watch()
+
+        Files.createDirectories(created.parent)
+        Files.writeString(created, "tags")
+
+        verify(audioLibrary, timeout(20_000)).createFromFile(created)
+    }
+
+    @Test
+    @DisplayName("reads the tags of a modified file into a copy, applies them on the FX dispatcher and discards its peaks")
+    fun readsTheTagsOfAModifiedFileIntoACopyAndAppliesThemOnTheFxDispatcher() {
+        val modified = Files.writeString(folder.resolve("track.mp3"), "tags")
+        val item = audioItem(modified)
+        val read = item.clone()
+        val trackId = item.id
+        library.add(item)
+        fingerprints.record(modified)
+        watch()
+
+        Files.writeString(modified, "new tags")
+        Files.setLastModifiedTime(modified, FileTime.fromMillis(Files.getLastModifiedTime(modified).toMillis() + 60_000))
+
+        eventually("the new tags are applied") { mutatedOn.isNotEmpty() }
+        verify(audioMetadataIO).readMetadata(read)
+        verify(waveformPeakService).invalidate(trackId)
+        assert(mutatedOn.all { it == "fx-test" }) { "Tags applied on $mutatedOn" }
+    }
+
+    @Test
+    @DisplayName("reports the tracks of a deleted file missing and keeps them in the library")
+    fun reportsTheTracksOfADeletedFileMissingAndKeepsThemInTheLibrary() {
+        val deleted = Files.writeString(folder.resolve("track.mp3"), "tags")
+        val item = audioItem(deleted)
+        library.add(item)
+        fingerprints.record(deleted)
+        watch()
+
+        Files.delete(deleted)
+
+        eventually("the track is reported missing") { events.any { it is AudioItemsMissingEvent } }
+        val missing = events.filterIsInstance<AudioItemsMissingEvent>().single()
+        assert(missing.audioItems.toList() == listOf(item)) { "Missing ${missing.audioItems}" }
+        assert(item in library)
+    }
+}
@@ -0,0 +1,101 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import net.transgressoft.musicott.service.ImportGovernor.Sample
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@DisplayName("ImportGovernor")
+class ImportGovernorTest {
+
+    val dispatcher = StandardTestDispatcher()
+
+    var position: Long? = null
+
+    val governor =
+        ImportGovernor(
+            playbackPositionMillis = { position },
+            loadPerCore = { 0.0 },
+            fxDispatcher = dispatcher,
+            nanoTime = { dispatcher.scheduler.currentTime * 1_000_000 },
+            sampleMillis = 250
+        )
+
+    val calm = Sample(frameLagMillis = 2.0, playbackStalled = false, loadPerCore = 0.5)
+
+    @Test
+    @DisplayName("halves the read ceiling and the batch size when a frame runs past the budget")
+    fun halvesTheReadCeilingAndTheBatchSizeWhenAFrameRunsPastTheBudget() {
+        governor.adjust(calm.copy(frameLagMillis = 80.0))
+
+        assert(governor.readCeiling() == 32) { "Read ceiling ${governor.readCeiling()}" }
+        assert(governor.batchSize() == 250) { "Batch size ${governor.batchSize()}" }
+    }
+
+    @Test
+    @DisplayName("grows the read ceiling by one per calm reading up to the maximum of the mode")
+    fun growsTheReadCeilingByOnePerCalmReadingUpToTheMaximumOfTheMode() {
+        repeat(10) { governor.adjust(calm.copy(playbackStalled = true)) }
+        assert(governor.readCeiling() == 1) { "Read ceiling ${governor.readCeiling()}" }
+        assert(governor.batchSize() == 25) { "Batch size ${governor.batchSize()}" }
+
+        repeat(3) { governor.adjust(calm) }
+        assert(governor.readCeiling() == 4) { "Read ceiling ${governor.readCeiling()}" }
+        assert(governor.batchSize() == 100) { "Batch size ${governor.batchSize()}" }
+
+        repeat(100) { governor.adjust(calm) }
+        assert(governor.readCeiling() == ImportMode.FAST.maxReadCeiling)
+        assert(governor.batchSize() == ImportMode.FAST.maxBatchSize)
+    }
+
+    @Test
+    @DisplayName("in background mode caps the ceiling at once and also yields to frame lag and system load")
+    fun inBackgroundModeCapsTheCeilingAtOnceAndAlsoYieldsToFrameLagAndSystemLoad() {
+        governor.mode = ImportMode.BACKGROUND
+        assert(governor.readCeiling() == ImportMode.BACKGROUND.maxReadCeiling)
+        assert(governor.batchSize() == ImportMode.BACKGROUND.maxBatchSize)
+
+        governor.adjust(calm.copy(frameLagMillis = 20.0))
+        assert(governor.readCeiling() == 2) { "Read ceiling ${governor.readCeiling()}" }
+
+        governor.adjust(calm.copy(loadPerCore = 1.5))
+        assert(governor.readCeiling() == 1) { "Read ceiling ${governor.readCeiling()}" }
+
+        governor.mode = ImportMode.FAST
+        governor.adjust(calm.copy(frameLagMillis = 20.0, loadPerCore = 1.5))
+        assert(governor.readCeiling() == 2) { "Fast mode held back by ${governor.readCeiling()}" }
+    }
+
+    @Test
+    @DisplayName("throttles when the playing track stands still but not when it is seeked back")
+    fun throttlesWhenThePlayingTrackStandsStillButNotWhenItIsSeekedBack() =
+        runTest(dispatcher) {
+            launch { governor.run() }.also { governing ->
+                position = 10_000
+                sample()
+                position = 10_250
+                sample()
+                assert(governor.readCeiling() == 64) { "Throttled while playing: ${governor.readCeiling()}" }
+
+                position = 1_000
+                sample()
+                assert(governor.readCeiling() == 64) { "Throttled on a seek: ${governor.readCeiling()}" }
+
+                sample()
+                assert(governor.readCeiling() == 32) { "Not throttled on a stall: ${governor.readCeiling()}" }
+                governing.cancel()
+            }
+        }
+
+    fun TestScope.sample() {
+        advanceTimeBy(250)
+        runCurrent()
+    }
+}
@@ -0,0 +1,131 @@
+package net.transgressoft.musicott.service
+
+import net.transgressoft.musicott.service.ImportJob.State
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.nio.file.Path
+import java.util.concurrent.CancellationException
+
+@DisplayName("ImportJobQueue")
+class ImportJobQueueTest {
+
+    val queue = ImportJobQueue()
+
+    val music: Path = Path.of("/music")
+    val album: Path = music.resolve("artist/album")
+
+    @Test
+    @DisplayName("does not queue a directory inside one already queued or running")
+    fun doesNotQueueADirectoryInsideOneAlreadyQueuedOrRunning() {
+        queue.addDirectory(music)!!
+
+        assert(queue.addDirectory(album) == null)
+        assert(queue.addDirectory(music) == null)
+
+        queue.next()
+        assert(queue.addDirectory(album) == null) { "Queued a directory the running job covers" }
+    }
+
+    @Test
+    @DisplayName("merges the queued directories and files inside a new directory into it")
+    fun mergesTheQueuedDirectoriesAndFilesInsideANewDirectoryIntoIt() {
+        val nested = queue.addDirectory(album)!!
+        val inside = queue.addFiles(listOf(music.resolve("single.mp3")))!!
+        val mixed = queue.addFiles(listOf(music.resolve("a.mp3"), Path.of("/elsewhere/b.mp3")))!!
+
+        val parent = queue.addDirectory(music)!!
+
+        assert(nested.state == State.MERGED && inside.state == State.MERGED) { "States ${nested.state}, ${inside.state}" }
+        assert(mixed.files == listOf(Path.of("/elsewhere/b.mp3"))) { "Files left ${mixed.files}" }
+        assert(queue.jobs() == listOf(mixed, parent)) { "Jobs ${queue.jobs()}" }
+    }
+
+    @Test
+    @DisplayName("leaves out of a file job the files already queued or inside a queued directory")
+    fun leavesOutOfAFileJobTheFilesAlreadyQueuedOrInsideAQueuedDirectory() {
+        queue.addDirectory(album)
+        queue.addFiles(listOf(Path.of("/other/1.mp3")))
+
+        val job = queue.addFiles(listOf(album.resolve("1.mp3"), Path.of("/other/1.mp3"), Path.of("/other/2.mp3")))!!
+
+        assert(job.files == listOf(Path.of("/other/2.mp3"))) { "Files ${job.files}" }
+        assert(queue.addFiles(listOf(Path.of("/other/2.mp3"))) == null)
+    }
+
+    @Test
+    @DisplayName("passes over paused jobs and runs them once resumed")
+    fun passesOverPausedJobsAndRunsThemOnceResumed() {
+        val first = queue.addDirectory(music)!!
+        val second = queue.addFiles(listOf(Path.of("/other/1.mp3")))!!
+        queue.pause(first)
+
+        assert(queue.next() == second)
+        queue.finish(second, State.DONE)
+        assert(queue.next() == null)
+
+        queue.resume(first)
+        assert(queue.next() == first && first.state == State.RUNNING)
+    }
+
+    @Test
+    @DisplayName("has no runnable jobs while every job left is paused")
+    fun hasNoRunnableJobsWhileEveryJobLeftIsPaused() {
+        val running = queue.addDirectory(music)!!
+        val queued = queue.addFiles(listOf(Path.of("/other/1.mp3")))!!
+        queue.next()
+
+        queue.pause(running)
+        assert(queue.hasRunnableJobs()) { "The queued job can still run" }
+
+        queue.pause(queued)
+        assert(!queue.hasRunnableJobs() && !queue.isEmpty()) { "Jobs ${queue.jobs()}" }
+
+        queue.resume(running)
+        assert(queue.hasRunnableJobs())
+    }
+
+    @Test
+    @DisplayName("takes a cancelled queued job out at once and lets its directory be queued again")
+    fun takesACancelledQueuedJobOutAtOnceAndLetsItsDirectoryBeQueuedAgain() {
+        val job = queue.addDirectory(music)!!
+
+        queue.cancel(job)
+
+        assert(job.state == State.CANCELLED && queue.isEmpty())
+        assert(queue.addDirectory(music) != null)
+    }
+
+    @Test
+    @DisplayName("sends a paused running job back to the queue so the jobs after it run meanwhile")
+    fun sendsAPausedRunningJobBackToTheQueueSoTheJobsAfterItRunMeanwhile() {
+        val first = queue.addDirectory(music)!!
+        val second = queue.addFiles(listOf(Path.of("/other/1.mp3")))!!
+        queue.next()
+
+        queue.pause(first)
+
+        assert(first.state == State.QUEUED && queue.running() == null) { "State ${first.state}" }
+        assert(runCatching { first.ensureRunning() }.exceptionOrNull() is CancellationException) { "Still reading while paused" }
+        assert(queue.next() == second)
+        queue.finish(second, State.DONE)
+
+        queue.resume(first)
+        assert(queue.next() == first)
+        first.ensureRunning()
+    }
+
+    @Test
+    @DisplayName("runs a resumed file job on the files it had not read before it was paused")
+    fun runsAResumedFileJobOnTheFilesItHadNotReadBeforeItWasPaused() {
+        val job = queue.addFiles(listOf(Path.of("/other/1.mp3"), Path.of("/other/2.mp3")))!!
+        queue.next()
+        job.markRead(Path.of("/other/1.mp3"))
+
+        queue.pause(job)
+        queue.resume(job)
+
+        assert(queue.next() == job)
+        assert(job.filesLeft == listOf(Path.of("/other/2.mp3"))) { "Files left ${job.filesLeft}" }
+        assert(queue.addFiles(listOf(Path.of("/other/1.mp3"))) == null) { "Queued a file the job covers" }
+    }
+}
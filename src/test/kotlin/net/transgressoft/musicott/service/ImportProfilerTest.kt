@@ -0,0 +1,83 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonArray
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import net.transgressoft.commons.music.audio.AudioFileType
+import net.transgressoft.musicott.service.ImportProfiler.Stage
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.io.IOException
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+
+@DisplayName("ImportProfiler")
+class ImportProfilerTest {
+
+    var clock = 0L
+
+    val profiler = ImportProfiler("/music", slowestCount = 2, nanoTime = { clock })
+
+    fun read(
+        name: String,
+        millis: Long,
+        failure: Exception? = null
+    ) = runCatching {
+        profiler.file(Path.of("/music", name)) {
+            clock += TimeUnit.MILLISECONDS.toNanos(millis)
+            failure?.let { throw it }
+        }
+    }
+
+    @Test
+    @DisplayName("sums the reads of every format and keeps only the slowest files")
+    fun sumsTheReadsOfEveryFormatAndKeepsOnlyTheSlowestFiles() {
+        read("a.mp3", 10)
+        read("b.mp3", 30)
+        read("c.flac", 40)
+        read("d.flac", 5)
+
+        val profile = profiler.report("completed", 0)
+
+        val mp3Format = AudioFileType.values().first { it.extension == "mp3" }.name
+        val mp3 = profile.formats.single { it.format == mp3Format }
+        assert(mp3.files == 2 && mp3.totalMillis == 40.0 && mp3.maxMillis == 30.0) { "MP3 $mp3" }
+        assert(mp3.filesPerSecond == 50.0) { "MP3 throughput ${mp3.filesPerSecond}" }
+        assert(profile.slowestFiles.map { it.path } == listOf("/music/c.flac", "/music/b.mp3")) { "Slowest ${profile.slowestFiles}" }
+        assert(profile.stages.single { it.stage == Stage.READ.label }.count == 4)
+        assert(profile.totalMillis == 85.0) { "Total ${profile.totalMillis}" }
+    }
+
+    @Test
+    @DisplayName("counts the failed reads by error and rethrows their errors")
+    fun countsTheFailedReadsByErrorAndRethrowsTheirErrors() {
+        val failed = read("a.mp3", 1, IOException("Unreadable"))
+        read("b.mp3", 1, IllegalStateException("Bad tag"))
+        read("c.mp3", 1, IOException("Unreadable"))
+        read("d.mp3", 1)
+
+        val profile = profiler.report("completed", 3)
+
+        assert(failed.exceptionOrNull() is IOException)
+        assert(profile.filesRead == 1 && profile.filesFailed == 3) { "Read ${profile.filesRead}, failed ${profile.filesFailed}" }
+        assert(profile.errors == mapOf("IOException" to 2, "IllegalStateException" to 1)) { "Errors ${profile.errors}" }
+    }
+
+    @Test
+    @DisplayName("exports the stages, formats, slowest files and errors as JSON")
+    fun exportsTheStagesFormatsSlowestFilesAndErrorsAsJson() {
+        profiler.stage(Stage.WALK) { clock += TimeUnit.MILLISECONDS.toNanos(7) }
+        profiler.add(Stage.WRITE, TimeUnit.MILLISECONDS.toNanos(3))
+        read("a.ogg", 2)
+
+        val json = Json.parseToJsonElement(profiler.report("cancelled", 0).toJson()).jsonObject
+
+        assert(json["outcome"]?.jsonPrimitive?.content == "cancelled")
+        val stages = json["stages"]!!.jsonArray.map { it.jsonObject["stage"]!!.jsonPrimitive.content }
+        assert(stages == listOf(Stage.WALK.label, Stage.READ.label, Stage.WRITE.label)) { "Stages $stages" }
+        assert(json["formats"]!!.jsonArray.size == 1)
+        assert(json["slowestFiles"]!!.jsonArray.size == 1)
+        assert(json.containsKey("errors"))
+    }
+}
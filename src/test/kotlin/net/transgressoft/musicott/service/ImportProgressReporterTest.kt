@@ -0,0 +1,94 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@DisplayName("ImportProgressReporter")
+class ImportProgressReporterTest {
+
+    val dispatcher = StandardTestDispatcher()
+
+    val updates = mutableListOf<Pair<Double, String>>()
+
+    fun TestScope.reporter(unit: String = "files") =
+        ImportProgressReporter(
+            this,
+            unit,
+            publish = { fraction, message -> updates.add(fraction to message) },
+            fxDispatcher = dispatcher,
+            nanoTime = { testScheduler.currentTime * 1_000_000 }
+        )
+
+    @Test
+    @DisplayName("publishes at most once per frame however many items are counted in it")
+    fun publishesAtMostOncePerFrameHoweverManyItemsAreCountedInIt() =
+        runTest(dispatcher) {
+            val reporter = reporter().apply { total(10_000, final = true) }
+            reporter.start()
+
+            repeat(10) {
+                repeat(1_000) { reporter.advance() }
+                advanceTimeBy(ImportProgressReporter.FRAME_MILLIS)
+                runCurrent()
+            }
+            reporter.finish()
+            runCurrent()
+
+            assert(updates.size == 11) { "Expected 10 frames and the reset, but got ${updates.size}" }
+            assert(updates[9].first == 1.0) { "Last frame ${updates[9]}" }
+            assert(updates.last() == 0.0 to "") { "Reset ${updates.last()}" }
+        }
+
+    @Test
+    @DisplayName("publishes nothing in the frames where the count did not move")
+    fun publishesNothingInTheFramesWhereTheCountDidNotMove() =
+        runTest(dispatcher) {
+            val reporter = reporter().apply { update(1, 100) }
+            reporter.start()
+
+            advanceTimeBy(ImportProgressReporter.FRAME_MILLIS * 20)
+            runCurrent()
+            reporter.finish()
+            runCurrent()
+
+            assert(updates.size == 2) { "Updates $updates" }
+        }
+
+    @Test
+    @DisplayName("shows the throughput and the time left once the total is final")
+    fun showsTheThroughputAndTheTimeLeftOnceTheTotalIsFinal() =
+        runTest(dispatcher) {
+            val reporter = reporter("tracks")
+            reporter.start()
+
+            // 100 tracks a second for twenty seconds, the first five of them still counting the total
+            repeat(1_250) { frame ->
+                reporter.update((frame + 1) * 100 * 16 / 1_000, 0)
+                reporter.total(4_000, final = frame >= 300)
+                advanceTimeBy(ImportProgressReporter.FRAME_MILLIS)
+                runCurrent()
+            }
+            reporter.finish()
+            runCurrent()
+
+            val counting = updates[200].second
+            val final = updates[updates.size - 2].second
+            assert(counting.startsWith("Importing: ") && "+ tracks" in counting && "left" !in counting) { counting }
+            assert(final == "Importing: %,d of %,d tracks, 100 tracks/s, 0:20 left".format(2_000, 4_000)) { final }
+        }
+
+    @Test
+    @DisplayName("formats the time left in minutes, or in hours when it is that long")
+    fun formatsTheTimeLeftInMinutesOrInHoursWhenItIsThatLong() {
+        assert(ImportProgressReporter.formatDuration(59) == "0:59")
+        assert(ImportProgressReporter.formatDuration(61) == "1:01")
+        assert(ImportProgressReporter.formatDuration(3_723) == "1:02:03")
+    }
+}
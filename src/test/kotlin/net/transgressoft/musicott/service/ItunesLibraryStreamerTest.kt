@@ -0,0 +1,54 @@
+package net.transgressoft.musicott.service
+
+import net.transgressoft.commons.music.itunes.ItunesLibraryParser
+import net.transgressoft.musicott.test.library.SyntheticLibrary
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Path
+
+@DisplayName("ItunesLibraryStreamer")
+class ItunesLibraryStreamerTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val itunesXml: Path by lazy {
+        tempDir.resolve("library.xml").also { SyntheticLibrary(300).writeItunesXml(it, tempDir.resolve("audio")) }
+    }
+
+    @Test
+    @DisplayName("parses every playlist with its track ids and none of the tracks into the outline")
+    fun parsesEveryPlaylistWithItsTrackIdsAndNoneOfTheTracksIntoTheOutline() {
+        val complete = ItunesLibraryParser.parse(itunesXml)
+
+        val outline = ItunesLibraryStreamer.parseOutline(itunesXml)
+
+        assert(outline.tracks.isEmpty()) { "Outline with ${outline.tracks.size} tracks" }
+        assert(outline.playlists.map { it.persistentId to it.trackIds } == complete.playlists.map { it.persistentId to it.trackIds }) {
+            "Playlists ${outline.playlists} differ from ${complete.playlists}"
+        }
+    }
+
+    @Test
+    @DisplayName("parses only the tracks of the selected playlists")
+    fun parsesOnlyTheTracksOfTheSelectedPlaylists() {
+        val playlist = ItunesLibraryStreamer.parseOutline(itunesXml).playlists.first { !it.isFolder && it.trackIds.size in 1 until 300 }
+        val trackIds = playlist.trackIds.toSet()
+
+        val selection = ItunesLibraryStreamer.parseSelection(itunesXml, trackIds)
+
+        assert(selection.tracks.size == trackIds.size) { "Expected ${trackIds.size} tracks, but got ${selection.tracks.size}" }
+    }
+
+    @Test
+    @DisplayName("counts every track of the library while leaving them out")
+    fun countsEveryTrackOfTheLibraryWhileLeavingThemOut() {
+        val filtered = tempDir.resolve("filtered.xml")
+
+        val tracks = ItunesLibraryStreamer.filter(itunesXml, filtered) { it % 2 == 0 }
+
+        assert(tracks == 300) { "Counted $tracks tracks" }
+        assert(ItunesLibraryParser.parse(filtered).tracks.size == 150)
+    }
+}
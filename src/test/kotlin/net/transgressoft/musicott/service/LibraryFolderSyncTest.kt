@@ -0,0 +1,104 @@
+package net.transgressoft.musicott.service
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.musicott.persistence.FileFingerprintStore
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+
+@DisplayName("LibraryFolderSync")
+class LibraryFolderSyncTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    val library = mutableListOf<ObservableAudioItem>()
+    val imported = mutableListOf<Path>()
+    val refreshed = mutableListOf<Path>()
+    val missing = mutableListOf<Path>()
+
+    val folderSync by lazy {
+        LibraryFolderSync(
+            setOf("mp3", "flac"),
+            FileFingerprintStore(tempDir.resolve("fingerprints.bin")),
+            importFile = { path -> audioItem(path).also { imported.add(path); library.add(it) } },
+            refreshItem = { item -> refreshed.add(item.path) },
+            onMissing = { items -> items.mapTo(missing) { it.path } }
+        )
+    }
+
+    fun file(relativePath: String, content: String = "tags"): Path =
+        tempDir.resolve(relativePath).also {
+            Files.createDirectories(it.parent)
+            Files.writeString(it, content)
+        }
+
+    fun audioItem(path: Path): ObservableAudioItem {
+        val item = mock(ObservableAudioItem::class.java)
+        `when`(item.path).thenReturn(path)
+        return item
+    }
+
+    fun retag(file: Path) {
+        Files.writeString(file, "new tags")
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 60_000))
+    }
+
+    @Test
+    @DisplayName("imports the files the library does not have and leaves the ones it has untouched")
+    fun importsTheFilesTheLibraryDoesNotHaveAndLeavesTheOnesItHasUntouched() {
+        val known = file("artist/known.mp3")
+        library.add(audioItem(known))
+        val added = file("artist/added.flac")
+        file("artist/cover.jpg")
+
+        val changes = folderSync.reconcile(listOf(tempDir), library.toList())
+
+        assert(imported == listOf(added)) { "Imported $imported" }
+        assert(refreshed.isEmpty()) { "Refreshed $refreshed" }
+        assert(changes == LibraryFolderSync.Changes(imported = 1)) { "Changes $changes" }
+    }
+
+    @Test
+    @DisplayName("reads again only the files whose fingerprint changed since they were last seen")
+    fun readsAgainOnlyTheFilesWhoseFingerprintChangedSinceTheyWereLastSeen() {
+        val changed = file("a.mp3")
+        val unchanged = file("b.mp3")
+        library.addAll(listOf(audioItem(changed), audioItem(unchanged)))
+        folderSync.reconcile(listOf(tempDir), library.toList())
+
+        retag(changed)
+        val changes = folderSync.sync(listOf(changed, unchanged), library.toList())
+
+        assert(refreshed == listOf(changed)) { "Refreshed $refreshed" }
+        assert(changes == LibraryFolderSync.Changes(refreshed = 1)) { "Changes $changes" }
+    }
+
+    @Test
+    @DisplayName("flags the tracks of a removed directory once, and refreshes them when their files come back")
+    fun flagsTheTracksOfARemovedDirectoryOnceAndRefreshesThemWhenTheirFilesComeBack() {
+        val album = tempDir.resolve("album")
+        val tracks = listOf(file("album/1.mp3"), file("album/2.mp3"))
+        tracks.forEach { library.add(audioItem(it)) }
+        folderSync.reconcile(listOf(tempDir), library.toList())
+
+        tracks.forEach(Files::delete)
+        Files.delete(album)
+        folderSync.sync(listOf(album), library.toList())
+        val reconciled = folderSync.reconcile(listOf(tempDir), library.toList())
+
+        assert(missing.toSet() == tracks.toSet() && missing.size == 2) { "Missing $missing" }
+        assert(reconciled.isEmpty()) { "Changes $reconciled" }
+
+        tracks.forEach { file(tempDir.relativize(it).toString()) }
+        folderSync.sync(listOf(album), library.toList())
+
+        assert(refreshed.toSet() == tracks.toSet()) { "Refreshed $refreshed" }
+        assert(imported.isEmpty()) { "Imported $imported" }
+    }
+}
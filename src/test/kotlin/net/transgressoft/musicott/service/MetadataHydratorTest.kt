@@ -0,0 +1,95 @@
+package net.transgressoft.musicott.service
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.advanceUntilIdle
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+import java.nio.file.Path
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@DisplayName("MetadataHydrator")
+class MetadataHydratorTest {
+
+    val dispatcher = StandardTestDispatcher()
+
+    val hydrated = mutableListOf<ObservableAudioItem>()
+    val drained = mutableListOf<Int>()
+    var paused = false
+    var failing: ObservableAudioItem? = null
+
+    val hydrator =
+        MetadataHydrator(
+            hydrate = { item ->
+                if (item == failing) throw IllegalStateException("Unreadable")
+                hydrated.add(item)
+            },
+            isPaused = { paused },
+            onDrained = { drained.add(it) },
+            dispatcher = dispatcher
+        )
+
+    fun audioItems(count: Int) =
+        List(count) { index ->
+            mock(ObservableAudioItem::class.java).also { `when`(it.path).thenReturn(Path.of("$index.mp3")) }
+        }
+
+    @AfterEach
+    fun closeHydrator() {
+        hydrator.close()
+    }
+
+    @Test
+    @DisplayName("reads the tracks in the order they were enqueued and reports once the queue is empty")
+    fun readsTheTracksInTheOrderTheyWereEnqueuedAndReportsOnceTheQueueIsEmpty() =
+        runTest(dispatcher) {
+            val items = audioItems(5)
+
+            hydrator.enqueue(items.take(3))
+            hydrator.enqueue(items.drop(3))
+            advanceUntilIdle()
+
+            assert(hydrated == items) { "Hydrated $hydrated" }
+            assert(drained == listOf(5)) { "Drained $drained" }
+            assert(hydrator.pending() == 0)
+        }
+
+    @Test
+    @DisplayName("holds off while paused and resumes where it stopped")
+    fun holdsOffWhilePausedAndResumesWhereItStopped() =
+        runTest(dispatcher) {
+            paused = true
+            hydrator.enqueue(audioItems(2))
+            advanceTimeBy(10_000)
+            runCurrent()
+
+            assert(hydrated.isEmpty()) { "Hydrated $hydrated while paused" }
+            assert(hydrator.pending() == 2)
+
+            paused = false
+            advanceUntilIdle()
+
+            assert(hydrated.size == 2) { "Hydrated $hydrated" }
+        }
+
+    @Test
+    @DisplayName("keeps going after a track whose file cannot be read")
+    fun keepsGoingAfterATrackWhoseFileCannotBeRead() =
+        runTest(dispatcher) {
+            val items = audioItems(3)
+            failing = items[1]
+
+            hydrator.enqueue(items)
+            advanceUntilIdle()
+
+            assert(hydrated == listOf(items[0], items[2])) { "Hydrated $hydrated" }
+            assert(drained == listOf(2)) { "Drained $drained" }
+        }
+}
@@ -0,0 +1,101 @@
+package net.transgressoft.musicott.service
+
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.commons.music.waveform.AudioWaveform
+import net.transgressoft.commons.music.waveform.AudioWaveformRepository
+import net.transgressoft.lirp.persistence.Repository
+import net.transgressoft.musicott.persistence.WaveformBinaryStore
+import net.transgressoft.musicott.persistence.WaveformPeakStore
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyShort
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import java.nio.file.Path
+import java.util.concurrent.CompletableFuture
+
+@DisplayName("WaveformPeakService")
+class WaveformPeakServiceTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    @Suppress("UNCHECKED_CAST")
+    val waveformRepository = mock(AudioWaveformRepository::class.java) as AudioWaveformRepository<AudioWaveform, ObservableAudioItem>
+    @Suppress("UNCHECKED_CAST")
+    val waveformFileRepository = mock(Repository::class.java) as Repository<Int, AudioWaveform>
+    val audioLibrary: ObservableAudioLibrary = mock(ObservableAudioLibrary::class.java)
+    val peakStore: WaveformPeakStore by lazy { WaveformPeakStore(WaveformBinaryStore(tempDir.resolve("waveform-peaks.bin"))) }
+
+    @AfterEach
+    fun tearDown() {
+        peakStore.close()
+    }
+
+    fun audioItem(id: Int): ObservableAudioItem {
+        val item = mock(ObservableAudioItem::class.java)
+        `when`(item.id).thenReturn(id)
+        return item
+    }
+
+    fun waveform(): AudioWaveform {
+        val waveform = mock(AudioWaveform::class.java)
+        `when`(waveform.amplitudes(WaveformPeakService.PEAK_COLUMNS, 1024))
+            .thenReturn(FloatArray(WaveformPeakService.PEAK_COLUMNS) { if (it == 10) -8f else 2f })
+        `when`(waveformRepository.getOrCreateWaveformAsync(any(), anyShort(), anyShort()))
+            .thenReturn(CompletableFuture.completedFuture(waveform))
+        return waveform
+    }
+
+    @Test
+    @DisplayName("samples the peaks from a full-resolution waveform once and then reads them back from the store")
+    fun samplesThePeaksOnceAndThenReadsThemBack() {
+        val item = audioItem(1)
+        waveform()
+        val service = WaveformPeakService(waveformRepository, waveformFileRepository, peakStore, audioLibrary)
+
+        val computed = service.peaksAsync(item).get()
+        val stored = service.peaksAsync(item).get()
+
+        assert(computed.size == WaveformPeakService.PEAK_COLUMNS)
+        assert(computed[10] == 1f && computed[0] == 0.25f) { "Expected peaks normalized to the loudest amplitude" }
+        assert(stored[10] == 1f && stored[0] in 0.24f..0.26f)
+        assert(service.hasPeaks(1))
+        verify(waveformRepository, times(1))
+            .getOrCreateWaveformAsync(item, WaveformPeakService.PEAK_COLUMNS.toShort(), 1024.toShort())
+    }
+
+    @Test
+    @DisplayName("keeps only the peaks, dropping the waveform they were sampled from")
+    fun keepsOnlyThePeaksDroppingTheWaveformTheyWereSampledFrom() {
+        val item = audioItem(1)
+        val waveform = waveform()
+        val service = WaveformPeakService(waveformRepository, waveformFileRepository, peakStore, audioLibrary)
+
+        service.peaksAsync(item).get()
+
+        verify(waveformFileRepository).remove(waveform)
+    }
+
+    @Test
+    @DisplayName("samples the peaks again after they are invalidated")
+    fun samplesThePeaksAgainAfterTheyAreInvalidated() {
+        val item = audioItem(1)
+        waveform()
+        val service = WaveformPeakService(waveformRepository, waveformFileRepository, peakStore, audioLibrary)
+        service.peaksAsync(item).get()
+
+        service.invalidate(1)
+
+        assert(!service.hasPeaks(1))
+        service.peaksAsync(item).get()
+        verify(waveformRepository, times(2))
+            .getOrCreateWaveformAsync(item, WaveformPeakService.PEAK_COLUMNS.toShort(), 1024.toShort())
+    }
+}
@@ -0,0 +1,134 @@
+package net.transgressoft.musicott.service
+
+import javafx.beans.property.SimpleListProperty
+import javafx.collections.FXCollections
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.advanceTimeBy
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import net.transgressoft.commons.fx.music.audio.ObservableAudioItem
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary
+import net.transgressoft.musicott.events.QueueChange
+import net.transgressoft.musicott.events.QueueUpdatedEvent
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.doReturn
+import org.mockito.Mockito.inOrder
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when`
+import java.nio.file.Files
+import java.util.Optional
+import java.util.concurrent.CompletableFuture
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@DisplayName("WaveformPrecomputeService")
+class WaveformPrecomputeServiceTest {
+
+    val dispatcher = StandardTestDispatcher()
+
+    val waveformPeakService: WaveformPeakService = mock(WaveformPeakService::class.java)
+    val audioLibrary: ObservableAudioLibrary = mock(ObservableAudioLibrary::class.java)
+    val mediaImportService: MediaImportService = mock(MediaImportService::class.java)
+    val audioFile = Files.createTempFile("musicott-waveform-precompute-", ".mp3").apply { toFile().deleteOnExit() }
+
+    lateinit var service: WaveformPrecomputeService
+
+    @BeforeEach
+    fun setup() {
+        `when`(audioLibrary.audioItemsProperty).thenReturn(SimpleListProperty(FXCollections.observableArrayList()))
+        `when`(waveformPeakService.peaksAsync(any())).thenReturn(CompletableFuture.completedFuture(FloatArray(0)))
+        service = WaveformPrecomputeService(
+            waveformPeakService, audioLibrary, mediaImportService,
+            dispatcher = dispatcher,
+            workerCount = 1,
+            startDelayMillis = 0
+        )
+    }
+
+    @AfterEach
+    fun tearDown() {
+        service.close()
+    }
+
+    fun audioItem(id: Int): ObservableAudioItem {
+        val item = mock(ObservableAudioItem::class.java)
+        `when`(item.id).thenReturn(id)
+        `when`(item.path).thenReturn(audioFile)
+        doReturn(Optional.of(item)).`when`(audioLibrary).findById(id)
+        return item
+    }
+
+    @Test
+    @DisplayName("computes queued tracks before recently added ones")
+    fun computesQueuedTracksBeforeRecentlyAddedOnes() = runTest(dispatcher) {
+        val added = audioItem(1)
+        val queued = audioItem(2)
+        service.request(listOf(1), WaveformPrecomputeService.Reason.RECENTLY_ADDED)
+        service.request(listOf(2), WaveformPrecomputeService.Reason.QUEUED)
+
+        service.start()
+        advanceTimeBy(1_000)
+        runCurrent()
+
+        val order = inOrder(waveformPeakService)
+        order.verify(waveformPeakService).peaksAsync(queued)
+        order.verify(waveformPeakService).peaksAsync(added)
+        assert(service.pendingCount() == 0) { "Expected no pending tracks, but got ${service.pendingCount()}" }
+    }
+
+    @Test
+    @DisplayName("holds off while an import is running and resumes once it finishes")
+    fun holdsOffWhileAnImportIsRunning() = runTest(dispatcher) {
+        val item = audioItem(1)
+        `when`(mediaImportService.isImporting()).thenReturn(true)
+        service.request(listOf(1), WaveformPrecomputeService.Reason.RECENTLY_ADDED)
+
+        service.start()
+        advanceTimeBy(5_000)
+        runCurrent()
+
+        verify(waveformPeakService, never()).peaksAsync(item)
+
+        `when`(mediaImportService.isImporting()).thenReturn(false)
+        advanceTimeBy(2_000)
+        runCurrent()
+
+        verify(waveformPeakService).peaksAsync(item)
+    }
+
+    @Test
+    @DisplayName("computes a track requested for several reasons only once")
+    fun computesATrackRequestedForSeveralReasonsOnlyOnce() = runTest(dispatcher) {
+        val item = audioItem(1)
+        service.request(listOf(1), WaveformPrecomputeService.Reason.FREQUENTLY_PLAYED)
+        service.request(listOf(1), WaveformPrecomputeService.Reason.QUEUED)
+        service.request(listOf(1), WaveformPrecomputeService.Reason.RECENTLY_ADDED)
+
+        service.start()
+        advanceTimeBy(5_000)
+        runCurrent()
+
+        verify(waveformPeakService).peaksAsync(item)
+    }
+
+    @Test
+    @DisplayName("schedules the next-up tracks only when a queue change reaches them")
+    fun schedulesTheNextUpTracksOnlyWhenAQueueChangeReachesThem() {
+        // Inverted storage: the next-up tracks are at the end
+        val queue = (1..30).toMutableList()
+
+        queue.addAll(0, listOf(31, 32))
+        service.queueUpdatedEventListener(QueueUpdatedEvent(QueueChange.added(0, listOf(31, 32)), queue, this))
+        assert(service.pendingCount() == 0) { "Expected no pending tracks, but got ${service.pendingCount()}" }
+
+        queue.addAll(listOf(33, 34))
+        service.queueUpdatedEventListener(QueueUpdatedEvent(QueueChange.added(32, listOf(33, 34)), queue, this))
+        assert(service.pendingCount() == 10) { "Expected 10 pending tracks, but got ${service.pendingCount()}" }
+    }
+}
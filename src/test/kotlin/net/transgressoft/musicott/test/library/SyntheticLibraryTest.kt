@@ -0,0 +1,66 @@
+package net.transgressoft.musicott.test.library
+
+import net.transgressoft.commons.music.itunes.ItunesLibraryParser
+import org.jaudiotagger.audio.AudioFileIO
+import org.jaudiotagger.tag.FieldKey
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+
+@DisplayName("SyntheticLibrary")
+class SyntheticLibraryTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    @Test
+    @DisplayName("writes the same library for the same seed and a different one for another seed")
+    fun writesTheSameLibraryForTheSameSeedAndADifferentOneForAnotherSeed() {
+        val audioDirectory = tempDir.resolve("audio")
+        val first = tempDir.resolve("first.xml")
+        val second = tempDir.resolve("second.xml")
+        val reseeded = tempDir.resolve("reseeded.xml")
+
+        SyntheticLibrary(50, seed = 7).writeItunesXml(first, audioDirectory)
+        SyntheticLibrary(50, seed = 7).writeItunesXml(second, audioDirectory)
+        SyntheticLibrary(50, seed = 8).writeItunesXml(reseeded, audioDirectory)
+
+        assert(Files.readAllBytes(first).contentEquals(Files.readAllBytes(second)))
+        assert(!Files.readAllBytes(first).contentEquals(Files.readAllBytes(reseeded)))
+    }
+
+    @Test
+    @DisplayName("writes audio files whose tags read back as the generated track")
+    fun writesAudioFilesWhoseTagsReadBackAsTheGeneratedTrack() {
+        val library = SyntheticLibrary(3)
+        library.writeAudioFiles(tempDir, withCovers = true)
+
+        val track = library.track(2)
+        val audioFile = AudioFileIO.read(tempDir.resolve(track.relativePath).toFile())
+
+        assert(audioFile.tag.getFirst(FieldKey.TITLE) == track.title) {
+            "Expected title '${track.title}', but got '${audioFile.tag.getFirst(FieldKey.TITLE)}'"
+        }
+        assert(audioFile.tag.getFirst(FieldKey.ALBUM) == track.album)
+        assert(audioFile.tag.firstArtwork != null)
+        assert(audioFile.audioHeader.sampleRateAsNumber == 44_100)
+    }
+
+    @Test
+    @DisplayName("writes an iTunes library the importer parses completely")
+    fun writesAnItunesLibraryTheImporterParsesCompletely() {
+        val library = SyntheticLibrary(120)
+        val files = library.generate(tempDir)
+
+        val parsed = ItunesLibraryParser.parse(files.itunesXml)
+
+        assert(parsed.tracks.size == 120) { "Expected 120 tracks, but got ${parsed.tracks.size}" }
+        // The whole-library playlist and the folder come on top of the mixes
+        assert(parsed.playlists.size == library.playlistCount + 2) {
+            "Expected ${library.playlistCount + 2} playlists, but got ${parsed.playlists.size}"
+        }
+        assert(Files.exists(files.audioDirectory.resolve(library.track(120).relativePath)))
+    }
+}
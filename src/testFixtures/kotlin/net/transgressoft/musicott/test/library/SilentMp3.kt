@@ -0,0 +1,105 @@
+package net.transgressoft.musicott.test.library
+
+import java.io.ByteArrayOutputStream
+import java.nio.charset.StandardCharsets
+
+/**
+ * The smallest MP3 the tag readers accept: a few MPEG-1 Layer III frames of silence.
+ *
+ * Each frame is a 4-byte header (128 kbit/s, 44.1 kHz, mono, no CRC, no padding) followed by
+ * zeroed side information and main data, which decoders play as silence. Readers look for a
+ * second frame right after the first one to confirm the stream, hence more than one.
+ */
+internal object SilentMp3 {
+    const val BIT_RATE_KBPS = 128
+    const val SAMPLE_RATE = 44_100
+    private const val FRAMES = 4
+    private const val SAMPLES_PER_FRAME = 1_152
+    private const val FRAME_LENGTH = 144 * BIT_RATE_KBPS * 1_000 / SAMPLE_RATE
+
+    const val DURATION_MILLIS = FRAMES * SAMPLES_PER_FRAME * 1_000L / SAMPLE_RATE
+
+    private val frames =
+        ByteArray(FRAMES * FRAME_LENGTH).also { bytes ->
+            for (frame in 0 until FRAMES) {
+                val offset = frame * FRAME_LENGTH
+                bytes[offset] = 0xFF.toByte()
+                bytes[offset + 1] = 0xFB.toByte()
+                bytes[offset + 2] = 0x90.toByte()
+                bytes[offset + 3] = 0xC4.toByte()
+            }
+        }
+
+    fun withTag(tag: ByteArray): ByteArray = tag + frames
+}
+
+/**
+ * Minimal ID3v2.4 tag writer: UTF-8 text frames and an optional front cover. Building the bytes
+ * directly keeps generating 100k files fast and independent of a tagging library's output.
+ */
+internal object Id3v24Tag {
+    private const val UTF_8_ENCODING: Byte = 3
+    private const val LATIN_1_ENCODING: Byte = 0
+    private const val FRONT_COVER: Byte = 3
+
+    fun of(
+        track: SyntheticLibrary.Track,
+        pngCover: ByteArray?
+    ): ByteArray {
+        val frames = ByteArrayOutputStream()
+        textFrame(frames, "TIT2", track.title)
+        textFrame(frames, "TPE1", track.artist)
+        textFrame(frames, "TPE2", track.albumArtist)
+        textFrame(frames, "TALB", track.album)
+        textFrame(frames, "TCON", track.genre)
+        textFrame(frames, "TDRC", track.year.toString())
+        textFrame(frames, "TRCK", "${track.trackNumber}/${track.albumTrackCount}")
+        textFrame(frames, "TPOS", "1/1")
+        if (track.compilation) {
+            textFrame(frames, "TCMP", "1")
+        }
+        if (pngCover != null) {
+            val picture = ByteArrayOutputStream()
+            picture.write(LATIN_1_ENCODING.toInt())
+            picture.write("image/png".toByteArray(StandardCharsets.ISO_8859_1))
+            picture.write(0)
+            picture.write(FRONT_COVER.toInt())
+            picture.write(0) // empty description
+            picture.write(pngCover)
+            frame(frames, "APIC", picture.toByteArray())
+        }
+
+        val tag = ByteArrayOutputStream()
+        tag.write("ID3".toByteArray(StandardCharsets.ISO_8859_1))
+        tag.write(byteArrayOf(4, 0, 0))
+        tag.write(syncSafe(frames.size()))
+        frames.writeTo(tag)
+        return tag.toByteArray()
+    }
+
+    private fun textFrame(
+        out: ByteArrayOutputStream,
+        id: String,
+        text: String
+    ) = frame(out, id, byteArrayOf(UTF_8_ENCODING) + text.toByteArray(StandardCharsets.UTF_8))
+
+    private fun frame(
+        out: ByteArrayOutputStream,
+        id: String,
+        content: ByteArray
+    ) {
+        out.write(id.toByteArray(StandardCharsets.ISO_8859_1))
+        out.write(syncSafe(content.size))
+        out.write(byteArrayOf(0, 0))
+        out.write(content)
+    }
+
+    // ID3v2.4 sizes use 7 bits per byte so they never contain an MPEG frame sync
+    private fun syncSafe(size: Int): ByteArray =
+        byteArrayOf(
+            (size shr 21 and 0x7F).toByte(),
+            (size shr 14 and 0x7F).toByte(),
+            (size shr 7 and 0x7F).toByte(),
+            (size and 0x7F).toByte()
+        )
+}
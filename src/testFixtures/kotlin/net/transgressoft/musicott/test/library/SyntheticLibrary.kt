@@ -0,0 +1,422 @@
+package net.transgressoft.musicott.test.library
+
+import javafx.application.Platform
+import net.transgressoft.commons.fx.music.FXMusicLibrary
+import net.transgressoft.commons.music.audio.AudioFileType
+import net.transgressoft.commons.music.itunes.ItunesImportPolicy
+import net.transgressoft.commons.music.itunes.ItunesImportService
+import net.transgressoft.commons.music.itunes.ItunesLibraryParser
+import net.transgressoft.commons.persistence.fx.music.audio.FXAudioItemSqlTableDef
+import net.transgressoft.commons.persistence.fx.music.playlist.ObservablePlaylistMapSerializer
+import net.transgressoft.lirp.persistence.json.JsonFileRepository
+import net.transgressoft.lirp.persistence.sql.SqliteRepository
+import net.transgressoft.musicott.persistence.ProgressiveAudioRepository
+import java.awt.Color
+import java.awt.image.BufferedImage
+import java.io.ByteArrayOutputStream
+import java.io.Writer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.LocalDateTime
+import java.time.format.DateTimeFormatter
+import java.util.concurrent.TimeUnit
+import javax.imageio.ImageIO
+import kotlin.random.Random
+
+/**
+ * Deterministic synthetic music library for benchmarks and scale tests.
+ *
+ * Every track is derived from the [seed] and its id alone, so a library of any size is written as
+ * a stream without holding its tracks in memory, and the same seed and size always produce the
+ * same files. Tracks are grouped in albums of up to [TRACKS_PER_ALBUM], three albums per artist,
+ * with every tenth album a compilation. A library can be written as:
+ *
+ * - tiny valid MP3 files ([writeAudioFiles]): a few frames of silence behind an ID3v2.4 tag with
+ *   the track's metadata and, optionally, a cover per album;
+ * - an iTunes library XML pointing at those files ([writeItunesXml]), with a playlist of the whole
+ *   library and a folder of smaller playlists;
+ * - the application's audio items database and playlists JSON file ([writeApplicationData]),
+ *   imported from that XML the way the application imports it.
+ *
+ * [generate] writes all of them under one directory. Replaces the XML files that used to be
+ * generated from a maintainer's local music collection, so benchmark numbers are reproducible
+ * anywhere.
+ *
+ * @param trackCount number of tracks, with ids from 1 to [trackCount]
+ * @param seed seed every generated value derives from
+ */
+class SyntheticLibrary @JvmOverloads constructor(
+    val trackCount: Int,
+    val seed: Long = DEFAULT_SEED
+) {
+    init {
+        require(trackCount > 0) { "A synthetic library needs at least one track" }
+    }
+
+    /**
+     * Library sizes shared by the benchmarks. The first three match the tiers of the former
+     * collection-based datasets.
+     */
+    enum class Tier(val trackCount: Int) {
+        SMALL(100),
+        MEDIUM(1_200),
+        LARGE(18_000),
+        HUGE(100_000)
+    }
+
+    /**
+     * One generated track. [relativePath] is where its audio file lives under an audio directory.
+     */
+    data class Track(
+        val id: Int,
+        val title: String,
+        val artist: String,
+        val albumArtist: String,
+        val album: String,
+        val compilation: Boolean,
+        val genre: String,
+        val year: Int,
+        val trackNumber: Int,
+        val albumTrackCount: Int,
+        val playCount: Int,
+        val dateAdded: LocalDateTime,
+        val relativePath: String
+    )
+
+    /**
+     * Files written by [generate].
+     */
+    data class GeneratedFiles(
+        val audioDirectory: Path,
+        val itunesXml: Path,
+        val audioItemsDatabase: Path?,
+        val playlistsJson: Path?
+    )
+
+    companion object {
+        const val DEFAULT_SEED = 20_240_115L
+        const val TRACKS_PER_ALBUM = 12
+        const val TRACKS_PER_PLAYLIST = 25
+
+        // Same names as the files of MusicottApplication.ApplicationPaths
+        const val AUDIO_ITEMS_DATABASE_NAME = "audioItems.db"
+        const val PLAYLISTS_JSON_NAME = "playlists.json"
+        const val ITUNES_XML_NAME = "itunes-library.xml"
+        const val AUDIO_DIRECTORY_NAME = "audio"
+
+        const val LIBRARY_PLAYLIST_NAME = "Library"
+        const val PLAYLIST_FOLDER_NAME = "Synthetic Mixes"
+
+        private const val ALBUMS_PER_ARTIST = 3
+        private const val COMPILATION_EVERY = 10
+        private const val MAX_PLAYLISTS = 400
+        private const val COVER_SIZE = 64
+        private const val IMPORT_TIMEOUT_MINUTES = 30L
+
+        // The JSON playlist repository writes on a debounce window; wait for it before closing
+        private const val JSON_FLUSH_WINDOW_MILLIS = 600L
+
+        private const val ARTIST_SALT = 1L
+        private const val ALBUM_SALT = 2L
+        private const val TRACK_SALT = 3L
+        private const val COVER_SALT = 4L
+        private const val PLAYLIST_SALT = 5L
+
+        private val FIRST_DATE_ADDED: LocalDateTime = LocalDateTime.of(2015, 1, 1, 0, 0)
+        private val XML_DATE: DateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'")
+
+        private val ADJECTIVES =
+            listOf(
+                "Crimson", "Silent", "Electric", "Golden", "Hollow", "Velvet", "Broken", "Distant",
+                "Frozen", "Neon", "Wild", "Quiet", "Burning", "Paper", "Midnight", "Lunar",
+                "Restless", "Gentle", "Savage", "Crystal", "Faded", "Hidden", "Endless", "Scarlet",
+                "Café", "Señorita", "Noël", "Blue", "Iron", "Sugar", "Little", "Cosmic"
+            )
+        private val NOUNS =
+            listOf(
+                "Owls", "Rivers", "Machines", "Gardens", "Echoes", "Satellites", "Wolves", "Letters",
+                "Mirrors", "Horizons", "Streets", "Lanterns", "Tides", "Engines", "Ghosts", "Dancers",
+                "Harbors", "Signals", "Flowers", "Cities", "Shadows", "Voices", "Islands", "Storms",
+                "Mañana", "Château", "Weekend", "Heart", "Summer", "Radio", "Dreams", "Skies"
+            )
+        private val ARTIST_SUFFIXES = listOf("", "", " Band", " Trio", " Collective", " & The Strangers")
+        private val GENRES =
+            listOf(
+                "Rock", "Pop", "Jazz", "Electronic", "Hip-Hop", "Classical", "Folk", "Soul",
+                "Ambient", "Metal", "Reggae", "Blues", "House", "Techno", "Country", "Latin"
+            )
+
+        /**
+         * The library of the given [tier] name (case-insensitive), with the default seed.
+         */
+        @JvmStatic
+        fun tier(name: String): SyntheticLibrary = SyntheticLibrary(Tier.valueOf(name.uppercase()).trackCount)
+    }
+
+    private val albumCount = (trackCount + TRACKS_PER_ALBUM - 1) / TRACKS_PER_ALBUM
+
+    /**
+     * Number of playlists in the playlist folder, besides the whole-library playlist.
+     */
+    val playlistCount: Int = (trackCount / (TRACKS_PER_PLAYLIST * 10)).coerceIn(1, MAX_PLAYLISTS)
+
+    fun track(id: Int): Track {
+        require(id in 1..trackCount) { "Track id $id is not in 1..$trackCount" }
+        val albumIndex = (id - 1) / TRACKS_PER_ALBUM
+        val trackNumber = (id - 1) % TRACKS_PER_ALBUM + 1
+        val albumRandom = random(ALBUM_SALT, albumIndex)
+        val trackRandom = random(TRACK_SALT, id)
+
+        val compilation = albumIndex % COMPILATION_EVERY == COMPILATION_EVERY - 1
+        val albumArtist = if (compilation) "Various Artists" else artistName(albumIndex / ALBUMS_PER_ARTIST)
+        val artist = if (compilation) artistName(trackRandom.nextInt(albumCount)) else albumArtist
+        val album = "${words(albumRandom, 1 + albumRandom.nextInt(3))}${if (compilation) " Vol. ${albumIndex % 9 + 1}" else ""}"
+        val title = words(trackRandom, 1 + trackRandom.nextInt(4))
+        return Track(
+            id = id,
+            title = title,
+            artist = artist,
+            albumArtist = albumArtist,
+            album = album,
+            compilation = compilation,
+            genre = GENRES[albumRandom.nextInt(GENRES.size)],
+            year = 1960 + albumRandom.nextInt(65),
+            trackNumber = trackNumber,
+            albumTrackCount = minOf(TRACKS_PER_ALBUM, trackCount - albumIndex * TRACKS_PER_ALBUM),
+            playCount = trackRandom.nextInt(50),
+            dateAdded = FIRST_DATE_ADDED.plusMinutes(37L * id),
+            relativePath = "${fileName(albumArtist)}/${fileName(album)} [${albumIndex + 1}]/${"%06d".format(id)} ${fileName(title)}.mp3"
+        )
+    }
+
+    fun tracks(): Sequence<Track> = (1..trackCount).asSequence().map(::track)
+
+    /**
+     * Writes the audio files, the iTunes XML and, when [withApplicationData], the application's
+     * database and playlists file under [directory], with the names in the companion object.
+     * Covers are embedded when [withCovers]. Writing the application data needs a JavaFX toolkit,
+     * which is started if it is not running.
+     */
+    @JvmOverloads
+    fun generate(
+        directory: Path,
+        withCovers: Boolean = false,
+        withApplicationData: Boolean = false
+    ): GeneratedFiles {
+        val audioDirectory = directory.resolve(AUDIO_DIRECTORY_NAME)
+        val itunesXml = directory.resolve(ITUNES_XML_NAME)
+        writeAudioFiles(audioDirectory, withCovers)
+        writeItunesXml(itunesXml, audioDirectory)
+        if (!withApplicationData) {
+            return GeneratedFiles(audioDirectory, itunesXml, null, null)
+        }
+        val database = directory.resolve(AUDIO_ITEMS_DATABASE_NAME)
+        val playlists = directory.resolve(PLAYLISTS_JSON_NAME)
+        writeApplicationData(database, playlists, itunesXml)
+        return GeneratedFiles(audioDirectory, itunesXml, database, playlists)
+    }
+
+    /**
+     * Writes one MP3 file per track under [audioDirectory] at its [Track.relativePath].
+     */
+    @JvmOverloads
+    fun writeAudioFiles(audioDirectory: Path, withCovers: Boolean = false) {
+        var coverAlbumIndex = -1
+        var cover: ByteArray? = null
+        tracks().forEach { track ->
+            val albumIndex = (track.id - 1) / TRACKS_PER_ALBUM
+            if (withCovers && albumIndex != coverAlbumIndex) {
+                cover = cover(albumIndex)
+                coverAlbumIndex = albumIndex
+            }
+            val file = audioDirectory.resolve(track.relativePath)
+            Files.createDirectories(file.parent)
+            Files.write(file, SilentMp3.withTag(Id3v24Tag.of(track, cover)))
+        }
+    }
+
+    /**
+     * Writes the iTunes library XML of every track, with locations under [audioDirectory].
+     */
+    fun writeItunesXml(
+        xmlFile: Path,
+        audioDirectory: Path
+    ) {
+        xmlFile.parent?.let { Files.createDirectories(it) }
+        Files.newBufferedWriter(xmlFile).use { out ->
+            out.write(
+                """
+                |<?xml version="1.0" encoding="UTF-8"?>
+                |<!DOCTYPE plist PUBLIC "-//Apple Computer//DTD PLIST 1.0//EN" "http://www.apple.com/DTDs/PropertyList-1.0.dtd">
+                |<plist version="1.0">
+                |<dict>
+                |    <key>Major Version</key><integer>1</integer>
+                |    <key>Minor Version</key><integer>1</integer>
+                |    <key>Application Version</key><string>12.10</string>
+                |    <key>Date</key><date>${XML_DATE.format(FIRST_DATE_ADDED)}</date>
+                |    <key>Library Persistent ID</key><string>${persistentId(0)}</string>
+                |    <key>Tracks</key>
+                |    <dict>
+                |""".trimMargin()
+            )
+            tracks().forEach { writeTrack(out, it, audioDirectory) }
+            out.write("    </dict>\n    <key>Playlists</key>\n    <array>\n")
+            writePlaylist(out, LIBRARY_PLAYLIST_NAME, persistentId(-1), parent = null, trackIds = (1..trackCount).asSequence())
+            out.write(
+                """
+                |        <dict>
+                |            <key>Name</key><string>$PLAYLIST_FOLDER_NAME</string>
+                |            <key>Playlist Persistent ID</key><string>${persistentId(-2)}</string>
+                |            <key>Folder</key><true/>
+                |        </dict>
+                |""".trimMargin()
+            )
+            (1..playlistCount).forEach { playlist ->
+                val playlistRandom = random(PLAYLIST_SALT, playlist)
+                val trackIds = generateSequence { 1 + playlistRandom.nextInt(trackCount) }.take(minOf(TRACKS_PER_PLAYLIST, trackCount)).distinct()
+                writePlaylist(out, "Mix $playlist", persistentId(-2L - playlist), persistentId(-2), trackIds)
+            }
+            out.write("    </array>\n</dict>\n</plist>\n")
+        }
+    }
+
+    /**
+     * Imports the library from [itunesXml] into an audio items database at [audioItemsDatabase] and
+     * a playlists file at [playlistsJson], through the same import service and bulk import the
+     * application uses. The audio files the XML points at must exist. Starts the JavaFX toolkit,
+     * which the library's observable properties need, if it is not running.
+     */
+    fun writeApplicationData(
+        audioItemsDatabase: Path,
+        playlistsJson: Path,
+        itunesXml: Path
+    ) {
+        startFxToolkit()
+        audioItemsDatabase.parent?.let { Files.createDirectories(it) }
+        Files.deleteIfExists(playlistsJson)
+        Files.createFile(playlistsJson)
+
+        val audioRepository =
+            ProgressiveAudioRepository(
+                SqliteRepository.fileBacked(audioItemsDatabase, FXAudioItemSqlTableDef),
+                compareBy { it.id },
+                firstPageSize = Int.MAX_VALUE
+            )
+        val library =
+            FXMusicLibrary.builder()
+                .audioRepository(audioRepository)
+                .playlistRepository(JsonFileRepository(playlistsJson.toFile(), ObservablePlaylistMapSerializer))
+                .build()
+        try {
+            val itunesLibrary = ItunesLibraryParser.parse(itunesXml)
+            val playlists = itunesLibrary.playlists.filter { !it.isFolder }
+            val policy = ItunesImportPolicy(false, true, false, AudioFileType.values().toSet())
+            val bulkImport = audioRepository.beginBulkImport()
+            try {
+                ItunesImportService(library)
+                    .importAsync(playlists, itunesLibrary, policy) { }
+                    .get(IMPORT_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+            } finally {
+                bulkImport.end()
+            }
+            Thread.sleep(JSON_FLUSH_WINDOW_MILLIS)
+        } finally {
+            // Closing the SQLite repository checkpoints its WAL into a self-contained database file
+            library.close()
+        }
+    }
+
+    private fun writeTrack(
+        out: Writer,
+        track: Track,
+        audioDirectory: Path
+    ) {
+        val location = audioDirectory.resolve(track.relativePath).toAbsolutePath().toUri()
+        out.write("        <key>${track.id}</key>\n        <dict>\n")
+        out.write("            <key>Track ID</key><integer>${track.id}</integer>\n")
+        out.write("            <key>Persistent ID</key><string>${persistentId(track.id.toLong())}</string>\n")
+        out.write("            <key>Name</key><string>${escape(track.title)}</string>\n")
+        out.write("            <key>Artist</key><string>${escape(track.artist)}</string>\n")
+        out.write("            <key>Album Artist</key><string>${escape(track.albumArtist)}</string>\n")
+        out.write("            <key>Album</key><string>${escape(track.album)}</string>\n")
+        out.write("            <key>Genre</key><string>${track.genre}</string>\n")
+        out.write("            <key>Kind</key><string>MPEG audio file</string>\n")
+        out.write("            <key>Total Time</key><integer>${SilentMp3.DURATION_MILLIS}</integer>\n")
+        out.write("            <key>Disc Number</key><integer>1</integer>\n")
+        out.write("            <key>Disc Count</key><integer>1</integer>\n")
+        out.write("            <key>Track Number</key><integer>${track.trackNumber}</integer>\n")
+        out.write("            <key>Track Count</key><integer>${track.albumTrackCount}</integer>\n")
+        out.write("            <key>Year</key><integer>${track.year}</integer>\n")
+        out.write("            <key>Bit Rate</key><integer>${SilentMp3.BIT_RATE_KBPS}</integer>\n")
+        out.write("            <key>Sample Rate</key><integer>${SilentMp3.SAMPLE_RATE}</integer>\n")
+        out.write("            <key>Play Count</key><integer>${track.playCount}</integer>\n")
+        out.write("            <key>Date Added</key><date>${XML_DATE.format(track.dateAdded)}</date>\n")
+        if (track.compilation) {
+            out.write("            <key>Compilation</key><true/>\n")
+        }
+        out.write("            <key>Location</key><string>${escape(location.toString())}</string>\n")
+        out.write("        </dict>\n")
+    }
+
+    private fun writePlaylist(
+        out: Writer,
+        name: String,
+        persistentId: String,
+        parent: String?,
+        trackIds: Sequence<Int>
+    ) {
+        out.write("        <dict>\n")
+        out.write("            <key>Name</key><string>${escape(name)}</string>\n")
+        out.write("            <key>Playlist Persistent ID</key><string>$persistentId</string>\n")
+        if (parent != null) {
+            out.write("            <key>Parent Persistent ID</key><string>$parent</string>\n")
+        }
+        out.write("            <key>Playlist Items</key>\n            <array>\n")
+        trackIds.forEach { out.write("                <dict><key>Track ID</key><integer>$it</integer></dict>\n") }
+        out.write("            </array>\n        </dict>\n")
+    }
+
+    private fun artistName(artistIndex: Int): String {
+        val artistRandom = random(ARTIST_SALT, artistIndex)
+        val name = "${ADJECTIVES[artistRandom.nextInt(ADJECTIVES.size)]} ${NOUNS[artistRandom.nextInt(NOUNS.size)]}"
+        return name + ARTIST_SUFFIXES[artistRandom.nextInt(ARTIST_SUFFIXES.size)]
+    }
+
+    private fun words(
+        random: Random,
+        count: Int
+    ): String =
+        (1..count).joinToString(" ") {
+            if (it % 2 == 1) ADJECTIVES[random.nextInt(ADJECTIVES.size)] else NOUNS[random.nextInt(NOUNS.size)]
+        }
+
+    private fun cover(albumIndex: Int): ByteArray {
+        val image = BufferedImage(COVER_SIZE, COVER_SIZE, BufferedImage.TYPE_INT_RGB)
+        val graphics = image.createGraphics()
+        graphics.color = Color(random(COVER_SALT, albumIndex).nextInt(0x1000000))
+        graphics.fillRect(0, 0, COVER_SIZE, COVER_SIZE)
+        graphics.dispose()
+        return ByteArrayOutputStream().also { ImageIO.write(image, "png", it) }.toByteArray()
+    }
+
+    private fun random(
+        salt: Long,
+        index: Int
+    ): Random = Random(seed * 1_000_003L + salt * 7_919L * 1_000_003L + index)
+
+    private fun persistentId(value: Long): String = "%016X".format(seed xor (value * 0x9E3779B97F4A7C1L))
+
+    private fun fileName(name: String): String = name.replace(Regex("""[/\\:*?"<>|]"""), "_")
+
+    private fun escape(text: String): String =
+        text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;")
+
+    private fun startFxToolkit() {
+        try {
+            Platform.startup { }
+        } catch (alreadyRunning: IllegalStateException) {
+            // Toolkit already initialized in this JVM, nothing to do
+        }
+        Platform.setImplicitExit(false)
+    }
+}
@@ -0,0 +1,270 @@
+package net.transgressoft.musicott.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.stage.Stage;
+import net.rgielen.fxweaver.core.FxWeaver;
+import net.transgressoft.commons.fx.music.audio.ObservableAudioLibrary;
+import net.transgressoft.commons.fx.music.audio.ObservableGenreIndex;
+import net.transgressoft.musicott.MusicottApplication;
+import net.transgressoft.musicott.test.library.SyntheticLibrary;
+import net.transgressoft.musicott.view.NavigationController.NavigationMode;
+import net.transgressoft.musicott.view.custom.table.FullAudioItemTableView;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testfx.api.FxToolkit;
+import org.testfx.framework.junit5.ApplicationExtension;
+import org.testfx.util.WaitForAsyncUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.testfx.util.WaitForAsyncUtils.waitFor;
+
+/**
+ * UI responsiveness benchmark: boots the whole application headless on a pre-seeded
+ * {@link SyntheticLibrary} of {@code musicott.uiBenchmark.tracks} tracks and plays scripted
+ * scenarios on the real controllers through a {@link PulseRecorder}, each one starting from an
+ * idle scene. When the class finishes, the recorded percentiles of every scenario are written as
+ * JSON to {@code musicott.uiBenchmark.report}.
+ *
+ * <p>Run with {@code gradle uiBenchmark} (see {@code gradle/ui-benchmark.gradle}), not part of
+ * {@code check}. Scenarios measure, they do not assert thresholds: compare the reports of two
+ * revisions instead.
+ */
+@SpringBootTest(classes = {MusicottApplication.class, LibraryResponsivenessBenchmark.SyntheticLibraryPaths.class})
+@ActiveProfiles("ui-benchmark")
+@ExtendWith(ApplicationExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@DisplayName("UI responsiveness")
+class LibraryResponsivenessBenchmark {
+
+    static final int TRACK_COUNT = Integer.getInteger("musicott.uiBenchmark.tracks", 1_000);
+
+    private static final Path REPORT = Path.of(System.getProperty(
+            "musicott.uiBenchmark.report", "build/reports/ui-benchmark/tracks-" + TRACK_COUNT + ".json"));
+
+    // A fast mouse-wheel flick: a few rows per frame for four seconds
+    private static final int SCROLL_FRAMES = 240;
+    private static final double SCROLL_PIXELS_PER_FRAME = 120;
+    private static final int SCROLL_JUMPS = 20;
+    private static final int FRAMES_BETWEEN_JUMPS = 6;
+    // Roughly a fast typist: one character every 100 ms
+    private static final int FRAMES_BETWEEN_KEYSTROKES = 6;
+
+    private static final List<ScenarioResult> results = new ArrayList<>();
+
+    static Stage testStage;
+
+    // The generated library, deleted once the class is done
+    static Path libraryDir;
+
+    @Autowired
+    FxWeaver fxWeaver;
+
+    @Autowired
+    ObservableAudioLibrary audioLibrary;
+
+    @Autowired
+    GenreViewController genreViewController;
+
+    Scene scene;
+    PulseRecorder recorder;
+
+    @BeforeAll
+    static void beforeAll() throws Exception {
+        testStage = FxToolkit.registerPrimaryStage();
+    }
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            scene = new Scene(fxWeaver.loadView(MainController.class), 1200, 800);
+            testStage.setScene(scene);
+            testStage.show();
+        });
+        recorder = new PulseRecorder(scene);
+        waitFor(120, TimeUnit.SECONDS, () -> queryFx(() -> audioLibrary.getAudioItemsProperty().size()) == TRACK_COUNT);
+        navigateTo(NavigationMode.ALL_AUDIO_ITEMS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        FxToolkit.setupFixture(() -> {
+            if (testStage.isShowing()) {
+                testStage.hide();
+            }
+            testStage.setScene(null);
+        });
+    }
+
+    @AfterAll
+    static void afterAll() throws Exception {
+        FxToolkit.cleanupStages();
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter()
+                .writeValue(REPORT.toFile(), new Report(TRACK_COUNT, PulseRecorder.FRAME_BUDGET_NANOS / 1_000_000.0, results));
+        deleteDirectory(libraryDir);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("scrolls the full track table")
+    void scrollsTheFullTrackTable() throws Exception {
+        VirtualFlow<?> flow = queryFx(() -> (VirtualFlow<?>) visibleTrackTable().lookup(".virtual-flow"));
+
+        record(recorder.play("scroll-all-tracks", 1,
+                             IntStream.range(0, SCROLL_FRAMES)
+                                     .<Runnable>mapToObj(frame -> () -> flow.scrollPixels(SCROLL_PIXELS_PER_FRAME))
+                                     .toList()));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("jumps to distant rows of the full track table")
+    void jumpsToDistantRowsOfTheFullTrackTable() throws Exception {
+        FullAudioItemTableView table = queryFx(this::visibleTrackTable);
+        Random random = new Random(SyntheticLibrary.DEFAULT_SEED);
+
+        record(recorder.play("jump-all-tracks", FRAMES_BETWEEN_JUMPS,
+                             IntStream.range(0, SCROLL_JUMPS)
+                                     .<Runnable>mapToObj(jump -> {
+                                         int row = random.nextInt(TRACK_COUNT);
+                                         return () -> table.scrollTo(row);
+                                     })
+                                     .toList()));
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("switches between every navigation mode")
+    void switchesBetweenEveryNavigationMode() throws Exception {
+        for (NavigationMode mode : List.of(NavigationMode.ARTISTS, NavigationMode.ALBUMS, NavigationMode.GENRES,
+                                           NavigationMode.PLAYLIST, NavigationMode.ALL_AUDIO_ITEMS)) {
+            ListView<NavigationMode> navigation = navigationList();
+            record(recorder.play("navigate-" + mode.name().toLowerCase(Locale.ROOT), 1,
+                                 List.of(() -> navigation.getSelectionModel().select(mode))));
+        }
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("opens the drawer of the largest genre")
+    void opensTheDrawerOfTheLargestGenre() throws Exception {
+        navigateTo(NavigationMode.GENRES);
+        ObservableGenreIndex largestGenre = queryFx(() -> audioLibrary.getGenreIndexesProperty().stream()
+                .max(Comparator.comparingInt(genre -> genre.getSizeProperty().get()))
+                .orElseThrow());
+
+        record(recorder.play("open-largest-genre-drawer", 1, List.of(() -> genreViewController.openDrawer(largestGenre))));
+        record(recorder.play("close-largest-genre-drawer", 1, List.of(genreViewController::closeDrawer)));
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("types a search and clears it")
+    void typesASearchAndClearsIt() throws Exception {
+        TextField search = queryFx(() -> (TextField) scene.lookup("#searchTextField"));
+        // A word of the library's own vocabulary, so the search matches a realistic share of it
+        String query = new SyntheticLibrary(TRACK_COUNT).track(1).getTitle().split(" ")[0].toLowerCase(Locale.ROOT);
+
+        // The time to idle includes the search debounce
+        record(recorder.play("search-type", FRAMES_BETWEEN_KEYSTROKES,
+                             IntStream.rangeClosed(1, query.length())
+                                     .<Runnable>mapToObj(length -> () -> search.setText(query.substring(0, length)))
+                                     .toList()));
+        record(recorder.play("search-clear", 1, List.of(search::clear)));
+    }
+
+    private void navigateTo(NavigationMode mode) throws Exception {
+        ListView<NavigationMode> navigation = navigationList();
+        WaitForAsyncUtils.asyncFx(() -> navigation.getSelectionModel().select(mode)).get(5, TimeUnit.SECONDS);
+        recorder.awaitIdle();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ListView<NavigationMode> navigationList() {
+        return queryFx(() -> (ListView<NavigationMode>) scene.lookup("#navigationModeListView"));
+    }
+
+    private FullAudioItemTableView visibleTrackTable() {
+        return scene.getRoot().lookupAll("*").stream()
+                .filter(node -> node instanceof FullAudioItemTableView && node.isVisible())
+                .map(FullAudioItemTableView.class::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void record(ScenarioResult result) throws InterruptedException {
+        results.add(result);
+        recorder.awaitIdle();
+    }
+
+    private static <T> T queryFx(Callable<T> query) {
+        try {
+            return WaitForAsyncUtils.asyncFx(query).get(10, TimeUnit.SECONDS);
+        } catch (Exception exception) {
+            throw new IllegalStateException("Failed to read FX state on the Application Thread", exception);
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (var stream = Files.walk(dir)) {
+            stream.sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException ignored) {
+                        }
+                    });
+        }
+    }
+
+    record Report(int trackCount, double frameBudgetMillis, List<ScenarioResult> scenarios) {
+    }
+
+    @TestConfiguration
+    static class SyntheticLibraryPaths {
+
+        @Bean
+        @Primary
+        public MusicottApplication.ApplicationPaths applicationPaths() throws IOException {
+            Path tempDir = Files.createTempDirectory("musicott-ui-benchmark-" + TRACK_COUNT + "-");
+            libraryDir = tempDir;
+            var files = new SyntheticLibrary(TRACK_COUNT).generate(tempDir, false, true);
+            return new MusicottApplication.ApplicationPaths(
+                    files.getAudioItemsDatabase(),
+                    files.getPlaylistsJson(),
+                    tempDir.resolve("waveforms.json"));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package net.transgressoft.musicott.view;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+
+/**
+ * Plays a scripted scenario on a scene and records the FX pulses it causes.
+ *
+ * <p>An {@link AnimationTimer} runs for the whole recording, so the toolkit schedules a pulse on
+ * every frame even when nothing is dirty, and runs the scenario's steps at the start of a pulse,
+ * one every {@code framesPerStep} frames. For each pulse the recorder keeps:
+ * <ul>
+ *   <li>the <b>pulse duration</b>: FX-thread time from the start of the pulse to the end of the
+ *       scene's layout pass (animations, the step itself, CSS and layout, but not rendering);</li>
+ *   <li>the <b>frame interval</b>: time since the previous pulse started, which also covers the
+ *       {@code runLater} work and rendering back-pressure between pulses. Every whole frame budget
+ *       beyond the first in an interval counts as a <b>dropped frame</b>.</li>
+ * </ul>
+ * Once the last step ran the recording continues until the scene is idle: {@value #QUIET_FRAMES}
+ * consecutive pulses arriving on time with almost no work each. The <b>time to idle</b> runs from
+ * the last step to the first of those quiet pulses, so it includes background work (a search, a
+ * cover load) whose results come back to the FX thread.
+ */
+final class PulseRecorder {
+
+    /** Frame budget of the default 60 Hz pulse. */
+    static final long FRAME_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    private static final int QUIET_FRAMES = 10;
+    private static final long QUIET_PULSE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long LATE_FRAME_NANOS = FRAME_BUDGET_NANOS * 3 / 2;
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    private final Scene scene;
+
+    PulseRecorder(Scene scene) {
+        this.scene = scene;
+    }
+
+    /**
+     * Waits until the scene is idle, without recording, so a scenario does not pay for the work
+     * left over by the previous one.
+     */
+    void awaitIdle() throws InterruptedException {
+        play("idle", 1, List.of(() -> {}));
+    }
+
+    /**
+     * Runs {@code steps} on the FX thread, one every {@code framesPerStep} frames starting with the
+     * next pulse, and returns the pulses recorded until the scene went idle after the last one.
+     *
+     * @throws IllegalStateException if the scene is still busy a minute after the last step
+     */
+    ScenarioResult play(String scenario, int framesPerStep, List<Runnable> steps) throws InterruptedException {
+        Recording recording = new Recording(scenario, framesPerStep, steps);
+        Platform.runLater(recording::start);
+        try {
+            return recording.result.get(IDLE_TIMEOUT_SECONDS + steps.size() * framesPerStep, TimeUnit.SECONDS);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Scenario '" + scenario + "' failed", exception.getCause());
+        } catch (TimeoutException exception) {
+            Platform.runLater(recording::stop);
+            throw new IllegalStateException("Scenario '" + scenario + "' did not finish", exception);
+        }
+    }
+
+    /**
+     * State of one recording, only touched on the FX thread.
+     */
+    private final class Recording extends AnimationTimer {
+
+        private final String scenario;
+        private final int framesPerStep;
+        private final List<Runnable> steps;
+        private final CompletableFuture<ScenarioResult> result = new CompletableFuture<>();
+        private final Runnable layoutListener = this::onLayoutDone;
+
+        private final LongStream.Builder pulses = LongStream.builder();
+        private final LongStream.Builder intervals = LongStream.builder();
+        private int frame;
+        private int nextStep;
+        private long pulseStart;
+        private long lastStepStart = -1;
+        private long lastInterval;
+        private int quietFrames;
+        private long quietSince;
+
+        private Recording(String scenario, int framesPerStep, List<Runnable> steps) {
+            this.scenario = scenario;
+            this.framesPerStep = framesPerStep;
+            this.steps = steps;
+        }
+
+        @Override
+        public void start() {
+            scene.addPostLayoutPulseListener(layoutListener);
+            super.start();
+        }
+
+        @Override
+        public void stop() {
+            super.stop();
+            scene.removePostLayoutPulseListener(layoutListener);
+        }
+
+        @Override
+        public void handle(long now) {
+            lastInterval = pulseStart == 0 ? 0 : now - pulseStart;
+            if (pulseStart != 0) {
+                intervals.add(lastInterval);
+            }
+            pulseStart = now;
+            if (nextStep < steps.size() && frame % framesPerStep == 0) {
+                try {
+                    steps.get(nextStep++).run();
+                } catch (RuntimeException exception) {
+                    stop();
+                    result.completeExceptionally(exception);
+                    return;
+                }
+                if (nextStep == steps.size()) {
+                    lastStepStart = now;
+                }
+            }
+            frame++;
+        }
+
+        private void onLayoutDone() {
+            if (pulseStart == 0 || result.isDone()) {
+                return;
+            }
+            long pulse = System.nanoTime() - pulseStart;
+            pulses.add(pulse);
+            if (lastStepStart < 0 || pulseStart == lastStepStart) {
+                return;
+            }
+
+            if (lastInterval <= LATE_FRAME_NANOS && pulse <= QUIET_PULSE_NANOS) {
+                if (quietFrames++ == 0) {
+                    quietSince = pulseStart;
+                }
+            } else {
+                quietFrames = 0;
+            }
+
+            if (quietFrames == QUIET_FRAMES) {
+                stop();
+                result.complete(ScenarioResult.of(scenario, pulses.build().toArray(), intervals.build().toArray(),
+                                                  quietSince - lastStepStart));
+            } else if (pulseStart - lastStepStart > TimeUnit.SECONDS.toNanos(IDLE_TIMEOUT_SECONDS)) {
+                stop();
+                result.completeExceptionally(new IllegalStateException("Scene never went idle"));
+            }
+        }
+    }
+}
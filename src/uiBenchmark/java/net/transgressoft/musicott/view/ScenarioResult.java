@@ -0,0 +1,50 @@
+package net.transgressoft.musicott.view;
+
+import java.util.Arrays;
+
+/**
+ * Pulses recorded by {@link PulseRecorder} for one scenario, in milliseconds.
+ *
+ * @param scenario            name of the scenario
+ * @param frames              number of pulses recorded
+ * @param droppedFrames       frame budgets missed between consecutive pulses
+ * @param pulseMillis         FX-thread duration of each pulse up to the end of its layout pass
+ * @param frameIntervalMillis time between the starts of consecutive pulses
+ * @param timeToIdleMillis    time from the last scripted step until the scene went idle
+ */
+record ScenarioResult(String scenario, int frames, long droppedFrames, Percentiles pulseMillis,
+                      Percentiles frameIntervalMillis, double timeToIdleMillis) {
+
+    static ScenarioResult of(String scenario, long[] pulseNanos, long[] intervalNanos, long timeToIdleNanos) {
+        long droppedFrames = Arrays.stream(intervalNanos)
+                .map(interval -> Math.max(0, Math.round((double) interval / PulseRecorder.FRAME_BUDGET_NANOS) - 1))
+                .sum();
+        return new ScenarioResult(scenario, pulseNanos.length, droppedFrames, Percentiles.of(pulseNanos),
+                                  Percentiles.of(intervalNanos), millis(timeToIdleNanos));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Nearest-rank percentiles of a set of durations, in milliseconds.
+     */
+    record Percentiles(double p50, double p90, double p99, double max) {
+
+        static Percentiles of(long[] nanos) {
+            if (nanos.length == 0) {
+                return new Percentiles(0, 0, 0, 0);
+            }
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return new Percentiles(millis(rank(sorted, 50)), millis(rank(sorted, 90)), millis(rank(sorted, 99)),
+                                   millis(sorted[sorted.length - 1]));
+        }
+
+        private static long rank(long[] sorted, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
@@ -18,6 +18,7 @@ import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.scene.Node;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.image.Image;
@@ -50,6 +51,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.context.annotation.ComponentScan.Filter;
@@ -70,6 +72,11 @@ class PlayQueueOrderingUIT extends ApplicationTestBase<GridPane> {
     @Autowired
     PlayerService playerService;
 
+    @Autowired
+    ObservableAudioLibrary audioLibrary;
+
+    int nextTrackId = 1;
+
     @Override
     protected GridPane javaFxComponent() {
         return playerControllerAndView.getView().get();
@@ -85,10 +92,14 @@ class PlayQueueOrderingUIT extends ApplicationTestBase<GridPane> {
 
     /**
      * Creates a mock {@link ObservableAudioItem} with all properties required by
-     * {@link TrackQueueRow} and {@code JavaFxPlayer.isPlayable} stubbed to playable MP3 defaults.
+     * {@link TrackQueueRow} and {@code JavaFxPlayer.isPlayable} stubbed to playable MP3 defaults,
+     * registered in the mocked library so the queued id resolves back to it.
      */
     ObservableAudioItem mockPlayableAudioItem(String title) {
         ObservableAudioItem item = mock(ObservableAudioItem.class);
+        int id = nextTrackId++;
+        when(item.getId()).thenReturn(id);
+        doReturn(Optional.of(item)).when(audioLibrary).findById(id);
         try {
             Path tempFile = Files.createTempFile("musicott-playqueue-uit-", ".mp3");
             tempFile.toFile().deleteOnExit();
@@ -126,15 +137,15 @@ class PlayQueueOrderingUIT extends ApplicationTestBase<GridPane> {
         Platform.runLater(playQueueButton::fire);
         WaitForAsyncUtils.waitForFxEvents();
 
-        ListView<TrackQueueRow> queuesListView = robot.lookup("#queuesListView").queryListView();
-        List<TrackQueueRow> items = new ArrayList<>(queuesListView.getItems());
+        ListView<Integer> queuesListView = robot.lookup("#queuesListView").queryListView();
+        List<Integer> items = new ArrayList<>(queuesListView.getItems());
         assertThat(items).hasSize(3);
         // Inverted storage: index 0 is the farthest-out track (plays last), size-1 is next-up.
         // The first selected item (A) is what the user wants played first, so addToQueue([A,B,C])
         // produces storage [C, B, A]: A at size-1 (next-up, bottom of the popover) and C at index 0
         // (farthest-out, top). Display follows storage 1:1.
-        assertThat(items.get(items.size() - 1).getTrack()).isSameAs(itemA);
-        assertThat(items.get(0).getTrack()).isSameAs(itemC);
+        assertThat(items.get(items.size() - 1)).isEqualTo(itemA.getId());
+        assertThat(items.get(0)).isEqualTo(itemC.getId());
     }
 
     @Test
@@ -156,9 +167,15 @@ class PlayQueueOrderingUIT extends ApplicationTestBase<GridPane> {
         Platform.runLater(playQueueButton::fire);
         WaitForAsyncUtils.waitForFxEvents();
 
-        ListView<TrackQueueRow> queuesListView = robot.lookup("#queuesListView").queryListView();
+        ListView<Integer> queuesListView = robot.lookup("#queuesListView").queryListView();
         Image defaultCover = ApplicationImage.DEFAULT_COVER.get();
-        for (TrackQueueRow row : queuesListView.getItems()) {
+        List<TrackQueueRow> rows = queuesListView.lookupAll(".list-cell").stream()
+                .map(cell -> ((ListCell<?>) cell).getGraphic())
+                .filter(TrackQueueRow.class::isInstance)
+                .map(TrackQueueRow.class::cast)
+                .toList();
+        assertThat(rows).hasSize(2);
+        for (TrackQueueRow row : rows) {
             // Use per-row lookup to avoid ambiguity when multiple coverImage nodes exist
             ImageView iv = (ImageView) row.lookup("#coverImage");
             assertThat(iv.getImage()).isNotNull();
@@ -184,9 +201,8 @@ class PlayQueueOrderingUIT extends ApplicationTestBase<GridPane> {
         robot.clickOn(playQueueButton);
         WaitForAsyncUtils.waitForFxEvents();
 
-        ListView<TrackQueueRow> queuesListView = robot.lookup("#queuesListView").queryListView();
-        TrackQueueRow nextUpRow = queuesListView.getItems().get(queuesListView.getItems().size() - 1);
-        Platform.runLater(() -> playerService.getPlayQueueList().remove(nextUpRow));
+        ListView<Integer> queuesListView = robot.lookup("#queuesListView").queryListView();
+        Platform.runLater(() -> playerService.removeFromPlayQueue(queuesListView.getItems().size() - 1));
         WaitForAsyncUtils.waitForFxEvents();
 
         assertThat(queuesListView.getItems()).hasSize(2);
@@ -210,8 +226,8 @@ class PlayQueueOrderingUITConfiguration {
     }
 
     @Bean
-    public PlayerService playerService(ApplicationEventPublisher publisher) {
-        return new PlayerService(publisher);   // REAL instance — UIT drives real list mutations
+    public PlayerService playerService(ApplicationEventPublisher publisher, ObservableAudioLibrary audioLibrary) {
+        return new PlayerService(publisher, audioLibrary);   // REAL instance — UIT drives real list mutations
     }
 
     @Bean